@@ -9,11 +9,19 @@ import lombok.Setter;
 
 import java.time.LocalDateTime;
 
-@Entity @Table(name = "agendamentos")
+@Entity @Table(name = "agendamentos", indexes = {
+        // Busca por dentista(s) numa faixa de datas
+        @Index(name = "idx_agendamentos_dentista_data_hora", columnList = "dentista_id, data_hora"),
+        // Faixa de datas sem dentista e paginação por (dataHora, id)
+        @Index(name = "idx_agendamentos_data_hora_id", columnList = "data_hora, id"),
+        // Fechamento do dia: pendentes de um status anteriores ao corte
+        @Index(name = "idx_agendamentos_status_data_hora", columnList = "status, data_hora")
+})
 @Getter @Setter @NoArgsConstructor
 public class Agenda {
 
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "agendamentos_seq")
+    @SequenceGenerator(name = "agendamentos_seq", sequenceName = "agendamentos_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false) @JoinColumn(name = "paciente_id")
@@ -1,10 +1,18 @@
 package com.consultorio.domain.agenda;
 
 import com.consultorio.domain.agenda.dto.*;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/agendamentos")
@@ -12,9 +20,18 @@ import java.util.List;
 public class AgendaController {
 
     private final AgendaService service;
+    private final AgendaEventosHub eventosHub;
+    private final AgendaDiaCache diaCache;
+    private final AgendaStatusLoteService statusLoteService;
+    private final ObjectMapper objectMapper;
 
-    public AgendaController(AgendaService service) {
+    public AgendaController(AgendaService service, AgendaEventosHub eventosHub, AgendaDiaCache diaCache,
+                            AgendaStatusLoteService statusLoteService, ObjectMapper objectMapper) {
         this.service = service;
+        this.eventosHub = eventosHub;
+        this.diaCache = diaCache;
+        this.statusLoteService = statusLoteService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -27,6 +44,37 @@ public class AgendaController {
         return ResponseEntity.ok(service.listar());
     }
 
+    // Ex.: /busca?inicio=2025-03-03T00:00:00&fim=2025-03-10T00:00:00&dentistaIds=1,2&status=AGENDADO
+    @GetMapping("/busca")
+    public ResponseEntity<AgendaPaginaDTO> pesquisar(AgendaFiltroDTO filtro){
+        return ResponseEntity.ok(service.pesquisar(filtro));
+    }
+
+    @GetMapping("/resumo")
+    public ResponseEntity<List<AgendaListDTO>> listarResumo(){
+        return ResponseEntity.ok(service.listarResumo());
+    }
+
+    // Feed de alterações (SSE) filtrado por dentista(s) e dia, no lugar do polling da listagem
+    @GetMapping(value = "/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter eventos(@RequestParam(required = false) Set<Long> dentistaIds,
+                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dia){
+        return eventosHub.assinar(AgendaEvento.class, dentistaIds != null ? dentistaIds : Set.of(), dia);
+    }
+
+    // Agenda do dia do dentista, servida do cache como JSON pronto
+    @GetMapping(value = "/dentista/{id}/dia/{dia}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> agendaDoDia(@PathVariable Long id,
+                                              @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dia){
+        byte[] json = diaCache.obter(AgendaEvento.class, id, dia, () -> paraJson(service.listarDoDia(id, dia)));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+    }
+
+    @GetMapping("/cache/estatisticas")
+    public ResponseEntity<AgendaDiaCache.Estatisticas> estatisticasCache(){
+        return ResponseEntity.ok(diaCache.estatisticas());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<AgendaResponseDTO> buscar(@PathVariable Long id){
         return ResponseEntity.ok(service.buscar(id));
@@ -37,9 +85,30 @@ public class AgendaController {
         return ResponseEntity.ok(service.atualizarStatus(id, status));
     }
 
+    // Mesmo status para vários agendamentos: { "ids": [1, 2, 3], "status": "CONFIRMADO" }
+    @PatchMapping("/status")
+    public ResponseEntity<AgendaStatusLoteService.ResultadoStatus> atualizarStatus(@RequestBody AgendaStatusUpdateDTO dto){
+        return ResponseEntity.ok(statusLoteService.atualizarStatus(dto.getIds(), dto.getStatus()));
+    }
+
+    // Dispara o fechamento fora do horário agendado (ex.: depois de uma falha no job)
+    @PostMapping("/fechamento")
+    public ResponseEntity<AgendaStatusLoteService.ResultadoFechamento> fechar(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime ate){
+        return ResponseEntity.ok(statusLoteService.fecharAte(ate != null ? ate : LocalDateTime.now()));
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> cancelar(@PathVariable Long id){
         service.cancelar(id);
         return ResponseEntity.noContent().build();
     }
+
+    private byte[] paraJson(Object valor){
+        try {
+            return objectMapper.writeValueAsBytes(valor);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao serializar a agenda", e);
+        }
+    }
 }
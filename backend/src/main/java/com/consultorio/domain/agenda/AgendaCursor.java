@@ -0,0 +1,33 @@
+package com.consultorio.domain.agenda;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Posição na listagem ordenada por (dataHora, id): a próxima página começa
+ * logo depois deste par. Vai ao cliente como texto opaco.
+ */
+public record AgendaCursor(LocalDateTime dataHora, Long id) {
+
+    public static AgendaCursor de(Agenda agenda) {
+        return new AgendaCursor(agenda.getDataHora(), agenda.getId());
+    }
+
+    public String codificar() {
+        String valor = dataHora + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static AgendaCursor decodificar(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = valor.indexOf('|');
+            return new AgendaCursor(
+                    LocalDateTime.parse(valor.substring(0, separador)),
+                    Long.valueOf(valor.substring(separador + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor de paginação inválido");
+        }
+    }
+}
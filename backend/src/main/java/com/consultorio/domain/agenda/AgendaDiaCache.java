@@ -0,0 +1,94 @@
+package com.consultorio.domain.agenda;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Agenda do dia por dentista, guardada já como JSON e descartada pelo
+ * evento de alteração (marcação, mudança de status, cancelamento) daquele dia.
+ * Serve as duas agendas (/api/agendamentos e a legada /agenda); a origem
+ * (classe do evento) entra na chave, já que os IDs de uma não valem na outra.
+ * LRU limitado por quantidade de entradas.
+ */
+@Component
+public class AgendaDiaCache {
+
+    private final Map<Chave, byte[]> entradas;
+
+    // Um carregamento que cruzou uma invalidação não é guardado
+    private final AtomicLong invalidacoes = new AtomicLong();
+
+    private final LongAdder acertos = new LongAdder();
+    private final LongAdder falhas = new LongAdder();
+    private final LongAdder descartes = new LongAdder();
+
+    public AgendaDiaCache(@Value("${agenda.cache-dia.maximo-entradas:500}") int maximoEntradas) {
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Chave, byte[]> maisAntiga) {
+                boolean remover = size() > maximoEntradas;
+                if (remover) {
+                    descartes.increment();
+                }
+                return remover;
+            }
+        };
+    }
+
+    public byte[] obter(Class<? extends AlteracaoAgenda> origem, Long dentistaId, LocalDate dia,
+                        Supplier<byte[]> carregar) {
+        Chave chave = new Chave(origem, dentistaId, dia);
+        synchronized (entradas) {
+            byte[] json = entradas.get(chave);
+            if (json != null) {
+                acertos.increment();
+                return json;
+            }
+        }
+
+        falhas.increment();
+        long versao = invalidacoes.get();
+        // Fora do lock: uma consulta lenta não trava quem está lendo outras chaves
+        byte[] json = carregar.get();
+
+        synchronized (entradas) {
+            if (invalidacoes.get() == versao) {
+                entradas.put(chave, json);
+            }
+        }
+        return json;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarAgenda(AlteracaoAgenda evento) {
+        synchronized (entradas) {
+            invalidacoes.incrementAndGet();
+            entradas.remove(new Chave(evento.getClass(), evento.dentistaId(), evento.dia()));
+        }
+    }
+
+    public Estatisticas estatisticas() {
+        long hits = acertos.sum();
+        long misses = falhas.sum();
+        int tamanho;
+        synchronized (entradas) {
+            tamanho = entradas.size();
+        }
+        double taxa = hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+        return new Estatisticas(hits, misses, taxa, descartes.sum(), tamanho);
+    }
+
+    private record Chave(Class<?> origem, Long dentistaId, LocalDate dia) {
+    }
+
+    public record Estatisticas(long acertos, long falhas, double taxaAcerto, long descartes, int entradas) {
+    }
+}
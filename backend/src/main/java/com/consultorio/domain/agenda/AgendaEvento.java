@@ -0,0 +1,34 @@
+package com.consultorio.domain.agenda;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Alteração num agendamento; os ouvintes só a recebem depois do commit.
+ */
+public record AgendaEvento(Tipo tipo, Long agendaId, Long dentistaId, LocalDateTime dataHora, StatusAgendamento status)
+        implements AlteracaoAgenda {
+
+    public enum Tipo {
+        CRIADO,
+        STATUS_ALTERADO,
+        CANCELADO,
+        REMOVIDO,
+        // Prazo de confirmação vencido com o agendamento ainda AGENDADO (aviso para a recepção)
+        CONFIRMACAO_PENDENTE
+    }
+
+    @Override
+    public String nome() {
+        return tipo.name();
+    }
+
+    @Override
+    public LocalDate dia() {
+        return dataHora.toLocalDate();
+    }
+
+    public static AgendaEvento de(Tipo tipo, Agenda a) {
+        return new AgendaEvento(tipo, a.getId(), a.getDentista().getId(), a.getDataHora(), a.getStatus());
+    }
+}
@@ -0,0 +1,104 @@
+package com.consultorio.domain.agenda;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Entrega as alterações de agenda por Server-Sent Events a quem assinou
+ * /api/agendamentos/eventos ou /agenda/eventos, filtrando por dentista(s) e dia.
+ * As duas agendas usam este mesmo hub; a origem (classe do evento) separa os feeds,
+ * já que os IDs de uma não dizem nada na outra.
+ */
+@Component
+public class AgendaEventosHub {
+
+    // O EventSource do navegador reconecta sozinho quando a conexão expira
+    private static final long TIMEOUT_MS = Duration.ofMinutes(30).toMillis();
+
+    // Comentário periódico para proxies não derrubarem conexões ociosas
+    private static final long HEARTBEAT_SEGUNDOS = 25;
+
+    private final Set<Assinatura> assinaturas = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequencia = new AtomicLong();
+
+    // Envio fora da thread do commit; um único thread mantém a ordem dos eventos
+    private final ScheduledExecutorService envio = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "agendamentos-sse");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public AgendaEventosHub() {
+        envio.scheduleAtFixedRate(this::heartbeat, HEARTBEAT_SEGUNDOS, HEARTBEAT_SEGUNDOS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @param origem      classe dos eventos que a assinatura recebe
+     * @param dentistaIds vazio = todos os dentistas
+     * @param dia         nulo = qualquer dia
+     */
+    public SseEmitter assinar(Class<? extends AlteracaoAgenda> origem, Set<Long> dentistaIds, LocalDate dia) {
+        SseEmitter emitter = new SseEmitter(TIMEOUT_MS);
+        Assinatura assinatura = new Assinatura(origem, dentistaIds, dia, emitter);
+
+        emitter.onCompletion(() -> assinaturas.remove(assinatura));
+        emitter.onTimeout(() -> assinaturas.remove(assinatura));
+        emitter.onError(e -> assinaturas.remove(assinatura));
+        assinaturas.add(assinatura);
+        return emitter;
+    }
+
+    // fallbackExecution: eventos publicados fora de transação também são entregues
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarAgenda(AlteracaoAgenda evento) {
+        envio.execute(() -> {
+            String id = String.valueOf(sequencia.incrementAndGet());
+            assinaturas.stream()
+                    .filter(a -> a.aceita(evento))
+                    .forEach(a -> enviar(a, SseEmitter.event().id(id).name(evento.nome()).data(evento)));
+        });
+    }
+
+    private void heartbeat() {
+        assinaturas.forEach(a -> enviar(a, SseEmitter.event().comment("ping")));
+    }
+
+    private void enviar(Assinatura assinatura, SseEmitter.SseEventBuilder evento) {
+        try {
+            assinatura.emitter().send(evento);
+        } catch (IOException | IllegalStateException e) {
+            // Cliente foi embora; o callback de conclusão pode não vir
+            assinaturas.remove(assinatura);
+            assinatura.emitter().completeWithError(e);
+        }
+    }
+
+    @PreDestroy
+    void encerrar() {
+        envio.shutdownNow();
+        assinaturas.forEach(a -> a.emitter().complete());
+        assinaturas.clear();
+    }
+
+    private record Assinatura(Class<? extends AlteracaoAgenda> origem, Set<Long> dentistaIds, LocalDate dia,
+                              SseEmitter emitter) {
+
+        boolean aceita(AlteracaoAgenda evento) {
+            return origem.isInstance(evento)
+                    && (dentistaIds.isEmpty() || dentistaIds.contains(evento.dentistaId()))
+                    && (dia == null || dia.equals(evento.dia()));
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.consultorio.domain.agenda;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fechamento diário da agenda: marca faltas e consultas realizadas do que já
+ * passou. Pode rodar em todos os nós; o AgendaStatusLoteService divide as
+ * linhas entre eles e repetir não muda nada.
+ */
+@Component
+public class AgendaFechamentoJob {
+
+    private final AgendaStatusLoteService statusLoteService;
+
+    public AgendaFechamentoJob(AgendaStatusLoteService statusLoteService) {
+        this.statusLoteService = statusLoteService;
+    }
+
+    @Scheduled(cron = "${agenda.fechamento.cron:0 30 23 * * *}")
+    public void fecharDia() {
+        statusLoteService.fecharAte(LocalDateTime.now());
+    }
+}
@@ -0,0 +1,35 @@
+package com.consultorio.domain.agenda;
+
+import com.consultorio.domain.agenda.dto.AgendaListDTO;
+import com.consultorio.domain.agenda.dto.AgendaResponseDTO;
+
+public final class AgendaMapper {
+
+    private AgendaMapper() {
+    }
+
+    public static AgendaResponseDTO toResponse(Agenda a) {
+        return new AgendaResponseDTO(
+                a.getId(),
+                a.getPaciente().getId(),
+                a.getPaciente().getNome(),
+                a.getDentista().getId(),
+                a.getDentista().getNome(),
+                a.getDataHora(),
+                a.getStatus().name(),
+                a.getObservacoes()
+        );
+    }
+
+    public static AgendaListDTO toList(Agenda a) {
+        return new AgendaListDTO(
+                a.getId(),
+                a.getPaciente().getId(),
+                a.getPaciente().getNome(),
+                a.getDentista().getId(),
+                a.getDentista().getNome(),
+                a.getDataHora(),
+                a.getStatus()
+        );
+    }
+}
@@ -1,10 +1,30 @@
 package com.consultorio.domain.agenda;
 
+import com.consultorio.domain.agenda.dto.AgendaListDTO;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import java.time.LocalDateTime;
 import java.util.List;
 
-public interface AgendaRepository extends JpaRepository<Agenda, Long> {
+public interface AgendaRepository extends JpaRepository<Agenda, Long>, JpaSpecificationExecutor<Agenda> {
     List<Agenda> findByDentistaIdAndDataHoraBetween(Long dentistaId, LocalDateTime inicio, LocalDateTime fim);
     List<Agenda> findByPacienteId(Long pacienteId);
+
+    // Paciente e dentista no mesmo SELECT: o mapper lê os nomes sem disparar uma consulta por linha
+    @Query("SELECT a FROM Agenda a JOIN FETCH a.paciente JOIN FETCH a.dentista ORDER BY a.dataHora")
+    List<Agenda> findAllComPacienteEDentista();
+
+    @Query("SELECT a FROM Agenda a JOIN FETCH a.paciente JOIN FETCH a.dentista " +
+            "WHERE a.dentista.id = :dentistaId AND a.dataHora >= :inicio AND a.dataHora < :fim ORDER BY a.dataHora")
+    List<Agenda> findDoDentistaNaFaixa(@Param("dentistaId") Long dentistaId,
+                                       @Param("inicio") LocalDateTime inicio,
+                                       @Param("fim") LocalDateTime fim);
+
+    @Query("SELECT new com.consultorio.domain.agenda.dto.AgendaListDTO(" +
+            "a.id, p.id, p.nome, d.id, d.nome, a.dataHora, a.status) " +
+            "FROM Agenda a JOIN a.paciente p JOIN a.dentista d ORDER BY a.dataHora")
+    List<AgendaListDTO> listarResumo();
 }
@@ -5,22 +5,32 @@ import com.consultorio.domain.dentista.Dentista;
 import com.consultorio.domain.dentista.DentistaRepository;
 import com.consultorio.domain.paciente.Paciente;
 import com.consultorio.domain.paciente.PacienteRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @Service
 public class AgendaService {
 
+    private static final int TAMANHO_PADRAO = 50;
+    private static final int TAMANHO_MAXIMO = 200;
+
     private final AgendaRepository repo;
     private final PacienteRepository pacienteRepo;
     private final DentistaRepository dentistaRepo;
+    private final ApplicationEventPublisher eventos;
 
-    public AgendaService(AgendaRepository repo, PacienteRepository pacienteRepo, DentistaRepository dentistaRepo) {
+    public AgendaService(AgendaRepository repo, PacienteRepository pacienteRepo, DentistaRepository dentistaRepo,
+                         ApplicationEventPublisher eventos) {
         this.repo = repo;
         this.pacienteRepo = pacienteRepo;
         this.dentistaRepo = dentistaRepo;
+        this.eventos = eventos;
     }
 
     @Transactional
@@ -37,11 +47,61 @@ public class AgendaService {
         a.setObservacoes(dto.getObservacoes());
         a.setStatus(StatusAgendamento.AGENDADO);
 
-        return AgendaMapper.toResponse(repo.save(a));
+        Agenda salvo = repo.save(a);
+        eventos.publishEvent(AgendaEvento.de(AgendaEvento.Tipo.CRIADO, salvo));
+        return AgendaMapper.toResponse(salvo);
     }
 
+    @Transactional(readOnly = true)
     public List<AgendaResponseDTO> listar(){
-        return repo.findAll().stream().map(AgendaMapper::toResponse).toList();
+        return repo.findAllComPacienteEDentista().stream().map(AgendaMapper::toResponse).toList();
+    }
+
+    @Transactional(readOnly = true)
+    public List<AgendaListDTO> listarResumo(){
+        return repo.listarResumo();
+    }
+
+    /**
+     * Busca filtrada com paginação por cursor (keyset em dataHora, id):
+     * o custo de cada página não depende de quantas vêm antes dela nem do
+     * tamanho do histórico.
+     */
+    @Transactional(readOnly = true)
+    public AgendaPaginaDTO pesquisar(AgendaFiltroDTO filtro){
+        if(filtro.getInicio() != null && filtro.getFim() != null && filtro.getFim().isBefore(filtro.getInicio())){
+            throw new IllegalArgumentException("O fim do período deve ser posterior ao início");
+        }
+        int tamanho = filtro.getTamanho() == null ? TAMANHO_PADRAO : Math.max(1, Math.min(filtro.getTamanho(), TAMANHO_MAXIMO));
+        AgendaCursor cursor = filtro.getCursor() == null || filtro.getCursor().isBlank()
+                ? null : AgendaCursor.decodificar(filtro.getCursor());
+
+        Specification<Agenda> spec = Specification.allOf(
+                AgendaSpecifications.aPartirDe(filtro.getInicio()),
+                AgendaSpecifications.antesDe(filtro.getFim()),
+                AgendaSpecifications.dosDentistas(filtro.getDentistaIds()),
+                AgendaSpecifications.doPaciente(filtro.getPacienteId()),
+                AgendaSpecifications.comStatus(filtro.getStatus()),
+                AgendaSpecifications.depoisDe(cursor),
+                AgendaSpecifications.comPacienteEDentista());
+
+        // Um a mais que o pedido só para saber se existe próxima página
+        List<Agenda> agendas = repo.findBy(spec, q -> q
+                .sortBy(Sort.by("dataHora", "id"))
+                .limit(tamanho + 1)
+                .all());
+
+        boolean temMais = agendas.size() > tamanho;
+        List<Agenda> pagina = temMais ? agendas.subList(0, tamanho) : agendas;
+        String proximoCursor = temMais ? AgendaCursor.de(pagina.get(pagina.size() - 1)).codificar() : null;
+
+        return new AgendaPaginaDTO(pagina.stream().map(AgendaMapper::toList).toList(), proximoCursor);
+    }
+
+    @Transactional(readOnly = true)
+    public List<AgendaResponseDTO> listarDoDia(Long dentistaId, LocalDate dia){
+        return repo.findDoDentistaNaFaixa(dentistaId, dia.atStartOfDay(), dia.plusDays(1).atStartOfDay())
+                .stream().map(AgendaMapper::toResponse).toList();
     }
 
     public AgendaResponseDTO buscar(Long id){
@@ -52,20 +112,39 @@ public class AgendaService {
     @Transactional
     public AgendaResponseDTO atualizarStatus(Long id, String status){
         Agenda a = repo.findById(id).orElseThrow(() -> new RuntimeException("Agendamento não encontrado"));
-        a.setStatus(StatusAgendamento.valueOf(status.toUpperCase()));
-        return AgendaMapper.toResponse(repo.save(a));
+        StatusAgendamento novo = StatusAgendamento.valueOf(status.toUpperCase());
+        if (novo == a.getStatus()) {
+            return AgendaMapper.toResponse(a);
+        }
+        validarTransicao(a, novo);
+        a.setStatus(novo);
+        Agenda salvo = repo.save(a);
+        eventos.publishEvent(AgendaEvento.de(AgendaEvento.Tipo.STATUS_ALTERADO, salvo));
+        return AgendaMapper.toResponse(salvo);
     }
 
     @Transactional
     public void cancelar(Long id){
         Agenda a = repo.findById(id).orElseThrow(() -> new RuntimeException("Agendamento não encontrado"));
+        if (a.getStatus() == StatusAgendamento.CANCELADO) {
+            return;
+        }
+        validarTransicao(a, StatusAgendamento.CANCELADO);
         a.setStatus(StatusAgendamento.CANCELADO);
         repo.save(a);
+        eventos.publishEvent(AgendaEvento.de(AgendaEvento.Tipo.CANCELADO, a));
     }
 
     @Transactional
     public void deletar(Long id){
-        if(!repo.existsById(id)) throw new RuntimeException("Agendamento não encontrado");
-        repo.deleteById(id);
+        Agenda a = repo.findById(id).orElseThrow(() -> new RuntimeException("Agendamento não encontrado"));
+        repo.delete(a);
+        eventos.publishEvent(AgendaEvento.de(AgendaEvento.Tipo.REMOVIDO, a));
+    }
+
+    private static void validarTransicao(Agenda a, StatusAgendamento novo){
+        if (!a.getStatus().podeIrPara(novo)) {
+            throw new IllegalArgumentException("Transição de status não permitida: " + a.getStatus() + " → " + novo);
+        }
     }
 }
@@ -0,0 +1,62 @@
+package com.consultorio.domain.agenda;
+
+import jakarta.persistence.criteria.JoinType;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Filtros da busca de agendamentos. Cada um é opcional; os que vierem
+ * nulos ficam fora do WHERE.
+ */
+public final class AgendaSpecifications {
+
+    private AgendaSpecifications() {
+    }
+
+    public static Specification<Agenda> aPartirDe(LocalDateTime inicio) {
+        return (root, query, cb) -> inicio == null ? null : cb.greaterThanOrEqualTo(root.get("dataHora"), inicio);
+    }
+
+    public static Specification<Agenda> antesDe(LocalDateTime fim) {
+        return (root, query, cb) -> fim == null ? null : cb.lessThan(root.get("dataHora"), fim);
+    }
+
+    public static Specification<Agenda> dosDentistas(Collection<Long> dentistaIds) {
+        return (root, query, cb) -> dentistaIds == null || dentistaIds.isEmpty()
+                ? null
+                : root.get("dentista").get("id").in(dentistaIds);
+    }
+
+    public static Specification<Agenda> doPaciente(Long pacienteId) {
+        return (root, query, cb) -> pacienteId == null ? null : cb.equal(root.get("paciente").get("id"), pacienteId);
+    }
+
+    public static Specification<Agenda> comStatus(Collection<StatusAgendamento> status) {
+        return (root, query, cb) -> status == null || status.isEmpty() ? null : root.get("status").in(status);
+    }
+
+    /**
+     * Keyset: só o que vem depois do cursor na ordem (dataHora, id).
+     * O banco desce direto pelo índice em vez de pular OFFSET linhas.
+     */
+    public static Specification<Agenda> depoisDe(AgendaCursor cursor) {
+        return (root, query, cb) -> cursor == null ? null : cb.or(
+                cb.greaterThan(root.get("dataHora"), cursor.dataHora()),
+                cb.and(
+                        cb.equal(root.get("dataHora"), cursor.dataHora()),
+                        cb.greaterThan(root.get("id"), cursor.id())));
+    }
+
+    /** Paciente e dentista no mesmo SELECT, para montar a listagem sem N+1. */
+    public static Specification<Agenda> comPacienteEDentista() {
+        return (root, query, cb) -> {
+            if (query.getResultType() != Long.class && query.getResultType() != long.class) {
+                root.fetch("paciente", JoinType.INNER);
+                root.fetch("dentista", JoinType.INNER);
+            }
+            return null;
+        };
+    }
+}
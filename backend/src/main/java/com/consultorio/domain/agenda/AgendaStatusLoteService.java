@@ -0,0 +1,141 @@
+package com.consultorio.domain.agenda;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Mudanças de status em massa com UPDATEs por conjunto, em vez de carregar
+ * e salvar agendamento por agendamento.
+ *
+ * Todos os UPDATEs filtram pelo status de origem (só transições permitidas
+ * por StatusAgendamento.podeIrPara), então repetir a operação não altera
+ * nada de novo. No fechamento do dia cada lote é escolhido com
+ * FOR UPDATE SKIP LOCKED: vários nós rodando ao mesmo tempo dividem as
+ * linhas entre si em vez de esperar uns pelos outros.
+ */
+@Slf4j
+@Service
+public class AgendaStatusLoteService {
+
+    // Linhas por transação no fechamento: mantém locks e WAL de cada commit pequenos
+    private static final int TAMANHO_LOTE = 5_000;
+
+    private static final int MAXIMO_IDS = 1_000;
+
+    // Pacote: o teste de integração roda exatamente estas instruções
+    static final String FECHAR_LOTE = "UPDATE agendamentos a SET status = ? " +
+            "WHERE a.id IN (SELECT id FROM agendamentos WHERE status = ? AND data_hora < ? " +
+            "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "RETURNING a.id, a.dentista_id, a.data_hora";
+
+    static final String ATUALIZAR_IDS = "UPDATE agendamentos SET status = ? " +
+            "WHERE id = ANY(?) AND status = ANY(?) " +
+            "RETURNING id, dentista_id, data_hora";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transacao;
+    private final ApplicationEventPublisher eventos;
+
+    public AgendaStatusLoteService(JdbcTemplate jdbc, PlatformTransactionManager transactionManager,
+                                   ApplicationEventPublisher eventos) {
+        this.jdbc = jdbc;
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.eventos = eventos;
+    }
+
+    /**
+     * Fecha tudo o que começou antes do corte: AGENDADO vira FALTOU e
+     * CONFIRMADO vira REALIZADO.
+     */
+    public ResultadoFechamento fecharAte(LocalDateTime corte) {
+        long inicio = System.nanoTime();
+        int faltas = transicionar(StatusAgendamento.AGENDADO, StatusAgendamento.FALTOU, corte);
+        int realizados = transicionar(StatusAgendamento.CONFIRMADO, StatusAgendamento.REALIZADO, corte);
+        long millis = (System.nanoTime() - inicio) / 1_000_000;
+
+        ResultadoFechamento resultado = ResultadoFechamento.de(corte, faltas, realizados, millis);
+        log.info("Fechamento da agenda até {}: {} falta(s), {} realizado(s) em {} ms ({} linhas/s)",
+                corte, faltas, realizados, millis, Math.round(resultado.linhasPorSegundo()));
+        return resultado;
+    }
+
+    /**
+     * Aplica o mesmo status a vários agendamentos numa única instrução.
+     * Só muda quem está num status de origem permitido (ver StatusAgendamento);
+     * IDs inexistentes, já no status pedido ou em status final são ignorados
+     * e ficam de fora da contagem de alterados.
+     */
+    public ResultadoStatus atualizarStatus(List<Long> ids, StatusAgendamento status) {
+        if (ids == null || ids.isEmpty() || status == null) {
+            throw new IllegalArgumentException("Informe os IDs e o novo status");
+        }
+        if (ids.size() > MAXIMO_IDS) {
+            throw new IllegalArgumentException("No máximo " + MAXIMO_IDS + " agendamentos por requisição");
+        }
+        String[] origens = status.origens().stream().map(Enum::name).toArray(String[]::new);
+        if (origens.length == 0) {
+            throw new IllegalArgumentException("Nenhum agendamento pode voltar para " + status);
+        }
+        Long[] distintos = ids.stream().distinct().toArray(Long[]::new);
+
+        List<AgendaEvento> alterados = transacao.execute(tx -> {
+            List<AgendaEvento> linhas = jdbc.query(con -> {
+                PreparedStatement ps = con.prepareStatement(ATUALIZAR_IDS);
+                ps.setString(1, status.name());
+                ps.setArray(2, con.createArrayOf("bigint", distintos));
+                ps.setArray(3, con.createArrayOf("varchar", origens));
+                return ps;
+            }, evento(status));
+            linhas.forEach(eventos::publishEvent);
+            return linhas;
+        });
+
+        log.info("Status {} aplicado a {} de {} agendamento(s)", status, alterados.size(), distintos.length);
+        return new ResultadoStatus(distintos.length, alterados.size());
+    }
+
+    // Um lote por transação até não sobrar linha no status de origem
+    private int transicionar(StatusAgendamento de, StatusAgendamento para, LocalDateTime corte) {
+        int total = 0;
+        int alterados;
+        do {
+            alterados = transacao.execute(tx -> {
+                List<AgendaEvento> linhas = jdbc.query(FECHAR_LOTE, evento(para),
+                        para.name(), de.name(), Timestamp.valueOf(corte), TAMANHO_LOTE);
+                linhas.forEach(eventos::publishEvent);
+                return linhas.size();
+            });
+            total += alterados;
+        } while (alterados == TAMANHO_LOTE);
+        return total;
+    }
+
+    // Cada linha devolvida pelo RETURNING vira um AgendaEvento (cache do dia e SSE)
+    private static RowMapper<AgendaEvento> evento(StatusAgendamento status) {
+        return (rs, i) -> new AgendaEvento(AgendaEvento.Tipo.STATUS_ALTERADO,
+                rs.getLong("id"), rs.getLong("dentista_id"),
+                rs.getTimestamp("data_hora").toLocalDateTime(), status);
+    }
+
+    public record ResultadoFechamento(LocalDateTime corte, int faltas, int realizados, long millis,
+                                      double linhasPorSegundo) {
+
+        static ResultadoFechamento de(LocalDateTime corte, int faltas, int realizados, long millis) {
+            return new ResultadoFechamento(corte, faltas, realizados, millis,
+                    (faltas + realizados) * 1000.0 / Math.max(1, millis));
+        }
+    }
+
+    public record ResultadoStatus(int solicitados, int alterados) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.consultorio.domain.agenda;
+
+import java.time.LocalDate;
+
+/**
+ * O que o feed (AgendaEventosHub) precisa de um evento de agenda. Implementado
+ * pelo AgendaEvento desta aplicação e pelo da agenda legada (/agenda): um só
+ * hub atende os dois, e cada assinatura recebe apenas os eventos da própria origem.
+ */
+public interface AlteracaoAgenda {
+
+    // Vai no nome do evento SSE
+    String nome();
+
+    Long dentistaId();
+
+    LocalDate dia();
+}
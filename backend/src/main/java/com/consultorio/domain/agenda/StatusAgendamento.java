@@ -0,0 +1,33 @@
+package com.consultorio.domain.agenda;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+public enum StatusAgendamento {
+    AGENDADO,
+    CONFIRMADO,
+    CANCELADO,
+    REALIZADO,
+    // Não compareceu: AGENDADO que passou sem confirmação (fechamento do dia)
+    FALTOU;
+
+    /** Só AGENDADO e CONFIRMADO avançam; CANCELADO, REALIZADO e FALTOU são finais. */
+    public boolean podeIrPara(StatusAgendamento destino) {
+        return switch (this) {
+            case AGENDADO -> destino != AGENDADO;
+            case CONFIRMADO -> destino == CANCELADO || destino == REALIZADO || destino == FALTOU;
+            case CANCELADO, REALIZADO, FALTOU -> false;
+        };
+    }
+
+    /** Status a partir dos quais se pode chegar a este (vazio para AGENDADO). */
+    public Set<StatusAgendamento> origens() {
+        Set<StatusAgendamento> origens = EnumSet.noneOf(StatusAgendamento.class);
+        for (StatusAgendamento origem : values()) {
+            if (origem.podeIrPara(this)) {
+                origens.add(origem);
+            }
+        }
+        return origens;
+    }
+}
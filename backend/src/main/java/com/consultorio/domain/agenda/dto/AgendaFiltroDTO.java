@@ -0,0 +1,26 @@
+package com.consultorio.domain.agenda.dto;
+
+import com.consultorio.domain.agenda.StatusAgendamento;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter @Setter
+public class AgendaFiltroDTO {
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime inicio;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime fim;
+
+    private List<Long> dentistaIds;
+    private Long pacienteId;
+    private List<StatusAgendamento> status;
+
+    // proximoCursor da página anterior; vazio na primeira página
+    private String cursor;
+    private Integer tamanho;
+}
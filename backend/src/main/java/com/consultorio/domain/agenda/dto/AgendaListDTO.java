@@ -1,4 +1,32 @@
 package com.consultorio.domain.agenda.dto;
 
+import com.consultorio.domain.agenda.StatusAgendamento;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Linha da listagem de agendamentos. Preenchida direto pela consulta
+ * (projeção por construtor), sem carregar Agenda, Paciente e Dentista.
+ */
+@Getter
 public class AgendaListDTO {
+    private final Long id;
+    private final Long pacienteId;
+    private final String pacienteNome;
+    private final Long dentistaId;
+    private final String dentistaNome;
+    private final LocalDateTime dataHora;
+    private final String status;
+
+    public AgendaListDTO(Long id, Long pacienteId, String pacienteNome, Long dentistaId, String dentistaNome,
+                         LocalDateTime dataHora, StatusAgendamento status) {
+        this.id = id;
+        this.pacienteId = pacienteId;
+        this.pacienteNome = pacienteNome;
+        this.dentistaId = dentistaId;
+        this.dentistaNome = dentistaNome;
+        this.dataHora = dataHora;
+        this.status = status != null ? status.name() : null;
+    }
 }
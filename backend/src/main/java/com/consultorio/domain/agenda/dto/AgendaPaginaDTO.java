@@ -0,0 +1,14 @@
+package com.consultorio.domain.agenda.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter @AllArgsConstructor
+public class AgendaPaginaDTO {
+    private List<AgendaListDTO> itens;
+
+    // Nulo quando não há mais páginas
+    private String proximoCursor;
+}
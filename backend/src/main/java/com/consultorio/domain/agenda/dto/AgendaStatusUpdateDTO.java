@@ -1,4 +1,13 @@
 package com.consultorio.domain.agenda.dto;
 
+import com.consultorio.domain.agenda.StatusAgendamento;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter @Setter
 public class AgendaStatusUpdateDTO {
+    private List<Long> ids;
+    private StatusAgendamento status;
 }
@@ -9,7 +9,8 @@ import lombok.Setter;
 @Getter @Setter
 public class Dentista {
 
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "dentistas_seq")
+    @SequenceGenerator(name = "dentistas_seq", sequenceName = "dentistas_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false) private String nome;
@@ -16,7 +16,8 @@ import java.util.List;
 public class FichaMedica {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "fichas_medica_seq")
+    @SequenceGenerator(name = "fichas_medica_seq", sequenceName = "fichas_medica_seq", allocationSize = 50)
     private Long id;
 
     // Anamnese
@@ -0,0 +1,29 @@
+package com.consultorio.domain.lembrete;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Aviso CONFIRMACAO_PENDENTE já dado para um agendamento. Como em
+ * LembreteEnvio, o INSERT desta linha é o que reserva o aviso para um único
+ * nó; o horário da consulta entra para que uma remarcação possa avisar de novo.
+ */
+@Entity
+@Table(name = "avisos_confirmacao")
+@Getter @Setter @NoArgsConstructor
+public class AvisoConfirmacao {
+
+    @Id
+    @Column(name = "agendamento_id")
+    private Long agendamentoId;
+
+    @Column(name = "data_hora", nullable = false)
+    private LocalDateTime dataHora;
+
+    @Column(name = "criado_em", nullable = false)
+    private LocalDateTime criadoEm;
+}
@@ -0,0 +1,10 @@
+package com.consultorio.domain.lembrete;
+
+import java.time.LocalDateTime;
+
+/**
+ * Dados de um agendamento já reservado para receber lembrete.
+ */
+public record Lembrete(Long agendamentoId, String destinatario, String paciente, String dentista,
+                       LocalDateTime dataHora) {
+}
@@ -0,0 +1,33 @@
+package com.consultorio.domain.lembrete;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/lembretes")
+@CrossOrigin(origins = "*")
+public class LembreteController {
+
+    private final LembreteService service;
+
+    public LembreteController(LembreteService service) {
+        this.service = service;
+    }
+
+    // Só agenda a rodada; a seleção e os envios acontecem nas threads dos lembretes
+    @PostMapping("/processar")
+    public ResponseEntity<Void> processar(){
+        if (!service.ativo()) {
+            // agenda.lembretes.ativo=false: nada é enviado, nem por disparo manual
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        service.processarEmSegundoPlano();
+        return ResponseEntity.accepted().build();
+    }
+
+    @GetMapping("/estatisticas")
+    public ResponseEntity<LembreteService.Estatisticas> estatisticas(){
+        return ResponseEntity.ok(service.estatisticas());
+    }
+}
@@ -0,0 +1,211 @@
+package com.consultorio.domain.lembrete;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Envio dos lembretes por SMTP num pool próprio ("lembretes-N"), nunca na
+ * thread de quem enfileira.
+ *
+ * A fila é limitada por um semáforo: com 'capacidade' lembretes em andamento
+ * (na fila, enviando ou aguardando nova tentativa) o enfileirar bloqueia, e
+ * a seleção no banco anda no ritmo do SMTP. Falhas temporárias voltam ao pool
+ * com espera dobrando a cada tentativa; o resultado de cada uma fica gravado
+ * em lembretes_envio.
+ */
+@Slf4j
+@Component
+public class LembreteEnviador {
+
+    private static final String MODELO = "consulta";
+
+    private static final DateTimeFormatter DATA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter HORA = DateTimeFormatter.ofPattern("HH:mm");
+
+    private static final String REGISTRAR = "UPDATE lembretes_envio SET status = ?, tentativas = ?, ultimo_erro = ?, " +
+            "enviado_em = ?, atualizado_em = ? WHERE agendamento_id = ?";
+
+    private final JavaMailSender mailSender;
+    private final JdbcTemplate jdbc;
+    private final LembreteTemplates templates;
+    private final String remetente;
+    private final int capacidade;
+    private final int maximoTentativas;
+    private final long esperaSegundos;
+
+    private final ExecutorService envio;
+    private final ScheduledExecutorService retentativas;
+    private final Semaphore vagas;
+
+    private final LongAdder enviados = new LongAdder();
+    private final LongAdder falhas = new LongAdder();
+    private final LongAdder reenvios = new LongAdder();
+
+    public LembreteEnviador(JavaMailSender mailSender, JdbcTemplate jdbc, LembreteTemplates templates,
+                            @Value("${agenda.lembretes.remetente:nao-responda@consultorio.local}") String remetente,
+                            @Value("${agenda.lembretes.threads:8}") int threads,
+                            @Value("${agenda.lembretes.capacidade:1000}") int capacidade,
+                            @Value("${agenda.lembretes.tentativas:3}") int maximoTentativas,
+                            @Value("${agenda.lembretes.espera-retentativa-segundos:30}") long esperaSegundos) {
+        this.mailSender = mailSender;
+        this.jdbc = jdbc;
+        this.templates = templates;
+        this.remetente = remetente;
+        this.capacidade = capacidade;
+        this.maximoTentativas = maximoTentativas;
+        this.esperaSegundos = esperaSegundos;
+        this.vagas = new Semaphore(capacidade);
+
+        AtomicInteger numero = new AtomicInteger();
+        this.envio = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "lembretes-" + numero.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.retentativas = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "lembretes-retentativa");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Entrega o lembrete ao pool; bloqueia enquanto a fila estiver cheia.
+     */
+    public void enfileirar(Lembrete lembrete) throws InterruptedException {
+        vagas.acquire();
+        try {
+            envio.execute(() -> tentar(lembrete, 1));
+        } catch (RejectedExecutionException e) {
+            // Pool encerrado: a vaga volta; a reserva PENDENTE expira e outro nó retoma o envio
+            vagas.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Espera tudo o que foi enfileirado terminar (enviado ou desistido).
+     */
+    public boolean aguardar(Duration limite) throws InterruptedException {
+        if (!vagas.tryAcquire(capacidade, limite.toMillis(), TimeUnit.MILLISECONDS)) {
+            return false;
+        }
+        vagas.release(capacidade);
+        return true;
+    }
+
+    public Estatisticas estatisticas() {
+        return new Estatisticas(enviados.sum(), falhas.sum(), reenvios.sum(), capacidade - vagas.availablePermits());
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        retentativas.shutdownNow();
+        envio.shutdown();
+    }
+
+    // ============================================================
+    // ENVIO
+    // ============================================================
+
+    private void tentar(Lembrete lembrete, int tentativa) {
+        try {
+            mailSender.send(montar(lembrete));
+            registrar(lembrete, LembreteEnvio.Status.ENVIADO, tentativa, null);
+            enviados.increment();
+            vagas.release();
+        } catch (MailParseException | MailPreparationException e) {
+            // Endereço ou conteúdo inválido: repetir não resolve
+            desistir(lembrete, tentativa, e);
+        } catch (MailException e) {
+            if (tentativa >= maximoTentativas) {
+                desistir(lembrete, tentativa, e);
+                return;
+            }
+            registrar(lembrete, LembreteEnvio.Status.PENDENTE, tentativa, e.getMessage());
+            reenvios.increment();
+            long espera = esperaSegundos << (tentativa - 1);
+            reagendar(lembrete, tentativa + 1, espera);
+        } catch (RuntimeException e) {
+            desistir(lembrete, tentativa, e);
+        }
+    }
+
+    private void reagendar(Lembrete lembrete, int tentativa, long esperaSegundos) {
+        try {
+            retentativas.schedule(() -> {
+                try {
+                    envio.execute(() -> tentar(lembrete, tentativa));
+                } catch (RejectedExecutionException e) {
+                    vagas.release();
+                }
+            }, esperaSegundos, TimeUnit.SECONDS);
+        } catch (RejectedExecutionException e) {
+            // Encerrando: fica PENDENTE e é retomado quando a reserva expirar
+            vagas.release();
+        }
+    }
+
+    private void desistir(Lembrete lembrete, int tentativa, Exception causa) {
+        log.warn("Lembrete do agendamento {} não enviado após {} tentativa(s): {}",
+                lembrete.agendamentoId(), tentativa, causa.getMessage());
+        registrar(lembrete, LembreteEnvio.Status.FALHOU, tentativa, causa.getMessage());
+        falhas.increment();
+        vagas.release();
+    }
+
+    private SimpleMailMessage montar(Lembrete lembrete) {
+        LembreteTemplates.Mensagem mensagem = templates.renderizar(MODELO, Map.of(
+                "paciente", lembrete.paciente(),
+                "dentista", lembrete.dentista(),
+                "data", DATA.format(lembrete.dataHora()),
+                "hora", HORA.format(lembrete.dataHora())));
+
+        SimpleMailMessage email = new SimpleMailMessage();
+        email.setFrom(remetente);
+        email.setTo(lembrete.destinatario());
+        email.setSubject(mensagem.assunto());
+        email.setText(mensagem.corpo());
+        return email;
+    }
+
+    // Falha ao gravar o registro não derruba o envio; a reserva expira e o lembrete volta numa próxima rodada
+    private void registrar(Lembrete lembrete, LembreteEnvio.Status status, int tentativa, String erro) {
+        LocalDateTime agora = LocalDateTime.now();
+        try {
+            jdbc.update(REGISTRAR, status.name(), tentativa, erro != null && erro.length() > 500 ? erro.substring(0, 500) : erro,
+                    status == LembreteEnvio.Status.ENVIADO ? Timestamp.valueOf(agora) : null,
+                    Timestamp.valueOf(agora), lembrete.agendamentoId());
+        } catch (DataAccessException e) {
+            log.error("Falha ao registrar envio do lembrete do agendamento {}", lembrete.agendamentoId(), e);
+        }
+    }
+
+    public record Estatisticas(long enviados, long falhas, long retentativas, int emAndamento) {
+    }
+}
@@ -0,0 +1,52 @@
+package com.consultorio.domain.lembrete;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Registro de envio do lembrete de um agendamento. A chave é o próprio
+ * agendamento: no máximo um lembrete por consulta, e o INSERT dessa linha
+ * é o que reserva o envio para um único nó.
+ */
+@Entity
+@Table(name = "lembretes_envio", indexes = {
+        @Index(name = "idx_lembretes_envio_status", columnList = "status, atualizado_em")
+})
+@Getter @Setter @NoArgsConstructor
+public class LembreteEnvio {
+
+    @Id
+    @Column(name = "agendamento_id")
+    private Long agendamentoId;
+
+    @Column(nullable = false, length = 100)
+    private String destinatario;
+
+    @Enumerated(EnumType.STRING) @Column(nullable = false, length = 20)
+    private Status status;
+
+    @Column(nullable = false)
+    private Integer tentativas = 0;
+
+    @Column(name = "ultimo_erro", length = 500)
+    private String ultimoErro;
+
+    @Column(name = "criado_em", nullable = false)
+    private LocalDateTime criadoEm;
+
+    @Column(name = "atualizado_em", nullable = false)
+    private LocalDateTime atualizadoEm;
+
+    @Column(name = "enviado_em")
+    private LocalDateTime enviadoEm;
+
+    public enum Status {
+        PENDENTE,
+        ENVIADO,
+        FALHOU
+    }
+}
@@ -0,0 +1,12 @@
+package com.consultorio.domain.lembrete;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface LembreteEnvioRepository extends JpaRepository<LembreteEnvio, Long> {
+
+    @Query("SELECT l.status, COUNT(l) FROM LembreteEnvio l GROUP BY l.status")
+    List<Object[]> contarPorStatus();
+}
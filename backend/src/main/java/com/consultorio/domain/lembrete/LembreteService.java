@@ -0,0 +1,220 @@
+package com.consultorio.domain.lembrete;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Seleção dos agendamentos que precisam de lembrete, em lotes por ID.
+ *
+ * Cada lote é reservado com um único INSERT ... ON CONFLICT em
+ * lembretes_envio: só o nó que grava (ou retoma uma reserva PENDENTE
+ * abandonada) recebe o ID de volta e enfileira o envio. Assim vários nós
+ * podem rodar a seleção ao mesmo tempo sem mandar o mesmo lembrete duas vezes.
+ */
+@Slf4j
+@Service
+public class LembreteService {
+
+    private static final int TAMANHO_LOTE = 500;
+
+    // Reserva PENDENTE sem notícia há mais que isso é considerada abandonada (nó caiu)
+    private static final long RESERVA_EXPIRADA_MINUTOS = 15;
+
+    private static final String SELECIONAR = "SELECT a.id, a.data_hora, p.nome AS paciente, p.email, d.nome AS dentista " +
+            "FROM agendamentos a " +
+            "JOIN pacientes p ON p.id = a.paciente_id " +
+            "JOIN dentistas d ON d.id = a.dentista_id " +
+            "LEFT JOIN lembretes_envio l ON l.agendamento_id = a.id " +
+            "WHERE a.data_hora >= ? AND a.data_hora < ? " +
+            "AND a.status IN ('AGENDADO', 'CONFIRMADO') " +
+            "AND p.email IS NOT NULL AND p.email <> '' " +
+            "AND (l.agendamento_id IS NULL OR (l.status = 'PENDENTE' AND l.atualizado_em < ?)) " +
+            "AND a.id > ? " +
+            "ORDER BY a.id LIMIT ?";
+
+    // Mesmos filtros, para os IDs que a roda de prazos entregou
+    private static final String SELECIONAR_IDS = "SELECT a.id, a.data_hora, p.nome AS paciente, p.email, d.nome AS dentista " +
+            "FROM agendamentos a " +
+            "JOIN pacientes p ON p.id = a.paciente_id " +
+            "JOIN dentistas d ON d.id = a.dentista_id " +
+            "LEFT JOIN lembretes_envio l ON l.agendamento_id = a.id " +
+            "WHERE a.id = ANY(?) AND a.data_hora >= ? " +
+            "AND a.status IN ('AGENDADO', 'CONFIRMADO') " +
+            "AND p.email IS NOT NULL AND p.email <> '' " +
+            "AND (l.agendamento_id IS NULL OR (l.status = 'PENDENTE' AND l.atualizado_em < ?))";
+
+    private static final String RESERVAR = "INSERT INTO lembretes_envio " +
+            "(agendamento_id, destinatario, status, tentativas, criado_em, atualizado_em) " +
+            "SELECT t.id, t.email, 'PENDENTE', 0, CAST(? AS timestamp), CAST(? AS timestamp) " +
+            "FROM unnest(?, ?) AS t(id, email) " +
+            "ON CONFLICT (agendamento_id) DO UPDATE SET atualizado_em = EXCLUDED.atualizado_em " +
+            "WHERE lembretes_envio.status = 'PENDENTE' AND lembretes_envio.atualizado_em < ? " +
+            "RETURNING agendamento_id";
+
+    private static final RowMapper<Lembrete> LEMBRETE = (rs, i) -> new Lembrete(
+            rs.getLong("id"), rs.getString("email"), rs.getString("paciente"), rs.getString("dentista"),
+            rs.getTimestamp("data_hora").toLocalDateTime());
+
+    private final JdbcTemplate jdbc;
+    private final LembreteEnviador enviador;
+    private final LembreteEnvioRepository repository;
+    private final long antecedenciaHoras;
+    private final boolean ativo;
+
+    // Disparos manuais rodam aqui, fora da thread da requisição
+    private final ExecutorService selecao = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "lembretes-selecao");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LembreteService(JdbcTemplate jdbc, LembreteEnviador enviador, LembreteEnvioRepository repository,
+                           @Value("${agenda.lembretes.antecedencia-horas:24}") long antecedenciaHoras,
+                           @Value("${agenda.lembretes.ativo:false}") boolean ativo) {
+        this.jdbc = jdbc;
+        this.enviador = enviador;
+        this.repository = repository;
+        this.antecedenciaHoras = antecedenciaHoras;
+        this.ativo = ativo;
+    }
+
+    public boolean ativo() {
+        return ativo;
+    }
+
+    /**
+     * Reserva e enfileira os lembretes das consultas das próximas
+     * 'antecedenciaHoras'. Devolve quantos foram enfileirados; com
+     * agenda.lembretes.ativo=false não faz nada.
+     */
+    public synchronized int processar() {
+        if (!ativo) {
+            log.info("Lembretes desligados (agenda.lembretes.ativo=false); nada a processar");
+            return 0;
+        }
+        LocalDateTime agora = LocalDateTime.now();
+        LocalDateTime ate = agora.plusHours(antecedenciaHoras);
+        Timestamp expirada = Timestamp.valueOf(agora.minusMinutes(RESERVA_EXPIRADA_MINUTOS));
+
+        long inicio = System.nanoTime();
+        long ultimoId = 0;
+        int lidos = 0;
+        int enfileirados = 0;
+        try {
+            while (true) {
+                List<Lembrete> lote = jdbc.query(SELECIONAR, LEMBRETE,
+                        Timestamp.valueOf(agora), Timestamp.valueOf(ate), expirada, ultimoId, TAMANHO_LOTE);
+                if (lote.isEmpty()) {
+                    break;
+                }
+                lidos += lote.size();
+                ultimoId = lote.get(lote.size() - 1).agendamentoId();
+                enfileirados += enfileirarReservados(lote, agora, expirada);
+                if (lote.size() < TAMANHO_LOTE) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Seleção de lembretes interrompida após {} enfileirado(s)", enfileirados);
+        }
+
+        long millis = (System.nanoTime() - inicio) / 1_000_000;
+        log.info("Lembretes: {} candidato(s), {} enfileirado(s) em {} ms ({} linhas/s)",
+                lidos, enfileirados, millis, Math.round(lidos * 1000.0 / Math.max(1, millis)));
+        return enfileirados;
+    }
+
+    public void processarEmSegundoPlano() {
+        selecao.execute(this::processar);
+    }
+
+    /**
+     * Lembretes dos agendamentos informados (prazos vencidos na roda), na
+     * thread de seleção. Os que já foram enviados ou deixaram de valer são ignorados.
+     */
+    public void enviarEmSegundoPlano(Collection<Long> agendamentoIds) {
+        if (agendamentoIds.isEmpty()) {
+            return;
+        }
+        Long[] ids = agendamentoIds.toArray(Long[]::new);
+        selecao.execute(() -> {
+            LocalDateTime agora = LocalDateTime.now();
+            Timestamp expirada = Timestamp.valueOf(agora.minusMinutes(RESERVA_EXPIRADA_MINUTOS));
+            try {
+                for (int de = 0; de < ids.length; de += TAMANHO_LOTE) {
+                    Long[] lote = Arrays.copyOfRange(ids, de, Math.min(ids.length, de + TAMANHO_LOTE));
+                    List<Lembrete> lembretes = jdbc.query(con -> {
+                        PreparedStatement ps = con.prepareStatement(SELECIONAR_IDS);
+                        ps.setArray(1, con.createArrayOf("bigint", lote));
+                        ps.setTimestamp(2, Timestamp.valueOf(agora));
+                        ps.setTimestamp(3, expirada);
+                        return ps;
+                    }, LEMBRETE);
+                    enfileirarReservados(lembretes, agora, expirada);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    public Estatisticas estatisticas() {
+        Map<LembreteEnvio.Status, Long> porStatus = new EnumMap<>(LembreteEnvio.Status.class);
+        for (Object[] linha : repository.contarPorStatus()) {
+            porStatus.put((LembreteEnvio.Status) linha[0], (Long) linha[1]);
+        }
+        return new Estatisticas(porStatus, enviador.estatisticas());
+    }
+
+    private int enfileirarReservados(List<Lembrete> lote, LocalDateTime agora, Timestamp expirada)
+            throws InterruptedException {
+        if (lote.isEmpty()) {
+            return 0;
+        }
+        int enfileirados = 0;
+        Set<Long> reservados = reservar(lote, agora, expirada);
+        for (Lembrete lembrete : lote) {
+            if (reservados.contains(lembrete.agendamentoId())) {
+                enviador.enfileirar(lembrete);
+                enfileirados++;
+            }
+        }
+        return enfileirados;
+    }
+
+    private Set<Long> reservar(List<Lembrete> lote, LocalDateTime agora, Timestamp expirada) {
+        Long[] ids = lote.stream().map(Lembrete::agendamentoId).toArray(Long[]::new);
+        String[] emails = lote.stream().map(Lembrete::destinatario).toArray(String[]::new);
+        Timestamp momento = Timestamp.valueOf(agora);
+
+        return new HashSet<>(jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(RESERVAR);
+            ps.setTimestamp(1, momento);
+            ps.setTimestamp(2, momento);
+            ps.setArray(3, con.createArrayOf("bigint", ids));
+            ps.setArray(4, con.createArrayOf("varchar", emails));
+            ps.setTimestamp(5, expirada);
+            return ps;
+        }, (rs, i) -> rs.getLong(1)));
+    }
+
+    public record Estatisticas(Map<LembreteEnvio.Status, Long> registros, LembreteEnviador.Estatisticas envio) {
+    }
+}
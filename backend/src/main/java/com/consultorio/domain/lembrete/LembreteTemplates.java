@@ -0,0 +1,102 @@
+package com.consultorio.domain.lembrete;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Modelos de mensagem em classpath:templates/lembretes/{nome}.txt
+ * (primeira linha = assunto, depois uma linha em branco e o corpo),
+ * com marcadores {{chave}}.
+ *
+ * Cada arquivo é lido e quebrado em trechos uma única vez; renderizar é só
+ * concatenar trechos fixos e valores, sem regex nem nova leitura por mensagem.
+ */
+@Component
+public class LembreteTemplates {
+
+    private static final String PASTA = "templates/lembretes/";
+
+    private final Map<String, Modelo> cache = new ConcurrentHashMap<>();
+
+    public Mensagem renderizar(String nome, Map<String, String> valores) {
+        Modelo modelo = cache.computeIfAbsent(nome, LembreteTemplates::carregar);
+        return new Mensagem(modelo.assunto().aplicar(valores), modelo.corpo().aplicar(valores));
+    }
+
+    private static Modelo carregar(String nome) {
+        String texto;
+        try {
+            texto = new ClassPathResource(PASTA + nome + ".txt")
+                    .getContentAsString(StandardCharsets.UTF_8)
+                    .replace("\r\n", "\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Modelo de lembrete não encontrado: " + nome, e);
+        }
+        int quebra = texto.indexOf('\n');
+        String assunto = quebra < 0 ? texto : texto.substring(0, quebra);
+        String corpo = quebra < 0 ? "" : texto.substring(quebra + 1).stripLeading();
+        return new Modelo(Trechos.compilar(assunto.strip()), Trechos.compilar(corpo));
+    }
+
+    public record Mensagem(String assunto, String corpo) {
+    }
+
+    private record Modelo(Trechos assunto, Trechos corpo) {
+    }
+
+    /**
+     * Texto já separado em partes fixas (posições pares) e nomes de
+     * marcadores (posições ímpares).
+     */
+    static final class Trechos {
+
+        private final String[] partes;
+        private final int tamanhoFixo;
+
+        private Trechos(String[] partes) {
+            this.partes = partes;
+            int tamanho = 0;
+            for (int i = 0; i < partes.length; i += 2) {
+                tamanho += partes[i].length();
+            }
+            this.tamanhoFixo = tamanho;
+        }
+
+        static Trechos compilar(String texto) {
+            List<String> partes = new ArrayList<>();
+            int posicao = 0;
+            while (true) {
+                int abre = texto.indexOf("{{", posicao);
+                int fecha = abre < 0 ? -1 : texto.indexOf("}}", abre + 2);
+                if (fecha < 0) {
+                    partes.add(texto.substring(posicao));
+                    break;
+                }
+                partes.add(texto.substring(posicao, abre));
+                partes.add(texto.substring(abre + 2, fecha).strip());
+                posicao = fecha + 2;
+            }
+            return new Trechos(partes.toArray(String[]::new));
+        }
+
+        String aplicar(Map<String, String> valores) {
+            StringBuilder sb = new StringBuilder(tamanhoFixo + 64);
+            for (int i = 0; i < partes.length; i++) {
+                if (i % 2 == 0) {
+                    sb.append(partes[i]);
+                } else {
+                    sb.append(valores.getOrDefault(partes[i], ""));
+                }
+            }
+            return sb.toString();
+        }
+    }
+}
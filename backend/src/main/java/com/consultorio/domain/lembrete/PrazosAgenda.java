@@ -0,0 +1,288 @@
+package com.consultorio.domain.lembrete;
+
+import com.consultorio.domain.agenda.AgendaEvento;
+import com.consultorio.domain.agenda.StatusAgendamento;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prazos futuros de cada agendamento (envio do lembrete e limite para
+ * confirmação) guardados numa RodaTemporal em memória.
+ *
+ * A roda é montada uma vez na subida a partir do banco e depois mantida pelos
+ * AgendaEvento; a cada segundo só o que venceu sai dela. Não há varredura
+ * periódica da tabela de agendamentos.
+ *
+ * Todos os nós mantêm a própria roda. O que vence é conferido e reservado no
+ * banco antes de sair: lembretes em lembretes_envio (LembreteService) e avisos
+ * de confirmação em avisos_confirmacao, só se o agendamento ainda estiver
+ * AGENDADO. Assim cada aviso sai uma vez, por um único nó.
+ */
+@Slf4j
+@Component
+public class PrazosAgenda {
+
+    private static final int TAMANHO_LEITURA = 10_000;
+
+    private static final String CARREGAR = "SELECT id, dentista_id, data_hora, status FROM agendamentos " +
+            "WHERE data_hora > ? AND status IN ('AGENDADO', 'CONFIRMADO')";
+
+    // Relê o status e reserva o aviso numa só instrução; só o nó que grava recebe a linha de volta
+    private static final String RESERVAR_AVISOS = "INSERT INTO avisos_confirmacao (agendamento_id, data_hora, criado_em) " +
+            "SELECT a.id, a.data_hora, ? FROM agendamentos a " +
+            "WHERE a.id = ANY(?) AND a.status = 'AGENDADO' AND a.data_hora > ? " +
+            "ON CONFLICT (agendamento_id) DO UPDATE SET data_hora = EXCLUDED.data_hora, criado_em = EXCLUDED.criado_em " +
+            "WHERE avisos_confirmacao.data_hora <> EXCLUDED.data_hora " +
+            "RETURNING agendamento_id, data_hora";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate leitura;
+    private final LembreteService lembreteService;
+    private final ApplicationEventPublisher eventos;
+    private final boolean lembretesAtivos;
+    private final long antecedenciaLembreteHoras;
+    private final long prazoConfirmacaoHoras;
+
+    // Protegidos por 'this'
+    private final RodaTemporal<Prazo> roda = new RodaTemporal<>(tick(LocalDateTime.now()));
+    private final Map<Long, Temporizadores> porAgendamento = new HashMap<>();
+
+    private final ScheduledExecutorService relogio = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "agenda-prazos");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public PrazosAgenda(JdbcTemplate jdbc, PlatformTransactionManager transactionManager,
+                        LembreteService lembreteService, ApplicationEventPublisher eventos,
+                        @Value("${agenda.lembretes.ativo:false}") boolean lembretesAtivos,
+                        @Value("${agenda.lembretes.antecedencia-horas:24}") long antecedenciaLembreteHoras,
+                        @Value("${agenda.confirmacao.prazo-horas:2}") long prazoConfirmacaoHoras) {
+        this.jdbc = jdbc;
+        this.leitura = new TransactionTemplate(transactionManager);
+        this.leitura.setReadOnly(true);
+        this.lembreteService = lembreteService;
+        this.eventos = eventos;
+        this.lembretesAtivos = lembretesAtivos;
+        this.antecedenciaLembreteHoras = antecedenciaLembreteHoras;
+        this.prazoConfirmacaoHoras = prazoConfirmacaoHoras;
+    }
+
+    /**
+     * Carrega os agendamentos futuros numa única leitura em streaming
+     * (cursor do driver, sem montar a lista inteira) e liga o relógio.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruir() {
+        long inicio = System.nanoTime();
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+
+        // fetchSize só vale com autocommit desligado, por isso a transação
+        leitura.executeWithoutResult(tx -> jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(CARREGAR);
+            ps.setFetchSize(TAMANHO_LEITURA);
+            ps.setTimestamp(1, agora);
+            return ps;
+        }, rs -> {
+            reagendar(rs.getLong("id"), rs.getLong("dentista_id"),
+                    rs.getTimestamp("data_hora").toLocalDateTime(),
+                    StatusAgendamento.valueOf(rs.getString("status")));
+        }));
+
+        long millis = (System.nanoTime() - inicio) / 1_000_000;
+        log.info("Roda de prazos montada: {} prazo(s) de {} agendamento(s) em {} ms",
+                tamanho(), agendamentos(), millis);
+
+        relogio.scheduleAtFixedRate(this::avancar, 1, 1, TimeUnit.SECONDS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarAgenda(AgendaEvento evento) {
+        switch (evento.tipo()) {
+            case CRIADO, STATUS_ALTERADO ->
+                    reagendar(evento.agendaId(), evento.dentistaId(), evento.dataHora(), evento.status());
+            case CANCELADO, REMOVIDO -> cancelar(evento.agendaId());
+            case CONFIRMACAO_PENDENTE -> { }
+        }
+    }
+
+    public synchronized int tamanho() {
+        return roda.tamanho();
+    }
+
+    public synchronized int agendamentos() {
+        return porAgendamento.size();
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        relogio.shutdownNow();
+    }
+
+    // ============================================================
+    // MÉTODOS AUXILIARES
+    // ============================================================
+
+    private synchronized void reagendar(Long agendamentoId, Long dentistaId, LocalDateTime dataHora,
+                                        StatusAgendamento status) {
+        cancelar(agendamentoId);
+        boolean pendente = status == StatusAgendamento.AGENDADO || status == StatusAgendamento.CONFIRMADO;
+        if (!pendente || !dataHora.isAfter(LocalDateTime.now())) {
+            return;
+        }
+
+        Temporizadores temporizadores = new Temporizadores();
+        if (lembretesAtivos) {
+            temporizadores.lembrete = roda.agendar(tick(dataHora.minusHours(antecedenciaLembreteHoras)),
+                    new Prazo(Prazo.Tipo.LEMBRETE, agendamentoId, dentistaId, dataHora));
+        }
+        if (status == StatusAgendamento.AGENDADO) {
+            temporizadores.confirmacao = roda.agendar(tick(dataHora.minusHours(prazoConfirmacaoHoras)),
+                    new Prazo(Prazo.Tipo.CONFIRMACAO, agendamentoId, dentistaId, dataHora));
+        }
+        if (temporizadores.lembrete != null || temporizadores.confirmacao != null) {
+            porAgendamento.put(agendamentoId, temporizadores);
+        }
+    }
+
+    private synchronized void cancelar(Long agendamentoId) {
+        Temporizadores temporizadores = porAgendamento.remove(agendamentoId);
+        if (temporizadores != null) {
+            temporizadores.cancelar();
+        }
+    }
+
+    // Uma exceção que escapasse daqui cancelaria todos os ticks seguintes do scheduleAtFixedRate
+    private void avancar() {
+        try {
+            despachar(vencer());
+        } catch (RuntimeException e) {
+            log.error("Falha ao avançar a roda de prazos", e);
+        }
+    }
+
+    private synchronized List<Prazo> vencer() {
+        List<Prazo> vencidos = roda.avancar(tick(LocalDateTime.now()));
+        for (Prazo prazo : vencidos) {
+            Temporizadores temporizadores = porAgendamento.get(prazo.agendamentoId());
+            if (temporizadores != null && temporizadores.vencer(prazo.tipo())) {
+                porAgendamento.remove(prazo.agendamentoId());
+            }
+        }
+        return vencidos;
+    }
+
+    // Fora do lock: envio na thread dos lembretes, aviso pelo AgendaEvento (SSE)
+    private void despachar(List<Prazo> vencidos) {
+        if (vencidos.isEmpty()) {
+            return;
+        }
+        List<Long> lembretes = new ArrayList<>();
+        Map<Long, Prazo> confirmacoes = new HashMap<>();
+        for (Prazo prazo : vencidos) {
+            if (prazo.tipo() == Prazo.Tipo.LEMBRETE) {
+                lembretes.add(prazo.agendamentoId());
+            } else {
+                confirmacoes.put(prazo.agendamentoId(), prazo);
+            }
+        }
+
+        try {
+            lembreteService.enviarEmSegundoPlano(lembretes);
+        } catch (RuntimeException e) {
+            log.error("Falha ao enfileirar {} lembrete(s) vencido(s): {}", lembretes.size(), lembretes, e);
+        }
+        if (!confirmacoes.isEmpty()) {
+            avisarConfirmacoes(confirmacoes);
+        }
+    }
+
+    private void avisarConfirmacoes(Map<Long, Prazo> confirmacoes) {
+        Long[] ids = confirmacoes.keySet().toArray(Long[]::new);
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        List<AvisoReservado> reservados;
+        try {
+            reservados = jdbc.query(con -> {
+                PreparedStatement ps = con.prepareStatement(RESERVAR_AVISOS);
+                ps.setTimestamp(1, agora);
+                ps.setArray(2, con.createArrayOf("bigint", ids));
+                ps.setTimestamp(3, agora);
+                return ps;
+            }, (rs, i) -> new AvisoReservado(rs.getLong("agendamento_id"), rs.getTimestamp("data_hora").toLocalDateTime()));
+        } catch (RuntimeException e) {
+            log.error("Falha ao conferir {} aviso(s) de confirmação vencido(s): {}", ids.length, confirmacoes.keySet(), e);
+            return;
+        }
+
+        for (AvisoReservado aviso : reservados) {
+            Prazo prazo = confirmacoes.get(aviso.agendamentoId());
+            try {
+                eventos.publishEvent(new AgendaEvento(AgendaEvento.Tipo.CONFIRMACAO_PENDENTE,
+                        aviso.agendamentoId(), prazo.dentistaId(), aviso.dataHora(), StatusAgendamento.AGENDADO));
+            } catch (RuntimeException e) {
+                log.error("Falha ao avisar confirmação pendente do agendamento {}", aviso.agendamentoId(), e);
+            }
+        }
+    }
+
+    private static long tick(LocalDateTime horario) {
+        return horario.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    private record Prazo(Tipo tipo, Long agendamentoId, Long dentistaId, LocalDateTime dataHora) {
+
+        enum Tipo {
+            LEMBRETE,
+            CONFIRMACAO
+        }
+    }
+
+    private record AvisoReservado(Long agendamentoId, LocalDateTime dataHora) {
+    }
+
+    private static final class Temporizadores {
+
+        private RodaTemporal.Temporizador<Prazo> lembrete;
+        private RodaTemporal.Temporizador<Prazo> confirmacao;
+
+        private void cancelar() {
+            if (lembrete != null) {
+                lembrete.cancelar();
+            }
+            if (confirmacao != null) {
+                confirmacao.cancelar();
+            }
+        }
+
+        // Devolve true quando não sobra prazo para este agendamento
+        private boolean vencer(Prazo.Tipo tipo) {
+            if (tipo == Prazo.Tipo.LEMBRETE) {
+                lembrete = null;
+            } else {
+                confirmacao = null;
+            }
+            return lembrete == null && confirmacao == null;
+        }
+    }
+}
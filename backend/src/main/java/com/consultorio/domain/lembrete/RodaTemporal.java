@@ -0,0 +1,173 @@
+package com.consultorio.domain.lembrete;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Roda de tempo hierárquica (Varghese &amp; Lauck) para prazos futuros.
+ *
+ * NIVEIS rodas de 64 posições; uma posição do nível n cobre 64^n ticks.
+ * Cada prazo entra no menor nível cujo alcance o comporta, numa lista
+ * duplamente ligada, então agendar e cancelar custam O(1) independentemente
+ * de quantos prazos existem. Quando o nível 0 completa uma volta, a posição
+ * corrente do nível de cima é redistribuída ("cascata") para os de baixo.
+ *
+ * O tick é em segundos; com 5 níveis o alcance é de 64^5 s (cerca de 34 anos).
+ * Prazos além disso ficam no nível mais alto e são reposicionados a cada
+ * cascata até caberem. Não é thread-safe: quem usa sincroniza.
+ */
+public final class RodaTemporal<T> {
+
+    private static final int BITS = 6;
+    private static final int POSICOES = 1 << BITS;
+    private static final int MASCARA = POSICOES - 1;
+    private static final int NIVEIS = 5;
+    private static final long ALCANCE = 1L << (BITS * NIVEIS);
+
+    private final Temporizador<T>[][] rodas;
+    private long agora;
+    private int tamanho;
+
+    @SuppressWarnings("unchecked")
+    public RodaTemporal(long tickInicial) {
+        this.agora = tickInicial;
+        this.rodas = new Temporizador[NIVEIS][POSICOES];
+        for (Temporizador<T>[] roda : rodas) {
+            for (int i = 0; i < POSICOES; i++) {
+                // Sentinela: lista circular vazia aponta para si mesma
+                Temporizador<T> sentinela = new Temporizador<>(null, 0, null);
+                sentinela.anterior = sentinela;
+                sentinela.proximo = sentinela;
+                roda[i] = sentinela;
+            }
+        }
+    }
+
+    public long agora() {
+        return agora;
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    /**
+     * Agenda 'valor' para o tick informado. Prazos já vencidos entram na
+     * próxima posição e saem no próximo avancar.
+     */
+    public Temporizador<T> agendar(long tick, T valor) {
+        Temporizador<T> temporizador = new Temporizador<>(this, Math.max(tick, agora + 1), valor);
+        posicionar(temporizador);
+        tamanho++;
+        return temporizador;
+    }
+
+    /**
+     * Avança até o tick informado e devolve os valores vencidos, na ordem dos prazos.
+     */
+    public List<T> avancar(long ate) {
+        List<T> vencidos = new ArrayList<>();
+        while (agora < ate) {
+            agora++;
+            // Do nível mais alto para o mais baixo: o que desce pode cair numa posição que cascateia neste mesmo tick
+            int nivel = 0;
+            while (nivel + 1 < NIVEIS && (agora & ((1L << (BITS * (nivel + 1))) - 1)) == 0) {
+                nivel++;
+            }
+            for (int n = nivel; n >= 1; n--) {
+                cascatear(n, (int) ((agora >>> (BITS * n)) & MASCARA));
+            }
+
+            Temporizador<T> sentinela = rodas[0][(int) (agora & MASCARA)];
+            for (Temporizador<T> t = sentinela.proximo; t != sentinela; ) {
+                Temporizador<T> proximo = t.proximo;
+                desligar(t);
+                if (t.tick <= agora) {
+                    t.roda = null;
+                    tamanho--;
+                    vencidos.add(t.valor);
+                } else {
+                    // Só acontece com prazos além do alcance
+                    posicionar(t);
+                }
+                t = proximo;
+            }
+        }
+        return vencidos;
+    }
+
+    private void cascatear(int nivel, int posicao) {
+        Temporizador<T> sentinela = rodas[nivel][posicao];
+        Temporizador<T> t = sentinela.proximo;
+        sentinela.proximo = sentinela;
+        sentinela.anterior = sentinela;
+        while (t != sentinela) {
+            Temporizador<T> proximo = t.proximo;
+            posicionar(t);
+            t = proximo;
+        }
+    }
+
+    private void posicionar(Temporizador<T> t) {
+        long alvo = Math.min(t.tick, agora + ALCANCE - 1);
+        long distancia = Math.max(alvo - agora, 0);
+        int nivel = 0;
+        while (nivel + 1 < NIVEIS && distancia >= (1L << (BITS * (nivel + 1)))) {
+            nivel++;
+        }
+        // Vencido durante a cascata: vai para a posição do tick corrente, varrida logo em seguida
+        int posicao = (int) ((Math.max(alvo, agora) >>> (BITS * nivel)) & MASCARA);
+        ligar(rodas[nivel][posicao], t);
+    }
+
+    private static <T> void ligar(Temporizador<T> sentinela, Temporizador<T> t) {
+        t.proximo = sentinela;
+        t.anterior = sentinela.anterior;
+        sentinela.anterior.proximo = t;
+        sentinela.anterior = t;
+    }
+
+    private static <T> void desligar(Temporizador<T> t) {
+        t.anterior.proximo = t.proximo;
+        t.proximo.anterior = t.anterior;
+        t.anterior = null;
+        t.proximo = null;
+    }
+
+    /**
+     * Prazo agendado; cancelar é só desligá-lo da lista em que está.
+     */
+    public static final class Temporizador<T> {
+
+        private RodaTemporal<T> roda;
+        private final long tick;
+        private final T valor;
+        private Temporizador<T> anterior;
+        private Temporizador<T> proximo;
+
+        private Temporizador(RodaTemporal<T> roda, long tick, T valor) {
+            this.roda = roda;
+            this.tick = tick;
+            this.valor = valor;
+        }
+
+        public long tick() {
+            return tick;
+        }
+
+        public T valor() {
+            return valor;
+        }
+
+        /** Devolve false se já venceu ou já tinha sido cancelado. */
+        public boolean cancelar() {
+            if (roda == null) {
+                return false;
+            }
+            desligar(this);
+            roda.tamanho--;
+            roda = null;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.consultorio.domain.paciente.DTOs;
+
+import java.time.LocalDate;
+
+public record PacienteAutocompleteDTO(Long id, String nome, String prontuario, LocalDate dataNascimento) {
+}
@@ -0,0 +1,17 @@
+package com.consultorio.domain.paciente.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter @AllArgsConstructor
+public class PacientePaginaDTO {
+    private List<PacienteListDTO> itens;
+
+    // Nulo quando não há mais páginas
+    private String proximoCursor;
+
+    // Estimativa das estatísticas do PostgreSQL; nulo quando não pedida
+    private Long totalAproximado;
+}
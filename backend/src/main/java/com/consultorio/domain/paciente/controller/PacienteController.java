@@ -5,10 +5,18 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -18,6 +26,8 @@ import java.util.List;
 public class PacienteController {
 
     private final PacienteService service;
+    private final PacienteExportService exportService;
+    private final PacienteImportacaoService importacaoService;
 
     @PostMapping
     public ResponseEntity<PacienteResponseDTO> criar(@Valid @RequestBody PacienteCreateDTO createDTO) {
@@ -25,7 +35,18 @@ public class PacienteController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
-    @GetMapping
+    // Listagem padrão: por cursor, uma página por vez
+    @GetMapping({"", "/pagina"})
+    public ResponseEntity<PacientePaginaDTO> listar(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho,
+            @RequestParam(defaultValue = "false") boolean total) {
+        PacientePaginaDTO pagina = service.listar(cursor, tamanho, total);
+        return ResponseEntity.ok(pagina);
+    }
+
+    // Lista completa de uma vez, para clientes antigos
+    @GetMapping("/todos")
     public ResponseEntity<List<PacienteListDTO>> listarTodos() {
         List<PacienteListDTO> pacientes = service.listarTodos();
         return ResponseEntity.ok(pacientes);
@@ -49,6 +70,61 @@ public class PacienteController {
         return ResponseEntity.ok(pacientes);
     }
 
+    @GetMapping("/busca")
+    public ResponseEntity<List<PacienteListDTO>> buscar(
+            @RequestParam String termo,
+            @RequestParam(defaultValue = "20") int limite) {
+        List<PacienteListDTO> pacientes = service.buscar(termo, Math.max(1, Math.min(limite, 100)));
+        return ResponseEntity.ok(pacientes);
+    }
+
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<PacienteAutocompleteDTO>> autocompletar(
+            @RequestParam String prefixo,
+            @RequestParam(defaultValue = "10") int limite) {
+        List<PacienteAutocompleteDTO> sugestoes = service.autocompletar(prefixo, Math.max(1, Math.min(limite, 50)));
+        return ResponseEntity.ok(sugestoes);
+    }
+
+    @GetMapping("/autocomplete/estatisticas")
+    public ResponseEntity<PacienteAutocomplete.Estatisticas> estatisticasAutocomplete() {
+        return ResponseEntity.ok(service.estatisticasAutocomplete());
+    }
+
+    /**
+     * Base inteira em NDJSON ou CSV, escrita enquanto é lida do banco.
+     * colunas: lista separada por vírgula (ex.: id,nome,cpf); vazio = padrão.
+     */
+    @GetMapping("/exportacao")
+    public ResponseEntity<StreamingResponseBody> exportar(
+            @RequestParam(defaultValue = "ndjson") String formato,
+            @RequestParam(required = false) String colunas) {
+        PacienteExportService.Formato escolhido = PacienteExportService.formato(formato);
+        List<PacienteExportService.Coluna> escolhidas = PacienteExportService.colunas(colunas);
+
+        StreamingResponseBody corpo = saida -> exportService.exportar(escolhido, escolhidas, saida);
+        return ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.parseMediaType(escolhido.tipo), StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"pacientes-" + LocalDate.now() + "." + escolhido.extensao + "\"")
+                .body(corpo);
+    }
+
+    /**
+     * Importação em massa (CSV ou JSON, mesmas colunas da exportação).
+     * formato: csv, json ou ndjson; vazio = deduzido da extensão do arquivo.
+     */
+    @PostMapping(value = "/importacao", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<PacienteImportacaoService.Resultado> importar(
+            @RequestParam MultipartFile arquivo,
+            @RequestParam(required = false) String formato) throws IOException {
+        PacienteImportacaoService.Formato escolhido =
+                PacienteImportacaoService.formato(formato, arquivo.getOriginalFilename());
+        try (InputStream entrada = arquivo.getInputStream()) {
+            return ResponseEntity.ok(importacaoService.importar(entrada, escolhido));
+        }
+    }
+
     @GetMapping("/cpf/{cpf}")
     public ResponseEntity<PacienteResponseDTO> buscarPorCpf(@PathVariable String cpf) {
         PacienteResponseDTO paciente = service.buscarPorCpf(cpf);
@@ -20,7 +20,8 @@ import java.util.List;
 public class Anamnese {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "anamneses_seq")
+    @SequenceGenerator(name = "anamneses_seq", sequenceName = "anamneses_seq", allocationSize = 50)
     private Long id;
 
     @OneToOne
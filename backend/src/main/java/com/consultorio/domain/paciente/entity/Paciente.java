@@ -12,7 +12,10 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "pacientes")
+@Table(name = "pacientes", indexes = {
+        // Listagem por cursor: o PostgreSQL percorre o índice de trás para frente
+        @Index(name = "idx_pacientes_data_cadastro_id", columnList = "data_cadastro, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -21,7 +24,8 @@ import java.time.LocalDateTime;
 public class Paciente {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pacientes_seq")
+    @SequenceGenerator(name = "pacientes_seq", sequenceName = "pacientes_seq", allocationSize = 50)
     private Long id;
 
     // === DADOS PESSOAIS BÁSICOS ===
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,10 +16,35 @@ public interface PacienteRepository extends JpaRepository<Paciente, Long> {
 
     List<Paciente> findByNomeContainingIgnoreCaseOrderByNome(String nome);
 
+    List<Paciente> findByNomeStartingWithIgnoreCaseOrderByNomeAscIdAsc(String nome, Pageable pageable);
+
     Page<Paciente> findAllByOrderByDataCadastroDesc(Pageable pageable);
 
     List<Paciente> findAllByOrderByDataCadastroDesc();
 
+    // Listagem por cursor. Retorno em List (e não Page): o Spring não dispara o COUNT(*).
+    // Sem data de cadastro vêm primeiro, como no DESC do PostgreSQL (e no índice lido de trás para frente)
+    @Query("SELECT p FROM Paciente p ORDER BY p.dataCadastro DESC NULLS FIRST, p.id DESC")
+    List<Paciente> findPrimeiraPagina(Pageable pageable);
+
+    @Query("SELECT p FROM Paciente p WHERE p.dataCadastro < :dataCadastro " +
+            "OR (p.dataCadastro = :dataCadastro AND p.id < :id) " +
+            "ORDER BY p.dataCadastro DESC NULLS FIRST, p.id DESC")
+    List<Paciente> findDepoisDoCursor(@Param("dataCadastro") LocalDateTime dataCadastro,
+                                      @Param("id") Long id,
+                                      Pageable pageable);
+
+    // Cursor num paciente sem data de cadastro: os demais sem data, depois todos os com data
+    @Query("SELECT p FROM Paciente p WHERE (p.dataCadastro IS NULL AND p.id < :id) " +
+            "OR p.dataCadastro IS NOT NULL " +
+            "ORDER BY p.dataCadastro DESC NULLS FIRST, p.id DESC")
+    List<Paciente> findDepoisDoCursorSemData(@Param("id") Long id, Pageable pageable);
+
+    /** Linhas segundo as estatísticas do planejador (atualizadas pelo autovacuum), sem varrer a tabela. */
+    @Query(value = "SELECT CAST(GREATEST(reltuples, 0) AS bigint) FROM pg_class WHERE oid = CAST('pacientes' AS regclass)",
+            nativeQuery = true)
+    long contarAproximado();
+
     boolean existsByCpf(String cpf);
     boolean existsByRg(String rg);
     boolean existsByProntuario(String prontuario);
@@ -33,6 +59,11 @@ public interface PacienteRepository extends JpaRepository<Paciente, Long> {
     @Query("SELECT p FROM Paciente p WHERE " +
             "LOWER(p.nome) LIKE LOWER(CONCAT('%', :termo, '%')) OR " +
             "LOWER(p.cpf) LIKE LOWER(CONCAT('%', :termo, '%')) OR " +
-            "LOWER(p.prontuario) LIKE LOWER(CONCAT('%', :termo, '%'))")
-    List<Paciente> buscarPorTermo(@Param("termo") String termo);
-}
\ No newline at end of file
+            "LOWER(p.prontuario) LIKE LOWER(CONCAT('%', :termo, '%')) " +
+            "ORDER BY p.nome, p.id")
+    List<Paciente> buscarPorTermo(@Param("termo") String termo, Pageable pageable);
+
+    // Cada valor abre um bloco de 50 IDs (pooled-lo, mesmo allocationSize da entidade)
+    @Query(value = "SELECT nextval('pacientes_seq') FROM generate_series(1, :blocos)", nativeQuery = true)
+    List<Long> reservarBlocosDeIds(@Param("blocos") int blocos);
+}
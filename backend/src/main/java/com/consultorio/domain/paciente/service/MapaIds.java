@@ -0,0 +1,102 @@
+package com.consultorio.domain.paciente;
+
+import java.util.Arrays;
+
+/**
+ * ID do paciente -> ordinal, com endereçamento aberto sobre arrays
+ * primitivos (sem um Long e um Integer por paciente).
+ */
+final class MapaIds {
+
+    private static final long VAZIO = Long.MIN_VALUE;
+
+    private long[] chaves;
+    private int[] valores;
+    int tamanho;
+
+    MapaIds() {
+        limpar();
+    }
+
+    void limpar() {
+        chaves = new long[1024];
+        valores = new int[1024];
+        Arrays.fill(chaves, VAZIO);
+        tamanho = 0;
+    }
+
+    int obter(long chave) {
+        int mascara = chaves.length - 1;
+        for (int i = posicao(chave, mascara); chaves[i] != VAZIO; i = (i + 1) & mascara) {
+            if (chaves[i] == chave) {
+                return valores[i];
+            }
+        }
+        return -1;
+    }
+
+    void colocar(long chave, int valor) {
+        if ((tamanho + 1) * 2 > chaves.length) {
+            redimensionar();
+        }
+        int mascara = chaves.length - 1;
+        int i = posicao(chave, mascara);
+        while (chaves[i] != VAZIO && chaves[i] != chave) {
+            i = (i + 1) & mascara;
+        }
+        if (chaves[i] == VAZIO) {
+            tamanho++;
+        }
+        chaves[i] = chave;
+        valores[i] = valor;
+    }
+
+    /** Remove e devolve o ordinal (-1 se ausente), puxando para trás quem estava na sequência. */
+    int remover(long chave) {
+        int mascara = chaves.length - 1;
+        int i = posicao(chave, mascara);
+        while (chaves[i] != chave) {
+            if (chaves[i] == VAZIO) {
+                return -1;
+            }
+            i = (i + 1) & mascara;
+        }
+        int removido = valores[i];
+
+        int j = i;
+        while (true) {
+            j = (j + 1) & mascara;
+            if (chaves[j] == VAZIO) {
+                break;
+            }
+            int ideal = posicao(chaves[j], mascara);
+            boolean ficaOndeEsta = i <= j ? (i < ideal && ideal <= j) : (i < ideal || ideal <= j);
+            if (!ficaOndeEsta) {
+                chaves[i] = chaves[j];
+                valores[i] = valores[j];
+                i = j;
+            }
+        }
+        chaves[i] = VAZIO;
+        tamanho--;
+        return removido;
+    }
+
+    private void redimensionar() {
+        long[] chavesAntigas = chaves;
+        int[] valoresAntigos = valores;
+        chaves = new long[chavesAntigas.length * 2];
+        valores = new int[chavesAntigas.length * 2];
+        Arrays.fill(chaves, VAZIO);
+        tamanho = 0;
+        for (int i = 0; i < chavesAntigas.length; i++) {
+            if (chavesAntigas[i] != VAZIO) {
+                colocar(chavesAntigas[i], valoresAntigos[i]);
+            }
+        }
+    }
+
+    private static int posicao(long chave, int mascara) {
+        return (int) ((chave * 0x9E3779B97F4A7C15L) >>> 32) & mascara;
+    }
+}
@@ -0,0 +1,466 @@
+package com.consultorio.domain.paciente;
+
+import com.consultorio.domain.paciente.DTOs.PacienteAutocompleteDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Autocompletar da recepção: pacientes cujo nome (sem acento, minúsculo)
+ * começa pelo que foi digitado, em ordem alfabética.
+ *
+ * Os nomes normalizados ficam numa árvore radix: cada aresta guarda um
+ * trecho inteiro (não uma letra), os filhos ficam num array do tamanho
+ * exato, ordenados pelo primeiro byte, e cada nó guarda só os índices dos
+ * pacientes cujo nome termina nele. A consulta desce pelo prefixo e faz uma
+ * busca em profundidade que para nas k primeiras sugestões; o custo depende
+ * do tamanho do prefixo e de k, não do total de pacientes.
+ *
+ * Os dados exibidos (nome original, prontuário, nascimento) ficam em arrays
+ * paralelos por índice, com reaproveitamento dos índices liberados. Carga na
+ * subida da aplicação e manutenção pelo PacienteEvento, como no
+ * PacienteBuscaIndex.
+ */
+@Slf4j
+@Component
+public class PacienteAutocomplete {
+
+    private static final String CARREGAR = "SELECT id, nome, prontuario, data_nascimento FROM pacientes";
+    private static final int TAMANHO_LOTE = 1_000;
+
+    private static final int SEM_NASCIMENTO = Integer.MIN_VALUE;
+    private static final No[] SEM_FILHOS = new No[0];
+    private static final int[] SEM_PACIENTES = new int[0];
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate leitura;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Protegidos por 'lock'
+    private final No raiz = new No(new byte[0]);
+    private final MapaIds indicePorId = new MapaIds();
+    private long[] ids = new long[1024];
+    private byte[][] chaves = new byte[1024][];
+    private String[] nomes = new String[1024];
+    private String[] prontuarios = new String[1024];
+    private int[] nascimentos = new int[1024];   // epoch day
+    private int[] livres = new int[64];
+    private int quantidadeLivres;
+    private int usados;
+
+    private volatile boolean pronto;
+
+    private final Set<Long> alteradosDuranteCarga = ConcurrentHashMap.newKeySet();
+
+    public PacienteAutocomplete(JdbcTemplate jdbc, PlatformTransactionManager transactionManager) {
+        this.jdbc = jdbc;
+        this.leitura = new TransactionTemplate(transactionManager);
+        this.leitura.setReadOnly(true);
+    }
+
+    public record Estatisticas(boolean pronto, int pacientes, int nos, long bytesEstimados) {
+    }
+
+    public boolean pronto() {
+        return pronto;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        long inicio = System.nanoTime();
+        List<PacienteEvento> lote = new ArrayList<>(TAMANHO_LOTE);
+
+        try {
+            leitura.executeWithoutResult(status -> jdbc.query(con -> {
+                PreparedStatement ps = con.prepareStatement(CARREGAR);
+                ps.setFetchSize(TAMANHO_LOTE);
+                return ps;
+            }, rs -> {
+                Date nascimento = rs.getDate(4);
+                lote.add(new PacienteEvento(PacienteEvento.Tipo.SALVO, rs.getLong(1), rs.getString(2), null,
+                        rs.getString(3), null, null, nascimento == null ? null : nascimento.toLocalDate()));
+                if (lote.size() == TAMANHO_LOTE) {
+                    carregarLote(lote);
+                    lote.clear();
+                }
+            }));
+            carregarLote(lote);
+        } catch (RuntimeException e) {
+            log.error("Falha ao carregar o autocompletar de pacientes", e);
+            return;
+        }
+
+        pronto = true;
+        alteradosDuranteCarga.clear();
+        Estatisticas estatisticas = estatisticas();
+        log.info("Autocompletar de pacientes carregado: {} paciente(s), {} nó(s), ~{} KB em {} ms",
+                estatisticas.pacientes(), estatisticas.nos(), estatisticas.bytesEstimados() / 1024,
+                (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarPaciente(PacienteEvento evento) {
+        aplicar(List.of(evento));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoImportarPacientes(PacientesImportados importados) {
+        aplicar(importados.pacientes());
+    }
+
+    /**
+     * Até 'limite' pacientes cujo nome começa pelo prefixo, em ordem
+     * alfabética (homônimos por ID). Prefixo vazio não sugere nada.
+     */
+    public List<PacienteAutocompleteDTO> sugerir(String prefixo, int limite) {
+        byte[] chave = chave(prefixo);
+        if (chave.length == 0 || limite <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            No no = descer(chave);
+            List<PacienteAutocompleteDTO> sugestoes = new ArrayList<>(Math.min(limite, 32));
+            if (no != null) {
+                coletar(no, limite, sugestoes);
+            }
+            return sugestoes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Tamanho da árvore e estimativa do espaço ocupado (cabeçalhos de objeto
+     * de 16 bytes e referências de 4, como numa JVM com compressed oops).
+     */
+    public Estatisticas estatisticas() {
+        lock.readLock().lock();
+        try {
+            long[] nosEBytes = new long[2];
+            medir(raiz, nosEBytes);
+            long dados = (long) ids.length * (8 + 4 + 4 + 4 + 4)   // ids, chaves, nomes, prontuários, nascimentos
+                    + indicePorId.tamanho * 24L;
+            for (int i = 0; i < usados; i++) {
+                if (chaves[i] != null) {
+                    dados += array(chaves[i].length) + texto(nomes[i]) + texto(prontuarios[i]);
+                }
+            }
+            return new Estatisticas(pronto, indicePorId.tamanho, (int) nosEBytes[0], nosEBytes[1] + dados);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ============================================================
+    // MANUTENÇÃO (com o lock de escrita)
+    // ============================================================
+
+    private void aplicar(List<PacienteEvento> eventos) {
+        if (!pronto) {
+            eventos.forEach(evento -> alteradosDuranteCarga.add(evento.id()));
+        }
+        lock.writeLock().lock();
+        try {
+            for (PacienteEvento evento : eventos) {
+                remover(evento.id());
+                if (evento.tipo() == PacienteEvento.Tipo.SALVO) {
+                    inserir(evento);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void carregarLote(List<PacienteEvento> lote) {
+        lock.writeLock().lock();
+        try {
+            for (PacienteEvento paciente : lote) {
+                if (!alteradosDuranteCarga.contains(paciente.id()) && indicePorId.obter(paciente.id()) < 0) {
+                    inserir(paciente);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void inserir(PacienteEvento paciente) {
+        byte[] chave = chave(paciente.nome());
+        if (chave.length == 0) {
+            return;
+        }
+        int indice = quantidadeLivres > 0 ? livres[--quantidadeLivres] : novoIndice();
+        ids[indice] = paciente.id();
+        chaves[indice] = chave;
+        nomes[indice] = paciente.nome();
+        prontuarios[indice] = paciente.prontuario();
+        nascimentos[indice] = paciente.dataNascimento() == null
+                ? SEM_NASCIMENTO
+                : (int) paciente.dataNascimento().toEpochDay();
+        indicePorId.colocar(paciente.id(), indice);
+
+        No no = raiz;
+        int posicao = 0;
+        while (posicao < chave.length) {
+            int i = no.filho(chave[posicao]);
+            if (i < 0) {
+                No folha = new No(Arrays.copyOfRange(chave, posicao, chave.length));
+                no.adicionarFilho(-i - 1, folha);
+                no = folha;
+                break;
+            }
+            No filho = no.filhos[i];
+            int comum = prefixoComum(filho.rotulo, chave, posicao);
+            if (comum < filho.rotulo.length) {
+                no.filhos[i] = filho.dividir(comum);
+                filho = no.filhos[i];
+            }
+            no = filho;
+            posicao += comum;
+        }
+        no.adicionarPaciente(indice, ids);
+    }
+
+    private void remover(long id) {
+        int indice = indicePorId.remover(id);
+        if (indice < 0) {
+            return;
+        }
+        byte[] chave = chaves[indice];
+
+        // Caminho da raiz até o nó do nome, para podar na volta
+        List<No> caminho = new ArrayList<>();
+        No no = raiz;
+        int posicao = 0;
+        caminho.add(no);
+        while (posicao < chave.length) {
+            no = no.filhos[no.filho(chave[posicao])];
+            posicao += no.rotulo.length;
+            caminho.add(no);
+        }
+        no.removerPaciente(indice);
+
+        // Poda na volta: nó sem paciente e sem filho sai; com um só filho, junta-se a ele
+        for (int i = caminho.size() - 1; i > 0; i--) {
+            No atual = caminho.get(i);
+            No pai = caminho.get(i - 1);
+            if (atual.pacientes.length > 0 || atual.filhos.length > 1) {
+                break;
+            }
+            int posicaoNoPai = pai.filho(atual.rotulo[0]);
+            if (atual.filhos.length == 1) {
+                pai.filhos[posicaoNoPai] = atual.juntarComFilho();
+                break;
+            }
+            pai.removerFilho(posicaoNoPai);
+        }
+
+        ids[indice] = 0;
+        chaves[indice] = null;
+        nomes[indice] = null;
+        prontuarios[indice] = null;
+        if (quantidadeLivres == livres.length) {
+            livres = Arrays.copyOf(livres, livres.length * 2);
+        }
+        livres[quantidadeLivres++] = indice;
+    }
+
+    private int novoIndice() {
+        if (usados == ids.length) {
+            int tamanho = usados * 2;
+            ids = Arrays.copyOf(ids, tamanho);
+            chaves = Arrays.copyOf(chaves, tamanho);
+            nomes = Arrays.copyOf(nomes, tamanho);
+            prontuarios = Arrays.copyOf(prontuarios, tamanho);
+            nascimentos = Arrays.copyOf(nascimentos, tamanho);
+        }
+        return usados++;
+    }
+
+    // ============================================================
+    // CONSULTA (com o lock de leitura)
+    // ============================================================
+
+    /** Nó cuja subárvore tem todos os nomes que começam pela chave, ou null. */
+    private No descer(byte[] chave) {
+        No no = raiz;
+        int posicao = 0;
+        while (posicao < chave.length) {
+            int i = no.filho(chave[posicao]);
+            if (i < 0) {
+                return null;
+            }
+            No filho = no.filhos[i];
+            int comum = prefixoComum(filho.rotulo, chave, posicao);
+            if (posicao + comum == chave.length) {
+                return filho;   // a chave acaba no meio (ou no fim) do rótulo
+            }
+            if (comum < filho.rotulo.length) {
+                return null;
+            }
+            no = filho;
+            posicao += comum;
+        }
+        return no;
+    }
+
+    /** Pré-ordem: os pacientes do nó vêm antes dos nomes mais longos, filhos em ordem de byte. */
+    private void coletar(No no, int limite, List<PacienteAutocompleteDTO> sugestoes) {
+        for (int indice : no.pacientes) {
+            if (sugestoes.size() == limite) {
+                return;
+            }
+            sugestoes.add(new PacienteAutocompleteDTO(ids[indice], nomes[indice], prontuarios[indice],
+                    nascimentos[indice] == SEM_NASCIMENTO ? null : LocalDate.ofEpochDay(nascimentos[indice])));
+        }
+        for (No filho : no.filhos) {
+            if (sugestoes.size() == limite) {
+                return;
+            }
+            coletar(filho, limite, sugestoes);
+        }
+    }
+
+    private static void medir(No no, long[] nosEBytes) {
+        nosEBytes[0]++;
+        nosEBytes[1] += 32 + array(no.rotulo.length)
+                + (no.filhos.length == 0 ? 0 : array(4L * no.filhos.length))
+                + (no.pacientes.length == 0 ? 0 : array(4L * no.pacientes.length));
+        for (No filho : no.filhos) {
+            medir(filho, nosEBytes);
+        }
+    }
+
+    // ============================================================
+    // MÉTODOS AUXILIARES
+    // ============================================================
+
+    static byte[] chave(String nome) {
+        return PacienteBuscaIndex.normalizar(nome).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static int prefixoComum(byte[] rotulo, byte[] chave, int posicao) {
+        int limite = Math.min(rotulo.length, chave.length - posicao);
+        int i = 0;
+        while (i < limite && rotulo[i] == chave[posicao + i]) {
+            i++;
+        }
+        return i;
+    }
+
+    private static long array(long bytes) {
+        return (16 + bytes + 7) & ~7L;
+    }
+
+    private static long texto(String valor) {
+        return valor == null ? 0 : 24 + array(valor.length());
+    }
+
+    /**
+     * Nó da árvore radix. Os arrays têm o tamanho exato: inserir e remover
+     * copiam, o que é barato perto do volume de leituras.
+     */
+    private static final class No {
+
+        private byte[] rotulo;
+        private No[] filhos = SEM_FILHOS;
+        private int[] pacientes = SEM_PACIENTES;
+
+        No(byte[] rotulo) {
+            this.rotulo = rotulo;
+        }
+
+        /** Posição do filho cujo rótulo começa por 'b', ou -(ponto de inserção) - 1. */
+        int filho(byte b) {
+            int de = 0;
+            int ate = filhos.length - 1;
+            while (de <= ate) {
+                int meio = (de + ate) >>> 1;
+                int primeiro = filhos[meio].rotulo[0];
+                if (primeiro < b) {
+                    de = meio + 1;
+                } else if (primeiro > b) {
+                    ate = meio - 1;
+                } else {
+                    return meio;
+                }
+            }
+            return -(de + 1);
+        }
+
+        void adicionarFilho(int posicao, No filho) {
+            No[] novos = new No[filhos.length + 1];
+            System.arraycopy(filhos, 0, novos, 0, posicao);
+            novos[posicao] = filho;
+            System.arraycopy(filhos, posicao, novos, posicao + 1, filhos.length - posicao);
+            filhos = novos;
+        }
+
+        void removerFilho(int posicao) {
+            No[] novos = new No[filhos.length - 1];
+            System.arraycopy(filhos, 0, novos, 0, posicao);
+            System.arraycopy(filhos, posicao + 1, novos, posicao, novos.length - posicao);
+            filhos = novos.length == 0 ? SEM_FILHOS : novos;
+        }
+
+        /** Quebra o rótulo em 'ate': devolve o novo nó intermediário, que tem este como único filho. */
+        No dividir(int ate) {
+            No intermediario = new No(Arrays.copyOf(rotulo, ate));
+            rotulo = Arrays.copyOfRange(rotulo, ate, rotulo.length);
+            intermediario.filhos = new No[]{this};
+            return intermediario;
+        }
+
+        /** Absorve o único filho, somando os rótulos; devolve o nó resultante. */
+        No juntarComFilho() {
+            No filho = filhos[0];
+            byte[] junto = Arrays.copyOf(rotulo, rotulo.length + filho.rotulo.length);
+            System.arraycopy(filho.rotulo, 0, junto, rotulo.length, filho.rotulo.length);
+            filho.rotulo = junto;
+            return filho;
+        }
+
+        /** Mantém os homônimos em ordem de ID. */
+        void adicionarPaciente(int indice, long[] ids) {
+            int posicao = 0;
+            while (posicao < pacientes.length && ids[pacientes[posicao]] < ids[indice]) {
+                posicao++;
+            }
+            int[] novos = new int[pacientes.length + 1];
+            System.arraycopy(pacientes, 0, novos, 0, posicao);
+            novos[posicao] = indice;
+            System.arraycopy(pacientes, posicao, novos, posicao + 1, pacientes.length - posicao);
+            pacientes = novos;
+        }
+
+        void removerPaciente(int indice) {
+            int posicao = 0;
+            while (pacientes[posicao] != indice) {
+                posicao++;
+            }
+            int[] novos = new int[pacientes.length - 1];
+            System.arraycopy(pacientes, 0, novos, 0, posicao);
+            System.arraycopy(pacientes, posicao + 1, novos, posicao, novos.length - posicao);
+            pacientes = novos.length == 0 ? SEM_PACIENTES : novos;
+        }
+    }
+}
@@ -0,0 +1,787 @@
+package com.consultorio.domain.paciente;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+import java.util.regex.Pattern;
+
+/**
+ * Índice em memória para a caixa de busca de pacientes, no lugar de
+ * LIKE '%termo%' (varredura da tabela a cada tecla).
+ *
+ * Cada paciente vira um texto normalizado (sem acento, minúsculo, só letras
+ * e dígitos) com nome, CPF, prontuário, telefone e e-mail. Cada palavra gera
+ * trigramas em três classes: qualquer posição, início de palavra e início
+ * do nome (estas duas também com os prefixos de 1 e 2 letras, para buscas
+ * curtas). As listas de postagem guardam ordinais crescentes como diferenças
+ * em varint, com um ponto de salto a cada 64 entradas.
+ *
+ * Ranking em faixas, da melhor para a pior:
+ *  1. o nome começa pela primeira palavra do termo (e as demais começam palavras);
+ *  2. todas as palavras do termo começam palavras (nome, CPF, telefone, e-mail...);
+ *  3. as palavras do termo aparecem em qualquer posição.
+ * Dentro da faixa, a ordem é a dos ordinais, que seguem o nome (carga em
+ * ORDER BY nome e recompactação). Cada faixa é uma interseção preguiçosa
+ * das listas, com saltos, que para ao juntar o limite pedido: um termo
+ * comum não obriga a visitar todos os pacientes que o contêm.
+ *
+ * Carregado depois da subida da aplicação; até lá, {@link #pronto()} é
+ * false e quem consulta usa o banco. Mantido pelo PacienteEvento (e pelo
+ * PacientesImportados, um por bloco da importação). Alterar
+ * ou excluir deixa o ordinal antigo como lápide (os novos entram no fim,
+ * fora da ordem alfabética); quando as lápides passam de um quarto do
+ * total, o índice é recompactado numa thread própria: o novo índice é
+ * montado sobre uma cópia dos vivos, sem travar buscas nem eventos, e
+ * trocado pelo atual sob o lock de escrita, reaplicando as alterações
+ * que chegaram durante a montagem.
+ */
+@Slf4j
+@Component
+public class PacienteBuscaIndex {
+
+    // Em ordem de nome: os ordinais (e as listas) ficam em ordem alfabética
+    private static final String CARREGAR = "SELECT id, nome, cpf, prontuario, telefone, email FROM pacientes ORDER BY nome";
+    private static final int TAMANHO_LOTE = 1_000;
+    private static final int LAPIDES_PARA_COMPACTAR = 1024;
+
+    private static final byte SEPARADOR = '|';
+    private static final int SIMBOLOS = 37;   // vazio + a-z + 0-9
+    private static final int GRAMAS_POR_CLASSE = SIMBOLOS * SIMBOLOS * SIMBOLOS;
+    private static final int MAXIMO_TERMOS = 8;
+
+    // Classes de grama, que são também as âncoras das faixas de ranking
+    private static final int QUALQUER = 0;
+    private static final int PALAVRA = 1;
+    private static final int NOME = 2;
+
+    private static final Pattern DIACRITICOS = Pattern.compile("\\p{M}+");
+    private static final Pattern SO_NUMERO = Pattern.compile("[\\d\\s.\\-/()+]*\\d[\\d\\s.\\-/()+]*");
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate leitura;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Executor compactacao;
+
+    // Protegidos por 'lock'
+    private Postagens[] postagens = new Postagens[3 * GRAMAS_POR_CLASSE];
+    private MapaIds ordinalPorId = new MapaIds();
+    private long[] ids = new long[1024];
+    private byte[][] textos = new byte[1024][];   // null = lápide
+    private int ordinais;
+    private int lapides;
+    private boolean compactando;
+    // Alterações feitas enquanto a compactação monta o novo índice (texto null = removido)
+    private Map<Long, byte[]> alteradosDuranteCompactacao;
+
+    private volatile boolean pronto;
+
+    // Pacientes alterados por eventos enquanto a carga inicial roda: a carga não os sobrescreve
+    private final Set<Long> alteradosDuranteCarga = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public PacienteBuscaIndex(JdbcTemplate jdbc, PlatformTransactionManager transactionManager) {
+        this(jdbc, transactionManager, Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "pacientes-busca-compactacao");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    PacienteBuscaIndex(JdbcTemplate jdbc, PlatformTransactionManager transactionManager, Executor compactacao) {
+        this.jdbc = jdbc;
+        this.leitura = new TransactionTemplate(transactionManager);
+        this.leitura.setReadOnly(true);
+        this.compactacao = compactacao;
+    }
+
+    @PreDestroy
+    void encerrar() {
+        if (compactacao instanceof ExecutorService executor) {
+            executor.shutdownNow();
+        }
+    }
+
+    public boolean pronto() {
+        return pronto;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        long inicio = System.nanoTime();
+        List<Object[]> lote = new ArrayList<>(TAMANHO_LOTE);
+
+        try {
+            leitura.executeWithoutResult(status -> jdbc.query(con -> {
+                PreparedStatement ps = con.prepareStatement(CARREGAR);
+                ps.setFetchSize(TAMANHO_LOTE);
+                return ps;
+            }, rs -> {
+                lote.add(new Object[]{rs.getLong(1), texto(rs.getString(2), rs.getString(3), rs.getString(4),
+                        rs.getString(5), rs.getString(6))});
+                if (lote.size() == TAMANHO_LOTE) {
+                    carregarLote(lote);
+                    lote.clear();
+                }
+            }));
+            carregarLote(lote);
+        } catch (RuntimeException e) {
+            log.error("Falha ao carregar o índice de busca de pacientes; a busca segue pelo banco", e);
+            return;
+        }
+
+        pronto = true;
+        alteradosDuranteCarga.clear();
+        log.info("Índice de busca de pacientes carregado: {} paciente(s), {} KB de postagens em {} ms",
+                ordinalPorId.tamanho, bytesPostagens() / 1024, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarPaciente(PacienteEvento evento) {
+        aplicar(List.of(evento));
+    }
+
+    /** Bloco da importação: um lock de escrita e uma checagem de recompactação para o bloco todo. */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoImportarPacientes(PacientesImportados importados) {
+        aplicar(importados.pacientes());
+    }
+
+    private void aplicar(List<PacienteEvento> eventos) {
+        if (!pronto) {
+            eventos.forEach(evento -> alteradosDuranteCarga.add(evento.id()));
+        }
+        boolean agendarCompactacao = false;
+        lock.writeLock().lock();
+        try {
+            for (PacienteEvento evento : eventos) {
+                if (evento.tipo() == PacienteEvento.Tipo.REMOVIDO) {
+                    remover(evento.id());
+                    registrar(evento.id(), null);
+                } else {
+                    byte[] texto = texto(evento.nome(), evento.cpf(), evento.prontuario(),
+                            evento.telefone(), evento.email());
+                    inserir(evento.id(), texto);
+                    registrar(evento.id(), texto);
+                }
+            }
+            if (!compactando && lapides > LAPIDES_PARA_COMPACTAR && lapides > ordinais / 4) {
+                compactando = true;
+                alteradosDuranteCompactacao = new HashMap<>();
+                agendarCompactacao = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // Fora do lock: quem publicou o evento não espera a recompactação
+        if (agendarCompactacao) {
+            try {
+                compactacao.execute(this::compactar);
+            } catch (RejectedExecutionException e) {
+                log.warn("Recompactação do índice de busca de pacientes recusada (aplicação encerrando?)");
+                encerrarCompactacao();
+            }
+        }
+    }
+
+    /**
+     * IDs dos pacientes que contêm todas as palavras do termo, na ordem das
+     * faixas de ranking. Palavras de 1 ou 2 caracteres só casam com início de palavra.
+     */
+    public List<Long> buscar(String termo, int limite) {
+        byte[][] termos = termos(termo);
+        if (termos.length == 0 || limite <= 0) {
+            return List.of();
+        }
+        boolean soCurtos = Arrays.stream(termos).allMatch(t -> t.length < 3);
+
+        lock.readLock().lock();
+        try {
+            List<Long> resultado = new ArrayList<>(limite);
+            int[] achados = new int[limite];
+            int[][] faixas = soCurtos
+                    ? new int[][]{{NOME, PALAVRA}, {PALAVRA, PALAVRA}}
+                    : new int[][]{{NOME, PALAVRA}, {PALAVRA, PALAVRA}, {QUALQUER, QUALQUER}};
+
+            for (int[] faixa : faixas) {
+                Cursor[] cursores = cursores(gramasDaConsulta(termos, faixa[0], faixa[1]));
+                if (cursores == null) {
+                    continue;
+                }
+                intersectar(cursores, ordinal -> {
+                    byte[] texto = textos[ordinal];
+                    if (texto != null && !contem(achados, resultado.size(), ordinal)
+                            && casa(texto, termos, faixa[0], faixa[1])) {
+                        achados[resultado.size()] = ordinal;
+                        resultado.add(ids[ordinal]);
+                    }
+                    return resultado.size() < limite;
+                });
+                if (resultado.size() == limite) {
+                    break;
+                }
+            }
+            return resultado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * IDs de todos os pacientes com as palavras do trecho no nome, em
+     * qualquer posição, em ordem de nome: o contrato do LIKE '%nome%' de
+     * GET /buscar, mas sem acento e sem varrer a tabela. Palavras de 1 ou 2
+     * caracteres só casam com início de palavra, como em {@link #buscar}.
+     */
+    public List<Long> buscarNoNome(String trecho) {
+        byte[][] termos = termos(trecho);
+        if (termos.length == 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Cursor[] cursores = cursores(gramasDaConsulta(termos, QUALQUER, QUALQUER));
+            if (cursores == null) {
+                return List.of();
+            }
+            List<Integer> achados = new ArrayList<>();
+            intersectar(cursores, ordinal -> {
+                byte[] texto = textos[ordinal];
+                if (texto != null && casa(Arrays.copyOf(texto, fimDoNome(texto)), termos, QUALQUER, QUALQUER)) {
+                    achados.add(ordinal);
+                }
+                return true;
+            });
+            // Os que entraram depois da última recompactação estão no fim, fora da ordem
+            achados.sort(Comparator.<Integer, byte[]>comparing(i -> textos[i], PacienteBuscaIndex::compararNomes)
+                    .thenComparingLong(i -> ids[i]));
+            return achados.stream().map(ordinal -> ids[ordinal]).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ============================================================
+    // MANUTENÇÃO (com o lock de escrita)
+    // ============================================================
+
+    private void carregarLote(List<Object[]> lote) {
+        lock.writeLock().lock();
+        try {
+            for (Object[] linha : lote) {
+                long id = (Long) linha[0];
+                // Já veio por evento (mais novo que a leitura) ou foi excluído nesse meio-tempo
+                if (!alteradosDuranteCarga.contains(id) && ordinalPorId.obter(id) < 0) {
+                    inserir(id, (byte[]) linha[1]);
+                    registrar(id, (byte[]) linha[1]);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void inserir(long id, byte[] texto) {
+        remover(id);
+        if (ordinais == ids.length) {
+            ids = Arrays.copyOf(ids, ordinais * 2);
+            textos = Arrays.copyOf(textos, ordinais * 2);
+        }
+        int ordinal = ordinais++;
+        ids[ordinal] = id;
+        textos[ordinal] = texto;
+        ordinalPorId.colocar(id, ordinal);
+        indexar(postagens, ordinal, texto);
+    }
+
+    private void remover(long id) {
+        int ordinal = ordinalPorId.remover(id);
+        if (ordinal >= 0) {
+            textos[ordinal] = null;
+            lapides++;
+        }
+    }
+
+    /** Guarda a alteração para reaplicar no índice que a compactação em curso está montando. */
+    private void registrar(long id, byte[] texto) {
+        if (compactando) {
+            alteradosDuranteCompactacao.put(id, texto);
+        }
+    }
+
+    private static void indexar(Postagens[] destino, int ordinal, byte[] texto) {
+        for (int grama : gramas(texto)) {
+            Postagens lista = destino[grama];
+            if (lista == null) {
+                lista = destino[grama] = new Postagens();
+            }
+            lista.adicionar(ordinal);
+        }
+    }
+
+    // ============================================================
+    // RECOMPACTAÇÃO (na thread própria)
+    // ============================================================
+
+    /**
+     * Renumera os ordinais vivos em ordem de nome e refaz as listas sem as
+     * lápides. Copia os vivos sob o lock de leitura, monta o novo índice sem
+     * lock e só o troca sob o lock de escrita, reaplicando o que mudou nesse
+     * meio-tempo (que volta a entrar no fim, como qualquer alteração).
+     */
+    private void compactar() {
+        try {
+            long[] idsVivos;
+            byte[][] textosVivos;
+            int n = 0;
+            lock.readLock().lock();
+            try {
+                idsVivos = new long[ordinalPorId.tamanho];
+                textosVivos = new byte[idsVivos.length][];
+                for (int i = 0; i < ordinais; i++) {
+                    if (textos[i] != null) {
+                        idsVivos[n] = ids[i];
+                        textosVivos[n++] = textos[i];
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            Integer[] ordem = new Integer[n];
+            Arrays.setAll(ordem, i -> i);
+            Arrays.sort(ordem, Comparator.<Integer, byte[]>comparing(i -> textosVivos[i], PacienteBuscaIndex::compararNomes)
+                    .thenComparingLong(i -> idsVivos[i]));
+
+            Postagens[] novasPostagens = new Postagens[3 * GRAMAS_POR_CLASSE];
+            MapaIds novoOrdinalPorId = new MapaIds();
+            long[] novosIds = new long[Math.max(1024, n * 2)];
+            byte[][] novosTextos = new byte[novosIds.length][];
+            for (int ordinal = 0; ordinal < n; ordinal++) {
+                novosIds[ordinal] = idsVivos[ordem[ordinal]];
+                novosTextos[ordinal] = textosVivos[ordem[ordinal]];
+                novoOrdinalPorId.colocar(novosIds[ordinal], ordinal);
+                indexar(novasPostagens, ordinal, novosTextos[ordinal]);
+            }
+
+            lock.writeLock().lock();
+            try {
+                postagens = novasPostagens;
+                ordinalPorId = novoOrdinalPorId;
+                ids = novosIds;
+                textos = novosTextos;
+                ordinais = n;
+                lapides = 0;
+                alteradosDuranteCompactacao.forEach((id, texto) -> {
+                    if (texto == null) {
+                        remover(id);
+                    } else {
+                        inserir(id, texto);
+                    }
+                });
+                log.debug("Índice de busca de pacientes recompactado: {} paciente(s), {} alteração(ões) reaplicada(s)",
+                        n, alteradosDuranteCompactacao.size());
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (RuntimeException e) {
+            // O índice atual segue válido, só com as lápides; a próxima alteração tenta de novo
+            log.error("Falha ao recompactar o índice de busca de pacientes", e);
+        } finally {
+            encerrarCompactacao();
+        }
+    }
+
+    private void encerrarCompactacao() {
+        lock.writeLock().lock();
+        try {
+            compactando = false;
+            alteradosDuranteCompactacao = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private long bytesPostagens() {
+        lock.readLock().lock();
+        try {
+            long total = 0;
+            for (Postagens lista : postagens) {
+                total += lista == null ? 0 : lista.tamanho;
+            }
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ============================================================
+    // CONSULTA (com o lock de leitura)
+    // ============================================================
+
+    /** Um cursor por grama, do mais raro ao mais comum; null se algum grama não existe. */
+    private Cursor[] cursores(int[] gramas) {
+        Cursor[] cursores = new Cursor[gramas.length];
+        for (int i = 0; i < gramas.length; i++) {
+            Postagens lista = postagens[gramas[i]];
+            if (lista == null) {
+                return null;
+            }
+            cursores[i] = new Cursor(lista);
+        }
+        Arrays.sort(cursores, Comparator.comparingInt(cursor -> cursor.lista.quantidade));
+        return cursores;
+    }
+
+    /**
+     * Entrega, em ordem crescente, os ordinais presentes em todas as listas
+     * (leapfrog: cada cursor salta até o maior valor visto) até 'aceitar' devolver false.
+     */
+    private static void intersectar(Cursor[] cursores, IntPredicate aceitar) {
+        int alvo = 0;
+        proximo:
+        while (true) {
+            for (Cursor cursor : cursores) {
+                int valor = cursor.avancarAte(alvo);
+                if (valor == Integer.MAX_VALUE) {
+                    return;
+                }
+                if (valor > alvo) {
+                    alvo = valor;
+                    continue proximo;
+                }
+            }
+            if (!aceitar.test(alvo)) {
+                return;
+            }
+            alvo++;
+        }
+    }
+
+    /**
+     * Confere no texto o que os gramas só sugerem: cada palavra do termo
+     * aparece inteira, na âncora da faixa (a primeira palavra com
+     * 'ancoraPrimeiro', as demais com 'ancoraDemais').
+     */
+    static boolean casa(byte[] texto, byte[][] termos, int ancoraPrimeiro, int ancoraDemais) {
+        for (int t = 0; t < termos.length; t++) {
+            byte[] termo = termos[t];
+            int ancora = t == 0 ? ancoraPrimeiro : ancoraDemais;
+            if (ancora == QUALQUER && termo.length < 3) {
+                ancora = PALAVRA;
+            }
+
+            boolean achou = false;
+            int ultimaPosicao = ancora == NOME ? 0 : texto.length - termo.length;
+            for (int i = 0; i <= ultimaPosicao && !achou; i++) {
+                boolean inicioPalavra = i == 0 || texto[i - 1] == ' ' || texto[i - 1] == SEPARADOR;
+                achou = (ancora == QUALQUER || inicioPalavra) && comecaCom(texto, i, termo);
+            }
+            if (!achou) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contem(int[] valores, int n, int valor) {
+        for (int i = 0; i < n; i++) {
+            if (valores[i] == valor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ============================================================
+    // NORMALIZAÇÃO E GRAMAS
+    // ============================================================
+
+    /** nome|cpf|prontuario|telefone|email, normalizados, em ASCII. */
+    static byte[] texto(String nome, String cpf, String prontuario, String telefone, String email) {
+        String texto = normalizar(nome) + '|' + digitos(cpf) + '|' + normalizar(prontuario) + '|'
+                + digitos(telefone) + '|' + normalizar(email);
+        return texto.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /** Sem acento, minúsculo, só [a-z0-9] com um espaço entre as palavras. */
+    static String normalizar(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        String semAcento = DIACRITICOS.matcher(Normalizer.normalize(valor, Normalizer.Form.NFD)).replaceAll("");
+        StringBuilder sb = new StringBuilder(semAcento.length());
+        for (int i = 0; i < semAcento.length(); i++) {
+            char c = Character.toLowerCase(semAcento.charAt(i));
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                sb.append(c);
+            } else if (sb.length() > 0 && sb.charAt(sb.length() - 1) != ' ') {
+                sb.append(' ');
+            }
+        }
+        int fim = sb.length();
+        return fim > 0 && sb.charAt(fim - 1) == ' ' ? sb.substring(0, fim - 1) : sb.toString();
+    }
+
+    private static String digitos(String valor) {
+        return valor == null ? "" : valor.replaceAll("\\D", "");
+    }
+
+    /** Palavras do termo; CPF ou telefone com pontuação viram um único número. */
+    static byte[][] termos(String termo) {
+        if (termo == null || termo.isBlank()) {
+            return new byte[0][];
+        }
+        String normalizado = SO_NUMERO.matcher(termo.trim()).matches() ? digitos(termo) : normalizar(termo);
+        return Arrays.stream(normalizado.split(" "))
+                .filter(palavra -> !palavra.isEmpty())
+                .distinct()
+                .limit(MAXIMO_TERMOS)
+                .map(palavra -> palavra.getBytes(StandardCharsets.US_ASCII))
+                .toArray(byte[][]::new);
+    }
+
+    /**
+     * Gramas do texto, sem repetição: trigramas de qualquer posição, e o
+     * começo (1, 2 e 3 letras) de cada palavra e da primeira palavra do nome.
+     */
+    static int[] gramas(byte[] texto) {
+        int[] gramas = new int[texto.length + 6 * (texto.length / 2 + 2)];
+        int n = 0;
+        int inicio = 0;
+        for (int i = 0; i <= texto.length; i++) {
+            if (i < texto.length && texto[i] != ' ' && texto[i] != SEPARADOR) {
+                continue;
+            }
+            int tamanho = i - inicio;
+            for (int j = inicio; j + 3 <= i; j++) {
+                gramas[n++] = trigrama(QUALQUER, texto, j);
+            }
+            if (tamanho > 0) {
+                n = comecos(gramas, n, PALAVRA, texto, inicio, tamanho);
+                if (inicio == 0) {
+                    n = comecos(gramas, n, NOME, texto, inicio, tamanho);
+                }
+            }
+            inicio = i + 1;
+        }
+        return distintos(gramas, n);
+    }
+
+    /**
+     * Gramas que um texto precisa ter para casar com o termo na faixa: a
+     * palavra curta procura o seu prefixo na âncora; a longa, todos os seus
+     * trigramas e, se a âncora não for QUALQUER, o trigrama inicial na âncora.
+     */
+    static int[] gramasDaConsulta(byte[][] termos, int ancoraPrimeiro, int ancoraDemais) {
+        int total = 0;
+        for (byte[] termo : termos) {
+            total += termo.length + 1;
+        }
+        int[] gramas = new int[total];
+        int n = 0;
+        for (int t = 0; t < termos.length; t++) {
+            byte[] termo = termos[t];
+            int ancora = t == 0 ? ancoraPrimeiro : ancoraDemais;
+            if (termo.length < 3) {
+                gramas[n++] = prefixo(ancora == QUALQUER ? PALAVRA : ancora, termo, 0, termo.length);
+                continue;
+            }
+            for (int j = 0; j + 3 <= termo.length; j++) {
+                gramas[n++] = trigrama(QUALQUER, termo, j);
+            }
+            if (ancora != QUALQUER) {
+                gramas[n++] = trigrama(ancora, termo, 0);
+            }
+        }
+        return distintos(gramas, n);
+    }
+
+    private static int comecos(int[] gramas, int n, int classe, byte[] texto, int inicio, int tamanho) {
+        gramas[n++] = prefixo(classe, texto, inicio, 1);
+        if (tamanho >= 2) {
+            gramas[n++] = prefixo(classe, texto, inicio, 2);
+        }
+        if (tamanho >= 3) {
+            gramas[n++] = trigrama(classe, texto, inicio);
+        }
+        return n;
+    }
+
+    private static int trigrama(int classe, byte[] texto, int j) {
+        return classe * GRAMAS_POR_CLASSE
+                + (codigo(texto[j]) * SIMBOLOS + codigo(texto[j + 1])) * SIMBOLOS + codigo(texto[j + 2]);
+    }
+
+    /** Prefixo de 1 ou 2 letras; o símbolo 0 (vazio) à esquerda o distingue dos trigramas. */
+    private static int prefixo(int classe, byte[] texto, int inicio, int tamanho) {
+        int valor = tamanho == 1
+                ? codigo(texto[inicio])
+                : codigo(texto[inicio]) * SIMBOLOS + codigo(texto[inicio + 1]);
+        return classe * GRAMAS_POR_CLASSE + valor;
+    }
+
+    private static int[] distintos(int[] valores, int n) {
+        Arrays.sort(valores, 0, n);
+        int unicos = 0;
+        for (int i = 0; i < n; i++) {
+            if (unicos == 0 || valores[unicos - 1] != valores[i]) {
+                valores[unicos++] = valores[i];
+            }
+        }
+        return Arrays.copyOf(valores, unicos);
+    }
+
+    private static int codigo(byte c) {
+        return c >= 'a' ? c - 'a' + 1 : c - '0' + 27;
+    }
+
+    private static boolean comecaCom(byte[] texto, int posicao, byte[] termo) {
+        if (posicao + termo.length > texto.length) {
+            return false;
+        }
+        for (int k = 0; k < termo.length; k++) {
+            if (texto[posicao + k] != termo[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int compararNomes(byte[] a, byte[] b) {
+        return Arrays.compare(a, 0, fimDoNome(a), b, 0, fimDoNome(b));
+    }
+
+    private static int fimDoNome(byte[] texto) {
+        for (int i = 0; i < texto.length; i++) {
+            if (texto[i] == SEPARADOR) {
+                return i;
+            }
+        }
+        return texto.length;
+    }
+
+    /**
+     * Lista de ordinais crescentes guardados como diferenças em varint
+     * (1 byte para diferenças até 127). A cada BLOCO entradas guarda o
+     * último ordinal anterior e a posição em bytes, para o cursor saltar.
+     */
+    private static final class Postagens {
+
+        private static final int BLOCO = 64;
+
+        private byte[] dados = new byte[4];
+        private int tamanho;
+        private int quantidade;
+        private int ultimo = -1;
+
+        private int[] antesDoBloco = new int[1];
+        private int[] inicioDoBloco = new int[1];
+        private int blocos;
+
+        void adicionar(int ordinal) {
+            if (quantidade % BLOCO == 0) {
+                if (blocos == antesDoBloco.length) {
+                    antesDoBloco = Arrays.copyOf(antesDoBloco, blocos * 2);
+                    inicioDoBloco = Arrays.copyOf(inicioDoBloco, blocos * 2);
+                }
+                antesDoBloco[blocos] = ultimo;
+                inicioDoBloco[blocos++] = tamanho;
+            }
+            if (tamanho + 5 > dados.length) {
+                dados = Arrays.copyOf(dados, dados.length * 2);
+            }
+            int delta = ordinal - ultimo;
+            while ((delta & ~0x7F) != 0) {
+                dados[tamanho++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            dados[tamanho++] = (byte) delta;
+            ultimo = ordinal;
+            quantidade++;
+        }
+    }
+
+    private static final class Cursor {
+
+        private final Postagens lista;
+        private int posicao;
+        private int lidos;
+        private int valor = -1;
+
+        Cursor(Postagens lista) {
+            this.lista = lista;
+        }
+
+        /** Primeiro ordinal >= alvo, ou Integer.MAX_VALUE se a lista acabou. */
+        int avancarAte(int alvo) {
+            if (valor >= alvo) {
+                return valor;
+            }
+            saltar(alvo);
+            while (valor < alvo) {
+                if (lidos == lista.quantidade) {
+                    return valor = Integer.MAX_VALUE;
+                }
+                int delta = 0;
+                int deslocamento = 0;
+                byte b;
+                do {
+                    b = lista.dados[posicao++];
+                    delta |= (b & 0x7F) << deslocamento;
+                    deslocamento += 7;
+                } while (b < 0);
+                valor += delta;
+                lidos++;
+            }
+            return valor;
+        }
+
+        /** Vai para o último bloco adiante cujas entradas anteriores são todas menores que o alvo. */
+        private void saltar(int alvo) {
+            int de = lidos / Postagens.BLOCO + 1;
+            int ate = lista.blocos - 1;
+            int destino = -1;
+            while (de <= ate) {
+                int meio = (de + ate) >>> 1;
+                if (lista.antesDoBloco[meio] < alvo) {
+                    destino = meio;
+                    de = meio + 1;
+                } else {
+                    ate = meio - 1;
+                }
+            }
+            if (destino >= 0) {
+                posicao = lista.inicioDoBloco[destino];
+                lidos = destino * Postagens.BLOCO;
+                valor = lista.antesDoBloco[destino];
+            }
+        }
+    }
+}
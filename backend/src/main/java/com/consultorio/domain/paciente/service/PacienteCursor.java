@@ -0,0 +1,37 @@
+package com.consultorio.domain.paciente;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Posição na listagem de pacientes, do cadastro mais recente para o mais
+ * antigo (dataCadastro DESC, id DESC): a próxima página começa logo depois
+ * deste par. Vai ao cliente como texto opaco e continua válido se pacientes
+ * forem incluídos ou excluídos entre uma página e outra. Pacientes sem
+ * data de cadastro vêm antes de todos; no texto, a data fica vazia.
+ */
+public record PacienteCursor(LocalDateTime dataCadastro, Long id) {
+
+    public static PacienteCursor de(Paciente paciente) {
+        return new PacienteCursor(paciente.getDataCadastro(), paciente.getId());
+    }
+
+    public String codificar() {
+        String valor = (dataCadastro == null ? "" : dataCadastro.toString()) + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PacienteCursor decodificar(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = valor.indexOf('|');
+            String data = valor.substring(0, separador);
+            return new PacienteCursor(
+                    data.isEmpty() ? null : LocalDateTime.parse(data),
+                    Long.valueOf(valor.substring(separador + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor de paginação inválido");
+        }
+    }
+}
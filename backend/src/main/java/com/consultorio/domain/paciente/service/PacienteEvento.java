@@ -0,0 +1,26 @@
+package com.consultorio.domain.paciente;
+
+import java.time.LocalDate;
+
+/**
+ * Cadastro de paciente criado, alterado ou excluído; os ouvintes só o
+ * recebem depois do commit. Leva os campos pesquisáveis e exibidos nas
+ * sugestões para que os índices de busca não precisem reler o paciente.
+ */
+public record PacienteEvento(Tipo tipo, Long id, String nome, String cpf, String prontuario,
+                             String telefone, String email, LocalDate dataNascimento) {
+
+    public enum Tipo {
+        SALVO,
+        REMOVIDO
+    }
+
+    public static PacienteEvento salvo(Paciente p) {
+        return new PacienteEvento(Tipo.SALVO, p.getId(), p.getNome(), p.getCpf(), p.getProntuario(),
+                p.getTelefone(), p.getEmail(), p.getDataNascimento());
+    }
+
+    public static PacienteEvento removido(Long id) {
+        return new PacienteEvento(Tipo.REMOVIDO, id, null, null, null, null, null, null);
+    }
+}
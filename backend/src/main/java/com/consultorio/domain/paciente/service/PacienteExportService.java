@@ -0,0 +1,340 @@
+package com.consultorio.domain.paciente;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Exportação da base de pacientes (contabilidade, migração) em NDJSON ou
+ * CSV, escrita direto na resposta.
+ *
+ * Um SELECT só com as colunas pedidas, lido com cursor do PostgreSQL
+ * (fetchSize dentro de transação só de leitura) e convertido linha a linha
+ * para o Writer: nada de List<Paciente> nem de DTOs, e o uso de memória é o
+ * mesmo para 100 ou 1 milhão de pacientes.
+ */
+@Slf4j
+@Service
+public class PacienteExportService {
+
+    private static final int TAMANHO_LEITURA = 500;
+
+    public enum Formato {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        public final String tipo;
+        public final String extensao;
+
+        Formato(String tipo, String extensao) {
+            this.tipo = tipo;
+            this.extensao = extensao;
+        }
+    }
+
+    /**
+     * Colunas exportáveis. Só elas entram no SELECT: o nome pedido pelo
+     * cliente nunca chega ao SQL.
+     */
+    public enum Coluna {
+        ID("id", Tipo.NUMERO),
+        NOME("nome", Tipo.TEXTO),
+        CPF("cpf", Tipo.TEXTO),
+        RG("rg", Tipo.TEXTO),
+        EMAIL("email", Tipo.TEXTO),
+        TELEFONE("telefone", Tipo.TEXTO),
+        DATA_NASCIMENTO("data_nascimento", Tipo.DATA),
+        SEXO("sexo", Tipo.TEXTO),
+        ESTADO_CIVIL("estado_civil", Tipo.TEXTO),
+        PRONTUARIO("prontuario", Tipo.TEXTO),
+        CONVENIO("convenio", Tipo.TEXTO),
+        NUMERO_CARTEIRINHA("numero_carteirinha", Tipo.TEXTO),
+        PROFISSAO("profissao", Tipo.TEXTO),
+        LOGRADOURO("logradouro", Tipo.TEXTO),
+        NUMERO("numero", Tipo.TEXTO),
+        COMPLEMENTO("complemento", Tipo.TEXTO),
+        BAIRRO("bairro", Tipo.TEXTO),
+        CIDADE("cidade", Tipo.TEXTO),
+        ESTADO("estado", Tipo.TEXTO),
+        CEP("cep", Tipo.TEXTO),
+        STATUS("status", Tipo.TEXTO),
+        DATA_CADASTRO("data_cadastro", Tipo.DATA_HORA),
+        DATA_ATUALIZACAO("data_atualizacao", Tipo.DATA_HORA);
+
+        enum Tipo { TEXTO, NUMERO, DATA, DATA_HORA }
+
+        final String sql;
+        final Tipo tipo;
+        /** Nome no arquivo e no parâmetro 'colunas' (camelCase, como na API). */
+        public final String campo;
+
+        Coluna(String sql, Tipo tipo) {
+            this.sql = sql;
+            this.tipo = tipo;
+            this.campo = camelCase(name());
+        }
+
+        /** Pelo nome do arquivo (camelCase) ou da constante, sem diferenciar maiúsculas. */
+        public static Optional<Coluna> porCampo(String campo) {
+            return Arrays.stream(values())
+                    .filter(c -> c.campo.equalsIgnoreCase(campo) || c.name().equalsIgnoreCase(campo))
+                    .findFirst();
+        }
+
+        private static String camelCase(String nome) {
+            StringBuilder sb = new StringBuilder();
+            for (String parte : nome.toLowerCase(Locale.ROOT).split("_")) {
+                sb.append(sb.length() == 0 ? parte : Character.toUpperCase(parte.charAt(0)) + parte.substring(1));
+            }
+            return sb.toString();
+        }
+    }
+
+    private static final List<Coluna> PADRAO = List.of(Coluna.ID, Coluna.NOME, Coluna.CPF, Coluna.PRONTUARIO,
+            Coluna.TELEFONE, Coluna.EMAIL, Coluna.DATA_NASCIMENTO, Coluna.STATUS, Coluna.DATA_CADASTRO);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate leitura;
+    private final JsonFactory json = new JsonFactory();
+
+    public PacienteExportService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.leitura = new TransactionTemplate(transactionManager);
+        this.leitura.setReadOnly(true);
+    }
+
+    public static Formato formato(String formato) {
+        try {
+            return Formato.valueOf(formato.trim().toUpperCase(Locale.ROOT));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Formato de exportação inválido: " + formato + " (use ndjson ou csv)");
+        }
+    }
+
+    /**
+     * Colunas pedidas ("id,nome,cpf"), na ordem pedida e sem repetição;
+     * vazio = conjunto padrão. Valida antes de a resposta começar, para o
+     * erro ainda poder sair como 400.
+     */
+    public static List<Coluna> colunas(String colunas) {
+        if (colunas == null || colunas.isBlank()) {
+            return PADRAO;
+        }
+        Set<Coluna> escolhidas = new LinkedHashSet<>();
+        for (String nome : colunas.split(",")) {
+            String campo = nome.trim();
+            Coluna coluna = Coluna.porCampo(campo).orElseThrow(() -> new IllegalArgumentException(
+                    "Coluna de exportação desconhecida: " + campo + ". Disponíveis: "
+                            + Arrays.stream(Coluna.values()).map(c -> c.campo).collect(Collectors.joining(", "))));
+            escolhidas.add(coluna);
+        }
+        return List.copyOf(escolhidas);
+    }
+
+    /**
+     * Escreve todos os pacientes, em ordem de ID. Roda no executor de
+     * respostas assíncronas; o fetchSize só abre cursor no PostgreSQL com
+     * autocommit desligado, daí a transação.
+     */
+    public void exportar(Formato formato, List<Coluna> colunas, OutputStream saida) {
+        long inicio = System.nanoTime();
+        String sql = colunas.stream().map(c -> c.sql).collect(Collectors.joining(", ", "SELECT ", " FROM pacientes ORDER BY id"));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8), 16 * 1024);
+        long[] linhas = {0};
+
+        try {
+            Escritor escritor = formato == Formato.CSV ? new EscritorCsv(writer, colunas) : new EscritorNdjson(writer, colunas);
+            escritor.inicio();
+            leitura.executeWithoutResult(tx -> jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(sql);
+                ps.setFetchSize(TAMANHO_LEITURA);
+                return ps;
+            }, rs -> {
+                try {
+                    escritor.linha(rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                linhas[0]++;
+            }));
+            escritor.fim();
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        log.info("Exportação de pacientes ({}): {} linha(s), {} coluna(s) em {} ms",
+                formato, linhas[0], colunas.size(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    // ============================================================
+    // FORMATOS
+    // ============================================================
+
+    private interface Escritor {
+        void inicio() throws IOException;
+
+        void linha(ResultSet rs) throws SQLException, IOException;
+
+        void fim() throws IOException;
+    }
+
+    /** Um objeto JSON por linha, campos nulos incluídos. */
+    private final class EscritorNdjson implements Escritor {
+
+        private final JsonGenerator gerador;
+        private final List<Coluna> colunas;
+        private boolean vazio = true;
+
+        EscritorNdjson(Writer writer, List<Coluna> colunas) throws IOException {
+            this.gerador = json.createGenerator(writer);
+            this.gerador.setRootValueSeparator(new SerializedString("\n"));
+            // O BufferedWriter decide quando ir à rede, não o gerador
+            this.gerador.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+            this.gerador.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.colunas = colunas;
+        }
+
+        @Override
+        public void inicio() {
+        }
+
+        @Override
+        public void linha(ResultSet rs) throws SQLException, IOException {
+            vazio = false;
+            gerador.writeStartObject();
+            for (int i = 0; i < colunas.size(); i++) {
+                Coluna coluna = colunas.get(i);
+                gerador.writeFieldName(coluna.campo);
+                if (coluna.tipo == Coluna.Tipo.NUMERO) {
+                    long valor = rs.getLong(i + 1);
+                    if (rs.wasNull()) {
+                        gerador.writeNull();
+                    } else {
+                        gerador.writeNumber(valor);
+                    }
+                } else {
+                    String valor = texto(rs, i + 1, coluna);
+                    if (valor == null) {
+                        gerador.writeNull();
+                    } else {
+                        gerador.writeString(valor);
+                    }
+                }
+            }
+            gerador.writeEndObject();
+        }
+
+        @Override
+        public void fim() throws IOException {
+            if (!vazio) {
+                gerador.writeRaw('\n');
+            }
+            gerador.flush();
+        }
+    }
+
+    /** RFC 4180: cabeçalho, vírgula, aspas quando preciso, CRLF. */
+    private static final class EscritorCsv implements Escritor {
+
+        private static final String INICIO_DE_FORMULA = "=+-@\t\r";
+        // Telefone (+55 11 91234-5678) ou número (-2): sinal só no começo, sem nada que uma fórmula precise
+        private static final Pattern TELEFONE_OU_NUMERO = Pattern.compile("[+-]?\\(?\\d[\\d\\s().-]*");
+
+        private final Writer writer;
+        private final List<Coluna> colunas;
+
+        EscritorCsv(Writer writer, List<Coluna> colunas) {
+            this.writer = writer;
+            this.colunas = colunas;
+        }
+
+        @Override
+        public void inicio() throws IOException {
+            for (int i = 0; i < colunas.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(colunas.get(i).campo);
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void linha(ResultSet rs) throws SQLException, IOException {
+            for (int i = 0; i < colunas.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                String valor = texto(rs, i + 1, colunas.get(i));
+                if (valor != null) {
+                    campo(valor);
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void fim() {
+        }
+
+        private void campo(String valor) throws IOException {
+            // Planilhas tratam como fórmula a célula que começa com um destes; o apóstrofo a deixa como
+            // texto (e a importação o retira). Telefones e números saem como estão.
+            if (!valor.isEmpty() && INICIO_DE_FORMULA.indexOf(valor.charAt(0)) >= 0
+                    && !TELEFONE_OU_NUMERO.matcher(valor).matches()) {
+                valor = "'" + valor;
+            }
+            boolean aspas = valor.indexOf(',') >= 0 || valor.indexOf('"') >= 0
+                    || valor.indexOf('\n') >= 0 || valor.indexOf('\r') >= 0;
+            if (!aspas) {
+                writer.write(valor);
+                return;
+            }
+            writer.write('"');
+            writer.write(valor.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    /** Valor da coluna como texto (datas em ISO-8601), ou null. */
+    private static String texto(ResultSet rs, int indice, Coluna coluna) throws SQLException {
+        return switch (coluna.tipo) {
+            case DATA_HORA -> {
+                Timestamp valor = rs.getTimestamp(indice);
+                yield valor == null ? null : valor.toLocalDateTime().toString();
+            }
+            case DATA -> {
+                Date valor = rs.getDate(indice);
+                yield valor == null ? null : valor.toLocalDate().toString();
+            }
+            default -> rs.getString(indice);
+        };
+    }
+}
@@ -0,0 +1,673 @@
+package com.consultorio.domain.paciente;
+
+import com.consultorio.domain.paciente.Enums.EstadoCivil;
+import com.consultorio.domain.paciente.Enums.Sexo;
+import com.consultorio.domain.paciente.Enums.StatusPaciente;
+import com.consultorio.domain.paciente.PacienteExportService.Coluna;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Importação em massa de pacientes (implantação de uma clínica) a partir de
+ * CSV ou JSON (NDJSON ou array), com os nomes de coluna da exportação.
+ *
+ * O arquivo é lido em streaming, em blocos de TAMANHO_LOTE linhas. Cada bloco
+ * é validado em paralelo (obrigatórios, dígitos do CPF, datas, tamanhos) e
+ * depois conferido, na ordem do arquivo, contra os CPFs, prontuários e
+ * e-mails já cadastrados, carregados uma vez em memória, e contra o que o
+ * próprio arquivo já trouxe. Os aceitos vão ao banco em INSERTs JDBC em lote,
+ * com IDs reservados da sequence em blocos de 50 e uma transação por bloco:
+ * uma linha recusada não derruba as demais, e o relatório aponta a linha e o
+ * motivo.
+ */
+@Slf4j
+@Service
+public class PacienteImportacaoService {
+
+    // Linhas por bloco de validação e por executeBatch (reWriteBatchedInserts junta em poucos INSERTs)
+    private static final int TAMANHO_LOTE = 1000;
+
+    // Igual ao allocationSize de Paciente.id (pooled-lo)
+    private static final int ALOCACAO_IDS = 50;
+
+    private static final int MAXIMO_ERROS_LISTADOS = 1000;
+
+    private static final String CADASTRADOS = "SELECT cpf, prontuario, email FROM pacientes";
+
+    // id, data_cadastro e data_atualizacao são preenchidos aqui, não vêm do arquivo
+    private static final List<Coluna> IMPORTAVEIS = Arrays.stream(Coluna.values())
+            .filter(c -> c != Coluna.ID && c != Coluna.DATA_CADASTRO && c != Coluna.DATA_ATUALIZACAO)
+            .toList();
+
+    private static final String INSERT = "INSERT INTO pacientes (id, data_cadastro, data_atualizacao, "
+            + IMPORTAVEIS.stream().map(c -> c.sql).collect(Collectors.joining(", "))
+            + ") VALUES (" + String.join(", ", Collections.nCopies(IMPORTAVEIS.size() + 3, "?")) + ")";
+
+    private static final int NOME = IMPORTAVEIS.indexOf(Coluna.NOME);
+    private static final int CPF = IMPORTAVEIS.indexOf(Coluna.CPF);
+    private static final int EMAIL = IMPORTAVEIS.indexOf(Coluna.EMAIL);
+    private static final int TELEFONE = IMPORTAVEIS.indexOf(Coluna.TELEFONE);
+    private static final int PRONTUARIO = IMPORTAVEIS.indexOf(Coluna.PRONTUARIO);
+    private static final int DATA_NASCIMENTO = IMPORTAVEIS.indexOf(Coluna.DATA_NASCIMENTO);
+
+    private static final Pattern EMAIL_VALIDO = Pattern.compile("[^@\\s]+@[^@\\s]+\\.[^@\\s]+");
+    private static final DateTimeFormatter DATA_BR = DateTimeFormatter.ofPattern("dd/MM/uuuu");
+
+    public enum Formato {
+        CSV,
+        JSON
+    }
+
+    public record ErroLinha(long linha, String paciente, String motivo) {
+    }
+
+    /**
+     * @param falha motivo de o arquivo ter sido lido só até certo ponto (JSON
+     *              malformado, por exemplo); nulo quando foi lido inteiro
+     */
+    public record Resultado(long lidos, long importados, long duplicados, long invalidos,
+                            List<ErroLinha> erros, String falha, long duracaoMs) {
+    }
+
+    private final PacienteRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate escrita;
+    private final TransactionTemplate leitura;
+    private final ApplicationEventPublisher eventos;
+    private final JsonFactory json = new JsonFactory();
+
+    public PacienteImportacaoService(PacienteRepository repository, JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     ApplicationEventPublisher eventos) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.escrita = new TransactionTemplate(transactionManager);
+        this.leitura = new TransactionTemplate(transactionManager);
+        this.leitura.setReadOnly(true);
+        this.eventos = eventos;
+    }
+
+    /**
+     * Formato pedido ou, na falta dele, deduzido da extensão do arquivo.
+     */
+    public static Formato formato(String formato, String nomeArquivo) {
+        String valor = formato != null && !formato.isBlank() ? formato : extensao(nomeArquivo);
+        return switch (valor.trim().toLowerCase(Locale.ROOT)) {
+            case "csv" -> Formato.CSV;
+            case "json", "ndjson", "jsonl" -> Formato.JSON;
+            default -> throw new IllegalArgumentException(
+                    "Formato de importação não reconhecido: '" + valor + "' (use csv, json ou ndjson)");
+        };
+    }
+
+    public Resultado importar(InputStream entrada, Formato formato) {
+        long inicio = System.nanoTime();
+        Cadastrados cadastrados = carregarCadastrados();
+        Relatorio relatorio = new Relatorio();
+        Consumer<List<Linha>> processar = lote -> processarLote(lote, cadastrados, relatorio);
+
+        try {
+            if (formato == Formato.CSV) {
+                lerCsv(entrada, processar);
+            } else {
+                lerJson(entrada, processar);
+            }
+        } catch (JsonProcessingException e) {
+            relatorio.falha = "JSON inválido na linha " + e.getLocation().getLineNr() + ": " + e.getOriginalMessage();
+        } catch (IOException | IllegalStateException e) {
+            relatorio.falha = e.getMessage();
+        }
+        if (relatorio.falha != null) {
+            log.warn("Importação de pacientes interrompida após {} linha(s): {}", relatorio.lidos, relatorio.falha);
+        }
+
+        long duracaoMs = (System.nanoTime() - inicio) / 1_000_000;
+        log.info("Importação de pacientes: {} lida(s), {} importada(s), {} duplicada(s), {} inválida(s) em {} ms",
+                relatorio.lidos, relatorio.importados, relatorio.duplicados, relatorio.invalidos, duracaoMs);
+        return new Resultado(relatorio.lidos, relatorio.importados, relatorio.duplicados, relatorio.invalidos,
+                List.copyOf(relatorio.erros), relatorio.falha, duracaoMs);
+    }
+
+    // ============================================================
+    // PROCESSAMENTO
+    // ============================================================
+
+    private void processarLote(List<Linha> lote, Cadastrados cadastrados, Relatorio relatorio) {
+        relatorio.lidos += lote.size();
+        // Validar não depende das outras linhas: em paralelo, mantendo a ordem do arquivo
+        List<Validada> validadas = lote.parallelStream().map(PacienteImportacaoService::validar).toList();
+
+        List<Validada> aceitas = new ArrayList<>(validadas.size());
+        for (Validada linha : validadas) {
+            if (linha.erro() != null) {
+                relatorio.invalidos++;
+                relatorio.erro(linha, linha.erro());
+                continue;
+            }
+            String duplicado = cadastrados.duplicado(linha);
+            if (duplicado != null) {
+                relatorio.duplicados++;
+                relatorio.erro(linha, duplicado);
+                continue;
+            }
+            cadastrados.adicionar(linha);
+            aceitas.add(linha);
+        }
+        gravar(aceitas, relatorio);
+    }
+
+    private void gravar(List<Validada> aceitas, Relatorio relatorio) {
+        if (aceitas.isEmpty()) {
+            return;
+        }
+        try {
+            publicar(escrita.execute(tx -> inserir(aceitas)));
+            relatorio.importados += aceitas.size();
+        } catch (DataAccessException e) {
+            // Alguém cadastrou o mesmo CPF ou e-mail durante a importação: linha a linha, para isolar a recusada
+            log.debug("Lote de importação recusado pelo banco; gravando linha a linha", e);
+            List<PacienteEvento> salvos = new ArrayList<>(aceitas.size());
+            for (Validada linha : aceitas) {
+                try {
+                    salvos.addAll(escrita.execute(tx -> inserir(List.of(linha))));
+                    relatorio.importados++;
+                } catch (DataAccessException porLinha) {
+                    relatorio.invalidos++;
+                    relatorio.erro(linha, "recusado pelo banco: " + porLinha.getMostSpecificCause().getMessage());
+                }
+            }
+            publicar(salvos);
+        }
+    }
+
+    private List<PacienteEvento> inserir(List<Validada> linhas) {
+        List<Long> ids = reservarIds(linhas.size());
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> comId = new ArrayList<>(linhas.size());
+        for (int i = 0; i < linhas.size(); i++) {
+            comId.add(new Object[]{ids.get(i), linhas.get(i)});
+        }
+
+        jdbcTemplate.batchUpdate(INSERT, comId, TAMANHO_LOTE, (ps, item) -> preencher(ps, (Long) item[0], agora,
+                ((Validada) item[1]).valores()));
+
+        List<PacienteEvento> salvos = new ArrayList<>(linhas.size());
+        for (int i = 0; i < linhas.size(); i++) {
+            Object[] v = linhas.get(i).valores();
+            salvos.add(new PacienteEvento(PacienteEvento.Tipo.SALVO, ids.get(i), (String) v[NOME], (String) v[CPF],
+                    (String) v[PRONTUARIO], (String) v[TELEFONE], (String) v[EMAIL], (LocalDate) v[DATA_NASCIMENTO]));
+        }
+        return salvos;
+    }
+
+    /**
+     * Depois do commit: os índices de busca e o autocompletar passam a ver os
+     * importados. Um evento para o bloco, aplicado por eles com um só lock.
+     */
+    private void publicar(List<PacienteEvento> salvos) {
+        if (!salvos.isEmpty()) {
+            eventos.publishEvent(new PacientesImportados(salvos));
+        }
+    }
+
+    /**
+     * IDs tirados da mesma sequence da entidade, em blocos de ALOCACAO_IDS:
+     * um nextval para cada 50 pacientes, sem depender de chaves geradas no INSERT.
+     */
+    private List<Long> reservarIds(int quantidade) {
+        int blocos = (quantidade + ALOCACAO_IDS - 1) / ALOCACAO_IDS;
+        List<Long> ids = new ArrayList<>(quantidade);
+        for (Long inicioBloco : repository.reservarBlocosDeIds(blocos)) {
+            for (int i = 0; i < ALOCACAO_IDS && ids.size() < quantidade; i++) {
+                ids.add(inicioBloco + i);
+            }
+        }
+        return ids;
+    }
+
+    private static void preencher(PreparedStatement ps, long id, Timestamp agora, Object[] valores) throws SQLException {
+        ps.setLong(1, id);
+        ps.setTimestamp(2, agora);
+        ps.setTimestamp(3, agora);
+        for (int i = 0; i < valores.length; i++) {
+            if (valores[i] instanceof LocalDate data) {
+                ps.setDate(i + 4, Date.valueOf(data));
+            } else if (valores[i] == null) {
+                ps.setNull(i + 4, IMPORTAVEIS.get(i).tipo == Coluna.Tipo.DATA ? Types.DATE : Types.VARCHAR);
+            } else {
+                ps.setString(i + 4, (String) valores[i]);
+            }
+        }
+    }
+
+    /**
+     * CPFs (só dígitos), prontuários e e-mails já cadastrados, lidos com
+     * cursor; o arquivo vai sendo somado a eles conforme é aceito.
+     */
+    private Cadastrados carregarCadastrados() {
+        Cadastrados cadastrados = new Cadastrados();
+        leitura.executeWithoutResult(tx -> jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(CADASTRADOS);
+            ps.setFetchSize(TAMANHO_LOTE);
+            return ps;
+        }, rs -> {
+            cadastrados.adicionar(rs.getString(1), rs.getString(2), rs.getString(3));
+        }));
+        return cadastrados;
+    }
+
+    // ============================================================
+    // VALIDAÇÃO
+    // ============================================================
+
+    private static Validada validar(Linha linha) {
+        Map<Coluna, String> campos = linha.campos();
+        String nome = campos.get(Coluna.NOME);
+        String referencia = nome != null ? nome : campos.get(Coluna.CPF);
+
+        Object[] valores = new Object[IMPORTAVEIS.size()];
+        try {
+            if (nome == null) {
+                throw new IllegalArgumentException("nome é obrigatório");
+            }
+            for (int i = 0; i < valores.length; i++) {
+                valores[i] = converter(IMPORTAVEIS.get(i), campos.get(IMPORTAVEIS.get(i)));
+            }
+        } catch (IllegalArgumentException e) {
+            return new Validada(linha.numero(), referencia, null, e.getMessage());
+        }
+        return new Validada(linha.numero(), referencia, valores, null);
+    }
+
+    /** Valor pronto para o INSERT (String ou LocalDate), ou IllegalArgumentException com o motivo. */
+    private static Object converter(Coluna coluna, String valor) {
+        if (valor == null) {
+            return null;
+        }
+        return switch (coluna) {
+            case CPF -> cpf(valor);
+            case EMAIL -> email(valor);
+            case DATA_NASCIMENTO -> dataNascimento(valor);
+            case SEXO -> constante(Sexo.class, coluna, valor);
+            case ESTADO_CIVIL -> constante(EstadoCivil.class, coluna, valor);
+            case STATUS -> constante(StatusPaciente.class, coluna, valor);
+            case ESTADO -> limitar(coluna, valor.toUpperCase(Locale.ROOT), 2);
+            case CEP -> cep(valor);
+            case NOME, PROFISSAO, CONVENIO, COMPLEMENTO, BAIRRO, CIDADE -> limitar(coluna, valor, 100);
+            case LOGRADOURO -> limitar(coluna, valor, 200);
+            case NUMERO_CARTEIRINHA -> limitar(coluna, valor, 50);
+            case NUMERO -> limitar(coluna, valor, 10);
+            default -> limitar(coluna, valor, 20);   // rg, telefone, prontuário
+        };
+    }
+
+    private static String cpf(String valor) {
+        String digitos = valor.replaceAll("\\D", "");
+        if (!cpfValido(digitos)) {
+            throw new IllegalArgumentException("CPF inválido: " + valor);
+        }
+        return digitos.substring(0, 3) + "." + digitos.substring(3, 6) + "." + digitos.substring(6, 9)
+                + "-" + digitos.substring(9);
+    }
+
+    static boolean cpfValido(String digitos) {
+        if (digitos.length() != 11 || digitos.chars().distinct().count() == 1) {
+            return false;
+        }
+        for (int verificador = 9; verificador <= 10; verificador++) {
+            int soma = 0;
+            for (int i = 0; i < verificador; i++) {
+                soma += (digitos.charAt(i) - '0') * (verificador + 1 - i);
+            }
+            int esperado = soma * 10 % 11 % 10;
+            if (digitos.charAt(verificador) - '0' != esperado) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String email(String valor) {
+        String email = valor.toLowerCase(Locale.ROOT);
+        if (!EMAIL_VALIDO.matcher(email).matches()) {
+            throw new IllegalArgumentException("e-mail inválido: " + valor);
+        }
+        return limitar(Coluna.EMAIL, email, 100);
+    }
+
+    private static LocalDate dataNascimento(String valor) {
+        LocalDate data;
+        try {
+            data = valor.contains("/") ? LocalDate.parse(valor, DATA_BR) : LocalDate.parse(valor);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("data de nascimento inválida (use AAAA-MM-DD ou DD/MM/AAAA): " + valor);
+        }
+        if (data.isAfter(LocalDate.now())) {
+            throw new IllegalArgumentException("data de nascimento no futuro: " + valor);
+        }
+        return data;
+    }
+
+    private static String cep(String valor) {
+        String digitos = valor.replaceAll("\\D", "");
+        if (digitos.length() != 8) {
+            throw new IllegalArgumentException("CEP inválido: " + valor);
+        }
+        return digitos.substring(0, 5) + "-" + digitos.substring(5);
+    }
+
+    private static <E extends Enum<E>> String constante(Class<E> tipo, Coluna coluna, String valor) {
+        try {
+            return Enum.valueOf(tipo, valor.toUpperCase(Locale.ROOT).replace(' ', '_')).name();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(coluna.campo + " inválido: " + valor + " (aceitos: "
+                    + Arrays.stream(tipo.getEnumConstants()).map(Enum::name).collect(Collectors.joining(", ")) + ")");
+        }
+    }
+
+    private static String limitar(Coluna coluna, String valor, int maximo) {
+        if (valor.length() > maximo) {
+            throw new IllegalArgumentException(coluna.campo + " passa de " + maximo + " caracteres");
+        }
+        return valor;
+    }
+
+    // ============================================================
+    // LEITURA DOS FORMATOS
+    // ============================================================
+
+    /**
+     * CSV com cabeçalho (RFC 4180: aspas, aspas dobradas, quebras de linha
+     * dentro de aspas). Separador ',' ou ';' (planilha brasileira), deduzido
+     * do cabeçalho. Colunas desconhecidas são ignoradas.
+     */
+    private static void lerCsv(InputStream entrada, Consumer<List<Linha>> processar) throws IOException {
+        BufferedReader leitor = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8), 64 * 1024);
+        leitor.mark(1);
+        if (leitor.read() != '﻿') {
+            leitor.reset();
+        }
+        leitor.mark(64 * 1024);
+        String primeira = leitor.readLine();
+        if (primeira == null) {
+            return;
+        }
+        leitor.reset();
+        char separador = contarFora(primeira, ';') > contarFora(primeira, ',') ? ';' : ',';
+
+        LeitorCsv csv = new LeitorCsv(leitor, separador);
+        List<String> cabecalho = csv.proximo();
+        Coluna[] colunas = cabecalho.stream().map(nome -> Coluna.porCampo(nome.trim()).orElse(null)).toArray(Coluna[]::new);
+        if (!Arrays.asList(colunas).contains(Coluna.NOME)) {
+            throw new IllegalStateException("O arquivo precisa de uma coluna 'nome' no cabeçalho");
+        }
+
+        List<Linha> lote = new ArrayList<>(TAMANHO_LOTE);
+        try {
+            List<String> registro;
+            while ((registro = csv.proximo()) != null) {
+                if (registro.size() == 1 && registro.get(0).isBlank()) {
+                    continue;
+                }
+                Map<Coluna, String> campos = new EnumMap<>(Coluna.class);
+                for (int i = 0; i < Math.min(colunas.length, registro.size()); i++) {
+                    if (colunas[i] != null) {
+                        campos.put(colunas[i], vazioParaNulo(registro.get(i)));
+                    }
+                }
+                lote.add(new Linha(csv.linhaDoRegistro, campos));
+                if (lote.size() == TAMANHO_LOTE) {
+                    processar.accept(lote);
+                    lote = new ArrayList<>(TAMANHO_LOTE);
+                }
+            }
+        } finally {
+            processar.accept(lote);
+        }
+    }
+
+    /**
+     * Objetos JSON soltos (NDJSON) ou dentro de um array; campos aninhados
+     * e desconhecidos são ignorados.
+     */
+    private void lerJson(InputStream entrada, Consumer<List<Linha>> processar) throws IOException {
+        List<Linha> lote = new ArrayList<>(TAMANHO_LOTE);
+        try (JsonParser parser = json.createParser(entrada)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token == JsonToken.START_ARRAY || token == JsonToken.END_ARRAY) {
+                    continue;
+                }
+                if (token != JsonToken.START_OBJECT) {
+                    throw new IllegalStateException("Esperado um objeto JSON na linha " + parser.getTokenLocation().getLineNr());
+                }
+                long numero = parser.getTokenLocation().getLineNr();
+                Map<Coluna, String> campos = new EnumMap<>(Coluna.class);
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    Coluna coluna = Coluna.porCampo(parser.getCurrentName()).orElse(null);
+                    JsonToken valor = parser.nextToken();
+                    if (valor == JsonToken.START_OBJECT || valor == JsonToken.START_ARRAY) {
+                        parser.skipChildren();
+                    } else if (coluna != null && valor != JsonToken.VALUE_NULL) {
+                        campos.put(coluna, vazioParaNulo(parser.getValueAsString()));
+                    }
+                }
+                lote.add(new Linha(numero, campos));
+                if (lote.size() == TAMANHO_LOTE) {
+                    processar.accept(lote);
+                    lote = new ArrayList<>(TAMANHO_LOTE);
+                }
+            }
+        } finally {
+            // O que foi lido antes de um erro de sintaxe ainda é importado
+            processar.accept(lote);
+        }
+    }
+
+    /**
+     * Aparado, ou null se vazio. Tira o apóstrofo que a exportação (ou a
+     * planilha) põe antes de =, +, - ou @ para a célula não virar fórmula.
+     */
+    private static String vazioParaNulo(String valor) {
+        if (valor == null) {
+            return null;
+        }
+        String aparado = valor.trim();
+        if (aparado.length() > 1 && aparado.charAt(0) == '\'' && "=+-@".indexOf(aparado.charAt(1)) >= 0) {
+            aparado = aparado.substring(1);
+        }
+        return aparado.isEmpty() ? null : aparado;
+    }
+
+    private static int contarFora(String linha, char separador) {
+        int total = 0;
+        boolean entreAspas = false;
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+            if (c == '"') {
+                entreAspas = !entreAspas;
+            } else if (c == separador && !entreAspas) {
+                total++;
+            }
+        }
+        return total;
+    }
+
+    private static String extensao(String nomeArquivo) {
+        if (nomeArquivo == null || nomeArquivo.lastIndexOf('.') < 0) {
+            return "";
+        }
+        return nomeArquivo.substring(nomeArquivo.lastIndexOf('.') + 1);
+    }
+
+    // ============================================================
+    // TIPOS AUXILIARES
+    // ============================================================
+
+    /** Linha do arquivo: número (para o relatório) e os campos reconhecidos, já aparados. */
+    private record Linha(long numero, Map<Coluna, String> campos) {
+    }
+
+    /** Linha validada: valores alinhados com IMPORTAVEIS, ou o erro. */
+    private record Validada(long numero, String referencia, Object[] valores, String erro) {
+    }
+
+    private static final class Cadastrados {
+
+        private final Set<String> cpfs = new HashSet<>();
+        private final Set<String> prontuarios = new HashSet<>();
+        private final Set<String> emails = new HashSet<>();
+
+        void adicionar(String cpf, String prontuario, String email) {
+            if (cpf != null) {
+                cpfs.add(cpf.replaceAll("\\D", ""));
+            }
+            if (prontuario != null) {
+                prontuarios.add(prontuario.trim().toLowerCase(Locale.ROOT));
+            }
+            if (email != null) {
+                emails.add(email.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+
+        void adicionar(Validada linha) {
+            Object[] v = linha.valores();
+            adicionar((String) v[CPF], (String) v[PRONTUARIO], (String) v[EMAIL]);
+        }
+
+        /** Motivo da duplicidade, ou null. */
+        String duplicado(Validada linha) {
+            Object[] v = linha.valores();
+            if (v[CPF] != null && cpfs.contains(((String) v[CPF]).replaceAll("\\D", ""))) {
+                return "CPF já cadastrado: " + v[CPF];
+            }
+            if (v[PRONTUARIO] != null && prontuarios.contains(((String) v[PRONTUARIO]).toLowerCase(Locale.ROOT))) {
+                return "prontuário já cadastrado: " + v[PRONTUARIO];
+            }
+            if (v[EMAIL] != null && emails.contains((String) v[EMAIL])) {
+                return "e-mail já cadastrado: " + v[EMAIL];
+            }
+            return null;
+        }
+    }
+
+    private static final class Relatorio {
+
+        long lidos;
+        long importados;
+        long duplicados;
+        long invalidos;
+        String falha;
+        final List<ErroLinha> erros = new ArrayList<>();
+
+        void erro(Validada linha, String motivo) {
+            if (erros.size() < MAXIMO_ERROS_LISTADOS) {
+                erros.add(new ErroLinha(linha.numero(), linha.referencia(), motivo));
+            }
+        }
+    }
+
+    /** Leitor de registros CSV que acompanha a linha física onde cada registro começa. */
+    private static final class LeitorCsv {
+
+        private final BufferedReader leitor;
+        private final char separador;
+        private long linhaAtual = 1;
+        long linhaDoRegistro;
+
+        LeitorCsv(BufferedReader leitor, char separador) {
+            this.leitor = leitor;
+            this.separador = separador;
+        }
+
+        /** Próximo registro, ou null no fim do arquivo. */
+        List<String> proximo() throws IOException {
+            int c = leitor.read();
+            if (c < 0) {
+                return null;
+            }
+            linhaDoRegistro = linhaAtual;
+            List<String> campos = new ArrayList<>();
+            StringBuilder campo = new StringBuilder();
+            boolean entreAspas = false;
+
+            while (c >= 0) {
+                if (entreAspas) {
+                    if (c == '"') {
+                        leitor.mark(1);
+                        int seguinte = leitor.read();
+                        if (seguinte == '"') {
+                            campo.append('"');
+                        } else {
+                            entreAspas = false;
+                            leitor.reset();
+                        }
+                    } else {
+                        if (c == '\n') {
+                            linhaAtual++;
+                        }
+                        campo.append((char) c);
+                    }
+                } else if (c == '"' && campo.isEmpty()) {
+                    entreAspas = true;
+                } else if (c == separador) {
+                    campos.add(campo.toString());
+                    campo.setLength(0);
+                } else if (c == '\n' || c == '\r') {
+                    if (c == '\r') {
+                        leitor.mark(1);
+                        if (leitor.read() != '\n') {
+                            leitor.reset();
+                        }
+                    }
+                    linhaAtual++;
+                    break;
+                } else {
+                    campo.append((char) c);
+                }
+                c = leitor.read();
+            }
+            if (entreAspas) {
+                throw new IllegalStateException("Aspas sem fechamento no registro da linha " + linhaDoRegistro);
+            }
+            campos.add(campo.toString());
+            return campos;
+        }
+    }
+}
@@ -5,20 +5,32 @@ import com.consultorio.domain.paciente.erro.PacienteDuplicadoException;
 import com.consultorio.domain.paciente.erro.PacienteNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class PacienteService {
 
+    private static final int TAMANHO_PADRAO = 50;
+    private static final int TAMANHO_MAXIMO = 200;
+
     private final PacienteRepository repository;
     private final PacienteConverter converter;
+    private final PacienteBuscaIndex buscaIndex;
+    private final PacienteAutocomplete autocomplete;
+    private final ApplicationEventPublisher eventos;
 
     // ========== OPERAÇÕES CRUD ==========
 
@@ -28,6 +40,7 @@ public class PacienteService {
 
         validarUnicidadeCriacao(createDTO);
         Paciente paciente = salvarPaciente(createDTO);
+        eventos.publishEvent(PacienteEvento.salvo(paciente));
 
         log.info("Paciente criado com ID: {}", paciente.getId());
         return toResponse(paciente);
@@ -47,6 +60,7 @@ public class PacienteService {
 
         validarUnicidadeAtualizacao(id, updateDTO);
         Paciente paciente = atualizarPaciente(id, updateDTO);
+        eventos.publishEvent(PacienteEvento.salvo(paciente));
 
         log.info("Paciente ID: {} atualizado com sucesso", id);
         return toResponse(paciente);
@@ -58,12 +72,14 @@ public class PacienteService {
 
         validarExistencia(id);
         repository.deleteById(id);
+        eventos.publishEvent(PacienteEvento.removido(id));
 
         log.info("Paciente ID: {} excluído com sucesso", id);
     }
 
     // ========== CONSULTAS ==========
 
+    /** Todos os pacientes de uma vez (GET /api/pacientes/todos); em bases grandes, prefira {@link #listar}. */
     @Transactional(readOnly = true)
     public List<PacienteListDTO> listarTodos() {
         log.info("Listando todos os pacientes");
@@ -72,6 +88,40 @@ public class PacienteService {
         return toListDTOs(pacientes);
     }
 
+    /**
+     * Listagem padrão (GET /api/pacientes), por cursor (keyset em
+     * dataCadastro, id), do cadastro mais recente para o mais antigo: sem
+     * OFFSET nem COUNT(*), a página 5.000 custa o mesmo que a primeira. O total, se pedido, é a estimativa das
+     * estatísticas do banco.
+     */
+    @Transactional(readOnly = true)
+    public PacientePaginaDTO listar(String cursor, Integer tamanho, boolean incluirTotal) {
+        int limite = tamanho == null ? TAMANHO_PADRAO : Math.max(1, Math.min(tamanho, TAMANHO_MAXIMO));
+        // Um a mais que o pedido só para saber se existe próxima página
+        Pageable ate = PageRequest.of(0, limite + 1);
+
+        List<Paciente> pacientes;
+        if (cursor == null || cursor.isBlank()) {
+            pacientes = repository.findPrimeiraPagina(ate);
+        } else {
+            PacienteCursor depoisDe = PacienteCursor.decodificar(cursor);
+            pacientes = depoisDe.dataCadastro() == null
+                    ? repository.findDepoisDoCursorSemData(depoisDe.id(), ate)
+                    : repository.findDepoisDoCursor(depoisDe.dataCadastro(), depoisDe.id(), ate);
+        }
+
+        boolean temMais = pacientes.size() > limite;
+        List<Paciente> pagina = temMais ? pacientes.subList(0, limite) : pacientes;
+        String proximoCursor = temMais ? PacienteCursor.de(pagina.get(pagina.size() - 1)).codificar() : null;
+        Long total = incluirTotal ? repository.contarAproximado() : null;
+
+        return new PacientePaginaDTO(toListDTOs(pagina), proximoCursor, total);
+    }
+
+    /**
+     * Paginação por número de página, com COUNT(*) a cada chamada e OFFSET
+     * crescente. Mantida para clientes antigos; prefira {@link #listar}.
+     */
     @Transactional(readOnly = true)
     public Page<PacienteListDTO> listarPaginado(Pageable pageable) {
         log.info("Listando pacientes paginados - página: {}, tamanho: {}",
@@ -81,6 +131,11 @@ public class PacienteService {
                 .map(this::toListDTO);
     }
 
+    /**
+     * Contrato de GET /buscar: todos os que têm o trecho no nome, em ordem de
+     * nome. Responde pelo índice (sem acento); enquanto ele carrega, pelo LIKE
+     * do banco. A busca por relevância (CPF, telefone, e-mail, com limite) é a de buscar().
+     */
     @Transactional(readOnly = true)
     public List<PacienteListDTO> buscarPorNome(String nome) {
         log.info("Buscando pacientes por nome: {}", nome);
@@ -88,9 +143,46 @@ public class PacienteService {
         if (nome == null || nome.trim().isEmpty()) {
             return listarTodos();
         }
+        if (!buscaIndex.pronto()) {
+            return toListDTOs(repository.findByNomeContainingIgnoreCaseOrderByNome(nome));
+        }
+        return naOrdem(buscaIndex.buscarNoNome(nome));
+    }
 
-        List<Paciente> pacientes = repository.findByNomeContainingIgnoreCaseOrderByNome(nome);
-        return toListDTOs(pacientes);
+    /**
+     * Busca da caixa de pesquisa: nome, CPF, prontuário, telefone ou e-mail,
+     * sem acento nem maiúsculas, já na ordem de relevância do índice. Enquanto
+     * o índice carrega, cai no LIKE do banco, já limitado na consulta.
+     */
+    @Transactional(readOnly = true)
+    public List<PacienteListDTO> buscar(String termo, int limite) {
+        if (!buscaIndex.pronto()) {
+            return toListDTOs(repository.buscarPorTermo(termo == null ? "" : termo.trim(),
+                    PageRequest.of(0, Math.max(1, limite))));
+        }
+        return naOrdem(buscaIndex.buscar(termo, limite));
+    }
+
+    /**
+     * Sugestões para o que a recepção já digitou do nome. Enquanto a árvore
+     * carrega, usa o banco (LIKE 'prefixo%', sem tratar acentos).
+     */
+    @Transactional(readOnly = true)
+    public List<PacienteAutocompleteDTO> autocompletar(String prefixo, int limite) {
+        if (autocomplete.pronto()) {
+            return autocomplete.sugerir(prefixo, limite);
+        }
+        if (prefixo == null || prefixo.isBlank()) {
+            return List.of();
+        }
+        return repository.findByNomeStartingWithIgnoreCaseOrderByNomeAscIdAsc(prefixo.trim(), PageRequest.of(0, limite))
+                .stream()
+                .map(p -> new PacienteAutocompleteDTO(p.getId(), p.getNome(), p.getProntuario(), p.getDataNascimento()))
+                .toList();
+    }
+
+    public PacienteAutocomplete.Estatisticas estatisticasAutocomplete() {
+        return autocomplete.estatisticas();
     }
 
     @Transactional(readOnly = true)
@@ -116,6 +208,17 @@ public class PacienteService {
         return repository.save(existente);
     }
 
+    /** Pacientes dos IDs, na ordem dada (findAllById não garante ordem). */
+    private List<PacienteListDTO> naOrdem(List<Long> ids) {
+        Map<Long, Paciente> porId = repository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Paciente::getId, Function.identity()));
+        return ids.stream()
+                .map(porId::get)
+                .filter(Objects::nonNull)
+                .map(this::toListDTO)
+                .toList();
+    }
+
     private Paciente buscarPacientePorId(Long id) {
         return repository.findById(id)
                 .orElseThrow(() -> new PacienteNotFoundException("Paciente não encontrado com ID: " + id));
@@ -0,0 +1,11 @@
+package com.consultorio.domain.paciente;
+
+import java.util.List;
+
+/**
+ * Bloco de pacientes gravados de uma vez pela importação; os ouvintes só o
+ * recebem depois do commit. Um evento por bloco, e não um PacienteEvento
+ * por linha: os índices de busca aplicam o bloco inteiro com um só lock.
+ */
+public record PacientesImportados(List<PacienteEvento> pacientes) {
+}
@@ -12,7 +12,8 @@ import java.time.LocalDateTime;
 public class Profissional {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "profissional_seq")
+    @SequenceGenerator(name = "profissional_seq", sequenceName = "profissional_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -15,7 +15,8 @@ import java.util.List;
 public class ProntuarioOdontologico {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "prontuario_odontologico_seq")
+    @SequenceGenerator(name = "prontuario_odontologico_seq", sequenceName = "prontuario_odontologico_seq", allocationSize = 50)
     private Long id;
 
     @Column
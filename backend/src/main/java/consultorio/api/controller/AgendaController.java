@@ -1,19 +1,39 @@
 package consultorio.consultorio.api.controller;
 
+import com.consultorio.domain.agenda.AgendaDiaCache;
+import com.consultorio.domain.agenda.AgendaEventosHub;
 import consultorio.consultorio.api.mapper.AgendaMapper;
+import consultorio.consultorio.api.request.AgendaLoteRequest;
 import consultorio.consultorio.api.request.AgendaRequest;
+import consultorio.consultorio.api.request.DisponibilidadeRequest;
+import consultorio.consultorio.api.request.ReservaHorarioRequest;
+import consultorio.consultorio.api.response.AgendaLoteResponse;
 import consultorio.consultorio.api.response.AgendaResponse;
+import consultorio.consultorio.api.response.ProximoHorarioResponse;
+import consultorio.consultorio.api.response.ReservaHorarioResponse;
 import consultorio.consultorio.domain.entity.Agenda;
+import consultorio.consultorio.domain.entity.ReservaHorario;
+import consultorio.consultorio.domain.event.AgendaEvento;
+import consultorio.consultorio.domain.service.AgendaLoteService;
 import consultorio.consultorio.domain.service.AgendaService;
+import consultorio.consultorio.domain.service.CalendarioService;
+import consultorio.consultorio.domain.service.HorarioLivreService;
+import consultorio.consultorio.domain.service.ReservaHorarioService;
 import consultorio.consultorio.utils.Calendario;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/agenda")
@@ -21,15 +41,35 @@ import java.util.List;
 public class AgendaController {
 
     private final AgendaService service;
+    private final AgendaLoteService loteService;
+    private final HorarioLivreService horarioLivreService;
+    private final AgendaEventosHub eventosHub;
+    private final AgendaDiaCache diaCache;
+    private final CalendarioService calendarioService;
+    private final ReservaHorarioService reservaService;
     private final AgendaMapper mapper;
 
+    /**
+     * @param reservaId token de POST /agenda/reservas, quando o horário foi reservado antes
+     */
     @PostMapping
-    public ResponseEntity<AgendaResponse> criar(@Valid @RequestBody AgendaRequest request) {
+    public ResponseEntity<AgendaResponse> criar(@Valid @RequestBody AgendaRequest request,
+                                                @RequestParam(required = false) String reservaId) {
         Agenda agenda = mapper.toAgenda(request);
-        Agenda salvo = service.salvar(agenda);
+        Agenda salvo = service.salvar(agenda, reservaId);
         return ResponseEntity.status(HttpStatus.CREATED).body(mapper.toAgendaResponse(salvo));
     }
 
+    /**
+     * Marca várias agendas de uma vez (série de tratamento, migração de calendário).
+     * Tudo ou nada: qualquer conflito rejeita o lote inteiro.
+     */
+    @PostMapping("/lote")
+    public ResponseEntity<AgendaLoteResponse> criarLote(@Valid @RequestBody AgendaLoteRequest request) {
+        List<Long> ids = loteService.salvarLote(mapper.toAgendaLote(request.getAgendas()));
+        return ResponseEntity.status(HttpStatus.CREATED).body(mapper.toAgendaLoteResponse(ids));
+    }
+
     @GetMapping
     public ResponseEntity<List<AgendaResponse>> listar() {
         List<AgendaResponse> lista = mapper.toAgendaResponseList(service.listarTodos());
@@ -42,6 +82,43 @@ public class AgendaController {
         return ResponseEntity.ok(lista);
     }
 
+    /**
+     * Agenda do dia de um dentista. Servida do AgendaDiaCache (JSON já pronto)
+     * até que uma marcação ou remoção naquele dia a invalide.
+     */
+    @GetMapping(value = "/dentista/{id}/dia/{dia}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> agendaDoDia(
+            @PathVariable Long id,
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dia) {
+        byte[] json = diaCache.obter(AgendaEvento.class, id, dia,
+                () -> mapper.toJson(mapper.toAgendaResponseList(service.listarDoDia(id, dia))));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+    }
+
+    @GetMapping("/cache/estatisticas")
+    public ResponseEntity<AgendaDiaCache.Estatisticas> estatisticasCache() {
+        return ResponseEntity.ok(diaCache.estatisticas());
+    }
+
+    @GetMapping("/periodo")
+    public ResponseEntity<List<AgendaResponse>> listarPorPeriodo(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fim) {
+        List<AgendaResponse> lista = mapper.toAgendaResponseList(service.listarPorPeriodo(inicio, fim));
+        return ResponseEntity.ok(lista);
+    }
+
+    /**
+     * Feed de alterações (Server-Sent Events) para as telas da recepção e o dashboard,
+     * filtrado por dentista(s) e/ou dia. Substitui o polling da agenda inteira.
+     */
+    @GetMapping(value = "/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter assinarEventos(
+            @RequestParam(required = false) Set<Long> dentistaIds,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dia) {
+        return eventosHub.assinar(AgendaEvento.class, dentistaIds != null ? dentistaIds : Set.of(), dia);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<AgendaResponse> buscarPorId(@PathVariable Long id) {
         Agenda agenda = service.buscarPorIdOuFalhar(id);
@@ -61,13 +138,57 @@ public class AgendaController {
         return ResponseEntity.ok(Calendario.getTemposConsultaDisponiveis());
     }
 
+    @GetMapping("/horarios-funcionamento")
+    public ResponseEntity<Map<String, String>> getHorariosFuncionamento() {
+        return ResponseEntity.ok(calendarioService.horariosFuncionamento());
+    }
+
     @GetMapping("/disponibilidade")
     public ResponseEntity<Boolean> verificarDisponibilidade(
             @RequestParam Long dentistaId,
             @RequestParam LocalDateTime horario,
-            @RequestParam Integer tempoConsultaMinutos) {
+            @RequestParam Integer tempoConsultaMinutos,
+            @RequestParam(required = false) String procedimento) {
 
-        boolean disponivel = service.verificarDisponibilidade(dentistaId, horario, tempoConsultaMinutos);
+        boolean disponivel = service.verificarDisponibilidade(dentistaId, horario, tempoConsultaMinutos, procedimento);
         return ResponseEntity.ok(disponivel);
     }
-}
\ No newline at end of file
+
+    /**
+     * Próximos N horários livres com a duração pedida, para um ou vários dentistas,
+     * numa única chamada (evita sondar /disponibilidade horário a horário).
+     */
+    @GetMapping("/proximos-horarios")
+    public ResponseEntity<List<ProximoHorarioResponse>> buscarProximosHorarios(@Valid DisponibilidadeRequest request) {
+        List<ProximoHorarioResponse> horarios = mapper.toProximoHorarioResponseList(
+                horarioLivreService.buscarProximosHorarios(
+                        request.getDentistaIds(),
+                        request.getInicio(),
+                        request.getTempoConsultaMinutos(),
+                        request.getQuantidade(),
+                        request.getProcedimento()));
+        return ResponseEntity.ok(horarios);
+    }
+
+    /**
+     * Segura o horário por alguns minutos enquanto a recepção cadastra o paciente.
+     * Devolve o token a ser enviado na marcação (POST /agenda?reservaId=...).
+     */
+    @PostMapping("/reservas")
+    public ResponseEntity<ReservaHorarioResponse> reservarHorario(@Valid @RequestBody ReservaHorarioRequest request) {
+        ReservaHorario reserva = service.reservarHorario(
+                request.getDentistaId(), request.getHorario(), request.getTempoConsultaMinutos());
+        return ResponseEntity.status(HttpStatus.CREATED).body(mapper.toReservaHorarioResponse(reserva));
+    }
+
+    @GetMapping("/reservas/{id}")
+    public ResponseEntity<ReservaHorarioResponse> buscarReserva(@PathVariable String id) {
+        return ResponseEntity.ok(mapper.toReservaHorarioResponse(reservaService.buscarValidaOuFalhar(id)));
+    }
+
+    @DeleteMapping("/reservas/{id}")
+    public ResponseEntity<Void> liberarReserva(@PathVariable String id) {
+        reservaService.liberar(id);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,74 @@
+package consultorio.consultorio.api.controller;
+
+import consultorio.consultorio.api.mapper.CalendarioMapper;
+import consultorio.consultorio.api.request.BloqueioRequest;
+import consultorio.consultorio.api.request.ExpedienteRequest;
+import consultorio.consultorio.api.response.BloqueioResponse;
+import consultorio.consultorio.api.response.ExpedienteResponse;
+import consultorio.consultorio.domain.entity.BloqueioAgenda;
+import consultorio.consultorio.domain.service.CalendarioService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Regras de calendário: expediente semanal (da clínica ou de cada dentista)
+ * e bloqueios como feriados, férias e ausências.
+ */
+@RestController
+@RequestMapping("/calendario")
+@RequiredArgsConstructor
+public class CalendarioController {
+
+    private final CalendarioService service;
+    private final CalendarioMapper mapper;
+
+    @GetMapping("/expediente")
+    public ResponseEntity<List<ExpedienteResponse>> expedienteDaClinica() {
+        return ResponseEntity.ok(mapper.toExpedienteResponseList(service.listarExpediente(null)));
+    }
+
+    @PutMapping("/expediente")
+    public ResponseEntity<List<ExpedienteResponse>> definirExpedienteDaClinica(
+            @Valid @RequestBody List<ExpedienteRequest> request) {
+        return ResponseEntity.ok(mapper.toExpedienteResponseList(
+                service.definirExpediente(null, mapper.toExpediente(request))));
+    }
+
+    @GetMapping("/dentista/{id}/expediente")
+    public ResponseEntity<List<ExpedienteResponse>> expedienteDoDentista(@PathVariable Long id) {
+        return ResponseEntity.ok(mapper.toExpedienteResponseList(service.listarExpediente(id)));
+    }
+
+    @PutMapping("/dentista/{id}/expediente")
+    public ResponseEntity<List<ExpedienteResponse>> definirExpedienteDoDentista(
+            @PathVariable Long id, @Valid @RequestBody List<ExpedienteRequest> request) {
+        return ResponseEntity.ok(mapper.toExpedienteResponseList(
+                service.definirExpediente(id, mapper.toExpediente(request))));
+    }
+
+    @GetMapping("/bloqueios")
+    public ResponseEntity<List<BloqueioResponse>> listarBloqueios(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fim) {
+        return ResponseEntity.ok(mapper.toBloqueioResponseList(service.listarBloqueios(inicio, fim)));
+    }
+
+    @PostMapping("/bloqueios")
+    public ResponseEntity<BloqueioResponse> adicionarBloqueio(@Valid @RequestBody BloqueioRequest request) {
+        BloqueioAgenda salvo = service.adicionarBloqueio(mapper.toBloqueio(request));
+        return ResponseEntity.status(HttpStatus.CREATED).body(mapper.toBloqueioResponse(salvo));
+    }
+
+    @DeleteMapping("/bloqueios/{id}")
+    public ResponseEntity<Void> removerBloqueio(@PathVariable Long id) {
+        service.removerBloqueio(id);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -3,14 +3,28 @@ package consultorio.consultorio.api.controller;
 import consultorio.consultorio.api.mapper.DentistaMapper;
 import consultorio.consultorio.api.request.DentistaRequest;
 import consultorio.consultorio.api.response.DentistaResponse;
+import consultorio.consultorio.api.response.ImportacaoIcsResponse;
 import consultorio.consultorio.domain.entity.Dentista;
+import consultorio.consultorio.domain.service.AgendaIcsService;
 import consultorio.consultorio.domain.service.DentistaService;
+import consultorio.consultorio.domain.service.ImportacaoIcsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -23,6 +37,8 @@ public class DentistaController {
 
     private final DentistaService service;
     private final DentistaMapper mapper;
+    private final AgendaIcsService icsService;
+    private final ImportacaoIcsService importacaoIcsService;
 
     /**
      * Cria um novo dentista (automaticamente cria uma agenda para ele)
@@ -63,6 +79,72 @@ public class DentistaController {
         return ResponseEntity.ok(mapper.toDentistaResponse(optDentista.get()));
     }
 
+    /**
+     * Agenda do dentista em iCalendar, para assinatura em aplicativos de calendário.
+     * Responde 304 quando o If-None-Match ainda corresponde à versão atual da agenda.
+     * A versão é conferida antes do dentista: o 304, que é a resposta mais comum
+     * para quem assina o feed, custa uma consulta só. Uma ETag só casa se o feed
+     * já foi servido, ou seja, se o dentista existia.
+     */
+    @GetMapping(value = "/{id}/agenda.ics", produces = "text/calendar")
+    public ResponseEntity<StreamingResponseBody> agendaIcs(@PathVariable Long id, WebRequest webRequest) {
+        String etag = icsService.etag(id);
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+
+        Optional<Dentista> optDentista = service.buscarPorId(id);
+        if (optDentista.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String nome = optDentista.get().getNome();
+        StreamingResponseBody corpo = saida -> icsService.escrever(id, nome, saida);
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .contentType(new MediaType("text", "calendar", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"agenda-" + id + ".ics\"")
+                .body(corpo);
+    }
+
+    /**
+     * Importa um .ics exportado de outro sistema para a agenda do dentista.
+     * O arquivo é processado em segundo plano; o andamento fica em Location.
+     */
+    @PostMapping(value = "/{id}/agenda.ics", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportacaoIcsResponse> importarIcs(@PathVariable Long id,
+                                                             @RequestParam("arquivo") MultipartFile arquivo) throws IOException {
+        if (service.buscarPorId(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        // O multipart some ao fim da requisição; a importação lê a cópia e a apaga ao terminar
+        Path temporario = Files.createTempFile("agenda-importacao-", ".ics");
+        arquivo.transferTo(temporario);
+
+        ImportacaoIcsService.Andamento andamento = importacaoIcsService.importar(id, temporario);
+        return ResponseEntity.accepted()
+                .location(URI.create("/dentista/" + id + "/agenda.ics/importacoes/" + andamento.getId()))
+                .body(mapper.toImportacaoIcsResponse(andamento));
+    }
+
+    /**
+     * Andamento de uma importação .ics: contadores e percentual do arquivo já lido
+     */
+    @GetMapping("/{id}/agenda.ics/importacoes/{importacaoId}")
+    public ResponseEntity<ImportacaoIcsResponse> andamentoImportacaoIcs(@PathVariable Long id,
+                                                                       @PathVariable String importacaoId) {
+        ImportacaoIcsService.Andamento andamento = importacaoIcsService.buscarAndamentoOuFalhar(importacaoId);
+        if (!andamento.getDentistaId().equals(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(mapper.toImportacaoIcsResponse(andamento));
+    }
+
     /**
      * Agenda um horário para o dentista
      */
@@ -70,9 +152,10 @@ public class DentistaController {
     public ResponseEntity<Void> agendarHorario(
             @PathVariable Long dentistaId,
             @RequestParam LocalDateTime horario,
+            @RequestParam(defaultValue = "30") Integer tempoConsultaMinutos,
             @RequestParam String descricao) {
 
-        service.agendarHorario(dentistaId, horario, descricao, null);
+        service.agendarHorario(dentistaId, horario, tempoConsultaMinutos, descricao, null);
         return ResponseEntity.ok().build();
     }
 
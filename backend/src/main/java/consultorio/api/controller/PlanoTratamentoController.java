@@ -1,8 +1,13 @@
 package consultorio.consultorio.api.controller;
 
+import consultorio.consultorio.api.mapper.PlanoTratamentoMapper;
 import consultorio.consultorio.api.request.PlanoTratamentoRequest;
+import consultorio.consultorio.api.request.SugestaoAgendaRequest;
 import consultorio.consultorio.api.response.PlanoTratamentoResponse;
+import consultorio.consultorio.api.response.SugestaoAgendaResponse;
 import consultorio.consultorio.domain.service.PlanoTratamentoService;
+import consultorio.consultorio.domain.service.SugestaoAgendaService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -16,6 +21,8 @@ import java.util.List;
 public class PlanoTratamentoController {
 
     private final PlanoTratamentoService service;
+    private final SugestaoAgendaService sugestaoService;
+    private final PlanoTratamentoMapper mapper;
 
     @PostMapping
     public ResponseEntity<PlanoTratamentoResponse> criar(@RequestBody PlanoTratamentoRequest request) {
@@ -35,6 +42,17 @@ public class PlanoTratamentoController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Propõe uma sessão para cada item do plano do paciente (nada é marcado).
+     * A recepção confirma enviando as sessões para POST /agenda/lote.
+     */
+    @PostMapping("/paciente/{pacienteId}/sugestao-agenda")
+    public ResponseEntity<SugestaoAgendaResponse> sugerirAgenda(@PathVariable Long pacienteId,
+                                                                @Valid @RequestBody SugestaoAgendaRequest request) {
+        SugestaoAgendaService.Sugestao sugestao = sugestaoService.sugerir(pacienteId, mapper.toSugestaoPedido(request));
+        return ResponseEntity.ok(mapper.toSugestaoAgendaResponse(sugestao));
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deletar(@PathVariable Long id) {
         service.deletar(id);
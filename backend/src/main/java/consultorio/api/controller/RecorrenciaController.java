@@ -0,0 +1,70 @@
+package consultorio.consultorio.api.controller;
+
+import consultorio.consultorio.api.mapper.RecorrenciaMapper;
+import consultorio.consultorio.api.request.RecorrenciaRequest;
+import consultorio.consultorio.api.response.OcorrenciaResponse;
+import consultorio.consultorio.api.response.RecorrenciaResponse;
+import consultorio.consultorio.domain.entity.RecorrenciaAgenda;
+import consultorio.consultorio.domain.service.RecorrenciaService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Consultas recorrentes (semanais, mensais...) marcadas uma única vez.
+ * As ocorrências não viram linhas de agenda: são calculadas para a faixa pedida.
+ */
+@RestController
+@RequestMapping("/agenda/recorrencias")
+@RequiredArgsConstructor
+public class RecorrenciaController {
+
+    private final RecorrenciaService service;
+    private final RecorrenciaMapper mapper;
+
+    @PostMapping
+    public ResponseEntity<RecorrenciaResponse> criar(@Valid @RequestBody RecorrenciaRequest request) {
+        RecorrenciaAgenda salvo = service.criar(mapper.toRecorrencia(request));
+        return ResponseEntity.status(HttpStatus.CREATED).body(mapper.toRecorrenciaResponse(salvo));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<RecorrenciaResponse> buscarPorId(@PathVariable Long id) {
+        return ResponseEntity.ok(mapper.toRecorrenciaResponse(service.buscarPorIdOuFalhar(id)));
+    }
+
+    @GetMapping("/dentista/{id}")
+    public ResponseEntity<List<RecorrenciaResponse>> listarPorDentista(@PathVariable Long id) {
+        return ResponseEntity.ok(mapper.toRecorrenciaResponseList(service.listarDoDentista(id)));
+    }
+
+    @GetMapping("/dentista/{id}/ocorrencias")
+    public ResponseEntity<List<OcorrenciaResponse>> listarOcorrencias(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fim) {
+        return ResponseEntity.ok(mapper.toOcorrenciaResponseList(service.listarOcorrencias(id, inicio, fim)));
+    }
+
+    /** Desmarca só a ocorrência do dia informado; o restante da série continua valendo. */
+    @DeleteMapping("/{id}/ocorrencias/{data}")
+    public ResponseEntity<Void> cancelarOcorrencia(
+            @PathVariable Long id,
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate data) {
+        service.cancelarOcorrencia(id, data);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> remover(@PathVariable Long id) {
+        service.remover(id);
+        return ResponseEntity.noContent().build();
+    }
+}
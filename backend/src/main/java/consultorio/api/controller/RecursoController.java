@@ -0,0 +1,77 @@
+package consultorio.consultorio.api.controller;
+
+import consultorio.consultorio.api.mapper.RecursoMapper;
+import consultorio.consultorio.api.request.ProcedimentoRequest;
+import consultorio.consultorio.api.request.RecursoRequest;
+import consultorio.consultorio.api.response.AlocacaoRecursoResponse;
+import consultorio.consultorio.api.response.ProcedimentoResponse;
+import consultorio.consultorio.api.response.RecursoResponse;
+import consultorio.consultorio.domain.entity.Procedimento;
+import consultorio.consultorio.domain.entity.Recurso;
+import consultorio.consultorio.domain.service.RecursoService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Cadeiras, salas e equipamentos da clínica e os procedimentos que os exigem.
+ * A alocação em si acontece na marcação (POST /agenda com "procedimento").
+ */
+@RestController
+@RequestMapping("/recursos")
+@RequiredArgsConstructor
+public class RecursoController {
+
+    private final RecursoService service;
+    private final RecursoMapper mapper;
+
+    @GetMapping
+    public ResponseEntity<List<RecursoResponse>> listar() {
+        return ResponseEntity.ok(mapper.toRecursoResponseList(service.listarRecursos()));
+    }
+
+    @PostMapping
+    public ResponseEntity<RecursoResponse> criar(@Valid @RequestBody RecursoRequest request) {
+        Recurso salvo = service.criarRecurso(mapper.toRecurso(request));
+        return ResponseEntity.status(HttpStatus.CREATED).body(mapper.toRecursoResponse(salvo));
+    }
+
+    /** Tira o recurso de uso; as alocações já feitas continuam valendo. */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> desativar(@PathVariable Long id) {
+        service.desativarRecurso(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    /** Ocupação do recurso no dia (quais agendas o usam e quando). */
+    @GetMapping("/{id}/alocacoes")
+    public ResponseEntity<List<AlocacaoRecursoResponse>> listarAlocacoes(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dia) {
+        return ResponseEntity.ok(mapper.toAlocacaoRecursoResponseList(service.listarAlocacoes(id, dia)));
+    }
+
+    /** Recursos reservados para uma consulta. */
+    @GetMapping("/agenda/{agendaId}")
+    public ResponseEntity<List<AlocacaoRecursoResponse>> listarAlocacoesDaAgenda(@PathVariable Long agendaId) {
+        return ResponseEntity.ok(mapper.toAlocacaoRecursoResponseList(service.listarAlocacoesDaAgenda(agendaId)));
+    }
+
+    @GetMapping("/procedimentos")
+    public ResponseEntity<List<ProcedimentoResponse>> listarProcedimentos() {
+        return ResponseEntity.ok(mapper.toProcedimentoResponseList(service.listarProcedimentos()));
+    }
+
+    /** Cria ou substitui, pelo nome, as exigências de recurso do procedimento. */
+    @PutMapping("/procedimentos")
+    public ResponseEntity<ProcedimentoResponse> salvarProcedimento(@Valid @RequestBody ProcedimentoRequest request) {
+        Procedimento salvo = service.salvarProcedimento(mapper.toProcedimento(request));
+        return ResponseEntity.ok(mapper.toProcedimentoResponse(salvo));
+    }
+}
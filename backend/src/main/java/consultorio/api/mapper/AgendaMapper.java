@@ -1,12 +1,19 @@
 package consultorio.consultorio.api.mapper;
 
 import consultorio.consultorio.api.request.AgendaRequest;
+import consultorio.consultorio.api.response.AgendaLoteResponse;
 import consultorio.consultorio.api.response.AgendaResponse;
+import consultorio.consultorio.api.response.ProximoHorarioResponse;
+import consultorio.consultorio.api.response.ReservaHorarioResponse;
 import consultorio.consultorio.domain.entity.Agenda;
 import consultorio.consultorio.domain.entity.Paciente;
 import consultorio.consultorio.domain.entity.Dentista;
+import consultorio.consultorio.domain.entity.ReservaHorario;
 import consultorio.consultorio.domain.service.PacienteService;
 import consultorio.consultorio.domain.service.DentistaService;
+import consultorio.consultorio.domain.service.HorarioLivreService.HorarioLivre;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Component;
@@ -19,6 +26,7 @@ import java.util.stream.Collectors;
 public class AgendaMapper {
 
     private final ModelMapper mapper;
+    private final ObjectMapper objectMapper;
     private final PacienteService pacienteService;
     private final DentistaService dentistaService;
 
@@ -40,6 +48,36 @@ public class AgendaMapper {
         return agenda;
     }
 
+    /**
+     * Versão para lote: não consulta dentista/paciente item a item.
+     * Os relacionamentos levam só o ID; o AgendaLoteService resolve em bloco.
+     */
+    public List<Agenda> toAgendaLote(List<AgendaRequest> requests) {
+        return requests.stream()
+                .map(request -> {
+                    Agenda agenda = Agenda.builder()
+                            .descricao(request.getDescricao())
+                            .horario(request.getHorario())
+                            .tempoConsultaMinutos(request.getTempoConsultaMinutos())
+                            .observacoes(request.getObservacoes())
+                            .procedimento(request.getProcedimento())
+                            .dentista(Dentista.builder().id(request.getDentistaId()).build())
+                            .build();
+                    if (request.getPacienteId() != null) {
+                        agenda.setPaciente(Paciente.builder().id(request.getPacienteId()).build());
+                    }
+                    return agenda;
+                })
+                .collect(Collectors.toList());
+    }
+
+    public AgendaLoteResponse toAgendaLoteResponse(List<Long> ids) {
+        AgendaLoteResponse response = new AgendaLoteResponse();
+        response.setQuantidade(ids.size());
+        response.setIds(ids);
+        return response;
+    }
+
     public AgendaResponse toAgendaResponse(Agenda agenda){
         AgendaResponse response = mapper.map(agenda, AgendaResponse.class);
 
@@ -74,4 +112,36 @@ public class AgendaMapper {
                 .map(this::toAgendaResponse)
                 .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+
+    /** JSON pronto para ser guardado no AgendaDiaCache e servido sem nova serialização. */
+    public byte[] toJson(List<AgendaResponse> agendas) {
+        try {
+            return objectMapper.writeValueAsBytes(agendas);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao serializar a agenda", e);
+        }
+    }
+
+    public List<ProximoHorarioResponse> toProximoHorarioResponseList(List<HorarioLivre> horarios) {
+        return horarios.stream()
+                .map(horario -> {
+                    ProximoHorarioResponse response = new ProximoHorarioResponse();
+                    response.setDentistaId(horario.dentistaId());
+                    response.setDentistaNome(horario.dentistaNome());
+                    response.setHorario(horario.inicio());
+                    response.setHorarioFim(horario.fim());
+                    return response;
+                })
+                .collect(Collectors.toList());
+    }
+
+    public ReservaHorarioResponse toReservaHorarioResponse(ReservaHorario reserva) {
+        ReservaHorarioResponse response = new ReservaHorarioResponse();
+        response.setId(reserva.getId());
+        response.setDentistaId(reserva.getDentistaId());
+        response.setHorario(reserva.getInicio());
+        response.setHorarioFim(reserva.getFim());
+        response.setExpiraEm(reserva.getExpiraEm());
+        return response;
+    }
+}
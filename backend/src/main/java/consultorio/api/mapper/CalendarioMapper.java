@@ -0,0 +1,71 @@
+package consultorio.consultorio.api.mapper;
+
+import consultorio.consultorio.api.request.BloqueioRequest;
+import consultorio.consultorio.api.request.ExpedienteRequest;
+import consultorio.consultorio.api.response.BloqueioResponse;
+import consultorio.consultorio.api.response.ExpedienteResponse;
+import consultorio.consultorio.domain.entity.BloqueioAgenda;
+import consultorio.consultorio.domain.entity.Dentista;
+import consultorio.consultorio.domain.entity.ExpedienteDentista;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Component
+public class CalendarioMapper {
+
+    public List<ExpedienteDentista> toExpediente(List<ExpedienteRequest> requests) {
+        return requests.stream()
+                .map(request -> ExpedienteDentista.builder()
+                        .diaSemana(request.getDiaSemana())
+                        .inicio(request.getInicio())
+                        .fim(request.getFim())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    public List<ExpedienteResponse> toExpedienteResponseList(List<ExpedienteDentista> faixas) {
+        return faixas.stream()
+                .map(faixa -> {
+                    ExpedienteResponse response = new ExpedienteResponse();
+                    response.setId(faixa.getId());
+                    response.setDentistaId(faixa.getDentista() != null ? faixa.getDentista().getId() : null);
+                    response.setDiaSemana(faixa.getDiaSemana());
+                    response.setInicio(faixa.getInicio());
+                    response.setFim(faixa.getFim());
+                    return response;
+                })
+                .collect(Collectors.toList());
+    }
+
+    public BloqueioAgenda toBloqueio(BloqueioRequest request) {
+        return BloqueioAgenda.builder()
+                .dentista(request.getDentistaId() != null ? Dentista.builder().id(request.getDentistaId()).build() : null)
+                .inicio(request.getInicio())
+                .fim(request.getFim())
+                .tipo(request.getTipo())
+                .descricao(request.getDescricao())
+                .build();
+    }
+
+    public BloqueioResponse toBloqueioResponse(BloqueioAgenda bloqueio) {
+        BloqueioResponse response = new BloqueioResponse();
+        response.setId(bloqueio.getId());
+        if (bloqueio.getDentista() != null) {
+            response.setDentistaId(bloqueio.getDentista().getId());
+            response.setDentistaNome(bloqueio.getDentista().getNome());
+        }
+        response.setInicio(bloqueio.getInicio());
+        response.setFim(bloqueio.getFim());
+        response.setTipo(bloqueio.getTipo().name());
+        response.setDescricao(bloqueio.getDescricao());
+        return response;
+    }
+
+    public List<BloqueioResponse> toBloqueioResponseList(List<BloqueioAgenda> bloqueios) {
+        return bloqueios.stream()
+                .map(this::toBloqueioResponse)
+                .collect(Collectors.toList());
+    }
+}
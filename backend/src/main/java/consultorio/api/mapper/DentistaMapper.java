@@ -2,7 +2,9 @@ package consultorio.consultorio.api.mapper;
 
 import consultorio.consultorio.api.request.DentistaRequest;
 import consultorio.consultorio.api.response.DentistaResponse;
+import consultorio.consultorio.api.response.ImportacaoIcsResponse;
 import consultorio.consultorio.domain.entity.Dentista;
+import consultorio.consultorio.domain.service.ImportacaoIcsService;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Component;
@@ -35,4 +37,24 @@ public class DentistaMapper {
                 .map(this::toDentistaResponse)
                 .collect(Collectors.toList());
     }
+
+
+    //Andamento da importação .ics (contadores lidos no momento da chamada)
+    public ImportacaoIcsResponse toImportacaoIcsResponse(ImportacaoIcsService.Andamento andamento) {
+        ImportacaoIcsResponse response = new ImportacaoIcsResponse();
+        response.setId(andamento.getId());
+        response.setDentistaId(andamento.getDentistaId());
+        response.setSituacao(andamento.getSituacao().name());
+        response.setPercentual(andamento.getPercentual());
+        response.setLidos(andamento.getLidos());
+        response.setImportados(andamento.getImportados());
+        response.setConflitos(andamento.getConflitos());
+        response.setForaDoExpediente(andamento.getForaDoExpediente());
+        response.setIgnorados(andamento.getIgnorados());
+        response.setRecusas(andamento.getRecusas());
+        response.setIniciadaEm(andamento.getIniciadaEm());
+        response.setConcluidaEm(andamento.getConcluidaEm());
+        response.setErro(andamento.getErro());
+        return response;
+    }
 }
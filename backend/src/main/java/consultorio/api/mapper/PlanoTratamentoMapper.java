@@ -1,8 +1,12 @@
 package consultorio.consultorio.api.mapper;
 
 import consultorio.consultorio.api.request.PlanoTratamentoRequest;
+import consultorio.consultorio.api.request.SugestaoAgendaRequest;
 import consultorio.consultorio.api.response.PlanoTratamentoResponse;
+import consultorio.consultorio.api.response.SessaoSugeridaResponse;
+import consultorio.consultorio.api.response.SugestaoAgendaResponse;
 import consultorio.consultorio.domain.entity.PlanoTratamento;
+import consultorio.consultorio.domain.service.SugestaoAgendaService;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Component;
@@ -39,4 +43,39 @@ public class PlanoTratamentoMapper {
                 .map(this::toResponse)
                 .collect(Collectors.toList());
     }
+
+    public SugestaoAgendaService.Pedido toSugestaoPedido(SugestaoAgendaRequest request) {
+        List<SugestaoAgendaService.Preferencia> preferencias = request.getPreferencias() == null ? List.of()
+                : request.getPreferencias().stream()
+                .map(p -> new SugestaoAgendaService.Preferencia(p.getDiaSemana(), p.getInicio(), p.getFim()))
+                .collect(Collectors.toList());
+        return new SugestaoAgendaService.Pedido(request.getPlanoIds(), request.getDentistaId(), request.getInicio(),
+                request.getIntervaloMinimoDias(), preferencias);
+    }
+
+    public SugestaoAgendaResponse toSugestaoAgendaResponse(SugestaoAgendaService.Sugestao sugestao) {
+        SugestaoAgendaResponse response = new SugestaoAgendaResponse();
+        response.setSessoes(sugestao.sessoes().stream()
+                .map(this::toSessaoSugeridaResponse)
+                .collect(Collectors.toList()));
+        response.setPendentes(sugestao.pendentes());
+        response.setCusto(sugestao.custo());
+        response.setMelhorias(sugestao.melhorias());
+        response.setConvergiu(sugestao.convergiu());
+        response.setDuracaoMs(sugestao.duracaoMs());
+        return response;
+    }
+
+    private SessaoSugeridaResponse toSessaoSugeridaResponse(SugestaoAgendaService.Sessao sessao) {
+        SessaoSugeridaResponse response = new SessaoSugeridaResponse();
+        response.setPlanoTratamentoId(sessao.planoTratamentoId());
+        response.setDente(sessao.dente());
+        response.setProcedimento(sessao.procedimento());
+        response.setDentistaId(sessao.dentistaId());
+        response.setHorario(sessao.inicio());
+        response.setHorarioFim(sessao.fim());
+        response.setTempoConsultaMinutos(sessao.tempoConsultaMinutos());
+        response.setDentroDaPreferencia(sessao.dentroDaPreferencia());
+        return response;
+    }
 }
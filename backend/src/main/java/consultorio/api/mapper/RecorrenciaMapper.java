@@ -0,0 +1,93 @@
+package consultorio.consultorio.api.mapper;
+
+import consultorio.consultorio.api.request.RecorrenciaRequest;
+import consultorio.consultorio.api.response.OcorrenciaResponse;
+import consultorio.consultorio.api.response.RecorrenciaResponse;
+import consultorio.consultorio.domain.entity.Dentista;
+import consultorio.consultorio.domain.entity.RecorrenciaAgenda;
+import consultorio.consultorio.domain.exception.BusinessException;
+import consultorio.consultorio.domain.service.DentistaService;
+import consultorio.consultorio.domain.service.PacienteService;
+import consultorio.consultorio.domain.service.RecorrenciaService.Ocorrencia;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Component
+@RequiredArgsConstructor
+public class RecorrenciaMapper {
+
+    private final PacienteService pacienteService;
+    private final DentistaService dentistaService;
+
+    public RecorrenciaAgenda toRecorrencia(RecorrenciaRequest request) {
+        Dentista dentista = dentistaService.buscarPorId(request.getDentistaId())
+                .orElseThrow(() -> new BusinessException("Dentista não encontrado"));
+
+        RecorrenciaAgenda recorrencia = RecorrenciaAgenda.builder()
+                .descricao(request.getDescricao())
+                .dentista(dentista)
+                .inicio(request.getInicio())
+                .tempoConsultaMinutos(request.getTempoConsultaMinutos())
+                .frequencia(request.getFrequencia())
+                .intervalo(request.getIntervalo() != null ? request.getIntervalo() : 1)
+                .ate(request.getAte())
+                .ocorrencias(request.getOcorrencias())
+                .observacoes(request.getObservacoes())
+                .build();
+
+        if (request.getPacienteId() != null) {
+            recorrencia.setPaciente(pacienteService.buscarPorId(request.getPacienteId()));
+        }
+        return recorrencia;
+    }
+
+    public RecorrenciaResponse toRecorrenciaResponse(RecorrenciaAgenda recorrencia) {
+        RecorrenciaResponse response = new RecorrenciaResponse();
+        response.setId(recorrencia.getId());
+        if (recorrencia.getPaciente() != null) {
+            response.setPacienteId(recorrencia.getPaciente().getId());
+            response.setPacienteNome(recorrencia.getPaciente().getNome());
+        }
+        response.setDentistaId(recorrencia.getDentista().getId());
+        response.setDentistaNome(recorrencia.getDentista().getNome());
+        response.setDescricao(recorrencia.getDescricao());
+        response.setInicio(recorrencia.getInicio());
+        response.setTempoConsultaMinutos(recorrencia.getTempoConsultaMinutos());
+        response.setFrequencia(recorrencia.getFrequencia().name());
+        response.setIntervalo(recorrencia.getIntervalo());
+        response.setAte(recorrencia.getAte());
+        response.setOcorrencias(recorrencia.getOcorrencias());
+        response.setExcecoes(recorrencia.getExcecoes().stream().sorted().collect(Collectors.toList()));
+        response.setObservacoes(recorrencia.getObservacoes());
+        response.setDataCriacao(recorrencia.getDataCriacao());
+        return response;
+    }
+
+    public List<RecorrenciaResponse> toRecorrenciaResponseList(List<RecorrenciaAgenda> recorrencias) {
+        return recorrencias.stream()
+                .map(this::toRecorrenciaResponse)
+                .collect(Collectors.toList());
+    }
+
+    public List<OcorrenciaResponse> toOcorrenciaResponseList(List<Ocorrencia> ocorrencias) {
+        return ocorrencias.stream()
+                .map(ocorrencia -> {
+                    RecorrenciaAgenda recorrencia = ocorrencia.recorrencia();
+                    OcorrenciaResponse response = new OcorrenciaResponse();
+                    response.setRecorrenciaId(recorrencia.getId());
+                    if (recorrencia.getPaciente() != null) {
+                        response.setPacienteId(recorrencia.getPaciente().getId());
+                        response.setPacienteNome(recorrencia.getPaciente().getNome());
+                    }
+                    response.setDentistaId(recorrencia.getDentista().getId());
+                    response.setDescricao(recorrencia.getDescricao());
+                    response.setHorario(ocorrencia.inicio());
+                    response.setHorarioFim(ocorrencia.fim());
+                    return response;
+                })
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,84 @@
+package consultorio.consultorio.api.mapper;
+
+import consultorio.consultorio.api.request.ProcedimentoRequest;
+import consultorio.consultorio.api.request.RecursoRequest;
+import consultorio.consultorio.api.response.AlocacaoRecursoResponse;
+import consultorio.consultorio.api.response.ProcedimentoResponse;
+import consultorio.consultorio.api.response.RecursoResponse;
+import consultorio.consultorio.domain.entity.AlocacaoRecurso;
+import consultorio.consultorio.domain.entity.Procedimento;
+import consultorio.consultorio.domain.entity.Recurso;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Component
+public class RecursoMapper {
+
+    public Recurso toRecurso(RecursoRequest request) {
+        return Recurso.builder()
+                .nome(request.getNome().trim())
+                .tipo(request.getTipo())
+                .build();
+    }
+
+    public RecursoResponse toRecursoResponse(Recurso recurso) {
+        RecursoResponse response = new RecursoResponse();
+        response.setId(recurso.getId());
+        response.setNome(recurso.getNome());
+        response.setTipo(recurso.getTipo().name());
+        response.setAtivo(recurso.getAtivo());
+        return response;
+    }
+
+    public List<RecursoResponse> toRecursoResponseList(List<Recurso> recursos) {
+        return recursos.stream()
+                .map(this::toRecursoResponse)
+                .collect(Collectors.toList());
+    }
+
+    public Procedimento toProcedimento(ProcedimentoRequest request) {
+        return Procedimento.builder()
+                .nome(request.getNome())
+                .duracaoMinutos(request.getDuracaoMinutos())
+                .recursos(new HashSet<>(request.getRecursos()))
+                .build();
+    }
+
+    public ProcedimentoResponse toProcedimentoResponse(Procedimento procedimento) {
+        ProcedimentoResponse response = new ProcedimentoResponse();
+        response.setId(procedimento.getId());
+        response.setNome(procedimento.getNome());
+        response.setDuracaoMinutos(procedimento.getDuracaoMinutos());
+        response.setRecursos(procedimento.getRecursos().stream()
+                .sorted()
+                .map(Enum::name)
+                .collect(Collectors.toList()));
+        return response;
+    }
+
+    public List<ProcedimentoResponse> toProcedimentoResponseList(List<Procedimento> procedimentos) {
+        return procedimentos.stream()
+                .map(this::toProcedimentoResponse)
+                .collect(Collectors.toList());
+    }
+
+    public AlocacaoRecursoResponse toAlocacaoRecursoResponse(AlocacaoRecurso alocacao) {
+        AlocacaoRecursoResponse response = new AlocacaoRecursoResponse();
+        response.setRecursoId(alocacao.getRecurso().getId());
+        response.setRecursoNome(alocacao.getRecurso().getNome());
+        response.setTipo(alocacao.getRecurso().getTipo().name());
+        response.setAgendaId(alocacao.getAgenda().getId());
+        response.setInicio(alocacao.getInicio());
+        response.setFim(alocacao.getFim());
+        return response;
+    }
+
+    public List<AlocacaoRecursoResponse> toAlocacaoRecursoResponseList(List<AlocacaoRecurso> alocacoes) {
+        return alocacoes.stream()
+                .map(this::toAlocacaoRecursoResponse)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,19 @@
+package consultorio.consultorio.api.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class AgendaLoteRequest {
+
+    // Uma série de tratamento ou o calendário migrado de outra clínica
+    @NotEmpty
+    @Size(max = 50000)
+    private List<@Valid AgendaRequest> agendas;
+}
@@ -33,4 +33,8 @@ public class AgendaRequest {
     private Integer tempoConsultaMinutos;
 
     private String observacoes;
+
+    // Opcional: nome de um procedimento cadastrado em /recursos/procedimentos;
+    // a marcação só é aceita se os recursos que ele exige estiverem livres
+    private String procedimento;
 }
\ No newline at end of file
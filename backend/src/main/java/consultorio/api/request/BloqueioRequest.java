@@ -0,0 +1,27 @@
+package consultorio.consultorio.api.request;
+
+import consultorio.consultorio.domain.entity.BloqueioAgenda;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+public class BloqueioRequest {
+
+    // Nulo = bloqueio da clínica inteira (ex.: feriado)
+    private Long dentistaId;
+
+    @NotNull
+    private LocalDateTime inicio;
+
+    @NotNull
+    private LocalDateTime fim;
+
+    @NotNull
+    private BloqueioAgenda.TipoBloqueio tipo;
+
+    private String descricao;
+}
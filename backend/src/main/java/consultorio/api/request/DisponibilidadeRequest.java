@@ -0,0 +1,35 @@
+package consultorio.consultorio.api.request;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@Setter
+public class DisponibilidadeRequest {
+
+    @NotEmpty
+    private List<Long> dentistaIds;
+
+    // Opcional: quando ausente (ou no passado) a busca começa agora
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime inicio;
+
+    @NotNull
+    @Positive
+    private Integer tempoConsultaMinutos;
+
+    @Positive
+    @Max(50)
+    private Integer quantidade = 5;
+
+    // Opcional: restringe aos horários em que os recursos do procedimento estão livres
+    private String procedimento;
+}
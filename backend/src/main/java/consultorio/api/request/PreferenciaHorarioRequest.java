@@ -0,0 +1,22 @@
+package consultorio.consultorio.api.request;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+@Getter
+@Setter
+public class PreferenciaHorarioRequest {
+
+    // Opcional: sem dia da semana, a janela vale para todos os dias
+    private DayOfWeek diaSemana;
+
+    @NotNull
+    private LocalTime inicio;
+
+    @NotNull
+    private LocalTime fim;
+}
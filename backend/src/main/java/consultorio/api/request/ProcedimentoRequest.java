@@ -0,0 +1,28 @@
+package consultorio.consultorio.api.request;
+
+import consultorio.consultorio.domain.entity.Recurso;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.HashSet;
+import java.util.Set;
+
+@Getter
+@Setter
+public class ProcedimentoRequest {
+
+    @NotBlank
+    @Size(max = 100)
+    private String nome;
+
+    @Positive
+    private Integer duracaoMinutos;
+
+    // Tipos de recurso ocupados durante a consulta; vazio = só o dentista
+    @NotNull
+    private Set<Recurso.Tipo> recursos = new HashSet<>();
+}
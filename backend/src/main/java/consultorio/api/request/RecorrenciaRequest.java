@@ -0,0 +1,47 @@
+package consultorio.consultorio.api.request;
+
+import consultorio.consultorio.domain.entity.RecorrenciaAgenda;
+import jakarta.validation.constraints.Future;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+public class RecorrenciaRequest {
+
+    private Long pacienteId;
+
+    @NotNull
+    private Long dentistaId;
+
+    @NotNull
+    private String descricao;
+
+    // Primeira ocorrência
+    @Future
+    @NotNull
+    private LocalDateTime inicio;
+
+    @NotNull
+    @Positive
+    private Integer tempoConsultaMinutos;
+
+    @NotNull
+    private RecorrenciaAgenda.Frequencia frequencia;
+
+    @Positive
+    private Integer intervalo = 1;
+
+    // Fim da série: por data, por quantidade ou nenhum (sem fim); nunca os dois
+    private LocalDate ate;
+
+    @Positive
+    private Integer ocorrencias;
+
+    private String observacoes;
+}
@@ -0,0 +1,19 @@
+package consultorio.consultorio.api.request;
+
+import consultorio.consultorio.domain.entity.Recurso;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class RecursoRequest {
+
+    // Ex.: "Cadeira 2", "Sala cirúrgica"
+    @NotBlank
+    private String nome;
+
+    @NotNull
+    private Recurso.Tipo tipo;
+}
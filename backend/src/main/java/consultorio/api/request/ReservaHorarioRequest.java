@@ -0,0 +1,25 @@
+package consultorio.consultorio.api.request;
+
+import jakarta.validation.constraints.Future;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+public class ReservaHorarioRequest {
+
+    @NotNull
+    private Long dentistaId;
+
+    @Future
+    @NotNull
+    private LocalDateTime horario;
+
+    @NotNull
+    @Positive
+    private Integer tempoConsultaMinutos;
+}
@@ -0,0 +1,34 @@
+package consultorio.consultorio.api.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+public class SugestaoAgendaRequest {
+
+    // Itens do plano a agendar, nesta ordem; vazio = todos os itens do paciente
+    private List<Long> planoIds = new ArrayList<>();
+
+    // Dentista dos itens que não têm um definido no plano
+    private Long dentistaId;
+
+    // Opcional: quando ausente (ou no passado) a busca começa agora
+    private LocalDateTime inicio;
+
+    // Dias mínimos entre uma sessão e a seguinte
+    @NotNull
+    @Min(1)
+    @Max(90)
+    private Integer intervaloMinimoDias = 7;
+
+    private List<@Valid PreferenciaHorarioRequest> preferencias = new ArrayList<>();
+}
@@ -0,0 +1,16 @@
+package consultorio.consultorio.api.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class AgendaLoteResponse {
+
+    private Integer quantidade;
+
+    // Na mesma ordem dos itens enviados
+    private List<Long> ids;
+}
@@ -26,5 +26,6 @@ public class AgendaResponse {
 
     private String status;
     private String observacoes;
+    private String procedimento;
     private LocalDateTime dataCriacao;
 }
\ No newline at end of file
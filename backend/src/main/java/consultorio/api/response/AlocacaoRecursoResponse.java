@@ -0,0 +1,19 @@
+package consultorio.consultorio.api.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+public class AlocacaoRecursoResponse {
+
+    private Long recursoId;
+    private String recursoNome;
+    private String tipo;
+
+    private Long agendaId;
+    private LocalDateTime inicio;
+    private LocalDateTime fim;
+}
@@ -0,0 +1,19 @@
+package consultorio.consultorio.api.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+public class BloqueioResponse {
+
+    private Long id;
+    private Long dentistaId;
+    private String dentistaNome;
+    private LocalDateTime inicio;
+    private LocalDateTime fim;
+    private String tipo;
+    private String descricao;
+}
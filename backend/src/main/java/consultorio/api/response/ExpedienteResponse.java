@@ -0,0 +1,18 @@
+package consultorio.consultorio.api.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+@Getter
+@Setter
+public class ExpedienteResponse {
+
+    private Long id;
+    private Long dentistaId;
+    private DayOfWeek diaSemana;
+    private LocalTime inicio;
+    private LocalTime fim;
+}
@@ -0,0 +1,32 @@
+package consultorio.consultorio.api.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@Setter
+public class ImportacaoIcsResponse {
+
+    private String id;
+    private Long dentistaId;
+    private String situacao;
+
+    // Estimado pelos bytes já lidos do arquivo
+    private Integer percentual;
+
+    private Integer lidos;
+    private Integer importados;
+    private Integer conflitos;
+    private Integer foraDoExpediente;
+    private Integer ignorados;
+
+    // Primeiros eventos recusados, com o motivo
+    private List<String> recusas;
+
+    private LocalDateTime iniciadaEm;
+    private LocalDateTime concluidaEm;
+    private String erro;
+}
@@ -0,0 +1,22 @@
+package consultorio.consultorio.api.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+public class OcorrenciaResponse {
+
+    private Long recorrenciaId;
+
+    private Long pacienteId;
+    private String pacienteNome;
+
+    private Long dentistaId;
+
+    private String descricao;
+    private LocalDateTime horario;
+    private LocalDateTime horarioFim;
+}
@@ -0,0 +1,16 @@
+package consultorio.consultorio.api.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class ProcedimentoResponse {
+
+    private Long id;
+    private String nome;
+    private Integer duracaoMinutos;
+    private List<String> recursos;
+}
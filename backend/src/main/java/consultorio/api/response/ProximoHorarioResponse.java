@@ -0,0 +1,17 @@
+package consultorio.consultorio.api.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+public class ProximoHorarioResponse {
+
+    private Long dentistaId;
+    private String dentistaNome;
+
+    private LocalDateTime horario;
+    private LocalDateTime horarioFim;
+}
@@ -0,0 +1,34 @@
+package consultorio.consultorio.api.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@Setter
+public class RecorrenciaResponse {
+
+    private Long id;
+
+    private Long pacienteId;
+    private String pacienteNome;
+
+    private Long dentistaId;
+    private String dentistaNome;
+
+    private String descricao;
+    private LocalDateTime inicio;
+    private Integer tempoConsultaMinutos;
+
+    private String frequencia;
+    private Integer intervalo;
+    private LocalDate ate;
+    private Integer ocorrencias;
+    private List<LocalDate> excecoes;
+
+    private String observacoes;
+    private LocalDateTime dataCriacao;
+}
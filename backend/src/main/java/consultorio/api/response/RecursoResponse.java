@@ -0,0 +1,14 @@
+package consultorio.consultorio.api.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class RecursoResponse {
+
+    private Long id;
+    private String nome;
+    private String tipo;
+    private Boolean ativo;
+}
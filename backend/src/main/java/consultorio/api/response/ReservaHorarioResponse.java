@@ -0,0 +1,19 @@
+package consultorio.consultorio.api.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+public class ReservaHorarioResponse {
+
+    // Token a informar em POST /agenda?reservaId=... para marcar no horário reservado
+    private String id;
+
+    private Long dentistaId;
+    private LocalDateTime horario;
+    private LocalDateTime horarioFim;
+    private LocalDateTime expiraEm;
+}
@@ -0,0 +1,23 @@
+package consultorio.consultorio.api.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+public class SessaoSugeridaResponse {
+
+    private Long planoTratamentoId;
+    private String dente;
+    private String procedimento;
+
+    private Long dentistaId;
+    private LocalDateTime horario;
+    private LocalDateTime horarioFim;
+    private Integer tempoConsultaMinutos;
+
+    // false quando nenhum horário preferido do paciente compensava a espera
+    private boolean dentroDaPreferencia;
+}
@@ -0,0 +1,21 @@
+package consultorio.consultorio.api.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class SugestaoAgendaResponse {
+
+    private List<SessaoSugeridaResponse> sessoes;
+
+    // Itens do plano sem horário dentro do horizonte de busca
+    private List<Long> pendentes;
+
+    private int custo;
+    private int melhorias;
+    private boolean convergiu;
+    private long duracaoMs;
+}
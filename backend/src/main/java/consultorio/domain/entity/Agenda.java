@@ -8,7 +8,12 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "agenda")
+@Table(name = "agenda", indexes = {
+        // Toda busca de conflito/período filtra por dentista e faixa de horário
+        @Index(name = "idx_agenda_dentista_horario", columnList = "dentista_id, horario"),
+        // /agenda/periodo sem dentista (visão semanal da clínica)
+        @Index(name = "idx_agenda_horario", columnList = "horario")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -17,7 +22,8 @@ import java.time.LocalDateTime;
 public class Agenda {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "agenda_seq")
+    @SequenceGenerator(name = "agenda_seq", sequenceName = "agenda_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -52,6 +58,10 @@ public class Agenda {
     private String status;
     private String observacoes;
 
+    // Define os recursos exigidos (ver Procedimento); nulo = só o dentista
+    @Column(length = 100)
+    private String procedimento;
+
     @PrePersist
     protected void onCreate() {
         if (dataCriacao == null) {
@@ -0,0 +1,30 @@
+package consultorio.consultorio.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Contador de alterações da agenda de um dentista (agendas avulsas e séries
+ * recorrentes). Serve de ETag para o feed .ics sem varrer a agenda.
+ */
+@Entity
+@Table(name = "agenda_versao")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AgendaVersao {
+
+    @Id
+    @Column(name = "dentista_id")
+    private Long dentistaId;
+
+    @Column(nullable = false)
+    private Long versao;
+
+    @Column(name = "atualizado_em", nullable = false)
+    private LocalDateTime atualizadoEm;
+}
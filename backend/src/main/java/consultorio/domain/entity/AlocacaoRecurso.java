@@ -0,0 +1,45 @@
+package consultorio.consultorio.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+
+/**
+ * Recurso ocupado por uma agenda. O intervalo é copiado da agenda para que
+ * a checagem de conflito por recurso use só o índice desta tabela.
+ */
+@Entity
+@Table(name = "alocacao_recurso", indexes = {
+        @Index(name = "idx_alocacao_recurso_recurso_inicio", columnList = "recurso_id, inicio"),
+        @Index(name = "idx_alocacao_recurso_agenda", columnList = "agenda_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AlocacaoRecurso {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "alocacao_recurso_seq")
+    @SequenceGenerator(name = "alocacao_recurso_seq", sequenceName = "alocacao_recurso_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "agenda_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Agenda agenda;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "recurso_id", nullable = false)
+    private Recurso recurso;
+
+    @Column(nullable = false)
+    private LocalDateTime inicio;
+
+    @Column(nullable = false)
+    private LocalDateTime fim;
+}
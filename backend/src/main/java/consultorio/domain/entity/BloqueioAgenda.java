@@ -0,0 +1,50 @@
+package consultorio.consultorio.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Período sem atendimento: feriado, férias, ausência. Sem dentista = vale
+ * para a clínica inteira.
+ */
+@Entity
+@Table(name = "bloqueio_agenda", indexes = {
+        @Index(name = "idx_bloqueio_agenda_periodo", columnList = "dentista_id, inicio, fim")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BloqueioAgenda {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bloqueio_agenda_seq")
+    @SequenceGenerator(name = "bloqueio_agenda_seq", sequenceName = "bloqueio_agenda_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "dentista_id")
+    private Dentista dentista;
+
+    @Column(nullable = false)
+    private LocalDateTime inicio;
+
+    @Column(nullable = false)
+    private LocalDateTime fim;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private TipoBloqueio tipo;
+
+    private String descricao;
+
+    public enum TipoBloqueio {
+        FERIADO,
+        FERIAS,
+        AUSENCIA,
+        OUTRO
+    }
+}
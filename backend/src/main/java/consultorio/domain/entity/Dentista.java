@@ -19,7 +19,8 @@ import java.util.List;
 public class Dentista {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "dentista_seq")
+    @SequenceGenerator(name = "dentista_seq", sequenceName = "dentista_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -13,7 +13,8 @@ import lombok.*;
 public class EvolucaoTratamento {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "evolucao_tratamento_seq")
+    @SequenceGenerator(name = "evolucao_tratamento_seq", sequenceName = "evolucao_tratamento_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "data_procedimento", nullable = false)
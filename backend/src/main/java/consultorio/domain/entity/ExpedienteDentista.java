@@ -0,0 +1,43 @@
+package consultorio.consultorio.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+/**
+ * Faixa de atendimento semanal. Um dia pode ter várias faixas (o intervalo
+ * de almoço é o espaço entre elas). Sem dentista = expediente padrão da
+ * clínica, usado por quem não tem expediente próprio.
+ */
+@Entity
+@Table(name = "expediente_dentista", indexes = {
+        @Index(name = "idx_expediente_dentista", columnList = "dentista_id, dia_semana")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ExpedienteDentista {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "expediente_dentista_seq")
+    @SequenceGenerator(name = "expediente_dentista_seq", sequenceName = "expediente_dentista_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "dentista_id")
+    private Dentista dentista;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "dia_semana", nullable = false, length = 10)
+    private DayOfWeek diaSemana;
+
+    @Column(nullable = false)
+    private LocalTime inicio;
+
+    @Column(nullable = false)
+    private LocalTime fim;
+}
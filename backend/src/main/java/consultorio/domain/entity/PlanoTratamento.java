@@ -13,7 +13,8 @@ import lombok.*;
 public class PlanoTratamento {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "plano_tratamento_seq")
+    @SequenceGenerator(name = "plano_tratamento_seq", sequenceName = "plano_tratamento_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -0,0 +1,42 @@
+package consultorio.consultorio.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Procedimento com os tipos de recurso que ele ocupa durante a consulta
+ * (ex.: extração -> CADEIRA + SALA_CIRURGICA). O nome é o mesmo texto
+ * usado em Agenda.procedimento e PlanoTratamento.procedimento, comparado
+ * sem diferenciar maiúsculas.
+ */
+@Entity
+@Table(name = "procedimento")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Procedimento {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "procedimento_seq")
+    @SequenceGenerator(name = "procedimento_seq", sequenceName = "procedimento_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 100)
+    private String nome;
+
+    // Duração usual; a marcação ainda informa a sua
+    @Column(name = "duracao_minutos")
+    private Integer duracaoMinutos;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "procedimento_recurso", joinColumns = @JoinColumn(name = "procedimento_id"))
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo", nullable = false, length = 20)
+    @Builder.Default
+    private Set<Recurso.Tipo> recursos = new HashSet<>();
+}
@@ -0,0 +1,91 @@
+package consultorio.consultorio.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Série de consultas que se repetem (ortodontia, manutenção periodontal),
+ * no espírito de uma RRULE: frequência + intervalo, terminando numa data
+ * ou após N ocorrências, com datas canceladas em 'excecoes'.
+ *
+ * A série é gravada uma única vez; as ocorrências são calculadas apenas
+ * para a faixa consultada (ver RegraRecorrencia), sem linhas em 'agenda'.
+ */
+@Entity
+@Table(name = "recorrencia_agenda", indexes = {
+        @Index(name = "idx_recorrencia_agenda_dentista", columnList = "dentista_id, ate")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RecorrenciaAgenda {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recorrencia_agenda_seq")
+    @SequenceGenerator(name = "recorrencia_agenda_seq", sequenceName = "recorrencia_agenda_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private String descricao;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "dentista_id", nullable = false)
+    private Dentista dentista;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "paciente_id")
+    private Paciente paciente;
+
+    // Primeira ocorrência: define também o horário e o dia de referência das demais
+    @Column(nullable = false)
+    private LocalDateTime inicio;
+
+    @Column(name = "tempo_consulta_minutos", nullable = false)
+    private Integer tempoConsultaMinutos;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Frequencia frequencia;
+
+    // A cada quantas unidades da frequência (ex.: SEMANAL com intervalo 2 = quinzenal)
+    @Builder.Default
+    @Column(nullable = false)
+    private Integer intervalo = 1;
+
+    // Último dia em que pode haver ocorrência (inclusive); nulo = sem data final
+    private LocalDate ate;
+
+    // Quantidade total de ocorrências (contando as canceladas); nulo = sem limite
+    private Integer ocorrencias;
+
+    @ElementCollection
+    @CollectionTable(name = "recorrencia_agenda_excecao", joinColumns = @JoinColumn(name = "recorrencia_id"))
+    @Column(name = "data", nullable = false)
+    @Builder.Default
+    private Set<LocalDate> excecoes = new HashSet<>();
+
+    private String observacoes;
+
+    @Column(name = "data_criacao", updatable = false)
+    private LocalDateTime dataCriacao;
+
+    @PrePersist
+    protected void onCreate() {
+        if (dataCriacao == null) {
+            dataCriacao = LocalDateTime.now();
+        }
+    }
+
+    public enum Frequencia {
+        DIARIA,
+        SEMANAL,
+        MENSAL
+    }
+}
@@ -0,0 +1,42 @@
+package consultorio.consultorio.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Recurso físico disputado entre os dentistas: cadeira, sala cirúrgica,
+ * aparelho de raio-X. Os procedimentos exigem tipos de recurso (ver
+ * Procedimento) e a marcação aloca um recurso livre de cada tipo.
+ */
+@Entity
+@Table(name = "recurso")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Recurso {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recurso_seq")
+    @SequenceGenerator(name = "recurso_seq", sequenceName = "recurso_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private String nome;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Tipo tipo;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private Boolean ativo = true;
+
+    public enum Tipo {
+        CADEIRA,
+        SALA_CIRURGICA,
+        RAIO_X,
+        EQUIPAMENTO
+    }
+}
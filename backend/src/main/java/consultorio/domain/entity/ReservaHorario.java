@@ -0,0 +1,44 @@
+package consultorio.consultorio.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reserva temporária de um horário enquanto a recepção termina o cadastro
+ * do paciente. Depois de 'expiraEm' a linha não vale mais nada: as consultas
+ * filtram por ela e as vencidas são apagadas aos poucos, por dentista.
+ */
+@Entity
+@Table(name = "reserva_horario", indexes = {
+        @Index(name = "idx_reserva_horario_dentista", columnList = "dentista_id, inicio"),
+        @Index(name = "idx_reserva_horario_expiracao", columnList = "dentista_id, expira_em")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReservaHorario {
+
+    // Token entregue a quem reservou; apresentado de volta ao marcar a consulta
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "dentista_id", nullable = false)
+    private Long dentistaId;
+
+    @Column(nullable = false)
+    private LocalDateTime inicio;
+
+    @Column(nullable = false)
+    private LocalDateTime fim;
+
+    @Column(name = "expira_em", nullable = false)
+    private LocalDateTime expiraEm;
+
+    @Column(name = "data_criacao", nullable = false)
+    private LocalDateTime dataCriacao;
+}
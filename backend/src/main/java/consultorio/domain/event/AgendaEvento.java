@@ -0,0 +1,34 @@
+package consultorio.consultorio.domain.event;
+
+import com.consultorio.domain.agenda.AlteracaoAgenda;
+import consultorio.consultorio.domain.entity.Agenda;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Alteração na agenda, publicada pelo AgendaService e entregue aos
+ * interessados somente depois do commit.
+ */
+public record AgendaEvento(Tipo tipo, Long agendaId, Long dentistaId, LocalDateTime horario, String status)
+        implements AlteracaoAgenda {
+
+    public enum Tipo {
+        CRIADO,
+        REMOVIDO
+    }
+
+    @Override
+    public String nome() {
+        return tipo.name();
+    }
+
+    @Override
+    public LocalDate dia() {
+        return horario.toLocalDate();
+    }
+
+    public static AgendaEvento de(Tipo tipo, Agenda agenda) {
+        return new AgendaEvento(tipo, agenda.getId(), agenda.getDentista().getId(), agenda.getHorario(), agenda.getStatus());
+    }
+}
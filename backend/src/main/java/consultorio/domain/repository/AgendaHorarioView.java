@@ -0,0 +1,16 @@
+package consultorio.consultorio.domain.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projeção enxuta da agenda usada pelos índices em memória:
+ * apenas o necessário para montar o intervalo ocupado.
+ */
+public interface AgendaHorarioView {
+
+    Long getId();
+
+    LocalDateTime getHorario();
+
+    Integer getTempoConsultaMinutos();
+}
@@ -2,6 +2,7 @@ package consultorio.consultorio.domain.repository;
 
 import consultorio.consultorio.domain.entity.Agenda;
 import consultorio.consultorio.domain.entity.Dentista;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -29,8 +30,57 @@ public interface AgendaRepository extends JpaRepository<Agenda, Long> {
 
     List<Agenda> findByPacienteId(Long pacienteId);
 
+    // Listagens que viram AgendaResponse: paciente e dentista vêm no mesmo SELECT
+    // (o mapper lê os nomes de cada linha; sem o fetch seriam até 2N+1 consultas)
+    @EntityGraph(attributePaths = {"dentista", "paciente"})
     List<Agenda> findByDentistaId(Long dentistaId);
 
+    @EntityGraph(attributePaths = {"dentista", "paciente"})
+    @Query("SELECT a FROM Agenda a WHERE a.dentista.id = :dentistaId " +
+            "AND a.horario >= :inicio AND a.horario < :fim ORDER BY a.horario")
+    List<Agenda> findDoDentistaNaFaixa(@Param("dentistaId") Long dentistaId,
+                                       @Param("inicio") LocalDateTime inicio,
+                                       @Param("fim") LocalDateTime fim);
+
+    @EntityGraph(attributePaths = {"dentista", "paciente"})
+    @Query("SELECT a FROM Agenda a ORDER BY a.horario")
+    List<Agenda> findAllComDentistaEPaciente();
+
+    List<AgendaHorarioView> findByDentistaIdAndHorarioGreaterThanEqual(Long dentistaId, LocalDateTime desde);
+
+    // Faixa [de, ate) de um dentista em ordem de horário, sem carregar as entidades
+    @Query("SELECT a.id AS id, a.horario AS horario, a.tempoConsultaMinutos AS tempoConsultaMinutos " +
+            "FROM Agenda a WHERE a.dentista.id = :dentistaId AND a.horario >= :de AND a.horario < :ate " +
+            "ORDER BY a.horario")
+    List<AgendaHorarioView> findHorariosNaFaixa(@Param("dentistaId") Long dentistaId,
+                                                @Param("de") LocalDateTime de,
+                                                @Param("ate") LocalDateTime ate);
+
+    // Sobreposição real de intervalos (considera a duração da consulta já marcada).
+    // O limite inferior mantém a busca restrita a uma faixa do índice por horário.
+    @Query(value = "SELECT COUNT(*) > 0 FROM agenda a " +
+            "WHERE a.dentista_id = :dentistaId " +
+            "AND a.horario >= :limiteInferior AND a.horario < :fim " +
+            "AND (a.horario >= :inicio " +
+            "OR a.horario + make_interval(mins => COALESCE(a.tempo_consulta_minutos, 0)) > :inicio)",
+            nativeQuery = true)
+    boolean existsConflito(@Param("dentistaId") Long dentistaId,
+                           @Param("inicio") LocalDateTime inicio,
+                           @Param("fim") LocalDateTime fim,
+                           @Param("limiteInferior") LocalDateTime limiteInferior);
+
+    // Lock transacional do PostgreSQL por dentista: vale entre todos os nós da aplicação
+    // e é liberado automaticamente no commit/rollback. A chave é um hash de 64 bits de
+    // "agenda:<id>": cabe qualquer ID bigint e não se mistura com os locks de recurso.
+    @Query(value = "SELECT COUNT(*) FROM (SELECT pg_advisory_xact_lock(hashtextextended('agenda:' || CAST(:dentistaId AS text), 0))) l",
+            nativeQuery = true)
+    long bloquearAgendaDoDentista(@Param("dentistaId") Long dentistaId);
+
+    // Cada valor abre um bloco de 50 IDs (pooled-lo, mesmo allocationSize da entidade)
+    @Query(value = "SELECT nextval('agenda_seq') FROM generate_series(1, :blocos)", nativeQuery = true)
+    List<Long> reservarBlocosDeIds(@Param("blocos") int blocos);
+
+    @EntityGraph(attributePaths = {"dentista", "paciente"})
     @Query("SELECT a FROM Agenda a WHERE a.horario BETWEEN :start AND :end")
     List<Agenda> findByPeriodo(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package consultorio.consultorio.domain.repository;
+
+import consultorio.consultorio.domain.entity.AlocacaoRecurso;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AlocacaoRecursoRepository extends JpaRepository<AlocacaoRecurso, Long> {
+
+    // Ocupação de vários recursos numa faixa, sem carregar as entidades
+    @Query("SELECT a.recurso.id AS recursoId, a.inicio AS inicio, a.fim AS fim FROM AlocacaoRecurso a " +
+            "WHERE a.recurso.id IN :recursoIds AND a.inicio < :ate AND a.fim > :de " +
+            "ORDER BY a.inicio")
+    List<AlocacaoRecursoView> findNaFaixa(@Param("recursoIds") Collection<Long> recursoIds,
+                                          @Param("de") LocalDateTime de,
+                                          @Param("ate") LocalDateTime ate);
+
+    @Query("SELECT a FROM AlocacaoRecurso a JOIN FETCH a.recurso WHERE a.recurso.id = :recursoId " +
+            "AND a.inicio < :ate AND a.fim > :de ORDER BY a.inicio")
+    List<AlocacaoRecurso> findDoRecursoNaFaixa(@Param("recursoId") Long recursoId,
+                                               @Param("de") LocalDateTime de,
+                                               @Param("ate") LocalDateTime ate);
+
+    @Query("SELECT a FROM AlocacaoRecurso a JOIN FETCH a.recurso WHERE a.agenda.id = :agendaId")
+    List<AlocacaoRecurso> findByAgendaId(@Param("agendaId") Long agendaId);
+}
@@ -0,0 +1,15 @@
+package consultorio.consultorio.domain.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projeção das alocações usada para montar a ocupação diária dos recursos.
+ */
+public interface AlocacaoRecursoView {
+
+    Long getRecursoId();
+
+    LocalDateTime getInicio();
+
+    LocalDateTime getFim();
+}
@@ -0,0 +1,26 @@
+package consultorio.consultorio.domain.repository;
+
+import consultorio.consultorio.domain.entity.BloqueioAgenda;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface BloqueioAgendaRepository extends JpaRepository<BloqueioAgenda, Long> {
+
+    // Bloqueios do dentista e da clínica inteira que ainda não terminaram em 'desde'
+    @Query("SELECT b FROM BloqueioAgenda b " +
+            "WHERE (b.dentista.id = :dentistaId OR b.dentista IS NULL) AND b.fim > :desde " +
+            "ORDER BY b.inicio")
+    List<BloqueioAgenda> findQueAfetamAPartirDe(@Param("dentistaId") Long dentistaId,
+                                                @Param("desde") LocalDateTime desde);
+
+    @Query("SELECT b FROM BloqueioAgenda b LEFT JOIN FETCH b.dentista " +
+            "WHERE b.inicio < :fim AND b.fim > :inicio ORDER BY b.inicio")
+    List<BloqueioAgenda> findNoPeriodo(@Param("inicio") LocalDateTime inicio,
+                                       @Param("fim") LocalDateTime fim);
+}
@@ -0,0 +1,27 @@
+package consultorio.consultorio.domain.repository;
+
+import consultorio.consultorio.domain.entity.ExpedienteDentista;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ExpedienteDentistaRepository extends JpaRepository<ExpedienteDentista, Long> {
+
+    List<ExpedienteDentista> findByDentistaIdOrderByDiaSemanaAscInicioAsc(Long dentistaId);
+
+    // Expediente padrão da clínica
+    List<ExpedienteDentista> findByDentistaIsNullOrderByDiaSemanaAscInicioAsc();
+
+    @Modifying
+    @Query("DELETE FROM ExpedienteDentista e WHERE e.dentista.id = :dentistaId")
+    void deleteByDentistaId(@Param("dentistaId") Long dentistaId);
+
+    @Modifying
+    @Query("DELETE FROM ExpedienteDentista e WHERE e.dentista IS NULL")
+    void deletePadraoDaClinica();
+}
@@ -0,0 +1,16 @@
+package consultorio.consultorio.domain.repository;
+
+import consultorio.consultorio.domain.entity.Procedimento;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ProcedimentoRepository extends JpaRepository<Procedimento, Long> {
+
+    Optional<Procedimento> findByNomeIgnoreCase(String nome);
+
+    List<Procedimento> findAllByOrderByNomeAsc();
+}
@@ -0,0 +1,22 @@
+package consultorio.consultorio.domain.repository;
+
+import consultorio.consultorio.domain.entity.RecorrenciaAgenda;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface RecorrenciaAgendaRepository extends JpaRepository<RecorrenciaAgenda, Long> {
+
+    // Séries do dentista que ainda podem ter ocorrência a partir de 'desde'
+    // (as limitadas por quantidade são filtradas na expansão)
+    @Query("SELECT r FROM RecorrenciaAgenda r LEFT JOIN FETCH r.excecoes " +
+            "WHERE r.dentista.id = :dentistaId AND (r.ate IS NULL OR r.ate >= :desde) " +
+            "ORDER BY r.inicio")
+    List<RecorrenciaAgenda> findAtivasDoDentista(@Param("dentistaId") Long dentistaId,
+                                                 @Param("desde") LocalDate desde);
+}
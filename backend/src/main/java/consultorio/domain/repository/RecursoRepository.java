@@ -0,0 +1,25 @@
+package consultorio.consultorio.domain.repository;
+
+import consultorio.consultorio.domain.entity.Recurso;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface RecursoRepository extends JpaRepository<Recurso, Long> {
+
+    List<Recurso> findByAtivoTrueOrderByTipoAscNomeAsc();
+
+    // Candidatos de uma marcação, na ordem em que os locks são tomados
+    List<Recurso> findByTipoInAndAtivoTrueOrderByIdAsc(Collection<Recurso.Tipo> tipos);
+
+    // Mesmo esquema do lock por dentista (AgendaRepository): hash de 64 bits de
+    // "recurso:<id>", que aceita qualquer ID bigint e não se mistura com "agenda:<id>"
+    @Query(value = "SELECT COUNT(*) FROM (SELECT pg_advisory_xact_lock(hashtextextended('recurso:' || CAST(:recursoId AS text), 0))) l",
+            nativeQuery = true)
+    long bloquearRecurso(@Param("recursoId") Long recursoId);
+}
@@ -0,0 +1,48 @@
+package consultorio.consultorio.domain.repository;
+
+import consultorio.consultorio.domain.entity.ReservaHorario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ReservaHorarioRepository extends JpaRepository<ReservaHorario, String> {
+
+    // Reserva ainda válida de outra pessoa que se sobrepõe a [inicio, fim)
+    @Query(value = "SELECT COUNT(*) > 0 FROM reserva_horario r " +
+            "WHERE r.dentista_id = :dentistaId AND r.inicio < :fim AND r.fim > :inicio " +
+            "AND r.expira_em > :agora AND r.id IS DISTINCT FROM CAST(:ignorarId AS varchar)",
+            nativeQuery = true)
+    boolean existsConflito(@Param("dentistaId") Long dentistaId,
+                           @Param("inicio") LocalDateTime inicio,
+                           @Param("fim") LocalDateTime fim,
+                           @Param("agora") LocalDateTime agora,
+                           @Param("ignorarId") String ignorarId);
+
+    // Reservas ainda válidas sobre [inicio, fim), em ordem de início
+    @Query(value = "SELECT * FROM reserva_horario r " +
+            "WHERE r.dentista_id = :dentistaId AND r.inicio < :fim AND r.fim > :inicio " +
+            "AND r.expira_em > :agora ORDER BY r.inicio",
+            nativeQuery = true)
+    List<ReservaHorario> findValidasNaFaixa(@Param("dentistaId") Long dentistaId,
+                                            @Param("inicio") LocalDateTime inicio,
+                                            @Param("fim") LocalDateTime fim,
+                                            @Param("agora") LocalDateTime agora);
+
+    // Todas as reservas ainda válidas do dentista (cópia em memória do ReservaHorarioService)
+    @Query(value = "SELECT * FROM reserva_horario r WHERE r.dentista_id = :dentistaId AND r.expira_em > :agora",
+            nativeQuery = true)
+    List<ReservaHorario> findValidasDoDentista(@Param("dentistaId") Long dentistaId,
+                                               @Param("agora") LocalDateTime agora);
+
+    // Limpeza das vencidas de um dentista só, pela faixa do índice (dentista_id, expira_em)
+    @Modifying
+    @Query(value = "DELETE FROM reserva_horario WHERE dentista_id = :dentistaId AND expira_em <= :agora",
+            nativeQuery = true)
+    int deleteVencidas(@Param("dentistaId") Long dentistaId, @Param("agora") LocalDateTime agora);
+}
@@ -0,0 +1,270 @@
+package consultorio.consultorio.domain.service;
+
+import consultorio.consultorio.domain.entity.RecorrenciaAgenda;
+import consultorio.consultorio.utils.Calendario;
+import consultorio.consultorio.utils.ICalendar;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Feed iCalendar (.ics) da agenda de um dentista, para assinatura no celular.
+ *
+ * As agendas saem de um cursor do driver direto para a resposta, um VEVENT
+ * por linha, sem montar a lista em memória. Séries recorrentes viram um
+ * único VEVENT com RRULE/EXDATE, como o próprio cliente de calendário espera.
+ *
+ * A ETag é a versão da agenda do dentista (AgendaVersoes) mais o dia de
+ * início da janela: clientes que consultam a cada poucos minutos recebem 304
+ * sem que a agenda seja lida.
+ */
+@Slf4j
+@Service
+public class AgendaIcsService {
+
+    // Linhas trazidas do banco a cada ida do cursor
+    private static final int TAMANHO_LEITURA = 500;
+
+    private static final String AGENDAS = "SELECT a.id, a.descricao, a.horario, a.tempo_consulta_minutos, a.status, " +
+            "a.observacoes, p.nome AS paciente " +
+            "FROM agenda a LEFT JOIN paciente p ON p.id = a.paciente_id " +
+            "WHERE a.dentista_id = ? AND a.horario >= ? AND a.status IS DISTINCT FROM 'DISPONÍVEL' " +
+            "ORDER BY a.horario";
+
+    private static final String SERIES = "SELECT r.id, r.descricao, r.inicio, r.tempo_consulta_minutos, r.frequencia, " +
+            "r.intervalo, r.ate, r.ocorrencias, r.observacoes, p.nome AS paciente, " +
+            "(SELECT array_agg(e.data ORDER BY e.data) FROM recorrencia_agenda_excecao e WHERE e.recorrencia_id = r.id) AS excecoes " +
+            "FROM recorrencia_agenda r LEFT JOIN paciente p ON p.id = r.paciente_id " +
+            "WHERE r.dentista_id = ? AND (r.ate IS NULL OR r.ate >= ?) " +
+            "ORDER BY r.inicio";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate leitura;
+    private final AgendaVersoes agendaVersoes;
+    private final ZoneId fuso;
+    private final long diasPassados;
+
+    public AgendaIcsService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                            AgendaVersoes agendaVersoes,
+                            @Value("${agenda.ics.fuso:America/Sao_Paulo}") String fuso,
+                            @Value("${agenda.ics.dias-passados:90}") long diasPassados) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.leitura = new TransactionTemplate(transactionManager);
+        this.leitura.setReadOnly(true);
+        this.agendaVersoes = agendaVersoes;
+        this.fuso = ZoneId.of(fuso);
+        this.diasPassados = diasPassados;
+    }
+
+    /**
+     * ETag forte do feed: muda quando a agenda muda ou quando a janela
+     * de dias passados avança um dia.
+     */
+    public String etag(Long dentistaId) {
+        return "\"agenda-" + dentistaId + "-" + agendaVersoes.versao(dentistaId)
+                + "-" + ICalendar.DATA.format(inicioJanela()) + "\"";
+    }
+
+    /**
+     * Escreve o VCALENDAR inteiro na saída. Roda fora da requisição (no executor
+     * de respostas assíncronas), com uma transação só de leitura: o fetchSize
+     * do PostgreSQL só abre cursor com autocommit desligado.
+     */
+    public void escrever(Long dentistaId, String nomeDentista, OutputStream saida) {
+        long inicio = System.nanoTime();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8), 16 * 1024);
+        String carimbo = ICalendar.DATA_HORA_UTC.format(LocalDateTime.now(ZoneOffset.UTC));
+        LocalDate desde = inicioJanela();
+        int[] eventos = {0};
+
+        try {
+            cabecalho(writer, nomeDentista, desde);
+
+            leitura.executeWithoutResult(tx -> {
+                jdbcTemplate.query(con -> {
+                    PreparedStatement ps = con.prepareStatement(SERIES);
+                    ps.setLong(1, dentistaId);
+                    ps.setDate(2, Date.valueOf(desde));
+                    return ps;
+                }, rs -> {
+                    escreverSerie(writer, rs, carimbo);
+                    eventos[0]++;
+                });
+
+                jdbcTemplate.query(con -> {
+                    PreparedStatement ps = con.prepareStatement(AGENDAS);
+                    ps.setFetchSize(TAMANHO_LEITURA);
+                    ps.setLong(1, dentistaId);
+                    ps.setTimestamp(2, Timestamp.valueOf(desde.atStartOfDay()));
+                    return ps;
+                }, rs -> {
+                    escreverAgenda(writer, rs, carimbo);
+                    eventos[0]++;
+                });
+            });
+
+            ICalendar.linha(writer, "END", "VCALENDAR");
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        log.debug("Feed .ics do dentista ID {}: {} evento(s) em {} ms",
+                dentistaId, eventos[0], (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    // ============================================================
+    // MÉTODOS AUXILIARES
+    // ============================================================
+
+    private LocalDate inicioJanela() {
+        return LocalDate.now(fuso).minusDays(diasPassados);
+    }
+
+    private void cabecalho(Writer writer, String nomeDentista, LocalDate desde) throws IOException {
+        ICalendar.linha(writer, "BEGIN", "VCALENDAR");
+        ICalendar.linha(writer, "VERSION", "2.0");
+        ICalendar.linha(writer, "PRODID", "-//Consultorio Odontologico//Agenda//PT-BR");
+        ICalendar.linha(writer, "CALSCALE", "GREGORIAN");
+        ICalendar.linha(writer, "METHOD", "PUBLISH");
+        ICalendar.linha(writer, "X-WR-CALNAME", ICalendar.texto("Agenda - " + nomeDentista));
+        ICalendar.linha(writer, "X-WR-TIMEZONE", fuso.getId());
+
+        // As séries são escritas no horário local (a RRULE precisa seguir o relógio
+        // da clínica), com as regras de horário de verão do fuso a partir da janela
+        ICalendar.fuso(writer, fuso, desde);
+    }
+
+    private void escreverAgenda(Writer writer, ResultSet rs, String carimbo) throws SQLException {
+        LocalDateTime horario = rs.getTimestamp("horario").toLocalDateTime();
+        int minutos = duracao(rs.getObject("tempo_consulta_minutos", Integer.class));
+        String status = rs.getString("status");
+
+        try {
+            ICalendar.linha(writer, "BEGIN", "VEVENT");
+            ICalendar.linha(writer, "UID", "agenda-" + rs.getLong("id") + "@consultorio");
+            ICalendar.linha(writer, "DTSTAMP", carimbo);
+            ICalendar.linha(writer, "DTSTART", ICalendar.utc(horario, fuso));
+            ICalendar.linha(writer, "DTEND", ICalendar.utc(Calendario.calcularHorarioFim(horario, minutos), fuso));
+            ICalendar.linha(writer, "SUMMARY", ICalendar.texto(resumo(rs.getString("descricao"), rs.getString("paciente"))));
+            if (rs.getString("observacoes") != null) {
+                ICalendar.linha(writer, "DESCRIPTION", ICalendar.texto(rs.getString("observacoes")));
+            }
+            ICalendar.linha(writer, "STATUS", "CANCELADO".equalsIgnoreCase(status) ? "CANCELLED" : "CONFIRMED");
+            ICalendar.linha(writer, "END", "VEVENT");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void escreverSerie(Writer writer, ResultSet rs, String carimbo) throws SQLException {
+        LocalDateTime inicio = rs.getTimestamp("inicio").toLocalDateTime();
+        int minutos = duracao(rs.getObject("tempo_consulta_minutos", Integer.class));
+        Date ate = rs.getDate("ate");
+        Integer ocorrencias = rs.getObject("ocorrencias", Integer.class);
+
+        RecorrenciaAgenda.Frequencia frequencia = RecorrenciaAgenda.Frequencia.valueOf(rs.getString("frequencia"));
+        StringBuilder regra = new StringBuilder("FREQ=").append(frequencia(frequencia))
+                .append(";INTERVAL=").append(rs.getInt("intervalo"));
+        if (frequencia == RecorrenciaAgenda.Frequencia.MENSAL && inicio.getDayOfMonth() > 28) {
+            // RegraRecorrencia usa plusMonths (dia 31 cai no último dia do mês);
+            // a RRULE pura pularia os meses mais curtos
+            regra.append(";BYMONTHDAY=");
+            for (int dia = 28; dia <= inicio.getDayOfMonth(); dia++) {
+                regra.append(dia == 28 ? "" : ",").append(dia);
+            }
+            regra.append(";BYSETPOS=-1");
+        }
+        // A RRULE aceita COUNT ou UNTIL, nunca os dois. Séries gravadas antes dessa
+        // validação podem ter ambos: vale o que termina primeiro, como na RegraRecorrencia
+        LocalDate fim = ate != null ? ate.toLocalDate() : null;
+        if (fim != null && ocorrencias != null) {
+            LocalDate ultima = new RegraRecorrencia(null, null, inicio, minutos, frequencia,
+                    rs.getInt("intervalo"), null, ocorrencias, Set.of()).ocorrencia(ocorrencias - 1L).toLocalDate();
+            if (ultima.isBefore(fim)) {
+                fim = ultima;
+            }
+        }
+        if (fim != null) {
+            // Com DTSTART local + TZID, o UNTIL tem de vir em UTC
+            regra.append(";UNTIL=").append(ICalendar.utc(fim.atTime(23, 59, 59), fuso));
+        } else if (ocorrencias != null) {
+            regra.append(";COUNT=").append(ocorrencias);
+        }
+
+        String tzid = "TZID=" + fuso.getId();
+        try {
+            ICalendar.linha(writer, "BEGIN", "VEVENT");
+            ICalendar.linha(writer, "UID", "recorrencia-" + rs.getLong("id") + "@consultorio");
+            ICalendar.linha(writer, "DTSTAMP", carimbo);
+            ICalendar.linha(writer, "DTSTART;" + tzid, ICalendar.DATA_HORA_LOCAL.format(inicio));
+            ICalendar.linha(writer, "DTEND;" + tzid, ICalendar.DATA_HORA_LOCAL.format(Calendario.calcularHorarioFim(inicio, minutos)));
+            ICalendar.linha(writer, "RRULE", regra.toString());
+            for (LocalDate excecao : excecoes(rs)) {
+                ICalendar.linha(writer, "EXDATE;" + tzid, ICalendar.DATA_HORA_LOCAL.format(excecao.atTime(inicio.toLocalTime())));
+            }
+            ICalendar.linha(writer, "SUMMARY", ICalendar.texto(resumo(rs.getString("descricao"), rs.getString("paciente"))));
+            if (rs.getString("observacoes") != null) {
+                ICalendar.linha(writer, "DESCRIPTION", ICalendar.texto(rs.getString("observacoes")));
+            }
+            ICalendar.linha(writer, "STATUS", "CONFIRMED");
+            ICalendar.linha(writer, "END", "VEVENT");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<LocalDate> excecoes(ResultSet rs) throws SQLException {
+        Array array = rs.getArray("excecoes");
+        if (array == null) {
+            return List.of();
+        }
+        Object[] datas = (Object[]) array.getArray();
+        List<LocalDate> lista = new ArrayList<>(datas.length);
+        for (Object data : datas) {
+            lista.add(((Date) data).toLocalDate());
+        }
+        return lista;
+    }
+
+    private static String frequencia(RecorrenciaAgenda.Frequencia frequencia) {
+        return switch (frequencia) {
+            case DIARIA -> "DAILY";
+            case SEMANAL -> "WEEKLY";
+            case MENSAL -> "MONTHLY";
+        };
+    }
+
+    private static String resumo(String descricao, String paciente) {
+        return paciente == null ? descricao : descricao + " - " + paciente;
+    }
+
+    // Agendas antigas podem não ter duração gravada: mesmo padrão do /dentista/{id}/agendar
+    private static int duracao(Integer minutos) {
+        return minutos != null ? minutos : 30;
+    }
+}
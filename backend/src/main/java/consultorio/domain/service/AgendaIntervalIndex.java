@@ -0,0 +1,220 @@
+package consultorio.consultorio.domain.service;
+
+import consultorio.consultorio.domain.entity.Agenda;
+import consultorio.consultorio.domain.repository.AgendaHorarioView;
+import consultorio.consultorio.domain.repository.AgendaRepository;
+import consultorio.consultorio.domain.repository.RecorrenciaAgendaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Índice em memória dos intervalos ocupados de cada dentista.
+ *
+ * Cada dentista é carregado sob demanda (agendas que ainda ocupam algum
+ * instante a partir de ontem, inclusive as que começaram antes) e mantido
+ * ordenado por horário de início. Como nenhuma consulta dura mais que a maior
+ * duração já vista, basta percorrer as agendas que começam entre
+ * (inicio - maiorDuracao) e fim: O(log n) para localizar a faixa.
+ *
+ * As séries recorrentes do dentista ficam ao lado, como regras: suas
+ * ocorrências são expandidas só para a faixa pedida e somadas ao resultado.
+ *
+ * O índice é local a este nó: gravações feitas em outros nós só aparecem
+ * quando o dentista é recarregado (a cada VALIDADE). Por isso ele serve para
+ * recusar rápido e montar grades de horários livres; quem decide se há
+ * conflito ao gravar é sempre o banco (AgendaService).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AgendaIntervalIndex {
+
+    // Quantos dias para trás são mantidos em memória; antes disso a consulta vai ao banco
+    private static final long DIAS_RETROATIVOS = 1;
+
+    // Mesma folga da checagem no banco: agendas iniciadas até 24h antes ainda podem ocupar a janela
+    private static final long FOLGA_ANTERIOR_HORAS = 24;
+
+    // Depois disso o dentista é relido do banco: a janela anda e o que outros nós gravaram aparece
+    private static final Duration VALIDADE = Duration.ofMinutes(10);
+
+    private final AgendaRepository repository;
+    private final RecorrenciaAgendaRepository recorrenciaRepository;
+
+    private final Map<Long, AgendaDentista> porDentista = new ConcurrentHashMap<>();
+
+    /**
+     * Indica se o índice consegue responder por este horário
+     * (horários antigos demais ficam fora da janela carregada).
+     */
+    public boolean cobre(Long dentistaId, LocalDateTime inicio) {
+        return !inicio.isBefore(carregar(dentistaId).carregadoDesde);
+    }
+
+    public boolean temConflito(Long dentistaId, LocalDateTime inicio, LocalDateTime fim) {
+        return !conflitos(dentistaId, inicio, fim, null).isEmpty();
+    }
+
+    /**
+     * Lista os intervalos do dentista que se sobrepõem a [inicio, fim),
+     * ignorando opcionalmente a própria agenda (útil em atualizações).
+     * Inclui as ocorrências das séries recorrentes (com agendaId nulo).
+     */
+    public List<Intervalo> conflitos(Long dentistaId, LocalDateTime inicio, LocalDateTime fim, Long ignorarAgendaId) {
+        AgendaDentista agenda = carregar(dentistaId);
+        Intervalo de = Intervalo.limite(inicio.minusMinutes(agenda.maiorDuracaoMinutos.get()), Long.MIN_VALUE);
+        Intervalo ate = Intervalo.limite(fim, Long.MIN_VALUE);
+
+        List<Intervalo> resultado = new ArrayList<>();
+        agenda.intervalos.subSet(de, true, ate, false).stream()
+                .filter(i -> i.sobrepoe(inicio, fim))
+                .filter(i -> ignorarAgendaId == null || !ignorarAgendaId.equals(i.agendaId()))
+                .forEach(resultado::add);
+        for (RegraRecorrencia serie : agenda.series) {
+            resultado.addAll(serie.intervalos(inicio, fim));
+        }
+        return resultado;
+    }
+
+    /**
+     * Reflete uma agenda já gravada. Se o dentista ainda não foi carregado,
+     * nada a fazer: a leitura do banco já a trará. Se a carga está em
+     * andamento, computeIfPresent espera por ela, e a agenda não se perde
+     * entre a leitura e a publicação do índice.
+     */
+    public void registrar(Agenda agenda) {
+        if (agenda.getId() == null || agenda.getDentista() == null) {
+            return;
+        }
+        Intervalo intervalo = Intervalo.de(agenda.getId(), agenda.getHorario(), agenda.getTempoConsultaMinutos());
+        porDentista.computeIfPresent(agenda.getDentista().getId(), (id, indice) -> {
+            indice.adicionar(intervalo);
+            return indice;
+        });
+    }
+
+    public void remover(Long dentistaId, Long agendaId) {
+        porDentista.computeIfPresent(dentistaId, (id, indice) -> {
+            indice.remover(agendaId);
+            return indice;
+        });
+    }
+
+    /**
+     * Descarta o índice do dentista; o próximo acesso recarrega do banco.
+     * Usado quando a agenda é alterada por caminhos que não passam pelo AgendaService.
+     */
+    public void invalidar(Long dentistaId) {
+        porDentista.remove(dentistaId);
+    }
+
+    private AgendaDentista carregar(Long dentistaId) {
+        AgendaDentista atual = porDentista.get(dentistaId);
+        if (atual != null && atual.valido(LocalDateTime.now())) {
+            return atual;
+        }
+        // Registros concorrentes (computeIfPresent) esperam esta leitura terminar
+        return porDentista.compute(dentistaId, (id, existente) -> {
+            LocalDateTime agora = LocalDateTime.now();
+            return existente != null && existente.valido(agora) ? existente : ler(id, agora);
+        });
+    }
+
+    private AgendaDentista ler(Long dentistaId, LocalDateTime agora) {
+        LocalDateTime desde = agora.minusDays(DIAS_RETROATIVOS);
+        AgendaDentista indice = new AgendaDentista(desde, agora.plus(VALIDADE));
+
+        List<AgendaHorarioView> agendas = repository.findByDentistaIdAndHorarioGreaterThanEqual(
+                dentistaId, desde.minusHours(FOLGA_ANTERIOR_HORAS));
+        agendas.stream()
+                .map(a -> Intervalo.de(a.getId(), a.getHorario(), a.getTempoConsultaMinutos()))
+                .filter(i -> i.sobrepoe(desde, LocalDateTime.MAX))
+                .forEach(indice::adicionar);
+
+        indice.series = recorrenciaRepository.findAtivasDoDentista(dentistaId, desde.toLocalDate()).stream()
+                .map(RegraRecorrencia::de)
+                .toList();
+
+        log.debug("Índice de agenda carregado para dentista ID: {} ({} intervalos, {} séries)",
+                dentistaId, indice.porAgenda.size(), indice.series.size());
+        return indice;
+    }
+
+    // ============================================================
+    // ESTRUTURAS INTERNAS
+    // ============================================================
+
+    public record Intervalo(Long agendaId, LocalDateTime inicio, LocalDateTime fim) {
+
+        private static final Comparator<Intervalo> ORDEM = Comparator
+                .comparing(Intervalo::inicio)
+                .thenComparing(Intervalo::agendaId);
+
+        static Intervalo de(Long agendaId, LocalDateTime horario, Integer tempoConsultaMinutos) {
+            int minutos = tempoConsultaMinutos != null ? tempoConsultaMinutos : 0;
+            return new Intervalo(agendaId, horario, horario.plusMinutes(minutos));
+        }
+
+        private static Intervalo limite(LocalDateTime inicio, long agendaId) {
+            return new Intervalo(agendaId, inicio, inicio);
+        }
+
+        /**
+         * Sobreposição de intervalos semiabertos. Agendas sem duração
+         * ocupam apenas o instante de início.
+         */
+        public boolean sobrepoe(LocalDateTime outroInicio, LocalDateTime outroFim) {
+            if (!inicio.isBefore(outroFim)) {
+                return false;
+            }
+            return fim.isAfter(outroInicio) || !inicio.isBefore(outroInicio);
+        }
+
+        long duracaoMinutos() {
+            return Duration.between(inicio, fim).toMinutes();
+        }
+    }
+
+    private static final class AgendaDentista {
+        private final LocalDateTime carregadoDesde;
+        private final LocalDateTime validoAte;
+        private final ConcurrentSkipListSet<Intervalo> intervalos = new ConcurrentSkipListSet<>(Intervalo.ORDEM);
+        private final Map<Long, Intervalo> porAgenda = new ConcurrentHashMap<>();
+        private final AtomicLong maiorDuracaoMinutos = new AtomicLong();
+        private List<RegraRecorrencia> series = List.of();
+
+        private AgendaDentista(LocalDateTime carregadoDesde, LocalDateTime validoAte) {
+            this.carregadoDesde = carregadoDesde;
+            this.validoAte = validoAte;
+        }
+
+        private boolean valido(LocalDateTime agora) {
+            return agora.isBefore(validoAte);
+        }
+
+        private void adicionar(Intervalo intervalo) {
+            remover(intervalo.agendaId());
+            maiorDuracaoMinutos.accumulateAndGet(intervalo.duracaoMinutos(), Math::max);
+            intervalos.add(intervalo);
+            porAgenda.put(intervalo.agendaId(), intervalo);
+        }
+
+        private void remover(Long agendaId) {
+            Intervalo anterior = porAgenda.remove(agendaId);
+            if (anterior != null) {
+                intervalos.remove(anterior);
+            }
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package consultorio.consultorio.domain.service;
+
+import consultorio.consultorio.domain.entity.Agenda;
+import consultorio.consultorio.domain.entity.Dentista;
+import consultorio.consultorio.domain.entity.ReservaHorario;
+import consultorio.consultorio.domain.event.AgendaEvento;
+import consultorio.consultorio.domain.exception.BusinessException;
+import consultorio.consultorio.domain.repository.AgendaRepository;
+import consultorio.consultorio.domain.repository.DentistaRepository;
+import consultorio.consultorio.utils.Transacoes;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Marcação de muitas agendas numa única requisição (série de tratamento,
+ * migração de calendário).
+ *
+ * Tudo ou nada: os itens são conferidos entre si e contra o banco numa
+ * passada por dentista (ordenados por horário) e só então gravados com
+ * INSERTs em lote via JDBC, sem montar entidades gerenciadas para cada item.
+ */
+@Slf4j
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class AgendaLoteService {
+
+    // Linhas por executeBatch; com reWriteBatchedInserts o driver junta cada lote em poucos INSERTs
+    private static final int TAMANHO_LOTE = 1000;
+
+    // Igual ao allocationSize de Agenda.id (pooled-lo)
+    private static final int ALOCACAO_IDS = 50;
+
+    // Mesma janela do AgendaService: nenhuma consulta passa de um dia
+    private static final long JANELA_CONFLITO_HORAS = 24;
+
+    private static final String INSERT_AGENDA = "INSERT INTO agenda " +
+            "(id, descricao, horario, data_criacao, tempo_consulta_minutos, paciente_id, dentista_id, status, observacoes, procedimento) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final AgendaRepository repository;
+    private final DentistaRepository dentistaRepository;
+    private final AgendaIntervalIndex intervalIndex;
+    private final AgendamentoLocks agendamentoLocks;
+    private final RecorrenciaService recorrenciaService;
+    private final ReservaHorarioService reservaService;
+    private final RecursoService recursoService;
+    private final CalendarioService calendarioService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventos;
+
+    /**
+     * Grava todas as agendas ou nenhuma. Devolve os IDs na ordem recebida.
+     */
+    public List<Long> salvarLote(List<Agenda> agendas) {
+        log.info("Salvando lote de {} agendamentos", agendas.size());
+
+        Map<Long, Dentista> dentistas = carregarDentistas(agendas);
+        validarPacientes(agendas);
+
+        LocalDateTime agora = LocalDateTime.now();
+        for (Agenda agenda : agendas) {
+            agenda.setDentista(dentistas.get(agenda.getDentista().getId()));
+            calendarioService.validarAgendamento(agenda);
+
+            if (agenda.getDataCriacao() == null) {
+                agenda.setDataCriacao(agora);
+            }
+            if (agenda.getStatus() == null) {
+                agenda.setStatus("AGENDADO");
+            }
+        }
+
+        // Checagem + gravação atômicas para todos os dentistas do lote
+        agendamentoLocks.bloquearDentistas(dentistas.keySet());
+
+        Map<Long, List<Agenda>> porDentista = agendas.stream()
+                .collect(Collectors.groupingBy(a -> a.getDentista().getId()));
+        porDentista.forEach(this::validarConflitos);
+
+        List<Long> ids = inserir(agendas);
+        recursoService.alocarTodos(agendas);
+
+        // Índices recarregam do banco no próximo acesso, já com o lote
+        Transacoes.aposCommit(() -> porDentista.keySet().forEach(intervalIndex::invalidar));
+        agendas.forEach(agenda -> eventos.publishEvent(AgendaEvento.de(AgendaEvento.Tipo.CRIADO, agenda)));
+
+        log.info("Lote gravado: {} agendamentos para {} dentista(s)", ids.size(), porDentista.size());
+        return ids;
+    }
+
+    // ============================================================
+    // MÉTODOS AUXILIARES
+    // ============================================================
+
+    private Map<Long, Dentista> carregarDentistas(List<Agenda> agendas) {
+        Set<Long> ids = agendas.stream()
+                .map(a -> a.getDentista().getId())
+                .collect(Collectors.toSet());
+
+        Map<Long, Dentista> dentistas = dentistaRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Dentista::getId, Function.identity()));
+        if (dentistas.size() != ids.size()) {
+            ids.removeAll(dentistas.keySet());
+            throw new BusinessException("Dentista(s) não encontrado(s): " + ids);
+        }
+        return dentistas;
+    }
+
+    private void validarPacientes(List<Agenda> agendas) {
+        Long[] ids = agendas.stream()
+                .filter(a -> a.getPaciente() != null)
+                .map(a -> a.getPaciente().getId())
+                .filter(Objects::nonNull)
+                .distinct()
+                .toArray(Long[]::new);
+        if (ids.length == 0) {
+            return;
+        }
+
+        Integer encontrados = jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("SELECT COUNT(*) FROM paciente WHERE id = ANY(?)");
+            ps.setArray(1, con.createArrayOf("bigint", ids));
+            return ps;
+        }, rs -> rs.next() ? rs.getInt(1) : 0);
+
+        if (encontrados == null || encontrados != ids.length) {
+            throw new BusinessException("Um ou mais pacientes informados não foram encontrados.");
+        }
+    }
+
+    /**
+     * Varre as agendas do lote e as já gravadas do dentista como duas listas
+     * ordenadas por horário: cada item só é comparado com o fim mais tardio
+     * visto até ali, então a passada é linear após a ordenação.
+     */
+    private void validarConflitos(Long dentistaId, List<Agenda> doDentista) {
+        List<Agenda> ordenadas = new ArrayList<>(doDentista);
+        ordenadas.sort(Comparator.comparing(Agenda::getHorario));
+
+        LocalDateTime primeiroInicio = ordenadas.get(0).getHorario();
+        LocalDateTime ultimoFim = ordenadas.stream()
+                .map(Agenda::getHorarioFim)
+                .max(Comparator.naturalOrder())
+                .orElseThrow();
+
+        // Agendas gravadas + ocorrências das séries recorrentes na mesma faixa, em ordem de início
+        List<AgendaIntervalIndex.Intervalo> existentes = new ArrayList<>(
+                recorrenciaService.ocorrenciasNaFaixa(dentistaId, primeiroInicio, ultimoFim));
+        repository.findHorariosNaFaixa(dentistaId, primeiroInicio.minusHours(JANELA_CONFLITO_HORAS), ultimoFim)
+                .forEach(v -> existentes.add(AgendaIntervalIndex.Intervalo.de(v.getId(), v.getHorario(), v.getTempoConsultaMinutos())));
+        existentes.sort(Comparator.comparing(AgendaIntervalIndex.Intervalo::inicio));
+
+        AgendaIntervalIndex.Intervalo anterior = null;
+        int proximoExistente = 0;
+        AgendaIntervalIndex.Intervalo existenteQueTerminaPorUltimo = null;
+
+        for (Agenda agenda : ordenadas) {
+            LocalDateTime inicio = agenda.getHorario();
+            LocalDateTime fim = agenda.getHorarioFim();
+
+            // Entre os próprios itens do lote
+            if (anterior != null && anterior.sobrepoe(inicio, fim)) {
+                throw new BusinessException(String.format(
+                        "Agendamentos do lote se sobrepõem para o dentista ID %d em %s.", dentistaId, inicio));
+            }
+
+            // Contra o que já está gravado: avança só até os que começam antes do fim deste item
+            while (proximoExistente < existentes.size() && existentes.get(proximoExistente).inicio().isBefore(fim)) {
+                AgendaIntervalIndex.Intervalo existente = existentes.get(proximoExistente++);
+                if (existenteQueTerminaPorUltimo == null || existente.fim().isAfter(existenteQueTerminaPorUltimo.fim())) {
+                    existenteQueTerminaPorUltimo = existente;
+                }
+                if (existente.sobrepoe(inicio, fim)) {
+                    throw conflitoComExistente(dentistaId, inicio);
+                }
+            }
+            if (existenteQueTerminaPorUltimo != null && existenteQueTerminaPorUltimo.sobrepoe(inicio, fim)) {
+                throw conflitoComExistente(dentistaId, inicio);
+            }
+
+            AgendaIntervalIndex.Intervalo atual = new AgendaIntervalIndex.Intervalo(null, inicio, fim);
+            if (anterior == null || atual.fim().isAfter(anterior.fim())) {
+                anterior = atual;
+            }
+        }
+
+        // Reservas temporárias da faixa, numa consulta só; costumam ser poucas
+        for (ReservaHorario reserva : reservaService.validasNaFaixa(dentistaId, primeiroInicio, ultimoFim)) {
+            for (Agenda agenda : ordenadas) {
+                if (!agenda.getHorario().isBefore(reserva.getFim())) {
+                    break;
+                }
+                if (agenda.getHorarioFim().isAfter(reserva.getInicio())) {
+                    throw new BusinessException(String.format(
+                            "O horário %s do dentista ID %d está reservado temporariamente por outro atendimento.",
+                            agenda.getHorario(), dentistaId));
+                }
+            }
+        }
+    }
+
+    private List<Long> inserir(List<Agenda> agendas) {
+        List<Long> ids = reservarIds(agendas.size());
+        for (int i = 0; i < agendas.size(); i++) {
+            agendas.get(i).setId(ids.get(i));
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_AGENDA, agendas, TAMANHO_LOTE, AgendaLoteService::preencher);
+        return ids;
+    }
+
+    /**
+     * IDs tirados da mesma sequence da entidade, em blocos de ALOCACAO_IDS:
+     * um nextval para cada 50 agendas, sem depender de chaves geradas no INSERT.
+     */
+    private List<Long> reservarIds(int quantidade) {
+        int blocos = (quantidade + ALOCACAO_IDS - 1) / ALOCACAO_IDS;
+        List<Long> ids = new ArrayList<>(quantidade);
+        for (Long inicioBloco : repository.reservarBlocosDeIds(blocos)) {
+            for (int i = 0; i < ALOCACAO_IDS && ids.size() < quantidade; i++) {
+                ids.add(inicioBloco + i);
+            }
+        }
+        return ids;
+    }
+
+    private static void preencher(PreparedStatement ps, Agenda agenda) throws SQLException {
+        ps.setLong(1, agenda.getId());
+        ps.setString(2, agenda.getDescricao());
+        ps.setTimestamp(3, Timestamp.valueOf(agenda.getHorario()));
+        ps.setTimestamp(4, Timestamp.valueOf(agenda.getDataCriacao()));
+        ps.setObject(5, agenda.getTempoConsultaMinutos(), Types.INTEGER);
+        ps.setObject(6, agenda.getPaciente() != null ? agenda.getPaciente().getId() : null, Types.BIGINT);
+        ps.setLong(7, agenda.getDentista().getId());
+        ps.setString(8, agenda.getStatus());
+        ps.setString(9, agenda.getObservacoes());
+        ps.setString(10, agenda.getProcedimento());
+    }
+
+    private static BusinessException conflitoComExistente(Long dentistaId, LocalDateTime inicio) {
+        return new BusinessException(String.format(
+                "Já existe um agendamento para o dentista ID %d que conflita com %s.", dentistaId, inicio));
+    }
+}
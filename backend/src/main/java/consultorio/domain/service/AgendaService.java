@@ -1,14 +1,19 @@
 package consultorio.consultorio.domain.service;
 
 import consultorio.consultorio.domain.entity.Agenda;
+import consultorio.consultorio.domain.entity.ReservaHorario;
+import consultorio.consultorio.domain.event.AgendaEvento;
 import consultorio.consultorio.domain.exception.BusinessException;
 import consultorio.consultorio.domain.repository.AgendaRepository;
 import consultorio.consultorio.utils.Calendario;
+import consultorio.consultorio.utils.Transacoes;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -18,25 +23,52 @@ import java.util.List;
 @RequiredArgsConstructor
 public class AgendaService {
 
+    // Nenhuma consulta passa de um dia; limita a faixa lida quando a checagem vai ao banco
+    private static final long JANELA_CONFLITO_HORAS = 24;
+
     private final AgendaRepository repository;
+    private final AgendaIntervalIndex intervalIndex;
+    private final AgendamentoLocks agendamentoLocks;
+    private final RecorrenciaService recorrenciaService;
+    private final ReservaHorarioService reservaService;
+    private final RecursoService recursoService;
+    private final CalendarioService calendarioService;
+    private final ApplicationEventPublisher eventos;
 
     public Agenda salvar(Agenda agenda) {
+        return salvar(agenda, null);
+    }
+
+    /**
+     * @param reservaId token de uma reserva do próprio horário (ver reservarHorario);
+     *                  precisa ser do mesmo dentista e cobrir [horario, fim) inteiro.
+     *                  Ela deixa de bloquear quem a apresenta e é liberada ao gravar
+     */
+    public Agenda salvar(Agenda agenda, String reservaId) {
         log.info("Salvando agendamento para dentista ID: {}", agenda.getDentista().getId());
 
-        // Validação das regras de negócio do Calendario
-        Calendario.validarAgendamento(agenda);
+        // Duração, expediente e bloqueios do dentista
+        calendarioService.validarAgendamento(agenda);
+
+        // Checagem + gravação atômicas por dentista (vale também entre vários nós)
+        Long dentistaId = agenda.getDentista().getId();
+        agendamentoLocks.bloquearDentista(dentistaId);
+
+        LocalDateTime inicio = agenda.getHorario();
+        LocalDateTime fim = agenda.getHorarioFim();
+        ReservaHorario reserva = reservaId != null ? reservaService.buscarValidaOuFalhar(reservaId) : null;
+        if (reserva != null && (!reserva.getDentistaId().equals(dentistaId)
+                || reserva.getInicio().isAfter(inicio) || reserva.getFim().isBefore(fim))) {
+            throw new BusinessException("A reserva informada não cobre este horário para o dentista selecionado.");
+        }
 
         // Valida conflito de horário considerando a duração da consulta
-        LocalDateTime horarioFim = agenda.getHorarioFim();
-        boolean conflito = !repository.findByDentistaIdAndHorarioBetween(
-                agenda.getDentista().getId(),
-                agenda.getHorario(),
-                horarioFim.minusSeconds(1) // Evita conflito no exato momento do fim
-        ).isEmpty();
-
-        if (conflito) {
+        if (temConflitoGravado(dentistaId, inicio, fim)) {
             throw new BusinessException("Já existe um agendamento neste horário para o dentista selecionado.");
         }
+        if (reservaService.temConflitoNoBanco(dentistaId, inicio, fim, reserva != null ? reserva.getId() : null)) {
+            throw new BusinessException("Este horário está reservado temporariamente por outro atendimento.");
+        }
 
         // Define valores padrão
         if (agenda.getDataCriacao() == null) {
@@ -46,34 +78,122 @@ public class AgendaService {
             agenda.setStatus("AGENDADO");
         }
 
-        return repository.save(agenda);
+        Agenda salvo = repository.save(agenda);
+        // Cadeira/sala/equipamento exigidos pelo procedimento: sem recurso livre, nada é gravado
+        recursoService.alocar(salvo);
+        if (reserva != null) {
+            reservaService.liberar(reserva.getId());
+        }
+        // O índice só reflete o que de fato foi gravado
+        Transacoes.aposCommit(() -> intervalIndex.registrar(salvo));
+        eventos.publishEvent(AgendaEvento.de(AgendaEvento.Tipo.CRIADO, salvo));
+        return salvo;
     }
 
     public List<Agenda> listarTodos() {
-        return repository.findAll();
+        return repository.findAllComDentistaEPaciente();
     }
 
     public List<Agenda> listarPorDentista(Long dentistaId) {
         return repository.findByDentistaId(dentistaId);
     }
 
+    public List<Agenda> listarDoDia(Long dentistaId, LocalDate dia) {
+        return repository.findDoDentistaNaFaixa(dentistaId, dia.atStartOfDay(), dia.plusDays(1).atStartOfDay());
+    }
+
+    public List<Agenda> listarPorPeriodo(LocalDateTime inicio, LocalDateTime fim) {
+        if (fim.isBefore(inicio)) {
+            throw new BusinessException("O fim do período deve ser posterior ao início.");
+        }
+        return repository.findByPeriodo(inicio, fim);
+    }
+
     public Agenda buscarPorIdOuFalhar(Long id) {
         return repository.findById(id)
                 .orElseThrow(() -> new BusinessException("Agendamento não encontrado com ID: " + id));
     }
 
     public void deletar(Long id) {
-        if (!repository.existsById(id)) {
-            throw new BusinessException("Agendamento não encontrado com ID: " + id);
-        }
-        repository.deleteById(id);
+        Agenda agenda = buscarPorIdOuFalhar(id);
+        Long dentistaId = agenda.getDentista().getId();
+
+        repository.delete(agenda);
+        Transacoes.aposCommit(() -> intervalIndex.remover(dentistaId, id));
+        eventos.publishEvent(AgendaEvento.de(AgendaEvento.Tipo.REMOVIDO, agenda));
     }
 
     // Método adicional para verificar disponibilidade
     public boolean verificarDisponibilidade(Long dentistaId, LocalDateTime horario, Integer tempoConsultaMinutos) {
-        LocalDateTime horarioFim = horario.plusMinutes(tempoConsultaMinutos);
-        return repository.findByDentistaIdAndHorarioBetween(
-                dentistaId, horario, horarioFim.minusSeconds(1)
-        ).isEmpty();
+        return verificarDisponibilidade(dentistaId, horario, tempoConsultaMinutos, null);
+    }
+
+    /**
+     * Responde pela memória: índice de intervalos (agendas e ocorrências das
+     * séries) e cópia das reservas temporárias. O que outro nó gravou há pouco
+     * pode ainda não aparecer; quem grava confere de novo no banco.
+     *
+     * @param procedimento quando informado, os recursos que ele exige também precisam estar livres
+     */
+    public boolean verificarDisponibilidade(Long dentistaId, LocalDateTime horario, Integer tempoConsultaMinutos,
+                                            String procedimento) {
+        LocalDateTime fim = horario.plusMinutes(tempoConsultaMinutos);
+        return calendarioService.atende(dentistaId, horario, tempoConsultaMinutos)
+                && !temConflitoEmMemoria(dentistaId, horario, fim)
+                && !reservaService.temConflito(dentistaId, horario, fim, null)
+                && recursoService.recursosLivres(procedimento, horario, fim);
+    }
+
+    /**
+     * Segura o horário por alguns minutos (agenda.reserva.validade-segundos)
+     * enquanto o atendimento é concluído; quem marcar com o token recebido
+     * passa pela reserva, os demais encontram o horário ocupado.
+     */
+    public ReservaHorario reservarHorario(Long dentistaId, LocalDateTime horario, Integer tempoConsultaMinutos) {
+        if (tempoConsultaMinutos <= 0 || tempoConsultaMinutos > Calendario.DURACAO_MAXIMA_MINUTOS) {
+            throw new BusinessException("Tempo de consulta deve estar entre 1 e " + Calendario.DURACAO_MAXIMA_MINUTOS + " minutos.");
+        }
+        if (!horario.isAfter(LocalDateTime.now())) {
+            throw new BusinessException("Só é possível reservar horários futuros.");
+        }
+
+        // Mesmo lock da marcação: reserva e marcação não passam juntas pelo mesmo horário
+        agendamentoLocks.bloquearDentista(dentistaId);
+        LocalDateTime fim = horario.plusMinutes(tempoConsultaMinutos);
+        // Sob o lock, o "livre" da memória é confirmado no banco
+        if (!verificarDisponibilidade(dentistaId, horario, tempoConsultaMinutos)
+                || temConflitoGravado(dentistaId, horario, fim)
+                || reservaService.temConflitoNoBanco(dentistaId, horario, fim, null)) {
+            throw new BusinessException("Horário indisponível para o dentista selecionado.");
+        }
+        return reservaService.reservar(dentistaId, horario, fim);
+    }
+
+    // ============================================================
+    // MÉTODOS AUXILIARES
+    // ============================================================
+
+    /**
+     * Leitura: só o índice, que já inclui as ocorrências das séries.
+     * Horários antigos demais ficam fora dele e vão ao banco.
+     */
+    private boolean temConflitoEmMemoria(Long dentistaId, LocalDateTime inicio, LocalDateTime fim) {
+        if (!intervalIndex.cobre(dentistaId, inicio)) {
+            return temConflitoGravado(dentistaId, inicio, fim);
+        }
+        return intervalIndex.temConflito(dentistaId, inicio, fim);
+    }
+
+    /**
+     * Escrita, com o lock do dentista: o índice só adianta a recusa; um "livre"
+     * dele é conferido no banco, que vê também o que outros nós gravaram
+     * (agendas avulsas e ocorrências das séries recorrentes).
+     */
+    private boolean temConflitoGravado(Long dentistaId, LocalDateTime inicio, LocalDateTime fim) {
+        if (intervalIndex.cobre(dentistaId, inicio) && intervalIndex.temConflito(dentistaId, inicio, fim)) {
+            return true;
+        }
+        return repository.existsConflito(dentistaId, inicio, fim, inicio.minusHours(JANELA_CONFLITO_HORAS))
+                || recorrenciaService.temConflito(dentistaId, inicio, fim);
     }
-}
\ No newline at end of file
+}
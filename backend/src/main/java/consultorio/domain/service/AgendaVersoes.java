@@ -0,0 +1,105 @@
+package consultorio.consultorio.domain.service;
+
+import consultorio.consultorio.domain.event.AgendaEvento;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Versão da agenda de cada dentista (tabela agenda_versao), incrementada na
+ * mesma transação que altera a agenda.
+ *
+ * Um lote com centenas de agendas do mesmo dentista sobe a versão uma vez só:
+ * os dentistas alterados são acumulados na transação e gravados no
+ * beforeCommit, em ordem de ID para que transações concorrentes travem as
+ * linhas sempre na mesma sequência.
+ *
+ * O feed .ics mostra nomes de pacientes e do dentista; a versão também sobe
+ * quando eles mudam (DentistaService, PacienteService), para a ETag não
+ * segurar nomes antigos.
+ */
+@Component
+@RequiredArgsConstructor
+public class AgendaVersoes {
+
+    private static final String UPSERT = "INSERT INTO agenda_versao (dentista_id, versao, atualizado_em) VALUES (?, 1, ?) " +
+            "ON CONFLICT (dentista_id) DO UPDATE SET versao = agenda_versao.versao + 1, atualizado_em = EXCLUDED.atualizado_em";
+
+    private static final String DENTISTAS_DO_PACIENTE = "SELECT dentista_id FROM agenda WHERE paciente_id = ? " +
+            "UNION SELECT dentista_id FROM recorrencia_agenda WHERE paciente_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Síncrono de propósito: roda dentro da transação que publicou o evento.
+     */
+    @EventListener
+    public void aoAlterarAgenda(AgendaEvento evento) {
+        marcarAlterada(evento.dentistaId());
+    }
+
+    public void marcarAlterada(Long dentistaId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            gravar(Set.of(dentistaId));
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        Set<Long> pendentes = (Set<Long>) TransactionSynchronizationManager.getResource(this);
+        if (pendentes == null) {
+            Set<Long> novos = new TreeSet<>();
+            TransactionSynchronizationManager.bindResource(this, novos);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    gravar(novos);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(AgendaVersoes.this);
+                }
+            });
+            pendentes = novos;
+        }
+        pendentes.add(dentistaId);
+    }
+
+    /**
+     * Sobe a versão de todo dentista com agenda ou série do paciente,
+     * cujo nome aparece no feed desses dentistas.
+     */
+    public void marcarAlteradasDoPaciente(Long pacienteId) {
+        jdbcTemplate.queryForList(DENTISTAS_DO_PACIENTE, Long.class, pacienteId, pacienteId)
+                .forEach(this::marcarAlterada);
+    }
+
+    /**
+     * Versão atual da agenda do dentista; 0 se ela nunca foi alterada.
+     */
+    public long versao(Long dentistaId) {
+        List<Long> versoes = jdbcTemplate.queryForList(
+                "SELECT versao FROM agenda_versao WHERE dentista_id = ?", Long.class, dentistaId);
+        return versoes.isEmpty() ? 0 : versoes.get(0);
+    }
+
+    private void gravar(Set<Long> dentistaIds) {
+        if (dentistaIds.isEmpty()) {
+            return;
+        }
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> linhas = new ArrayList<>(dentistaIds.size());
+        new TreeSet<>(dentistaIds).forEach(id -> linhas.add(new Object[]{id, agora}));
+        jdbcTemplate.batchUpdate(UPSERT, linhas);
+    }
+}
@@ -0,0 +1,89 @@
+package consultorio.consultorio.domain.service;
+
+import consultorio.consultorio.domain.repository.AgendaRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serializa as marcações de um mesmo dentista até o fim da transação.
+ *
+ * 1. Lock listrado em memória: requisições concorrentes deste nó para o mesmo
+ *    dentista esperam aqui, sem ocupar conexões do pool esperando no banco.
+ * 2. pg_advisory_xact_lock: garante a mesma exclusão entre vários nós;
+ *    o PostgreSQL libera o lock sozinho no commit/rollback.
+ *
+ * A restrição de exclusão de db/migracao/agenda_sem_sobreposicao.sql fica
+ * por baixo, como última barreira para agendas avulsas gravadas por fora
+ * deste caminho.
+ *
+ * Deve ser chamado dentro de uma transação. Para vários dentistas na mesma
+ * transação use bloquearDentistas: dois dentistas podem cair na mesma listra,
+ * então a ordem segura é a das listras, não a dos IDs.
+ */
+@Component
+@RequiredArgsConstructor
+public class AgendamentoLocks {
+
+    // Potência de 2: o índice da listra sai de uma máscara sobre o hash
+    private static final int LISTRAS = 64;
+
+    private final AgendaRepository repository;
+
+    private final ReentrantLock[] listras = criarListras();
+
+    public void bloquearDentista(Long dentistaId) {
+        bloquearDentistas(List.of(dentistaId));
+    }
+
+    /**
+     * Bloqueia vários dentistas de uma vez. Todas as listras são tomadas antes
+     * dos advisory locks, cada grupo numa ordem fixa (listra; depois ID),
+     * de modo que duas transações nunca esperam uma pela outra em ciclo.
+     */
+    public void bloquearDentistas(Collection<Long> dentistaIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Bloqueio de agenda exige uma transação ativa");
+        }
+
+        List<Long> ids = dentistaIds.stream().distinct().sorted().toList();
+
+        ids.stream()
+                .map(AgendamentoLocks::listra)
+                .distinct()
+                .sorted()
+                .forEach(this::bloquearListra);
+
+        ids.forEach(repository::bloquearAgendaDoDentista);
+    }
+
+    private void bloquearListra(int indice) {
+        ReentrantLock lock = listras[indice];
+        lock.lock();
+        // Liberado só depois do commit/rollback, quando o índice em memória já foi atualizado
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+    }
+
+    private static int listra(Long dentistaId) {
+        int hash = Long.hashCode(dentistaId);
+        return (hash ^ (hash >>> 16)) & (LISTRAS - 1);
+    }
+
+    private static ReentrantLock[] criarListras() {
+        ReentrantLock[] locks = new ReentrantLock[LISTRAS];
+        for (int i = 0; i < LISTRAS; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+}
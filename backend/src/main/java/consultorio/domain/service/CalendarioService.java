@@ -0,0 +1,364 @@
+package consultorio.consultorio.domain.service;
+
+import consultorio.consultorio.domain.entity.Agenda;
+import consultorio.consultorio.domain.entity.BloqueioAgenda;
+import consultorio.consultorio.domain.entity.Dentista;
+import consultorio.consultorio.domain.entity.ExpedienteDentista;
+import consultorio.consultorio.domain.exception.BusinessException;
+import consultorio.consultorio.domain.repository.BloqueioAgendaRepository;
+import consultorio.consultorio.domain.repository.DentistaRepository;
+import consultorio.consultorio.domain.repository.ExpedienteDentistaRepository;
+import consultorio.consultorio.utils.Calendario;
+import consultorio.consultorio.utils.Transacoes;
+import jakarta.annotation.PostConstruct;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Expediente semanal e bloqueios (feriados, férias, ausências) de cada dentista,
+ * compilados em grades de bits (OcupacaoDiaria) por dia.
+ *
+ * As regras de um dentista são lidas uma vez e mantidas compiladas: a semana
+ * vira 7 grades e os bloqueios futuros ficam em memória. A grade final de cada
+ * (dentista, dia) é guardada num LRU; validar um horário é testar bits.
+ * Qualquer alteração de regra descarta o que foi compilado, após o commit.
+ */
+@Slf4j
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class CalendarioService {
+
+    private static final int MAXIMO_DIAS_EM_CACHE = 5000;
+
+    // Bloqueios anteriores a isto não são carregados (a validação não olha o passado)
+    private static final long DIAS_RETROATIVOS = 1;
+
+    private static final Locale PT_BR = Locale.forLanguageTag("pt-BR");
+
+    private final ExpedienteDentistaRepository expedienteRepository;
+    private final BloqueioAgendaRepository bloqueioRepository;
+    private final DentistaRepository dentistaRepository;
+
+    // Expediente usado quando nem o dentista nem a clínica cadastraram o seu
+    @Value("${agenda.expediente.inicio:08:00}")
+    private LocalTime inicioExpediente;
+
+    @Value("${agenda.expediente.fim:18:00}")
+    private LocalTime fimExpediente;
+
+    @Value("${agenda.expediente.almoco-inicio:12:00}")
+    private LocalTime inicioAlmoco;
+
+    @Value("${agenda.expediente.almoco-fim:13:00}")
+    private LocalTime fimAlmoco;
+
+    @Value("${agenda.expediente.sabado-fim:12:00}")
+    private LocalTime fimSabado;
+
+    private Map<DayOfWeek, OcupacaoDiaria> semanaConfigurada;
+
+    private final Map<Long, RegrasCompiladas> regrasPorDentista = new ConcurrentHashMap<>();
+
+    private final Map<ChaveDia, OcupacaoDiaria> dias = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ChaveDia, OcupacaoDiaria> maisAntiga) {
+            return size() > MAXIMO_DIAS_EM_CACHE;
+        }
+    };
+
+    // Compilações que cruzaram uma alteração de regra não são guardadas
+    private final AtomicLong versaoRegras = new AtomicLong();
+
+    @PostConstruct
+    void iniciar() {
+        semanaConfigurada = new EnumMap<>(DayOfWeek.class);
+        for (DayOfWeek dia : DayOfWeek.values()) {
+            OcupacaoDiaria grade = OcupacaoDiaria.fechado();
+            if (dia == DayOfWeek.SATURDAY) {
+                grade.liberar(minutos(inicioExpediente), minutos(fimSabado));
+            } else if (dia != DayOfWeek.SUNDAY) {
+                grade.liberar(minutos(inicioExpediente), minutos(fimExpediente))
+                        .ocupar(minutos(inicioAlmoco), minutos(fimAlmoco));
+            }
+            semanaConfigurada.put(dia, grade);
+        }
+    }
+
+    // ============================================================
+    // CONSULTAS
+    // ============================================================
+
+    /**
+     * Grade do dia com bit ligado onde o dentista atende (expediente menos bloqueios).
+     * Devolve uma cópia, livre para ser combinada com a ocupação da agenda.
+     */
+    public OcupacaoDiaria expediente(Long dentistaId, LocalDate dia) {
+        ChaveDia chave = new ChaveDia(dentistaId, dia);
+        synchronized (dias) {
+            OcupacaoDiaria grade = dias.get(chave);
+            if (grade != null) {
+                return grade.copia();
+            }
+        }
+
+        long versao = versaoRegras.get();
+        OcupacaoDiaria grade = compilar(regras(dentistaId), dia);
+
+        synchronized (dias) {
+            if (versaoRegras.get() == versao) {
+                dias.put(chave, grade);
+            }
+        }
+        return grade.copia();
+    }
+
+    /**
+     * Regras básicas (Calendario) mais expediente e bloqueios do dentista.
+     * Os serviços chamam antes de gravar; a entidade só confere as regras básicas.
+     */
+    public void validarAgendamento(Agenda agenda) {
+        Calendario.validarAgendamento(agenda);
+
+        // Horários já passados não são revalidados contra o expediente atual
+        // (ex.: mudar o status de uma consulta antiga depois de alterar a grade).
+        // Registros sem duração (a agenda inicial criada com o dentista) não ocupam horário.
+        Integer minutos = agenda.getTempoConsultaMinutos();
+        if (minutos == null || agenda.getHorario().isBefore(LocalDateTime.now())) {
+            return;
+        }
+        if (!atende(agenda.getDentista().getId(), agenda.getHorario(), minutos)) {
+            throw new BusinessException("Horário fora do expediente do dentista ou em período bloqueado.");
+        }
+    }
+
+    /** O dentista atende de inicio até inicio + minutos, sem virar o dia? */
+    public boolean atende(Long dentistaId, LocalDateTime inicio, int minutos) {
+        int de = minutos(inicio.toLocalTime());
+        int ate = de + Math.max(minutos, 1);
+        if (ate > 24 * 60) {
+            return false;
+        }
+        int primeiroSlot = de / OcupacaoDiaria.MINUTOS_POR_SLOT;
+        int ultimoSlot = (ate + OcupacaoDiaria.MINUTOS_POR_SLOT - 1) / OcupacaoDiaria.MINUTOS_POR_SLOT;
+        return expediente(dentistaId, inicio.toLocalDate()).livre(primeiroSlot, ultimoSlot);
+    }
+
+    /** Expediente padrão da clínica por dia da semana, como texto (ex.: "8h-12h e 13h-18h"). */
+    public Map<String, String> horariosFuncionamento() {
+        Map<DayOfWeek, OcupacaoDiaria> semana = compilarSemana(expedienteRepository.findByDentistaIsNullOrderByDiaSemanaAscInicioAsc());
+        Map<String, String> horarios = new LinkedHashMap<>();
+        for (DayOfWeek dia : DayOfWeek.values()) {
+            String nome = dia.getDisplayName(TextStyle.FULL, PT_BR);
+            horarios.put(Character.toUpperCase(nome.charAt(0)) + nome.substring(1), descrever(semana.get(dia)));
+        }
+        return horarios;
+    }
+
+    public List<ExpedienteDentista> listarExpediente(Long dentistaId) {
+        return dentistaId == null
+                ? expedienteRepository.findByDentistaIsNullOrderByDiaSemanaAscInicioAsc()
+                : expedienteRepository.findByDentistaIdOrderByDiaSemanaAscInicioAsc(dentistaId);
+    }
+
+    public List<BloqueioAgenda> listarBloqueios(LocalDateTime inicio, LocalDateTime fim) {
+        return bloqueioRepository.findNoPeriodo(inicio, fim);
+    }
+
+    // ============================================================
+    // ALTERAÇÃO DAS REGRAS
+    // ============================================================
+
+    /**
+     * Substitui o expediente semanal do dentista (ou o padrão da clínica, com dentistaId nulo).
+     */
+    public List<ExpedienteDentista> definirExpediente(Long dentistaId, List<ExpedienteDentista> faixas) {
+        validarFaixas(faixas);
+
+        Dentista dentista = null;
+        if (dentistaId != null) {
+            if (!dentistaRepository.existsById(dentistaId)) {
+                throw new BusinessException("Dentista não encontrado com ID: " + dentistaId);
+            }
+            dentista = dentistaRepository.getReferenceById(dentistaId);
+            expedienteRepository.deleteByDentistaId(dentistaId);
+        } else {
+            expedienteRepository.deletePadraoDaClinica();
+        }
+
+        Dentista dono = dentista;
+        faixas.forEach(faixa -> {
+            faixa.setId(null);
+            faixa.setDentista(dono);
+        });
+        List<ExpedienteDentista> salvas = expedienteRepository.saveAll(faixas);
+
+        log.info("Expediente {} atualizado: {} faixa(s)", dentistaId != null ? "do dentista " + dentistaId : "da clínica", salvas.size());
+        Transacoes.aposCommit(() -> invalidar(dentistaId));
+        return salvas;
+    }
+
+    public BloqueioAgenda adicionarBloqueio(BloqueioAgenda bloqueio) {
+        if (bloqueio.getInicio() == null || bloqueio.getFim() == null || !bloqueio.getFim().isAfter(bloqueio.getInicio())) {
+            throw new BusinessException("O fim do bloqueio deve ser posterior ao início.");
+        }
+        Long dentistaId = bloqueio.getDentista() != null ? bloqueio.getDentista().getId() : null;
+        if (dentistaId != null) {
+            if (!dentistaRepository.existsById(dentistaId)) {
+                throw new BusinessException("Dentista não encontrado com ID: " + dentistaId);
+            }
+            bloqueio.setDentista(dentistaRepository.getReferenceById(dentistaId));
+        }
+
+        BloqueioAgenda salvo = bloqueioRepository.save(bloqueio);
+        Transacoes.aposCommit(() -> invalidar(dentistaId));
+        return salvo;
+    }
+
+    public void removerBloqueio(Long id) {
+        BloqueioAgenda bloqueio = bloqueioRepository.findById(id)
+                .orElseThrow(() -> new BusinessException("Bloqueio não encontrado com ID: " + id));
+        Long dentistaId = bloqueio.getDentista() != null ? bloqueio.getDentista().getId() : null;
+
+        bloqueioRepository.delete(bloqueio);
+        Transacoes.aposCommit(() -> invalidar(dentistaId));
+    }
+
+    /** Descarta o que foi compilado do dentista; nulo = regra da clínica, descarta tudo. */
+    public void invalidar(Long dentistaId) {
+        synchronized (dias) {
+            versaoRegras.incrementAndGet();
+            if (dentistaId == null) {
+                regrasPorDentista.clear();
+                dias.clear();
+            } else {
+                regrasPorDentista.remove(dentistaId);
+                dias.keySet().removeIf(chave -> chave.dentistaId().equals(dentistaId));
+            }
+        }
+    }
+
+    // ============================================================
+    // COMPILAÇÃO
+    // ============================================================
+
+    private RegrasCompiladas regras(Long dentistaId) {
+        return regrasPorDentista.computeIfAbsent(dentistaId, id -> {
+            List<ExpedienteDentista> faixas = expedienteRepository.findByDentistaIdOrderByDiaSemanaAscInicioAsc(id);
+            if (faixas.isEmpty()) {
+                faixas = expedienteRepository.findByDentistaIsNullOrderByDiaSemanaAscInicioAsc();
+            }
+
+            LocalDateTime desde = LocalDate.now().minusDays(DIAS_RETROATIVOS).atStartOfDay();
+            List<Periodo> bloqueios = bloqueioRepository.findQueAfetamAPartirDe(id, desde).stream()
+                    .map(b -> new Periodo(b.getInicio(), b.getFim()))
+                    .toList();
+
+            log.debug("Regras de calendário compiladas para dentista ID: {} ({} faixas, {} bloqueios)",
+                    id, faixas.size(), bloqueios.size());
+            return new RegrasCompiladas(compilarSemana(faixas), bloqueios);
+        });
+    }
+
+    private Map<DayOfWeek, OcupacaoDiaria> compilarSemana(List<ExpedienteDentista> faixas) {
+        if (faixas.isEmpty()) {
+            return semanaConfigurada;
+        }
+        Map<DayOfWeek, OcupacaoDiaria> semana = new EnumMap<>(DayOfWeek.class);
+        for (DayOfWeek dia : DayOfWeek.values()) {
+            semana.put(dia, OcupacaoDiaria.fechado());
+        }
+        faixas.forEach(f -> semana.get(f.getDiaSemana()).liberar(minutos(f.getInicio()), minutos(f.getFim())));
+        return semana;
+    }
+
+    private static OcupacaoDiaria compilar(RegrasCompiladas regras, LocalDate dia) {
+        OcupacaoDiaria grade = regras.semana().get(dia.getDayOfWeek()).copia();
+
+        LocalDateTime inicioDia = dia.atStartOfDay();
+        LocalDateTime fimDia = inicioDia.plusDays(1);
+        for (Periodo bloqueio : regras.bloqueios()) {
+            if (bloqueio.inicio().isBefore(fimDia) && bloqueio.fim().isAfter(inicioDia)) {
+                int de = bloqueio.inicio().isAfter(inicioDia) ? minutos(bloqueio.inicio().toLocalTime()) : 0;
+                int ate = bloqueio.fim().isBefore(fimDia) ? minutos(bloqueio.fim().toLocalTime()) : 24 * 60;
+                grade.ocupar(de, ate);
+            }
+        }
+        return grade;
+    }
+
+    private void validarFaixas(List<ExpedienteDentista> faixas) {
+        Map<DayOfWeek, List<ExpedienteDentista>> porDia = faixas.stream()
+                .collect(Collectors.groupingBy(ExpedienteDentista::getDiaSemana));
+
+        for (List<ExpedienteDentista> doDia : porDia.values()) {
+            List<ExpedienteDentista> ordenadas = new ArrayList<>(doDia);
+            ordenadas.sort(Comparator.comparing(ExpedienteDentista::getInicio));
+            for (int i = 0; i < ordenadas.size(); i++) {
+                ExpedienteDentista faixa = ordenadas.get(i);
+                if (!faixa.getFim().isAfter(faixa.getInicio())) {
+                    throw new BusinessException("Faixa de expediente inválida em " + faixa.getDiaSemana() + ": fim deve ser posterior ao início.");
+                }
+                if (i > 0 && ordenadas.get(i - 1).getFim().isAfter(faixa.getInicio())) {
+                    throw new BusinessException("Faixas de expediente sobrepostas em " + faixa.getDiaSemana() + ".");
+                }
+            }
+        }
+    }
+
+    /** Converte a grade de volta em faixas legíveis: "8h-12h e 13h-18h". */
+    private static String descrever(OcupacaoDiaria grade) {
+        List<String> faixas = new ArrayList<>();
+        int slot = grade.proximoLivre(0);
+        while (slot >= 0) {
+            int fim = slot;
+            while (fim < OcupacaoDiaria.SLOTS_POR_DIA && grade.livre(fim, fim + 1)) {
+                fim++;
+            }
+            faixas.add(hora(OcupacaoDiaria.horario(slot)) + "-" + hora(fim == OcupacaoDiaria.SLOTS_POR_DIA ? LocalTime.MAX : OcupacaoDiaria.horario(fim)));
+            slot = grade.proximoLivre(fim);
+        }
+        return faixas.isEmpty() ? "Fechado" : String.join(" e ", faixas);
+    }
+
+    private static String hora(LocalTime horario) {
+        if (horario.equals(LocalTime.MAX)) {
+            return "24h";
+        }
+        return horario.getMinute() == 0
+                ? horario.getHour() + "h"
+                : String.format("%dh%02d", horario.getHour(), horario.getMinute());
+    }
+
+    private static int minutos(LocalTime horario) {
+        return horario.getHour() * 60 + horario.getMinute();
+    }
+
+    private record ChaveDia(Long dentistaId, LocalDate dia) {
+    }
+
+    private record Periodo(LocalDateTime inicio, LocalDateTime fim) {
+    }
+
+    private record RegrasCompiladas(Map<DayOfWeek, OcupacaoDiaria> semana, List<Periodo> bloqueios) {
+    }
+}
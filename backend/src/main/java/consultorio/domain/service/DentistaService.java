@@ -18,11 +18,18 @@ import java.util.Optional;
 public class DentistaService {
 
     private final DentistaRepository dentistaRepository;
+    private final AgendaService agendaService;
+    private final AgendaVersoes agendaVersoes;
 
     @Transactional
     public Dentista salvar(Dentista dentista) {
         log.info("Salvando dentista: {}", dentista.getNome());
+        boolean existente = dentista.getId() != null;
         Dentista dentistaSalvo = dentistaRepository.save(dentista);
+        if (existente) {
+            // O nome do dentista vai no cabeçalho do feed .ics
+            agendaVersoes.marcarAlterada(dentistaSalvo.getId());
+        }
         log.info("Dentista salvo com ID: {} e agenda criada automaticamente", dentistaSalvo.getId());
         return dentistaSalvo;
     }
@@ -46,30 +53,26 @@ public class DentistaService {
         log.info("Dentista ID {} excluído com sucesso junto com todas as agendas", id);
     }
 
-    // Método para agendar horário na agenda do dentista
+    // Método para agendar horário na agenda do dentista.
+    // Não carrega a coleção Dentista.agendas: a checagem de conflito usa o índice por
+    // dentista/horário e a nova agenda é inserida diretamente pelo AgendaService.
     @Transactional
-    public void agendarHorario(Long dentistaId, LocalDateTime horario, String descricao, Long pacienteId) {
-        Dentista dentista = dentistaRepository.findById(dentistaId)
-                .orElseThrow(() -> new RuntimeException("Dentista não encontrado"));
-
-        // Verifica se já existe agendamento nesse horário
-        boolean horarioOcupado = dentista.getAgendas().stream()
-                .anyMatch(agenda -> agenda.getHorario().equals(horario));
-
-        if (horarioOcupado) {
-            throw new RuntimeException("Horário já ocupado para este dentista");
+    public Agenda agendarHorario(Long dentistaId, LocalDateTime horario, Integer tempoConsultaMinutos,
+                                 String descricao, Long pacienteId) {
+        if (!dentistaRepository.existsById(dentistaId)) {
+            throw new RuntimeException("Dentista não encontrado");
         }
 
-        // Cria novo agendamento
+        // Cria novo agendamento apontando para o dentista sem buscá-lo
         Agenda novoAgendamento = Agenda.builder()
                 .descricao(descricao)
                 .horario(horario)
-                .dentista(dentista)
+                .tempoConsultaMinutos(tempoConsultaMinutos)
+                .dentista(dentistaRepository.getReferenceById(dentistaId))
                 .status("AGENDADO")
                 .observacoes("Agendamento realizado via sistema")
                 .build();
 
-        dentista.adicionarAgenda(novoAgendamento);
-        dentistaRepository.save(dentista);
+        return agendaService.salvar(novoAgendamento);
     }
 }
\ No newline at end of file
@@ -0,0 +1,130 @@
+package consultorio.consultorio.domain.service;
+
+import consultorio.consultorio.domain.entity.Dentista;
+import consultorio.consultorio.domain.entity.Recurso;
+import consultorio.consultorio.domain.entity.ReservaHorario;
+import consultorio.consultorio.domain.exception.BusinessException;
+import consultorio.consultorio.domain.repository.DentistaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Busca de horários livres: parte, por dentista e por dia, da grade de bits do
+ * expediente já compilada pelo CalendarioService (com feriados e ausências)
+ * e "apaga" as fatias já ocupadas (lidas do AgendaIntervalIndex) e as seguradas
+ * por reservas temporárias (cópia em memória do ReservaHorarioService).
+ * Os inícios possíveis para a duração pedida saem de operações bit a bit.
+ * Com procedimento, a grade de inícios dos recursos exigidos (RecursoService)
+ * entra na mesma interseção.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HorarioLivreService {
+
+    // Até quantos dias à frente procurar antes de desistir
+    private static final int HORIZONTE_DIAS = 60;
+
+    private final AgendaIntervalIndex intervalIndex;
+    private final CalendarioService calendarioService;
+    private final DentistaRepository dentistaRepository;
+    private final RecursoService recursoService;
+    private final ReservaHorarioService reservaService;
+
+    public List<HorarioLivre> buscarProximosHorarios(List<Long> dentistaIds, LocalDateTime aPartirDe,
+                                                     int tempoConsultaMinutos, int quantidade) {
+        return buscarProximosHorarios(dentistaIds, aPartirDe, tempoConsultaMinutos, quantidade, null);
+    }
+
+    /**
+     * Próximos horários livres com a duração pedida, entre um ou vários dentistas,
+     * em ordem cronológica. Para cada dentista os horários devolvidos não se sobrepõem.
+     * Com procedimento, só entram horários em que os recursos exigidos também estão livres.
+     */
+    public List<HorarioLivre> buscarProximosHorarios(List<Long> dentistaIds, LocalDateTime aPartirDe,
+                                                     int tempoConsultaMinutos, int quantidade, String procedimento) {
+        List<Dentista> dentistas = dentistaRepository.findAllById(dentistaIds);
+        if (dentistas.size() != dentistaIds.stream().distinct().count()) {
+            throw new BusinessException("Um ou mais dentistas informados não foram encontrados.");
+        }
+
+        LocalDateTime agora = LocalDateTime.now();
+        LocalDateTime inicio = (aPartirDe == null || aPartirDe.isBefore(agora)) ? agora : aPartirDe;
+        int slotsConsulta = OcupacaoDiaria.slotsPara(tempoConsultaMinutos);
+        Set<Recurso.Tipo> recursos = recursoService.exigencias(procedimento);
+
+        List<HorarioLivre> resultado = new ArrayList<>();
+        LocalDate dia = inicio.toLocalDate();
+
+        for (int d = 0; d < HORIZONTE_DIAS && resultado.size() < quantidade; d++, dia = dia.plusDays(1)) {
+            int primeiroSlot = d == 0 ? OcupacaoDiaria.slotTeto(inicio.toLocalTime()) : 0;
+            List<HorarioLivre> doDia = new ArrayList<>();
+            // Os recursos são da clínica: a mesma grade serve a todos os dentistas do dia
+            OcupacaoDiaria recursosLivres = recursos.isEmpty() ? null
+                    : recursoService.iniciosLivres(recursos, dia, slotsConsulta);
+
+            for (Dentista dentista : dentistas) {
+                OcupacaoDiaria inicios = disponibilidade(dentista.getId(), dia).iniciosPossiveis(slotsConsulta);
+                if (recursosLivres != null) {
+                    inicios.intersectar(recursosLivres);
+                }
+
+                int slot = inicios.proximoLivre(primeiroSlot);
+                for (int encontrados = 0; slot >= 0 && encontrados < quantidade; encontrados++) {
+                    LocalDateTime horario = dia.atTime(OcupacaoDiaria.horario(slot));
+                    doDia.add(new HorarioLivre(dentista.getId(), dentista.getNome(),
+                            horario, horario.plusMinutes(tempoConsultaMinutos)));
+                    slot = inicios.proximoLivre(slot + slotsConsulta);
+                }
+            }
+
+            doDia.sort(Comparator.comparing(HorarioLivre::inicio).thenComparing(HorarioLivre::dentistaId));
+            doDia.stream().limit(quantidade - resultado.size()).forEach(resultado::add);
+        }
+
+        log.debug("Busca de horários livres: {} dentista(s), {} min, {} encontrados",
+                dentistas.size(), tempoConsultaMinutos, resultado.size());
+        return resultado;
+    }
+
+    /**
+     * Grade do dia com bit ligado onde o dentista está de expediente, sem agenda
+     * e sem reserva temporária válida.
+     */
+    public OcupacaoDiaria disponibilidade(Long dentistaId, LocalDate dia) {
+        OcupacaoDiaria grade = calendarioService.expediente(dentistaId, dia);
+
+        LocalDateTime inicioDia = dia.atStartOfDay();
+        LocalDateTime fimDia = inicioDia.plusDays(1);
+        for (AgendaIntervalIndex.Intervalo intervalo : intervalIndex.conflitos(dentistaId, inicioDia, fimDia, null)) {
+            ocupar(grade, intervalo.inicio(), intervalo.fim(), inicioDia, fimDia);
+        }
+        for (ReservaHorario reserva : reservaService.reservasNaFaixa(dentistaId, inicioDia, fimDia)) {
+            ocupar(grade, reserva.getInicio(), reserva.getFim(), inicioDia, fimDia);
+        }
+        return grade;
+    }
+
+    private static void ocupar(OcupacaoDiaria grade, LocalDateTime inicio, LocalDateTime fim,
+                               LocalDateTime inicioDia, LocalDateTime fimDia) {
+        int de = inicio.isBefore(inicioDia) ? 0 : minutos(inicio.toLocalTime());
+        int ate = fim.isBefore(fimDia) ? minutos(fim.toLocalTime()) : 24 * 60;
+        grade.ocupar(de, ate);
+    }
+
+    private static int minutos(LocalTime horario) {
+        return horario.getHour() * 60 + horario.getMinute();
+    }
+
+    public record HorarioLivre(Long dentistaId, String dentistaNome, LocalDateTime inicio, LocalDateTime fim) {
+    }
+}
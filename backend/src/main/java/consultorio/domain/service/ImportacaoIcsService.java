@@ -0,0 +1,578 @@
+package consultorio.consultorio.domain.service;
+
+import consultorio.consultorio.domain.entity.Agenda;
+import consultorio.consultorio.domain.entity.Dentista;
+import consultorio.consultorio.domain.entity.ReservaHorario;
+import consultorio.consultorio.domain.exception.BusinessException;
+import consultorio.consultorio.domain.repository.DentistaRepository;
+import consultorio.consultorio.domain.repository.RecorrenciaAgendaRepository;
+import consultorio.consultorio.utils.Calendario;
+import consultorio.consultorio.utils.ICalendar;
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Importação de agendas a partir de um .ics exportado por outro sistema,
+ * para um dentista escolhido.
+ *
+ * O arquivo é lido em streaming (uma propriedade por vez) e cada VEVENT vira
+ * uma Agenda. Uma primeira passada só descobre a faixa de datas do arquivo;
+ * a agenda e as séries do dentista são carregadas uma vez, apenas nessa
+ * faixa, e os conflitos são decididos em memória contra elas e contra o que
+ * o próprio arquivo já trouxe. Os aceitos são gravados pelo AgendaLoteService
+ * em lotes de TAMANHO_LOTE; as reservas temporárias, que mudam a cada poucos
+ * minutos, são conferidas por lote logo antes da gravação. Conflitos não
+ * interrompem a importação: o evento é contado e listado no andamento, que
+ * pode ser consultado enquanto roda.
+ */
+@Slf4j
+@Service
+public class ImportacaoIcsService {
+
+    private static final int TAMANHO_LOTE = 1000;
+
+    // Exemplos de eventos recusados guardados no andamento
+    private static final int MAXIMO_RECUSAS_LISTADAS = 50;
+
+    // Importações concluídas ficam consultáveis até serem empurradas para fora
+    private static final int MAXIMO_ANDAMENTOS = 100;
+
+    private static final int DURACAO_PADRAO_MINUTOS = 30;
+
+    private final DentistaRepository dentistaRepository;
+    private final RecorrenciaAgendaRepository recorrenciaRepository;
+    private final AgendaLoteService loteService;
+    private final CalendarioService calendarioService;
+    private final ReservaHorarioService reservaService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ZoneId fuso;
+
+    private final Map<String, Andamento> andamentos = new LinkedHashMap<>(16, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Andamento> maisAntigo) {
+            return size() > MAXIMO_ANDAMENTOS;
+        }
+    };
+
+    private final ExecutorService execucao = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "agenda-importacao-ics");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ImportacaoIcsService(DentistaRepository dentistaRepository,
+                                RecorrenciaAgendaRepository recorrenciaRepository,
+                                AgendaLoteService loteService,
+                                CalendarioService calendarioService,
+                                ReservaHorarioService reservaService,
+                                JdbcTemplate jdbcTemplate,
+                                @Value("${agenda.ics.fuso:America/Sao_Paulo}") String fuso) {
+        this.dentistaRepository = dentistaRepository;
+        this.recorrenciaRepository = recorrenciaRepository;
+        this.loteService = loteService;
+        this.calendarioService = calendarioService;
+        this.reservaService = reservaService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.fuso = ZoneId.of(fuso);
+    }
+
+    /**
+     * Enfileira a importação do arquivo (apagado ao final) e devolve o
+     * andamento, que é atualizado enquanto o arquivo é lido.
+     */
+    public Andamento importar(Long dentistaId, Path arquivo) throws IOException {
+        Dentista dentista = dentistaRepository.findById(dentistaId)
+                .orElseThrow(() -> new BusinessException("Dentista não encontrado com ID: " + dentistaId));
+
+        Andamento andamento = new Andamento(UUID.randomUUID().toString(), dentistaId, Files.size(arquivo));
+        synchronized (andamentos) {
+            andamentos.put(andamento.getId(), andamento);
+        }
+
+        execucao.execute(() -> {
+            try {
+                executar(dentista, arquivo, andamento);
+                andamento.concluir(Situacao.CONCLUIDA, null);
+            } catch (Exception e) {
+                log.error("Falha na importação .ics {} do dentista ID {}", andamento.getId(), dentistaId, e);
+                andamento.concluir(Situacao.FALHOU, e.getMessage());
+            } finally {
+                try {
+                    Files.deleteIfExists(arquivo);
+                } catch (IOException e) {
+                    log.warn("Não foi possível apagar o arquivo temporário {}", arquivo, e);
+                }
+            }
+        });
+        return andamento;
+    }
+
+    public Andamento buscarAndamentoOuFalhar(String id) {
+        synchronized (andamentos) {
+            Andamento andamento = andamentos.get(id);
+            if (andamento == null) {
+                throw new BusinessException("Importação não encontrada: " + id);
+            }
+            return andamento;
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        execucao.shutdownNow();
+    }
+
+    // ============================================================
+    // MÉTODOS AUXILIARES
+    // ============================================================
+
+    private void executar(Dentista dentista, Path arquivo, Andamento andamento) throws IOException {
+        long inicio = System.nanoTime();
+        Ocupacao ocupacao = carregarOcupacao(dentista.getId(), lerFaixa(arquivo));
+        List<Agenda> pendentes = new ArrayList<>(TAMANHO_LOTE);
+
+        try (InputStream entrada = new ContadorBytes(Files.newInputStream(arquivo), andamento.bytesLidos);
+             BufferedReader leitor = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8))) {
+            percorrer(leitor, evento -> {
+                andamento.lidos.incrementAndGet();
+                Agenda agenda = converter(evento, dentista, ocupacao, andamento);
+                if (agenda != null) {
+                    pendentes.add(agenda);
+                    if (pendentes.size() == TAMANHO_LOTE) {
+                        gravar(pendentes, andamento);
+                    }
+                }
+            });
+        }
+        gravar(pendentes, andamento);
+
+        log.info("Importação .ics {} do dentista ID {}: {} lido(s), {} importado(s), {} conflito(s), {} ignorado(s) em {} ms",
+                andamento.getId(), dentista.getId(), andamento.getLidos(), andamento.getImportados(),
+                andamento.getConflitos(), andamento.getIgnorados(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    /**
+     * Entrega cada VEVENT do arquivo (propriedades de primeiro nível, a primeira de cada nome).
+     */
+    private static void percorrer(BufferedReader leitor, Consumer<Map<String, ICalendar.Propriedade>> aoLerEvento)
+            throws IOException {
+        ICalendar.Leitor ics = new ICalendar.Leitor(leitor);
+        Map<String, ICalendar.Propriedade> evento = null;
+        // Componentes dentro do VEVENT (VALARM) têm DESCRIPTION etc. próprios, que não interessam
+        int aninhados = 0;
+        ICalendar.Propriedade propriedade;
+
+        while ((propriedade = ics.proxima()) != null) {
+            String nome = propriedade.nome();
+            if ("BEGIN".equals(nome) && "VEVENT".equalsIgnoreCase(propriedade.valor())) {
+                evento = new HashMap<>();
+                aninhados = 0;
+            } else if (evento == null) {
+                continue;
+            } else if ("BEGIN".equals(nome)) {
+                aninhados++;
+            } else if ("END".equals(nome) && aninhados > 0) {
+                aninhados--;
+            } else if ("END".equals(nome) && "VEVENT".equalsIgnoreCase(propriedade.valor())) {
+                aoLerEvento.accept(evento);
+                evento = null;
+            } else if (aninhados == 0) {
+                evento.putIfAbsent(nome, propriedade);
+            }
+        }
+    }
+
+    /**
+     * Primeira passada: do início mais cedo ao fim mais tarde entre os eventos
+     * do arquivo, ou nulo se nenhum tem horário. Só lê; as recusas ficam para a
+     * passada que importa.
+     */
+    private Faixa lerFaixa(Path arquivo) throws IOException {
+        Faixa[] faixa = {null};
+        try (BufferedReader leitor = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+            percorrer(leitor, evento -> {
+                if (!evento.containsKey("DTSTART")) {
+                    return;
+                }
+                try {
+                    LocalDateTime horario = ICalendar.dataHora(evento.get("DTSTART"), fuso);
+                    if (horario != null) {
+                        LocalDateTime fim = horario.plusMinutes(Math.max(0, duracaoMinutos(evento, horario)));
+                        faixa[0] = faixa[0] == null ? new Faixa(horario, fim) : faixa[0].incluir(horario, fim);
+                    }
+                } catch (DateTimeException | ArithmeticException e) {
+                    // Recusado na leitura principal, com o motivo no andamento
+                }
+            });
+        }
+        return faixa[0];
+    }
+
+    /**
+     * VEVENT -> Agenda, ou nulo quando o evento é recusado (contado no andamento).
+     */
+    private Agenda converter(Map<String, ICalendar.Propriedade> evento, Dentista dentista,
+                             Ocupacao ocupacao, Andamento andamento) {
+        String uid = evento.containsKey("UID") ? evento.get("UID").valor() : "#" + andamento.getLidos();
+
+        if (evento.containsKey("RRULE")) {
+            return ignorar(andamento, uid, "evento recorrente (cadastre como série)");
+        }
+        if (evento.containsKey("STATUS") && "CANCELLED".equalsIgnoreCase(evento.get("STATUS").valor())) {
+            return ignorar(andamento, uid, "evento cancelado");
+        }
+        if (!evento.containsKey("DTSTART")) {
+            return ignorar(andamento, uid, "sem DTSTART");
+        }
+
+        LocalDateTime horario;
+        int minutos;
+        try {
+            horario = ICalendar.dataHora(evento.get("DTSTART"), fuso);
+            if (horario == null) {
+                return ignorar(andamento, uid, "evento de dia inteiro");
+            }
+            minutos = duracaoMinutos(evento, horario);
+        } catch (DateTimeException | ArithmeticException e) {
+            return ignorar(andamento, uid, "data inválida: " + e.getMessage());
+        }
+        if (minutos <= 0 || minutos > Calendario.DURACAO_MAXIMA_MINUTOS) {
+            return ignorar(andamento, uid, "duração de " + minutos + " minutos");
+        }
+
+        // Mesma regra do CalendarioService: só horários futuros são conferidos contra o expediente
+        if (!horario.isBefore(LocalDateTime.now()) && !calendarioService.atende(dentista.getId(), horario, minutos)) {
+            return recusar(andamento, andamento.foraDoExpediente, uid, horario, "fora do expediente");
+        }
+
+        LocalDateTime fim = Calendario.calcularHorarioFim(horario, minutos);
+        if (ocupacao.temConflito(horario, fim)) {
+            return recusar(andamento, andamento.conflitos, uid, horario, "conflito de horário");
+        }
+        ocupacao.ocupar(horario, fim);
+
+        String descricao = evento.containsKey("SUMMARY") ? ICalendar.textoOriginal(evento.get("SUMMARY").valor()) : null;
+        String observacoes = evento.containsKey("DESCRIPTION") ? ICalendar.textoOriginal(evento.get("DESCRIPTION").valor()) : null;
+
+        return Agenda.builder()
+                .descricao(descricao == null || descricao.isBlank() ? "Consulta importada" : limitar(descricao))
+                .horario(horario)
+                .tempoConsultaMinutos(minutos)
+                .dentista(dentista)
+                .status("AGENDADO")
+                .observacoes(observacoes == null ? null : limitar(observacoes))
+                .build();
+    }
+
+    private int duracaoMinutos(Map<String, ICalendar.Propriedade> evento, LocalDateTime horario) {
+        if (evento.containsKey("DTEND")) {
+            LocalDateTime fim = ICalendar.dataHora(evento.get("DTEND"), fuso);
+            if (fim != null) {
+                return Math.toIntExact(Duration.between(horario, fim).toMinutes());
+            }
+        }
+        if (evento.containsKey("DURATION")) {
+            return Math.toIntExact(ICalendar.duracao(evento.get("DURATION").valor()).toMinutes());
+        }
+        return DURACAO_PADRAO_MINUTOS;
+    }
+
+    /**
+     * Grava o lote em ordem de horário. Se alguém marcou no mesmo horário
+     * depois da carga inicial, o lote inteiro é recusado pelo AgendaLoteService;
+     * nesse caso cada item é tentado sozinho, para perder só o conflitante.
+     */
+    private void gravar(List<Agenda> pendentes, Andamento andamento) {
+        if (pendentes.isEmpty()) {
+            return;
+        }
+        pendentes.sort(Comparator.comparing(Agenda::getHorario));
+        descartarReservados(pendentes, andamento);
+        if (pendentes.isEmpty()) {
+            return;
+        }
+        try {
+            andamento.importados.addAndGet(loteService.salvarLote(pendentes).size());
+        } catch (BusinessException e) {
+            log.warn("Lote da importação {} recusado ({}); gravando item a item", andamento.getId(), e.getMessage());
+            for (Agenda agenda : pendentes) {
+                try {
+                    loteService.salvarLote(List.of(agenda));
+                    andamento.importados.incrementAndGet();
+                } catch (BusinessException conflito) {
+                    recusar(andamento, andamento.conflitos, null, agenda.getHorario(), conflito.getMessage());
+                }
+            }
+        }
+        pendentes.clear();
+    }
+
+    /**
+     * Horários com reserva temporária válida saem do lote como conflito. Uma
+     * consulta por lote; o AgendaLoteService confere de novo sob o lock do dentista.
+     */
+    private void descartarReservados(List<Agenda> pendentes, Andamento andamento) {
+        Long dentistaId = pendentes.get(0).getDentista().getId();
+        LocalDateTime fim = pendentes.stream()
+                .map(Agenda::getHorarioFim)
+                .max(Comparator.naturalOrder())
+                .orElseThrow();
+        List<ReservaHorario> reservas = reservaService.validasNaFaixa(dentistaId, pendentes.get(0).getHorario(), fim);
+        if (reservas.isEmpty()) {
+            return;
+        }
+        pendentes.removeIf(agenda -> {
+            boolean reservado = reservas.stream().anyMatch(r ->
+                    r.getInicio().isBefore(agenda.getHorarioFim()) && r.getFim().isAfter(agenda.getHorario()));
+            if (reservado) {
+                recusar(andamento, andamento.conflitos, null, agenda.getHorario(), "horário reservado temporariamente");
+            }
+            return reservado;
+        });
+    }
+
+    /**
+     * Agenda do dentista + séries recorrentes na faixa do arquivo, para
+     * conferir os eventos sem ir ao banco a cada um.
+     */
+    private Ocupacao carregarOcupacao(Long dentistaId, Faixa faixa) {
+        if (faixa == null) {
+            return new Ocupacao(List.of());
+        }
+        // Uma consulta que começou até DURACAO_MAXIMA_MINUTOS antes ainda pode ocupar o início da faixa
+        LocalDateTime desde = faixa.inicio().minusMinutes(Calendario.DURACAO_MAXIMA_MINUTOS);
+
+        Ocupacao ocupacao = new Ocupacao(recorrenciaRepository.findAtivasDoDentista(dentistaId, desde.toLocalDate())
+                .stream()
+                .filter(serie -> serie.getInicio().isBefore(faixa.fim()))
+                .map(RegraRecorrencia::de)
+                .toList());
+
+        jdbcTemplate.query("SELECT horario, tempo_consulta_minutos FROM agenda " +
+                        "WHERE dentista_id = ? AND horario >= ? AND horario < ? AND tempo_consulta_minutos IS NOT NULL",
+                rs -> {
+                    LocalDateTime horario = rs.getTimestamp("horario").toLocalDateTime();
+                    ocupacao.ocupar(horario, horario.plusMinutes(rs.getInt("tempo_consulta_minutos")));
+                }, dentistaId, Timestamp.valueOf(desde), Timestamp.valueOf(faixa.fim()));
+        return ocupacao;
+    }
+
+    private static Agenda ignorar(Andamento andamento, String uid, String motivo) {
+        andamento.ignorados.incrementAndGet();
+        andamento.registrarRecusa(uid + ": " + motivo);
+        return null;
+    }
+
+    private static Agenda recusar(Andamento andamento, AtomicInteger contador, String uid,
+                                  LocalDateTime horario, String motivo) {
+        contador.incrementAndGet();
+        andamento.registrarRecusa((uid != null ? uid + " " : "") + "em " + horario + ": " + motivo);
+        return null;
+    }
+
+    // Colunas varchar(255) padrão da entidade
+    private static String limitar(String texto) {
+        return texto.length() <= 255 ? texto : texto.substring(0, 255);
+    }
+
+    // ============================================================
+    // ESTRUTURAS
+    // ============================================================
+
+    public enum Situacao {
+        PROCESSANDO,
+        CONCLUIDA,
+        FALHOU
+    }
+
+    /**
+     * Andamento de uma importação; os contadores são lidos por outras
+     * requisições enquanto a thread de importação escreve.
+     */
+    @Getter
+    public static final class Andamento {
+
+        private final String id;
+        private final Long dentistaId;
+        private final long bytesTotal;
+        private final LocalDateTime iniciadaEm = LocalDateTime.now();
+
+        @Getter(AccessLevel.NONE)
+        private final AtomicLong bytesLidos = new AtomicLong();
+        @Getter(AccessLevel.NONE)
+        private final AtomicInteger lidos = new AtomicInteger();
+        @Getter(AccessLevel.NONE)
+        private final AtomicInteger importados = new AtomicInteger();
+        @Getter(AccessLevel.NONE)
+        private final AtomicInteger conflitos = new AtomicInteger();
+        @Getter(AccessLevel.NONE)
+        private final AtomicInteger foraDoExpediente = new AtomicInteger();
+        @Getter(AccessLevel.NONE)
+        private final AtomicInteger ignorados = new AtomicInteger();
+        @Getter(AccessLevel.NONE)
+        private final List<String> recusas = Collections.synchronizedList(new ArrayList<>());
+
+        private volatile Situacao situacao = Situacao.PROCESSANDO;
+        private volatile LocalDateTime concluidaEm;
+        private volatile String erro;
+
+        private Andamento(String id, Long dentistaId, long bytesTotal) {
+            this.id = id;
+            this.dentistaId = dentistaId;
+            this.bytesTotal = bytesTotal;
+        }
+
+        public int getPercentual() {
+            if (situacao != Situacao.PROCESSANDO) {
+                return 100;
+            }
+            return bytesTotal == 0 ? 0 : (int) Math.min(99, bytesLidos.get() * 100 / bytesTotal);
+        }
+
+        public int getLidos() {
+            return lidos.get();
+        }
+
+        public int getImportados() {
+            return importados.get();
+        }
+
+        public int getConflitos() {
+            return conflitos.get();
+        }
+
+        public int getForaDoExpediente() {
+            return foraDoExpediente.get();
+        }
+
+        public int getIgnorados() {
+            return ignorados.get();
+        }
+
+        public List<String> getRecusas() {
+            synchronized (recusas) {
+                return List.copyOf(recusas);
+            }
+        }
+
+        private void registrarRecusa(String descricao) {
+            synchronized (recusas) {
+                if (recusas.size() < MAXIMO_RECUSAS_LISTADAS) {
+                    recusas.add(descricao);
+                }
+            }
+        }
+
+        private void concluir(Situacao situacao, String erro) {
+            this.erro = erro;
+            this.concluidaEm = LocalDateTime.now();
+            this.situacao = situacao;
+        }
+    }
+
+    private record Faixa(LocalDateTime inicio, LocalDateTime fim) {
+
+        private Faixa incluir(LocalDateTime outroInicio, LocalDateTime outroFim) {
+            return new Faixa(outroInicio.isBefore(inicio) ? outroInicio : inicio, outroFim.isAfter(fim) ? outroFim : fim);
+        }
+    }
+
+    /**
+     * Horários ocupados do dentista durante a importação: início -> fim,
+     * mais as séries recorrentes. Acessado só pela thread da importação.
+     */
+    private static final class Ocupacao {
+
+        private final NavigableMap<LocalDateTime, LocalDateTime> intervalos = new TreeMap<>();
+        private final List<RegraRecorrencia> series;
+
+        private Ocupacao(List<RegraRecorrencia> series) {
+            this.series = series;
+        }
+
+        private void ocupar(LocalDateTime inicio, LocalDateTime fim) {
+            intervalos.merge(inicio, fim, (atual, novo) -> atual.isAfter(novo) ? atual : novo);
+        }
+
+        private boolean temConflito(LocalDateTime inicio, LocalDateTime fim) {
+            // Nenhuma agenda passa de DURACAO_MAXIMA_MINUTOS: só as que começam nessa janela podem alcançar 'inicio'
+            for (Map.Entry<LocalDateTime, LocalDateTime> ocupado : intervalos
+                    .subMap(inicio.minusMinutes(Calendario.DURACAO_MAXIMA_MINUTOS), true, fim, false).entrySet()) {
+                if (ocupado.getValue().isAfter(inicio)) {
+                    return true;
+                }
+            }
+            for (RegraRecorrencia serie : series) {
+                if (!serie.intervalos(inicio, fim).isEmpty()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Conta os bytes consumidos do arquivo para o percentual do andamento.
+     */
+    private static final class ContadorBytes extends FilterInputStream {
+
+        private final AtomicLong contador;
+
+        private ContadorBytes(InputStream entrada, AtomicLong contador) {
+            super(entrada);
+            this.contador = contador;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int lido = super.read();
+            if (lido >= 0) {
+                contador.incrementAndGet();
+            }
+            return lido;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int lidos = super.read(b, off, len);
+            if (lidos > 0) {
+                contador.addAndGet(lidos);
+            }
+            return lidos;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package consultorio.consultorio.domain.service;
+
+import java.time.LocalTime;
+import java.util.Arrays;
+
+/**
+ * Mapa de bits de um dia, com um bit por fatia de 5 minutos (288 bits).
+ * Bit ligado = fatia livre. Expediente, agendas e bloqueios são combinados
+ * com operações bit a bit em vez de comparar intervalo por intervalo.
+ */
+public final class OcupacaoDiaria {
+
+    public static final int MINUTOS_POR_SLOT = 5;
+    public static final int SLOTS_POR_DIA = 24 * 60 / MINUTOS_POR_SLOT;
+
+    private static final int PALAVRAS = (SLOTS_POR_DIA + 63) / 64;
+
+    private final long[] bits;
+
+    private OcupacaoDiaria(long[] bits) {
+        this.bits = bits;
+    }
+
+    /** Dia inteiramente ocupado (nenhuma fatia livre). */
+    public static OcupacaoDiaria fechado() {
+        return new OcupacaoDiaria(new long[PALAVRAS]);
+    }
+
+    /** Dia inteiramente livre (recursos sem expediente próprio). */
+    public static OcupacaoDiaria livre() {
+        return fechado().liberar(0, 24 * 60);
+    }
+
+    public OcupacaoDiaria copia() {
+        return new OcupacaoDiaria(bits.clone());
+    }
+
+    // ============================================================
+    // CONVERSÃO DE HORÁRIOS
+    // ============================================================
+
+    /** Fatia que contém o horário (arredonda para baixo). */
+    public static int slot(LocalTime horario) {
+        return (horario.getHour() * 60 + horario.getMinute()) / MINUTOS_POR_SLOT;
+    }
+
+    /** Primeira fatia que começa no horário ou depois dele (arredonda para cima). */
+    public static int slotTeto(LocalTime horario) {
+        int minutos = horario.getHour() * 60 + horario.getMinute() + (horario.getSecond() > 0 || horario.getNano() > 0 ? 1 : 0);
+        return (minutos + MINUTOS_POR_SLOT - 1) / MINUTOS_POR_SLOT;
+    }
+
+    public static int slotsPara(int duracaoMinutos) {
+        return Math.max(1, (duracaoMinutos + MINUTOS_POR_SLOT - 1) / MINUTOS_POR_SLOT);
+    }
+
+    public static LocalTime horario(int slot) {
+        return LocalTime.MIN.plusMinutes((long) slot * MINUTOS_POR_SLOT);
+    }
+
+    // ============================================================
+    // ALTERAÇÕES
+    // ============================================================
+
+    /** Marca como livres as fatias de [deMinuto, ateMinuto) do dia. */
+    public OcupacaoDiaria liberar(int deMinuto, int ateMinuto) {
+        int de = Math.max(0, deMinuto / MINUTOS_POR_SLOT);
+        int ate = Math.min(SLOTS_POR_DIA, ateMinuto / MINUTOS_POR_SLOT);
+        for (int i = de; i < ate; i++) {
+            bits[i >>> 6] |= 1L << i;
+        }
+        return this;
+    }
+
+    /** Marca como ocupadas todas as fatias que tocam [deMinuto, ateMinuto). */
+    public OcupacaoDiaria ocupar(int deMinuto, int ateMinuto) {
+        int de = Math.max(0, deMinuto / MINUTOS_POR_SLOT);
+        int ate = Math.min(SLOTS_POR_DIA, (Math.max(ateMinuto, deMinuto + 1) + MINUTOS_POR_SLOT - 1) / MINUTOS_POR_SLOT);
+        for (int i = de; i < ate; i++) {
+            bits[i >>> 6] &= ~(1L << i);
+        }
+        return this;
+    }
+
+    /** Mantém livre apenas o que também está livre na outra grade (AND). */
+    public OcupacaoDiaria intersectar(OcupacaoDiaria outra) {
+        for (int i = 0; i < PALAVRAS; i++) {
+            bits[i] &= outra.bits[i];
+        }
+        return this;
+    }
+
+    /** Livre onde qualquer uma das duas grades está livre (OR). */
+    public OcupacaoDiaria unir(OcupacaoDiaria outra) {
+        for (int i = 0; i < PALAVRAS; i++) {
+            bits[i] |= outra.bits[i];
+        }
+        return this;
+    }
+
+    // ============================================================
+    // CONSULTAS
+    // ============================================================
+
+    public boolean livre(int deSlot, int ateSlot) {
+        if (deSlot < 0 || ateSlot > SLOTS_POR_DIA) {
+            return false;
+        }
+        for (int i = deSlot; i < ateSlot; i++) {
+            if ((bits[i >>> 6] & (1L << i)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int fatiasLivres() {
+        return Arrays.stream(bits).mapToInt(Long::bitCount).sum();
+    }
+
+    /**
+     * Grade com o bit i ligado somente se as fatias i .. i+slots-1 estão livres,
+     * ou seja, os inícios possíveis para uma consulta desse tamanho.
+     * Usa deslocamentos dobrando o alcance a cada passo: O(log slots) operações.
+     */
+    public OcupacaoDiaria iniciosPossiveis(int slots) {
+        long[] inicios = bits.clone();
+        int alcance = 1;
+        while (alcance < slots) {
+            int passo = Math.min(alcance, slots - alcance);
+            long[] deslocado = deslocarParaBaixo(inicios, passo);
+            for (int i = 0; i < PALAVRAS; i++) {
+                inicios[i] &= deslocado[i];
+            }
+            alcance += passo;
+        }
+        return new OcupacaoDiaria(inicios);
+    }
+
+    /** Próximo bit ligado a partir da fatia informada, ou -1. */
+    public int proximoLivre(int aPartirDe) {
+        if (aPartirDe >= SLOTS_POR_DIA) {
+            return -1;
+        }
+        int palavra = Math.max(0, aPartirDe) >>> 6;
+        long atual = bits[palavra] & (-1L << Math.max(0, aPartirDe));
+        while (true) {
+            if (atual != 0) {
+                int slot = (palavra << 6) + Long.numberOfTrailingZeros(atual);
+                return slot < SLOTS_POR_DIA ? slot : -1;
+            }
+            if (++palavra == PALAVRAS) {
+                return -1;
+            }
+            atual = bits[palavra];
+        }
+    }
+
+    private static long[] deslocarParaBaixo(long[] origem, int n) {
+        long[] destino = new long[PALAVRAS];
+        int palavras = n >>> 6;
+        int resto = n & 63;
+        for (int i = 0; i + palavras < PALAVRAS; i++) {
+            long baixo = origem[i + palavras] >>> resto;
+            long alto = (resto != 0 && i + palavras + 1 < PALAVRAS) ? origem[i + palavras + 1] << (64 - resto) : 0L;
+            destino[i] = baixo | alto;
+        }
+        return destino;
+    }
+}
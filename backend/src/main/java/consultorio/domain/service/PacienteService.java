@@ -2,6 +2,7 @@ package consultorio.utils;
 
 import consultorio.domain.entity.Paciente;
 import consultorio.domain.repository.PacienteRepository;
+import consultorio.consultorio.domain.service.AgendaVersoes;
 import consultorio.exception.RecursoNaoEncontradoException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -17,6 +18,7 @@ import java.util.Optional;
 public class PacienteService {
 
     private final PacienteRepository pacienteRepository;
+    private final AgendaVersoes agendaVersoes;
 
     /**
      * Salva um novo paciente ou atualiza um existente.
@@ -30,6 +32,10 @@ public class PacienteService {
         if (paciente.getId() == null || paciente.getProntuario() == null) {
             paciente.setProntuario(gerarNovoProntuario());
         }
+        // O nome do paciente vai nos feeds .ics dos dentistas que o atendem
+        if (paciente.getId() != null) {
+            agendaVersoes.marcarAlteradasDoPaciente(paciente.getId());
+        }
 
         log.info("Salvando paciente: {} (Prontuário: {})", paciente.getDadosPessoais().getNome(), paciente.getProntuario());
         return pacienteRepository.save(paciente);
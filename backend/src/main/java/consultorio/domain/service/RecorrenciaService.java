@@ -0,0 +1,236 @@
+package consultorio.consultorio.domain.service;
+
+import consultorio.consultorio.domain.entity.Agenda;
+import consultorio.consultorio.domain.entity.RecorrenciaAgenda;
+import consultorio.consultorio.domain.exception.BusinessException;
+import consultorio.consultorio.domain.repository.AgendaRepository;
+import consultorio.consultorio.domain.repository.RecorrenciaAgendaRepository;
+import consultorio.consultorio.utils.Transacoes;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Séries de consultas recorrentes. Nada é materializado em 'agenda': as
+ * ocorrências saem da RegraRecorrencia para a faixa consultada e entram nas
+ * mesmas checagens de conflito e de horário livre que as agendas avulsas.
+ */
+@Slf4j
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class RecorrenciaService {
+
+    // Até onde uma série nova é conferida contra o que já está marcado
+    private static final long HORIZONTE_VALIDACAO_DIAS = 365;
+
+    // Quantas datas fora do expediente a mensagem de recusa lista antes de resumir
+    private static final int DATAS_NA_MENSAGEM = 10;
+
+    // Maior faixa aceita na listagem de ocorrências
+    private static final long JANELA_MAXIMA_LISTAGEM_DIAS = 366;
+
+    // Mesma janela do AgendaService: nenhuma consulta passa de um dia
+    private static final long JANELA_CONFLITO_HORAS = 24;
+
+    private final RecorrenciaAgendaRepository repository;
+    private final AgendaRepository agendaRepository;
+    private final AgendaIntervalIndex intervalIndex;
+    private final AgendamentoLocks agendamentoLocks;
+    private final AgendaVersoes agendaVersoes;
+    private final CalendarioService calendarioService;
+    private final ReservaHorarioService reservaService;
+
+    public RecorrenciaAgenda criar(RecorrenciaAgenda recorrencia) {
+        Long dentistaId = recorrencia.getDentista().getId();
+        log.info("Criando série {} para dentista ID: {}", recorrencia.getFrequencia(), dentistaId);
+
+        validar(recorrencia);
+
+        agendamentoLocks.bloquearDentista(dentistaId);
+        verificarConflitos(recorrencia);
+
+        RecorrenciaAgenda salvo = repository.save(recorrencia);
+        agendaVersoes.marcarAlterada(dentistaId);
+        Transacoes.aposCommit(() -> intervalIndex.invalidar(dentistaId));
+        return salvo;
+    }
+
+    public List<RecorrenciaAgenda> listarDoDentista(Long dentistaId) {
+        return repository.findAtivasDoDentista(dentistaId, LocalDate.now());
+    }
+
+    /**
+     * Ocorrências das séries do dentista em [inicio, fim), em ordem de horário.
+     */
+    public List<Ocorrencia> listarOcorrencias(Long dentistaId, LocalDateTime inicio, LocalDateTime fim) {
+        if (!fim.isAfter(inicio)) {
+            throw new BusinessException("O fim do período deve ser posterior ao início.");
+        }
+        if (inicio.plusDays(JANELA_MAXIMA_LISTAGEM_DIAS).isBefore(fim)) {
+            throw new BusinessException("O período consultado não pode passar de " + JANELA_MAXIMA_LISTAGEM_DIAS + " dias.");
+        }
+
+        List<Ocorrencia> ocorrencias = new ArrayList<>();
+        for (RecorrenciaAgenda recorrencia : repository.findAtivasDoDentista(dentistaId, inicio.toLocalDate())) {
+            RegraRecorrencia regra = RegraRecorrencia.de(recorrencia);
+            for (AgendaIntervalIndex.Intervalo intervalo : regra.intervalos(inicio, fim)) {
+                ocorrencias.add(new Ocorrencia(recorrencia, intervalo.inicio(), intervalo.fim()));
+            }
+        }
+        ocorrencias.sort(Comparator.comparing(Ocorrencia::inicio));
+        return ocorrencias;
+    }
+
+    /**
+     * Ocorrências de séries gravadas que ocupam [inicio, fim). Lidas do banco:
+     * é a confirmação usada nas gravações, além do que o índice em memória já viu.
+     */
+    public List<AgendaIntervalIndex.Intervalo> ocorrenciasNaFaixa(Long dentistaId, LocalDateTime inicio, LocalDateTime fim) {
+        List<AgendaIntervalIndex.Intervalo> intervalos = new ArrayList<>();
+        for (RecorrenciaAgenda recorrencia : repository.findAtivasDoDentista(dentistaId, inicio.toLocalDate().minusDays(1))) {
+            intervalos.addAll(RegraRecorrencia.de(recorrencia).intervalos(inicio, fim));
+        }
+        return intervalos;
+    }
+
+    public boolean temConflito(Long dentistaId, LocalDateTime inicio, LocalDateTime fim) {
+        return !ocorrenciasNaFaixa(dentistaId, inicio, fim).isEmpty();
+    }
+
+    /**
+     * Cancela uma única ocorrência (a data vira exceção da série).
+     */
+    public void cancelarOcorrencia(Long id, LocalDate data) {
+        RecorrenciaAgenda recorrencia = buscarPorIdOuFalhar(id);
+        if (RegraRecorrencia.de(recorrencia).inicios(data.atStartOfDay(), data.plusDays(1).atStartOfDay()).isEmpty()) {
+            throw new BusinessException("A série ID " + id + " não tem ocorrência em " + data + ".");
+        }
+
+        recorrencia.getExcecoes().add(data);
+        Long dentistaId = recorrencia.getDentista().getId();
+        agendaVersoes.marcarAlterada(dentistaId);
+        Transacoes.aposCommit(() -> intervalIndex.invalidar(dentistaId));
+    }
+
+    public void remover(Long id) {
+        RecorrenciaAgenda recorrencia = buscarPorIdOuFalhar(id);
+        Long dentistaId = recorrencia.getDentista().getId();
+
+        repository.delete(recorrencia);
+        agendaVersoes.marcarAlterada(dentistaId);
+        Transacoes.aposCommit(() -> intervalIndex.invalidar(dentistaId));
+    }
+
+    public RecorrenciaAgenda buscarPorIdOuFalhar(Long id) {
+        return repository.findById(id)
+                .orElseThrow(() -> new BusinessException("Série de agendamentos não encontrada com ID: " + id));
+    }
+
+    // ============================================================
+    // MÉTODOS AUXILIARES
+    // ============================================================
+
+    private void validar(RecorrenciaAgenda recorrencia) {
+        if (recorrencia.getIntervalo() == null || recorrencia.getIntervalo() < 1) {
+            throw new BusinessException("O intervalo da série deve ser de pelo menos 1.");
+        }
+        if (recorrencia.getOcorrencias() != null && recorrencia.getOcorrencias() < 1) {
+            throw new BusinessException("A quantidade de ocorrências deve ser de pelo menos 1.");
+        }
+        if (recorrencia.getOcorrencias() != null && recorrencia.getAte() != null) {
+            throw new BusinessException("Informe a data final ou a quantidade de ocorrências da série, não as duas.");
+        }
+        if (recorrencia.getAte() != null && recorrencia.getAte().isBefore(recorrencia.getInicio().toLocalDate())) {
+            throw new BusinessException("A data final da série deve ser igual ou posterior à primeira ocorrência.");
+        }
+
+        // A primeira ocorrência passa pelas mesmas regras de uma agenda avulsa (duração, expediente);
+        // o expediente das demais é conferido em verificarConflitos
+        calendarioService.validarAgendamento(Agenda.builder()
+                .horario(recorrencia.getInicio())
+                .tempoConsultaMinutos(recorrencia.getTempoConsultaMinutos())
+                .dentista(recorrencia.getDentista())
+                .build());
+    }
+
+    /**
+     * Expande a série nova até o horizonte de validação, confere cada
+     * ocorrência no expediente do dentista (feriados, ausências, dias sem
+     * atendimento) e a confronta, numa passada linear, com as agendas avulsas,
+     * as ocorrências das outras séries e as reservas temporárias ainda válidas.
+     */
+    private void verificarConflitos(RecorrenciaAgenda recorrencia) {
+        Long dentistaId = recorrencia.getDentista().getId();
+        LocalDateTime inicio = recorrencia.getInicio();
+        LocalDateTime limite = inicio.plusDays(HORIZONTE_VALIDACAO_DIAS);
+        if (recorrencia.getAte() != null && recorrencia.getAte().plusDays(1).atStartOfDay().isBefore(limite)) {
+            limite = recorrencia.getAte().plusDays(1).atStartOfDay();
+        }
+
+        List<AgendaIntervalIndex.Intervalo> novas = RegraRecorrencia.de(recorrencia).intervalos(inicio, limite);
+        if (novas.isEmpty()) {
+            return;
+        }
+        List<LocalDate> foraDoExpediente = novas.stream()
+                .filter(nova -> !calendarioService.atende(dentistaId, nova.inicio(), (int) nova.duracaoMinutos()))
+                .map(nova -> nova.inicio().toLocalDate())
+                .toList();
+        if (!foraDoExpediente.isEmpty()) {
+            throw foraDoExpediente(foraDoExpediente);
+        }
+        LocalDateTime ultimoFim = novas.get(novas.size() - 1).fim();
+
+        List<AgendaIntervalIndex.Intervalo> existentes = new ArrayList<>(ocorrenciasNaFaixa(dentistaId, inicio, ultimoFim));
+        agendaRepository.findHorariosNaFaixa(dentistaId, inicio.minusHours(JANELA_CONFLITO_HORAS), ultimoFim)
+                .forEach(v -> existentes.add(AgendaIntervalIndex.Intervalo.de(v.getId(), v.getHorario(), v.getTempoConsultaMinutos())));
+        reservaService.validasNaFaixa(dentistaId, inicio, ultimoFim)
+                .forEach(r -> existentes.add(new AgendaIntervalIndex.Intervalo(null, r.getInicio(), r.getFim())));
+        existentes.sort(Comparator.comparing(AgendaIntervalIndex.Intervalo::inicio));
+
+        int proximo = 0;
+        AgendaIntervalIndex.Intervalo terminaPorUltimo = null;
+        for (AgendaIntervalIndex.Intervalo nova : novas) {
+            while (proximo < existentes.size() && existentes.get(proximo).inicio().isBefore(nova.fim())) {
+                AgendaIntervalIndex.Intervalo existente = existentes.get(proximo++);
+                if (terminaPorUltimo == null || existente.fim().isAfter(terminaPorUltimo.fim())) {
+                    terminaPorUltimo = existente;
+                }
+                if (existente.sobrepoe(nova.inicio(), nova.fim())) {
+                    throw conflito(dentistaId, nova.inicio());
+                }
+            }
+            if (terminaPorUltimo != null && terminaPorUltimo.sobrepoe(nova.inicio(), nova.fim())) {
+                throw conflito(dentistaId, nova.inicio());
+            }
+        }
+    }
+
+    private static BusinessException conflito(Long dentistaId, LocalDateTime horario) {
+        return new BusinessException(String.format(
+                "A série conflita com um agendamento do dentista ID %d em %s.", dentistaId, horario));
+    }
+
+    private static BusinessException foraDoExpediente(List<LocalDate> datas) {
+        String listadas = datas.stream()
+                .limit(DATAS_NA_MENSAGEM)
+                .map(LocalDate::toString)
+                .collect(Collectors.joining(", "));
+        if (datas.size() > DATAS_NA_MENSAGEM) {
+            listadas += " e mais " + (datas.size() - DATAS_NA_MENSAGEM);
+        }
+        return new BusinessException(
+                "A série tem ocorrências fora do expediente do dentista ou em período bloqueado: " + listadas + ".");
+    }
+
+    public record Ocorrencia(RecorrenciaAgenda recorrencia, LocalDateTime inicio, LocalDateTime fim) {
+    }
+}
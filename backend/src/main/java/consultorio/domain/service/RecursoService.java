@@ -0,0 +1,346 @@
+package consultorio.consultorio.domain.service;
+
+import consultorio.consultorio.domain.entity.Agenda;
+import consultorio.consultorio.domain.entity.AlocacaoRecurso;
+import consultorio.consultorio.domain.entity.Procedimento;
+import consultorio.consultorio.domain.entity.Recurso;
+import consultorio.consultorio.domain.exception.BusinessException;
+import consultorio.consultorio.domain.repository.AlocacaoRecursoRepository;
+import consultorio.consultorio.domain.repository.AlocacaoRecursoView;
+import consultorio.consultorio.domain.repository.ProcedimentoRepository;
+import consultorio.consultorio.domain.repository.RecursoRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Cadeiras, salas e equipamentos exigidos pelos procedimentos.
+ *
+ * A marcação (AgendaService/AgendaLoteService) chama alocar() na mesma
+ * transação que grava a agenda, já com o lock do dentista: os recursos
+ * candidatos são travados em ordem de ID e um livre de cada tipo exigido
+ * é alocado, ou a transação inteira é desfeita.
+ *
+ * Na busca de horários, cada tipo vira uma grade de bits (OcupacaoDiaria)
+ * com os inícios em que algum recurso daquele tipo está livre durante toda
+ * a consulta; as grades dos tipos e a do dentista são intersectadas.
+ */
+@Slf4j
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class RecursoService {
+
+    private final RecursoRepository recursoRepository;
+    private final ProcedimentoRepository procedimentoRepository;
+    private final AlocacaoRecursoRepository alocacaoRepository;
+
+    // ============================================================
+    // CADASTROS
+    // ============================================================
+
+    public List<Recurso> listarRecursos() {
+        return recursoRepository.findByAtivoTrueOrderByTipoAscNomeAsc();
+    }
+
+    public Recurso criarRecurso(Recurso recurso) {
+        recurso.setId(null);
+        recurso.setAtivo(true);
+        return recursoRepository.save(recurso);
+    }
+
+    /**
+     * Desativa o recurso: deixa de ser alocado, mas as alocações já feitas ficam.
+     */
+    public void desativarRecurso(Long id) {
+        Recurso recurso = recursoRepository.findById(id)
+                .orElseThrow(() -> new BusinessException("Recurso não encontrado com ID: " + id));
+        recurso.setAtivo(false);
+    }
+
+    public List<Procedimento> listarProcedimentos() {
+        return procedimentoRepository.findAllByOrderByNomeAsc();
+    }
+
+    /**
+     * Cria ou substitui (pelo nome, sem diferenciar maiúsculas) as exigências do procedimento.
+     */
+    public Procedimento salvarProcedimento(Procedimento procedimento) {
+        String nome = procedimento.getNome() == null ? "" : procedimento.getNome().trim();
+        if (nome.isEmpty()) {
+            throw new BusinessException("O nome do procedimento é obrigatório.");
+        }
+
+        Procedimento existente = procedimentoRepository.findByNomeIgnoreCase(nome)
+                .orElseGet(() -> Procedimento.builder().nome(nome).build());
+        existente.setDuracaoMinutos(procedimento.getDuracaoMinutos());
+        existente.getRecursos().clear();
+        existente.getRecursos().addAll(procedimento.getRecursos());
+        return procedimentoRepository.save(existente);
+    }
+
+    /**
+     * Tipos de recurso exigidos; vazio para procedimento nulo ou sem cadastro.
+     */
+    public Set<Recurso.Tipo> exigencias(String procedimento) {
+        if (procedimento == null || procedimento.isBlank()) {
+            return Set.of();
+        }
+        return procedimentoRepository.findByNomeIgnoreCase(procedimento.trim())
+                .map(p -> p.getRecursos().isEmpty() ? Set.<Recurso.Tipo>of() : EnumSet.copyOf(p.getRecursos()))
+                .orElse(Set.of());
+    }
+
+    public List<AlocacaoRecurso> listarAlocacoes(Long recursoId, LocalDate dia) {
+        return alocacaoRepository.findDoRecursoNaFaixa(recursoId, dia.atStartOfDay(), dia.plusDays(1).atStartOfDay());
+    }
+
+    public List<AlocacaoRecurso> listarAlocacoesDaAgenda(Long agendaId) {
+        return alocacaoRepository.findByAgendaId(agendaId);
+    }
+
+    // ============================================================
+    // MARCAÇÃO
+    // ============================================================
+
+    /**
+     * Aloca um recurso livre de cada tipo exigido pelo procedimento da agenda
+     * (já gravada). Sem recurso livre de algum tipo, lança BusinessException e
+     * a marcação inteira é desfeita.
+     */
+    public List<AlocacaoRecurso> alocar(Agenda agenda) {
+        return alocarTodos(List.of(agenda));
+    }
+
+    /**
+     * Versão para lote: trava de uma vez os recursos de todos os tipos exigidos,
+     * lê numa consulta só as alocações deles na faixa do lote e aloca item a
+     * item em memória, considerando também o que o próprio lote já ocupou.
+     */
+    public List<AlocacaoRecurso> alocarTodos(List<Agenda> agendas) {
+        Map<Agenda, Set<Recurso.Tipo>> exigidos = new LinkedHashMap<>();
+        Map<String, Set<Recurso.Tipo>> porProcedimento = new HashMap<>();
+        for (Agenda agenda : agendas) {
+            if (agenda.getProcedimento() == null || agenda.getTempoConsultaMinutos() == null) {
+                continue;
+            }
+            Set<Recurso.Tipo> tipos = porProcedimento.computeIfAbsent(
+                    agenda.getProcedimento().trim().toLowerCase(), p -> exigencias(agenda.getProcedimento()));
+            if (!tipos.isEmpty()) {
+                exigidos.put(agenda, tipos);
+            }
+        }
+        if (exigidos.isEmpty()) {
+            return List.of();
+        }
+
+        Set<Recurso.Tipo> todosOsTipos = exigidos.values().stream()
+                .flatMap(Set::stream)
+                .collect(Collectors.toCollection(() -> EnumSet.noneOf(Recurso.Tipo.class)));
+        Map<Recurso.Tipo, List<Recurso>> candidatos = travarCandidatos(todosOsTipos);
+        Map<Long, NavigableMap<LocalDateTime, LocalDateTime>> ocupados = carregarOcupados(candidatos, exigidos.keySet());
+
+        List<AlocacaoRecurso> alocacoes = new ArrayList<>();
+        for (Map.Entry<Agenda, Set<Recurso.Tipo>> item : exigidos.entrySet()) {
+            Agenda agenda = item.getKey();
+            LocalDateTime inicio = agenda.getHorario();
+            LocalDateTime fim = agenda.getHorarioFim();
+
+            for (Recurso.Tipo tipo : item.getValue()) {
+                Recurso livre = candidatos.getOrDefault(tipo, List.of()).stream()
+                        .filter(recurso -> estaLivre(ocupados.get(recurso.getId()), inicio, fim))
+                        .findFirst()
+                        .orElseThrow(() -> new BusinessException(String.format(
+                                "Nenhum recurso do tipo %s livre em %s para o procedimento '%s'.",
+                                tipo, inicio, agenda.getProcedimento())));
+                ocupados.get(livre.getId()).put(inicio, fim);
+
+                alocacoes.add(AlocacaoRecurso.builder()
+                        .agenda(agenda)
+                        .recurso(livre)
+                        .inicio(inicio)
+                        .fim(fim)
+                        .build());
+            }
+        }
+
+        alocacaoRepository.saveAll(alocacoes);
+        log.debug("{} recurso(s) alocado(s) para {} agenda(s)", alocacoes.size(), exigidos.size());
+        return alocacoes;
+    }
+
+    /**
+     * Há, para cada tipo exigido, algum recurso livre em [inicio, fim)? Sem lock:
+     * serve à checagem de disponibilidade; a marcação confere de novo em alocar().
+     * Um único SELECT traz o que ocupa a faixa em todos os candidatos.
+     */
+    public boolean recursosLivres(String procedimento, LocalDateTime inicio, LocalDateTime fim) {
+        Set<Recurso.Tipo> tipos = exigencias(procedimento);
+        if (tipos.isEmpty()) {
+            return true;
+        }
+        List<Recurso> candidatos = recursoRepository.findByTipoInAndAtivoTrueOrderByIdAsc(tipos);
+        if (candidatos.isEmpty()) {
+            return false;
+        }
+
+        Set<Long> ocupados = alocacaoRepository.findNaFaixa(
+                        candidatos.stream().map(Recurso::getId).toList(), inicio, fim).stream()
+                .map(AlocacaoRecursoView::getRecursoId)
+                .collect(Collectors.toSet());
+        Set<Recurso.Tipo> comLivre = candidatos.stream()
+                .filter(recurso -> !ocupados.contains(recurso.getId()))
+                .map(Recurso::getTipo)
+                .collect(Collectors.toCollection(() -> EnumSet.noneOf(Recurso.Tipo.class)));
+        return comLivre.containsAll(tipos);
+    }
+
+    /**
+     * Grade do dia com o bit i ligado se, para cada tipo exigido, algum recurso
+     * daquele tipo está livre nas fatias i .. i+slots-1. Um único SELECT traz as
+     * alocações do dia de todos os recursos envolvidos.
+     */
+    public OcupacaoDiaria iniciosLivres(Set<Recurso.Tipo> tipos, LocalDate dia, int slots) {
+        return alocacoesNaFaixa(tipos, dia, dia.plusDays(1)).iniciosLivres(tipos, dia, slots);
+    }
+
+    /**
+     * Recursos dos tipos pedidos e suas alocações nos dias [de, ate), lidos
+     * numa consulta só, para quem monta as grades de muitos dias seguidos
+     * (sugestão de agenda) em vez de ir ao banco dia a dia.
+     */
+    public AlocacoesNaFaixa alocacoesNaFaixa(Set<Recurso.Tipo> tipos, LocalDate de, LocalDate ate) {
+        List<Recurso> recursos = recursoRepository.findByTipoInAndAtivoTrueOrderByIdAsc(tipos);
+        List<AlocacaoRecursoView> alocacoes = recursos.isEmpty() ? List.of() : alocacaoRepository.findNaFaixa(
+                recursos.stream().map(Recurso::getId).toList(), de.atStartOfDay(), ate.atStartOfDay());
+        return new AlocacoesNaFaixa(recursos, alocacoes, de, ate);
+    }
+
+    // ============================================================
+    // MÉTODOS AUXILIARES
+    // ============================================================
+
+    private Map<Recurso.Tipo, List<Recurso>> travarCandidatos(Set<Recurso.Tipo> tipos) {
+        List<Recurso> recursos = recursoRepository.findByTipoInAndAtivoTrueOrderByIdAsc(tipos);
+        // Sempre em ordem de ID e sempre depois do lock do dentista: sem espera em ciclo
+        recursos.forEach(recurso -> recursoRepository.bloquearRecurso(recurso.getId()));
+        return recursos.stream().collect(Collectors.groupingBy(Recurso::getTipo));
+    }
+
+    /**
+     * Alocações gravadas de cada candidato em [menor início, maior fim) do lote,
+     * por recurso e em ordem de início.
+     */
+    private Map<Long, NavigableMap<LocalDateTime, LocalDateTime>> carregarOcupados(
+            Map<Recurso.Tipo, List<Recurso>> candidatos, Collection<Agenda> agendas) {
+        Map<Long, NavigableMap<LocalDateTime, LocalDateTime>> ocupados = new HashMap<>();
+        candidatos.values().forEach(recursos -> recursos.forEach(r -> ocupados.put(r.getId(), new TreeMap<>())));
+        if (ocupados.isEmpty()) {
+            return ocupados;
+        }
+
+        LocalDateTime de = agendas.stream().map(Agenda::getHorario).min(Comparator.naturalOrder()).orElseThrow();
+        LocalDateTime ate = agendas.stream().map(Agenda::getHorarioFim).max(Comparator.naturalOrder()).orElseThrow();
+        for (AlocacaoRecursoView alocacao : alocacaoRepository.findNaFaixa(ocupados.keySet(), de, ate)) {
+            ocupados.get(alocacao.getRecursoId())
+                    .merge(alocacao.getInicio(), alocacao.getFim(), (atual, novo) -> atual.isAfter(novo) ? atual : novo);
+        }
+        return ocupados;
+    }
+
+    // As alocações de um recurso não se sobrepõem (todas passam por aqui, sob lock):
+    // basta olhar a última que começa antes de 'fim'
+    private static boolean estaLivre(NavigableMap<LocalDateTime, LocalDateTime> ocupados,
+                                     LocalDateTime inicio, LocalDateTime fim) {
+        Map.Entry<LocalDateTime, LocalDateTime> anterior = ocupados.lowerEntry(fim);
+        return anterior == null || !anterior.getValue().isAfter(inicio);
+    }
+
+    private static int minutos(LocalDateTime horario) {
+        return horario.getHour() * 60 + horario.getMinute();
+    }
+
+    /**
+     * Alocações já lidas, separadas por dia (a que atravessa a meia-noite entra
+     * nos dois). As grades saem daqui sem nova consulta.
+     */
+    public static final class AlocacoesNaFaixa {
+
+        private final List<Recurso> recursos;
+        private final LocalDate de;
+        private final LocalDate ate;
+        private final Map<LocalDate, List<AlocacaoRecursoView>> porDia = new HashMap<>();
+
+        private AlocacoesNaFaixa(List<Recurso> recursos, List<AlocacaoRecursoView> alocacoes, LocalDate de, LocalDate ate) {
+            this.recursos = recursos;
+            this.de = de;
+            this.ate = ate;
+            for (AlocacaoRecursoView alocacao : alocacoes) {
+                LocalDate primeiro = alocacao.getInicio().toLocalDate().isBefore(de) ? de : alocacao.getInicio().toLocalDate();
+                for (LocalDate dia = primeiro; dia.isBefore(ate) && dia.atStartOfDay().isBefore(alocacao.getFim());
+                     dia = dia.plusDays(1)) {
+                    porDia.computeIfAbsent(dia, d -> new ArrayList<>()).add(alocacao);
+                }
+            }
+        }
+
+        /** O dia está dentro da faixa lida? */
+        public boolean cobre(LocalDate dia) {
+            return !dia.isBefore(de) && dia.isBefore(ate);
+        }
+
+        /** Mesma grade de RecursoService.iniciosLivres, para um dia da faixa lida. */
+        public OcupacaoDiaria iniciosLivres(Set<Recurso.Tipo> tipos, LocalDate dia, int slots) {
+            if (!cobre(dia)) {
+                throw new IllegalArgumentException("Dia " + dia + " fora da faixa lida [" + de + ", " + ate + ")");
+            }
+            LocalDateTime inicioDia = dia.atStartOfDay();
+            LocalDateTime fimDia = inicioDia.plusDays(1);
+
+            Map<Long, OcupacaoDiaria> porRecurso = new HashMap<>();
+            recursos.stream()
+                    .filter(recurso -> tipos.contains(recurso.getTipo()))
+                    .forEach(recurso -> porRecurso.put(recurso.getId(), OcupacaoDiaria.livre()));
+            for (AlocacaoRecursoView alocacao : porDia.getOrDefault(dia, List.of())) {
+                OcupacaoDiaria grade = porRecurso.get(alocacao.getRecursoId());
+                if (grade != null) {
+                    int inicio = alocacao.getInicio().isBefore(inicioDia) ? 0 : minutos(alocacao.getInicio());
+                    int fim = alocacao.getFim().isBefore(fimDia) ? minutos(alocacao.getFim()) : 24 * 60;
+                    grade.ocupar(inicio, fim);
+                }
+            }
+
+            Map<Recurso.Tipo, OcupacaoDiaria> porTipo = new EnumMap<>(Recurso.Tipo.class);
+            for (Recurso recurso : recursos) {
+                OcupacaoDiaria grade = porRecurso.get(recurso.getId());
+                if (grade != null) {
+                    porTipo.merge(recurso.getTipo(), grade.iniciosPossiveis(slots), OcupacaoDiaria::unir);
+                }
+            }
+
+            OcupacaoDiaria resultado = OcupacaoDiaria.livre();
+            for (Recurso.Tipo tipo : tipos) {
+                // Tipo exigido sem nenhum recurso cadastrado: nenhum horário serve
+                resultado.intersectar(porTipo.getOrDefault(tipo, OcupacaoDiaria.fechado()));
+            }
+            return resultado;
+        }
+    }
+}
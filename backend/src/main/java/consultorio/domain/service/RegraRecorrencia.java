@@ -0,0 +1,101 @@
+package consultorio.consultorio.domain.service;
+
+import consultorio.consultorio.domain.entity.RecorrenciaAgenda;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Cópia imutável de uma RecorrenciaAgenda, segura para ficar em cache, que
+ * expande as ocorrências sob demanda.
+ *
+ * A n-ésima ocorrência é calculada direto a partir da primeira (inicio + n
+ * intervalos), então a expansão de uma faixa salta para o índice certo em
+ * O(1) e só percorre as ocorrências que caem dentro dela.
+ */
+public record RegraRecorrencia(Long recorrenciaId,
+                               Long dentistaId,
+                               LocalDateTime inicio,
+                               int tempoConsultaMinutos,
+                               RecorrenciaAgenda.Frequencia frequencia,
+                               int intervalo,
+                               LocalDate ate,
+                               Integer ocorrencias,
+                               Set<LocalDate> excecoes) {
+
+    public static RegraRecorrencia de(RecorrenciaAgenda recorrencia) {
+        return new RegraRecorrencia(
+                recorrencia.getId(),
+                recorrencia.getDentista().getId(),
+                recorrencia.getInicio(),
+                recorrencia.getTempoConsultaMinutos(),
+                recorrencia.getFrequencia(),
+                recorrencia.getIntervalo(),
+                recorrencia.getAte(),
+                recorrencia.getOcorrencias(),
+                Set.copyOf(recorrencia.getExcecoes()));
+    }
+
+    /**
+     * Inícios das ocorrências cujo intervalo se sobrepõe a [de, ate), em ordem.
+     */
+    public List<LocalDateTime> inicios(LocalDateTime de, LocalDateTime ate) {
+        List<LocalDateTime> resultado = new ArrayList<>();
+        for (AgendaIntervalIndex.Intervalo intervalo : intervalos(de, ate)) {
+            resultado.add(intervalo.inicio());
+        }
+        return resultado;
+    }
+
+    /**
+     * Ocorrências que se sobrepõem a [de, ate) como intervalos ocupados
+     * (sem agendaId: não existem como linha em 'agenda').
+     */
+    public List<AgendaIntervalIndex.Intervalo> intervalos(LocalDateTime de, LocalDateTime ate) {
+        List<AgendaIntervalIndex.Intervalo> resultado = new ArrayList<>();
+        for (long n = primeiroIndiceAntesDe(de.minusMinutes(tempoConsultaMinutos)); ; n++) {
+            if (ocorrencias != null && n >= ocorrencias) {
+                break;
+            }
+            LocalDateTime horario = ocorrencia(n);
+            if (!horario.isBefore(ate) || (this.ate != null && horario.toLocalDate().isAfter(this.ate))) {
+                break;
+            }
+            if (excecoes.contains(horario.toLocalDate())) {
+                continue;
+            }
+            AgendaIntervalIndex.Intervalo intervalo = AgendaIntervalIndex.Intervalo.de(null, horario, tempoConsultaMinutos);
+            if (intervalo.sobrepoe(de, ate)) {
+                resultado.add(intervalo);
+            }
+        }
+        return resultado;
+    }
+
+    LocalDateTime ocorrencia(long n) {
+        long passos = n * intervalo;
+        return switch (frequencia) {
+            case DIARIA -> inicio.plusDays(passos);
+            case SEMANAL -> inicio.plusWeeks(passos);
+            // Sempre a partir da primeira: dia 31 vira 30/28 nos meses curtos e volta a 31 depois
+            case MENSAL -> inicio.plusMonths(passos);
+        };
+    }
+
+    // Índice de uma ocorrência que começa antes de 'horario' (ou 0); a expansão segue dali
+    private long primeiroIndiceAntesDe(LocalDateTime horario) {
+        if (!horario.isAfter(inicio)) {
+            return 0;
+        }
+        ChronoUnit unidade = switch (frequencia) {
+            case DIARIA -> ChronoUnit.DAYS;
+            case SEMANAL -> ChronoUnit.WEEKS;
+            case MENSAL -> ChronoUnit.MONTHS;
+        };
+        return Math.max(0, unidade.between(inicio, horario) / intervalo - 1);
+    }
+}
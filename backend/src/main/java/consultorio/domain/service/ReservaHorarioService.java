@@ -0,0 +1,239 @@
+package consultorio.consultorio.domain.service;
+
+import consultorio.consultorio.domain.entity.ReservaHorario;
+import consultorio.consultorio.domain.exception.BusinessException;
+import consultorio.consultorio.domain.repository.ReservaHorarioRepository;
+import consultorio.consultorio.utils.Transacoes;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reservas temporárias de horário (ex.: 3 minutos enquanto a recepção
+ * cadastra o paciente), tratadas como ocupadas pela checagem de
+ * disponibilidade e pela marcação de quem não tem o token.
+ *
+ * A tabela reserva_horario é a fonte da verdade entre os nós. Em memória fica,
+ * por dentista, uma cópia das reservas válidas, lida do banco no primeiro
+ * acesso e relida a cada agenda.reserva.releitura-segundos; as feitas neste nó
+ * entram nela assim que gravadas. Consultas de disponibilidade respondem só
+ * com essa cópia (a reserva de outro nó aparece na releitura seguinte); quem
+ * grava, sob o lock do dentista, confirma no banco (temConflitoNoBanco).
+ *
+ * A expiração não varre nada: em memória, uma fila por vencimento descarta só
+ * as do topo que já venceram; no banco, toda consulta ignora as vencidas e
+ * cada nova reserva apaga as vencidas do mesmo dentista.
+ */
+@Slf4j
+@Service
+@Transactional
+public class ReservaHorarioService {
+
+    private static final Comparator<ReservaHorario> POR_INICIO = Comparator
+            .comparing(ReservaHorario::getInicio)
+            .thenComparing(ReservaHorario::getId);
+
+    private final ReservaHorarioRepository repository;
+    private final Duration validade;
+    private final Duration releitura;
+
+    private final Map<Long, ReservasDentista> porDentista = new ConcurrentHashMap<>();
+
+    public ReservaHorarioService(ReservaHorarioRepository repository,
+                                 @Value("${agenda.reserva.validade-segundos:180}") long validadeSegundos,
+                                 @Value("${agenda.reserva.releitura-segundos:15}") long releituraSegundos) {
+        this.repository = repository;
+        this.validade = Duration.ofSeconds(validadeSegundos);
+        this.releitura = Duration.ofSeconds(releituraSegundos);
+    }
+
+    /**
+     * Grava a reserva. Quem chama já tomou o lock do dentista e conferiu o
+     * horário (ver AgendaService.reservarHorario).
+     */
+    public ReservaHorario reservar(Long dentistaId, LocalDateTime inicio, LocalDateTime fim) {
+        LocalDateTime agora = LocalDateTime.now();
+        repository.deleteVencidas(dentistaId, agora);
+
+        ReservaHorario reserva = repository.save(ReservaHorario.builder()
+                .id(UUID.randomUUID().toString())
+                .dentistaId(dentistaId)
+                .inicio(inicio)
+                .fim(fim)
+                .expiraEm(agora.plus(validade))
+                .dataCriacao(agora)
+                .build());
+
+        Transacoes.aposCommit(() -> registrar(reserva));
+        log.info("Horário {} reservado para dentista ID {} até {}", inicio, dentistaId, reserva.getExpiraEm());
+        return reserva;
+    }
+
+    /**
+     * Há reserva válida, de outra pessoa, sobre [inicio, fim)? Responde pela
+     * cópia em memória, sem ir ao banco (fora a releitura periódica).
+     *
+     * @param ignorarId token de quem está marcando (nulo = nenhum)
+     */
+    public boolean temConflito(Long dentistaId, LocalDateTime inicio, LocalDateTime fim, String ignorarId) {
+        return !carregar(dentistaId).naFaixa(inicio, fim, ignorarId, LocalDateTime.now()).isEmpty();
+    }
+
+    /**
+     * Como temConflito, mas um "livre" é confirmado no banco, que vê também o
+     * que outros nós reservaram desde a última releitura. Para quem vai
+     * gravar, já com o lock do dentista.
+     */
+    public boolean temConflitoNoBanco(Long dentistaId, LocalDateTime inicio, LocalDateTime fim, String ignorarId) {
+        LocalDateTime agora = LocalDateTime.now();
+        ReservasDentista emMemoria = porDentista.get(dentistaId);
+        if (emMemoria != null && !emMemoria.naFaixa(inicio, fim, ignorarId, agora).isEmpty()) {
+            return true;
+        }
+        return repository.existsConflito(dentistaId, inicio, fim, agora, ignorarId);
+    }
+
+    /**
+     * Reservas válidas sobre [inicio, fim), da cópia em memória: para grades
+     * de horários livres, que podem errar por uma releitura.
+     */
+    public List<ReservaHorario> reservasNaFaixa(Long dentistaId, LocalDateTime inicio, LocalDateTime fim) {
+        return carregar(dentistaId).naFaixa(inicio, fim, null, LocalDateTime.now());
+    }
+
+    /**
+     * Reservas válidas sobre [inicio, fim), numa consulta só: para quem confere
+     * muitos horários de uma vez (lotes, importação) em vez de um por um.
+     */
+    public List<ReservaHorario> validasNaFaixa(Long dentistaId, LocalDateTime inicio, LocalDateTime fim) {
+        return repository.findValidasNaFaixa(dentistaId, inicio, fim, LocalDateTime.now());
+    }
+
+    /**
+     * Libera a reserva antes do vencimento (desistência ou consulta marcada).
+     */
+    public void liberar(String id) {
+        repository.deleteById(id);
+        Transacoes.aposCommit(() -> descartar(id));
+    }
+
+    public ReservaHorario buscarValidaOuFalhar(String id) {
+        return repository.findById(id)
+                .filter(reserva -> reserva.getExpiraEm().isAfter(LocalDateTime.now()))
+                .orElseThrow(() -> new BusinessException("Reserva de horário não encontrada ou vencida: " + id));
+    }
+
+    // ============================================================
+    // MÉTODOS AUXILIARES
+    // ============================================================
+
+    private ReservasDentista carregar(Long dentistaId) {
+        ReservasDentista atual = porDentista.get(dentistaId);
+        if (atual != null && atual.valido(LocalDateTime.now())) {
+            return atual;
+        }
+        // Leituras concorrentes do mesmo dentista esperam esta terminar e a aproveitam
+        return porDentista.compute(dentistaId, (id, existente) -> {
+            LocalDateTime agora = LocalDateTime.now();
+            if (existente != null && existente.valido(agora)) {
+                return existente;
+            }
+            ReservasDentista lidas = new ReservasDentista(agora.plus(releitura));
+            repository.findValidasDoDentista(id, agora).forEach(lidas::adicionar);
+            return lidas;
+        });
+    }
+
+    /**
+     * Reflete uma reserva já gravada. Se o dentista ainda não está em memória,
+     * a leitura do banco feita aqui já a traz; adicionar de novo não duplica.
+     */
+    private void registrar(ReservaHorario reserva) {
+        carregar(reserva.getDentistaId()).adicionar(reserva);
+    }
+
+    private void descartar(String id) {
+        porDentista.values().forEach(reservas -> reservas.remover(id));
+    }
+
+    // ============================================================
+    // ESTRUTURAS INTERNAS
+    // ============================================================
+
+    private static final class ReservasDentista {
+        private final LocalDateTime validoAte;
+
+        // Protegidos pela própria instância
+        private final Map<String, ReservaHorario> porId = new HashMap<>();
+        private final NavigableSet<ReservaHorario> porInicio = new TreeSet<>(POR_INICIO);
+        private final PriorityQueue<ReservaHorario> porVencimento =
+                new PriorityQueue<>(Comparator.comparing(ReservaHorario::getExpiraEm));
+
+        private ReservasDentista(LocalDateTime validoAte) {
+            this.validoAte = validoAte;
+        }
+
+        private boolean valido(LocalDateTime agora) {
+            return agora.isBefore(validoAte);
+        }
+
+        private synchronized void adicionar(ReservaHorario reserva) {
+            remover(reserva.getId());
+            porId.put(reserva.getId(), reserva);
+            porInicio.add(reserva);
+            porVencimento.add(reserva);
+        }
+
+        private synchronized void remover(String id) {
+            ReservaHorario reserva = porId.remove(id);
+            if (reserva != null) {
+                porInicio.remove(reserva);
+                // Fica na fila de vencimento até chegar ao topo; lá é reconhecida como já descartada
+            }
+        }
+
+        private synchronized List<ReservaHorario> naFaixa(LocalDateTime inicio, LocalDateTime fim,
+                                                          String ignorarId, LocalDateTime agora) {
+            expirar(agora);
+            List<ReservaHorario> resultado = new ArrayList<>();
+            // Só as que começam antes de 'fim' podem se sobrepor
+            for (ReservaHorario reserva : porInicio) {
+                if (!reserva.getInicio().isBefore(fim)) {
+                    break;
+                }
+                if (reserva.getFim().isAfter(inicio) && !reserva.getId().equals(ignorarId)) {
+                    resultado.add(reserva);
+                }
+            }
+            return resultado;
+        }
+
+        /**
+         * Retira do topo da fila só as reservas vencidas: custo proporcional ao
+         * que venceu, não ao total de reservas.
+         */
+        private void expirar(LocalDateTime agora) {
+            ReservaHorario topo;
+            while ((topo = porVencimento.peek()) != null && !topo.getExpiraEm().isAfter(agora)) {
+                porVencimento.poll();
+                if (porId.remove(topo.getId(), topo)) {
+                    porInicio.remove(topo);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package consultorio.consultorio.domain.service;
+
+import consultorio.consultorio.domain.entity.PlanoTratamento;
+import consultorio.consultorio.domain.entity.Procedimento;
+import consultorio.consultorio.domain.entity.Recurso;
+import consultorio.consultorio.domain.exception.BusinessException;
+import consultorio.consultorio.domain.repository.PlanoTratamentoRepository;
+import consultorio.consultorio.domain.repository.ProcedimentoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Sugestão de agenda para os itens do plano de tratamento de um paciente:
+ * uma sessão por item, na ordem do plano, com intervalo mínimo em dias entre
+ * sessões, dentro do expediente livre do dentista, com os recursos do
+ * procedimento livres e, de preferência, nos horários pedidos pelo paciente.
+ *
+ * A busca inteira tem tempo limitado (agenda.sugestao.orcamento-ms):
+ *  1. guloso: cada item pega o primeiro horário preferido, aceitando o
+ *     primeiro horário qualquer se o preferido custar mais dias de espera
+ *     do que vale a preferência. Se o orçamento acaba aqui, os itens ainda
+ *     sem horário voltam como pendentes e a sugestão sai parcial;
+ *  2. melhoria local: troca a sessão k por outro candidato e refaz, pelo
+ *     critério guloso, as sessões seguintes; fica com a troca se o custo cai.
+ *     Para quando nenhuma troca melhora ou o orçamento acaba.
+ *
+ * As grades do dia (OcupacaoDiaria) são montadas uma vez por dentista/dia/
+ * procedimento e reaproveitadas por todas as tentativas; as alocações de
+ * recursos do horizonte inteiro vêm de uma consulta só. Nada é gravado:
+ * a recepção confirma a sugestão marcando as sessões (POST /agenda/lote).
+ */
+@Slf4j
+@Service
+public class SugestaoAgendaService {
+
+    // Até quantos dias depois do limite inferior procurar uma sessão
+    private static final int HORIZONTE_DIAS = 120;
+
+    // Quanto vale, em dias de espera, uma sessão fora do horário preferido
+    private static final int PESO_FORA_DA_PREFERENCIA = 7;
+
+    // Item que não coube no horizonte: pior que qualquer atraso
+    private static final int PESO_PENDENTE = 100_000;
+
+    // Candidatos por sessão na melhoria local: os mais cedo e os logo depois da sessão atual
+    private static final int CANDIDATOS_ANTES = 3;
+    private static final int CANDIDATOS_DEPOIS = 3;
+
+    private static final int DURACAO_PADRAO_MINUTOS = 30;
+
+    private final PlanoTratamentoRepository planoRepository;
+    private final ProcedimentoRepository procedimentoRepository;
+    private final HorarioLivreService horarioLivreService;
+    private final RecursoService recursoService;
+    private final long orcamentoNanos;
+
+    public SugestaoAgendaService(PlanoTratamentoRepository planoRepository,
+                                 ProcedimentoRepository procedimentoRepository,
+                                 HorarioLivreService horarioLivreService,
+                                 RecursoService recursoService,
+                                 @Value("${agenda.sugestao.orcamento-ms:150}") long orcamentoMs) {
+        this.planoRepository = planoRepository;
+        this.procedimentoRepository = procedimentoRepository;
+        this.horarioLivreService = horarioLivreService;
+        this.recursoService = recursoService;
+        this.orcamentoNanos = TimeUnit.MILLISECONDS.toNanos(orcamentoMs);
+    }
+
+    @Transactional(readOnly = true)
+    public Sugestao sugerir(Long pacienteId, Pedido pedido) {
+        long inicioBusca = System.nanoTime();
+        long prazo = inicioBusca + orcamentoNanos;
+
+        LocalDateTime agora = LocalDateTime.now();
+        LocalDateTime aPartirDe = pedido.aPartirDe() == null || pedido.aPartirDe().isBefore(agora)
+                ? agora : pedido.aPartirDe();
+        Busca busca = new Busca(itens(pacienteId, pedido), pedido, aPartirDe, prazo);
+
+        List<Sessao> atual = busca.completar(List.of());
+        int custo = busca.custo(atual);
+        int melhorias = 0;
+
+        boolean melhorou = true;
+        while (melhorou && !busca.esgotado) {
+            melhorou = false;
+            for (int k = 0; k < atual.size() && !melhorou && !busca.esgotado; k++) {
+                for (Sessao candidata : busca.alternativas(k, atual)) {
+                    if (busca.esgotou()) {
+                        break;
+                    }
+                    List<Sessao> fixas = new ArrayList<>(atual.subList(0, k));
+                    fixas.add(candidata);
+                    List<Sessao> vizinha = busca.completar(fixas);
+                    int custoVizinha = busca.custo(vizinha);
+                    // Vizinha montada pela metade (orçamento acabou no meio) não conta
+                    if (!busca.esgotado && custoVizinha < custo) {
+                        atual = vizinha;
+                        custo = custoVizinha;
+                        melhorias++;
+                        melhorou = true;
+                        break;
+                    }
+                }
+            }
+        }
+
+        List<Long> pendentes = busca.itens.subList(atual.size(), busca.itens.size()).stream()
+                .map(item -> item.plano().getId())
+                .toList();
+        long duracaoMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicioBusca);
+        log.debug("Sugestão de agenda do paciente ID {}: {} sessão(ões), {} pendente(s), custo {}, {} melhoria(s), {} ms{}",
+                pacienteId, atual.size(), pendentes.size(), custo, melhorias, duracaoMs,
+                busca.esgotado ? " (orçamento esgotado)" : "");
+        return new Sugestao(atual, pendentes, custo, melhorias, !busca.esgotado, duracaoMs);
+    }
+
+    // ============================================================
+    // MÉTODOS AUXILIARES
+    // ============================================================
+
+    /**
+     * Itens do plano na ordem pedida (ou na ordem de cadastro), já com
+     * dentista, duração e recursos resolvidos.
+     */
+    private List<Item> itens(Long pacienteId, Pedido pedido) {
+        List<PlanoTratamento> planos;
+        if (pedido.planoIds() == null || pedido.planoIds().isEmpty()) {
+            planos = planoRepository.findByPacienteId(pacienteId).stream()
+                    .sorted(Comparator.comparing(PlanoTratamento::getId))
+                    .toList();
+        } else {
+            Map<Long, PlanoTratamento> porId = new HashMap<>();
+            planoRepository.findAllById(pedido.planoIds()).forEach(plano -> porId.put(plano.getId(), plano));
+            planos = new ArrayList<>();
+            for (Long id : new LinkedHashSet<>(pedido.planoIds())) {
+                PlanoTratamento plano = porId.get(id);
+                if (plano == null || !plano.getPaciente().getId().equals(pacienteId)) {
+                    throw new BusinessException("Item de plano de tratamento " + id + " não pertence ao paciente " + pacienteId);
+                }
+                planos.add(plano);
+            }
+        }
+        if (planos.isEmpty()) {
+            throw new BusinessException("Paciente " + pacienteId + " não tem itens de plano de tratamento.");
+        }
+
+        Map<String, Procedimento> procedimentos = new HashMap<>();
+        List<Item> itens = new ArrayList<>();
+        for (PlanoTratamento plano : planos) {
+            Long dentistaId = plano.getDentista() != null ? plano.getDentista().getId() : pedido.dentistaId();
+            if (dentistaId == null) {
+                throw new BusinessException("O item " + plano.getId() + " do plano não tem dentista; informe dentistaId.");
+            }
+
+            String chave = plano.getProcedimento().trim().toLowerCase();
+            Procedimento procedimento = procedimentos.computeIfAbsent(chave,
+                    p -> procedimentoRepository.findByNomeIgnoreCase(plano.getProcedimento().trim()).orElse(null));
+            int minutos = procedimento != null && procedimento.getDuracaoMinutos() != null
+                    ? procedimento.getDuracaoMinutos() : DURACAO_PADRAO_MINUTOS;
+            Set<Recurso.Tipo> recursos = procedimento == null ? Set.of() : Set.copyOf(procedimento.getRecursos());
+
+            itens.add(new Item(plano, dentistaId, chave, minutos, recursos));
+        }
+        return itens;
+    }
+
+    private final class Busca {
+
+        private final List<Item> itens;
+        private final Pedido pedido;
+        private final LocalDateTime aPartirDe;
+        private final LocalDate primeiroDia;
+        private final long prazo;
+        private boolean esgotado;
+
+        // Inícios possíveis por dentista/dia/procedimento e por dia da semana/duração
+        private final Map<String, OcupacaoDiaria> grades = new HashMap<>();
+        private final Map<String, OcupacaoDiaria> preferidos = new HashMap<>();
+
+        // Alocações de todos os recursos exigidos no horizonte; lidas no primeiro uso
+        private RecursoService.AlocacoesNaFaixa alocacoes;
+
+        private Busca(List<Item> itens, Pedido pedido, LocalDateTime aPartirDe, long prazo) {
+            this.itens = itens;
+            this.pedido = pedido;
+            this.aPartirDe = aPartirDe;
+            this.primeiroDia = aPartirDe.toLocalDate();
+            this.prazo = prazo;
+        }
+
+        /** O orçamento acabou? Depois de acabar, fica acabado. */
+        boolean esgotou() {
+            if (!esgotado && System.nanoTime() >= prazo) {
+                esgotado = true;
+            }
+            return esgotado;
+        }
+
+        /** Mantém as sessões fixas e agenda os itens seguintes pelo critério guloso. */
+        List<Sessao> completar(List<Sessao> fixas) {
+            List<Sessao> sessoes = new ArrayList<>(fixas);
+            for (int i = fixas.size(); i < itens.size(); i++) {
+                Sessao sessao = primeira(i, limiteInferior(sessoes));
+                if (sessao == null) {
+                    break;
+                }
+                sessoes.add(sessao);
+            }
+            return sessoes;
+        }
+
+        /** Dias de espera somados + penalidade por sessão fora da preferência e por item pendente. */
+        int custo(List<Sessao> sessoes) {
+            int custo = (itens.size() - sessoes.size()) * PESO_PENDENTE;
+            for (Sessao sessao : sessoes) {
+                custo += (int) ChronoUnit.DAYS.between(primeiroDia, sessao.inicio().toLocalDate());
+                if (!sessao.dentroDaPreferencia()) {
+                    custo += PESO_FORA_DA_PREFERENCIA;
+                }
+            }
+            return custo;
+        }
+
+        /** Outros horários para a sessão k: os mais cedo possíveis e os logo depois do atual. */
+        List<Sessao> alternativas(int k, List<Sessao> atual) {
+            Sessao corrente = atual.get(k);
+            List<Sessao> candidatas = new ArrayList<>();
+            coletar(k, limiteInferior(atual.subList(0, k)), CANDIDATOS_ANTES, corrente, candidatas);
+            coletar(k, corrente.inicio().toLocalDate().plusDays(1).atStartOfDay(), CANDIDATOS_DEPOIS, corrente, candidatas);
+            return candidatas;
+        }
+
+        private LocalDateTime limiteInferior(List<Sessao> anteriores) {
+            if (anteriores.isEmpty()) {
+                return aPartirDe;
+            }
+            LocalDate ultimo = anteriores.get(anteriores.size() - 1).inicio().toLocalDate();
+            return ultimo.plusDays(pedido.intervaloMinimoDias()).atStartOfDay();
+        }
+
+        /**
+         * Primeiro horário preferido a partir de 'de'; se antes dele houver um
+         * horário qualquer mais de PESO_FORA_DA_PREFERENCIA dias mais cedo,
+         * fica com esse.
+         */
+        private Sessao primeira(int i, LocalDateTime de) {
+            Item item = itens.get(i);
+            Sessao qualquer = null;
+            LocalDate dia = de.toLocalDate();
+            for (int d = 0; d < HORIZONTE_DIAS && !esgotou(); d++, dia = dia.plusDays(1)) {
+                if (qualquer != null
+                        && ChronoUnit.DAYS.between(qualquer.inicio().toLocalDate(), dia) >= PESO_FORA_DA_PREFERENCIA) {
+                    return qualquer;
+                }
+                int primeiroSlot = d == 0 ? OcupacaoDiaria.slotTeto(de.toLocalTime()) : 0;
+                OcupacaoDiaria inicios = grade(item, dia);
+
+                int preferido = inicios.copia().intersectar(preferidos(item, dia)).proximoLivre(primeiroSlot);
+                if (preferido >= 0) {
+                    return sessao(item, dia, preferido, true);
+                }
+                if (qualquer == null) {
+                    int slot = inicios.proximoLivre(primeiroSlot);
+                    if (slot >= 0) {
+                        qualquer = sessao(item, dia, slot, false);
+                    }
+                }
+            }
+            return qualquer;
+        }
+
+        /** Até 'quantidade' candidatos a partir de 'de': por dia, o primeiro preferido e o primeiro qualquer. */
+        private void coletar(int i, LocalDateTime de, int quantidade, Sessao excluir, List<Sessao> candidatas) {
+            Item item = itens.get(i);
+            int encontrados = 0;
+            LocalDate dia = de.toLocalDate();
+            for (int d = 0; d < HORIZONTE_DIAS && encontrados < quantidade && !esgotou(); d++, dia = dia.plusDays(1)) {
+                int primeiroSlot = d == 0 ? OcupacaoDiaria.slotTeto(de.toLocalTime()) : 0;
+                OcupacaoDiaria inicios = grade(item, dia);
+
+                int preferido = inicios.copia().intersectar(preferidos(item, dia)).proximoLivre(primeiroSlot);
+                int slot = inicios.proximoLivre(primeiroSlot);
+                for (int s : preferido == slot ? new int[]{slot} : new int[]{preferido, slot}) {
+                    if (s < 0 || encontrados >= quantidade) {
+                        continue;
+                    }
+                    Sessao candidata = sessao(item, dia, s, s == preferido);
+                    if (!candidata.inicio().equals(excluir.inicio()) && !candidatas.contains(candidata)) {
+                        candidatas.add(candidata);
+                        encontrados++;
+                    }
+                }
+            }
+        }
+
+        private OcupacaoDiaria grade(Item item, LocalDate dia) {
+            String chave = item.dentistaId() + "|" + dia + "|" + item.procedimento() + "|" + item.minutos();
+            return grades.computeIfAbsent(chave, c -> {
+                int slots = OcupacaoDiaria.slotsPara(item.minutos());
+                OcupacaoDiaria inicios = horarioLivreService.disponibilidade(item.dentistaId(), dia).iniciosPossiveis(slots);
+                if (!item.recursos().isEmpty()) {
+                    inicios.intersectar(iniciosDosRecursos(item, dia, slots));
+                }
+                return inicios;
+            });
+        }
+
+        /**
+         * Dias do horizonte saem das alocações lidas de uma vez; os que passam
+         * dele (itens tardios de planos longos) vão ao banco dia a dia.
+         */
+        private OcupacaoDiaria iniciosDosRecursos(Item item, LocalDate dia, int slots) {
+            if (alocacoes == null) {
+                Set<Recurso.Tipo> todos = itens.stream()
+                        .flatMap(i -> i.recursos().stream())
+                        .collect(Collectors.toCollection(() -> EnumSet.noneOf(Recurso.Tipo.class)));
+                alocacoes = recursoService.alocacoesNaFaixa(todos, primeiroDia, primeiroDia.plusDays(HORIZONTE_DIAS));
+            }
+            return alocacoes.cobre(dia)
+                    ? alocacoes.iniciosLivres(item.recursos(), dia, slots)
+                    : recursoService.iniciosLivres(item.recursos(), dia, slots);
+        }
+
+        private OcupacaoDiaria preferidos(Item item, LocalDate dia) {
+            DayOfWeek diaSemana = dia.getDayOfWeek();
+            String chave = diaSemana + "|" + item.minutos();
+            return preferidos.computeIfAbsent(chave, c -> {
+                if (pedido.preferencias() == null || pedido.preferencias().isEmpty()) {
+                    return OcupacaoDiaria.livre();
+                }
+                OcupacaoDiaria janelas = OcupacaoDiaria.fechado();
+                for (Preferencia preferencia : pedido.preferencias()) {
+                    if (preferencia.diaSemana() == null || preferencia.diaSemana() == diaSemana) {
+                        janelas.liberar(minutos(preferencia.inicio()), minutos(preferencia.fim()));
+                    }
+                }
+                return janelas.iniciosPossiveis(OcupacaoDiaria.slotsPara(item.minutos()));
+            });
+        }
+
+        private Sessao sessao(Item item, LocalDate dia, int slot, boolean preferido) {
+            LocalDateTime inicio = dia.atTime(OcupacaoDiaria.horario(slot));
+            PlanoTratamento plano = item.plano();
+            return new Sessao(plano.getId(), plano.getDente(), plano.getProcedimento(), item.dentistaId(),
+                    inicio, inicio.plusMinutes(item.minutos()), item.minutos(), preferido);
+        }
+    }
+
+    private static int minutos(LocalTime horario) {
+        return horario.getHour() * 60 + horario.getMinute();
+    }
+
+    private record Item(PlanoTratamento plano, Long dentistaId, String procedimento, int minutos,
+                        Set<Recurso.Tipo> recursos) {
+    }
+
+    /**
+     * @param planoIds            itens a agendar, nesta ordem (vazio = todos do paciente, por ordem de cadastro)
+     * @param dentistaId          dentista dos itens do plano que não têm um
+     * @param intervaloMinimoDias dias mínimos entre o início de duas sessões seguidas (>= 1)
+     * @param preferencias        janelas em que o paciente prefere ser atendido (vazio = qualquer horário)
+     */
+    public record Pedido(List<Long> planoIds, Long dentistaId, LocalDateTime aPartirDe,
+                         int intervaloMinimoDias, List<Preferencia> preferencias) {
+    }
+
+    /** Janela preferida; diaSemana nulo vale para todos os dias. */
+    public record Preferencia(DayOfWeek diaSemana, LocalTime inicio, LocalTime fim) {
+    }
+
+    public record Sessao(Long planoTratamentoId, String dente, String procedimento, Long dentistaId,
+                         LocalDateTime inicio, LocalDateTime fim, int tempoConsultaMinutos,
+                         boolean dentroDaPreferencia) {
+    }
+
+    /**
+     * @param pendentes itens que não couberam no horizonte de busca
+     * @param convergiu false se o orçamento de tempo acabou antes de a busca parar sozinha
+     *                  (no guloso, a sugestão é parcial e os itens sem horário vão para pendentes)
+     */
+    public record Sugestao(List<Sessao> sessoes, List<Long> pendentes, int custo, int melhorias,
+                           boolean convergiu, long duracaoMs) {
+    }
+}
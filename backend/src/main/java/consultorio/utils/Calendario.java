@@ -0,0 +1,59 @@
+package consultorio.consultorio.utils;
+
+import consultorio.consultorio.domain.entity.Agenda;
+import consultorio.consultorio.domain.exception.BusinessException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Regras de calendário que dependem só da própria agenda, usadas pela entidade
+ * Agenda (@PrePersist/@PreUpdate) e pelos serviços.
+ *
+ * Expediente e bloqueios dependem do banco e ficam no CalendarioService,
+ * chamado pelos serviços antes de gravar (ver CalendarioService.validarAgendamento).
+ */
+public final class Calendario {
+
+    public static final int DURACAO_MAXIMA_MINUTOS = 8 * 60;
+
+    private static final List<TempoConsulta> TEMPOS_CONSULTA = List.of(
+            new TempoConsulta(20, "20 minutos"),
+            new TempoConsulta(30, "30 minutos"),
+            new TempoConsulta(60, "1 hora"),
+            new TempoConsulta(120, "2 horas"),
+            new TempoConsulta(180, "3 horas"));
+
+    private Calendario() {
+    }
+
+    public static void validarAgendamento(Agenda agenda) {
+        if (agenda.getHorario() == null) {
+            throw new BusinessException("O horário do agendamento é obrigatório.");
+        }
+        if (agenda.getDentista() == null || agenda.getDentista().getId() == null) {
+            throw new BusinessException("O dentista do agendamento é obrigatório.");
+        }
+
+        Integer minutos = agenda.getTempoConsultaMinutos();
+        if (minutos != null && (minutos <= 0 || minutos > DURACAO_MAXIMA_MINUTOS)) {
+            throw new BusinessException("Tempo de consulta deve estar entre 1 e " + DURACAO_MAXIMA_MINUTOS + " minutos.");
+        }
+    }
+
+    public static LocalDateTime calcularHorarioFim(LocalDateTime horario, int tempoConsultaMinutos) {
+        return horario.plusMinutes(tempoConsultaMinutos);
+    }
+
+    public static Duration calcularDuracaoConsulta(int tempoConsultaMinutos) {
+        return Duration.ofMinutes(tempoConsultaMinutos);
+    }
+
+    public static List<TempoConsulta> getTemposConsultaDisponiveis() {
+        return TEMPOS_CONSULTA;
+    }
+
+    public record TempoConsulta(int minutos, String descricao) {
+    }
+}
@@ -0,0 +1,317 @@
+package consultorio.consultorio.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneOffsetTransitionRule;
+import java.time.zone.ZoneRules;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Linhas de conteúdo iCalendar (RFC 5545). Na escrita: escape de texto,
+ * dobra em 75 octetos e CRLF no fim de cada linha. Na leitura: Leitor
+ * desdobra as linhas uma a uma, sem carregar o arquivo.
+ */
+public final class ICalendar {
+
+    public static final DateTimeFormatter DATA_HORA_UTC = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    public static final DateTimeFormatter DATA_HORA_LOCAL = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    public static final DateTimeFormatter DATA = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final int MAXIMO_OCTETOS = 75;
+    private static final String FIM_LINHA = "\r\n";
+
+    private ICalendar() {
+    }
+
+    /**
+     * Escreve "nome:valor", dobrando a linha (CRLF + espaço) sempre que passaria
+     * de 75 octetos em UTF-8, sem partir um caractere no meio.
+     */
+    public static void linha(Writer saida, String nome, String valor) throws IOException {
+        String conteudo = nome + ":" + valor;
+        int octetos = 0;
+        for (int i = 0; i < conteudo.length(); ) {
+            int codePoint = conteudo.codePointAt(i);
+            int tamanho = octetosUtf8(codePoint);
+            if (octetos + tamanho > MAXIMO_OCTETOS) {
+                saida.write(FIM_LINHA);
+                saida.write(' ');
+                octetos = 1;
+            }
+            saida.write(conteudo, i, Character.charCount(codePoint));
+            octetos += tamanho;
+            i += Character.charCount(codePoint);
+        }
+        saida.write(FIM_LINHA);
+    }
+
+    /**
+     * Escapa um valor do tipo TEXT: barra invertida, vírgula, ponto e vírgula e quebras de linha.
+     */
+    public static String texto(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(valor.length() + 8);
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '\\' -> sb.append("\\\\");
+                case ',' -> sb.append("\\,");
+                case ';' -> sb.append("\\;");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> { }
+                default -> sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Inverso de texto(): "\\n" vira quebra de linha e os escapes somem.
+     */
+    public static String textoOriginal(String valor) {
+        if (valor == null || valor.indexOf('\\') < 0) {
+            return valor;
+        }
+        StringBuilder sb = new StringBuilder(valor.length());
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '\\' && i + 1 < valor.length()) {
+                char seguinte = valor.charAt(++i);
+                sb.append(seguinte == 'n' || seguinte == 'N' ? '\n' : seguinte);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    public static String utc(LocalDateTime horario, ZoneId fuso) {
+        return DATA_HORA_UTC.format(horario.atZone(fuso).withZoneSameInstant(ZoneOffset.UTC));
+    }
+
+    /**
+     * VTIMEZONE do fuso com as mudanças de deslocamento a partir de 'desde': o
+     * deslocamento vigente naquele dia, as transições registradas depois dele e,
+     * se o fuso ainda muda de horário, as regras anuais como RRULE. Antes de
+     * 'desde' vale o deslocamento daquele dia.
+     */
+    public static void fuso(Writer saida, ZoneId fuso, LocalDate desde) throws IOException {
+        ZoneRules regras = fuso.getRules();
+        Instant corte = desde.atStartOfDay(fuso).toInstant();
+        ZoneOffset vigente = regras.getOffset(corte);
+
+        linha(saida, "BEGIN", "VTIMEZONE");
+        linha(saida, "TZID", fuso.getId());
+        observancia(saida, regras.isDaylightSavings(corte), LocalDateTime.of(1970, 1, 1, 0, 0), vigente, vigente, null);
+
+        List<ZoneOffsetTransition> transicoes = regras.getTransitions();
+        for (ZoneOffsetTransition transicao : transicoes) {
+            if (transicao.getInstant().isAfter(corte)) {
+                observancia(saida, regras.isDaylightSavings(transicao.getInstant()), transicao.getDateTimeBefore(),
+                        transicao.getOffsetBefore(), transicao.getOffsetAfter(), null);
+            }
+        }
+
+        // As regras anuais valem a partir do ano seguinte à última transição registrada
+        int ano = transicoes.isEmpty() ? desde.getYear()
+                : transicoes.get(transicoes.size() - 1).getDateTimeAfter().getYear() + 1;
+        for (ZoneOffsetTransitionRule regra : regras.getTransitionRules()) {
+            ZoneOffsetTransition primeira = regra.createTransition(ano);
+            observancia(saida, !regra.getOffsetAfter().equals(regra.getStandardOffset()), primeira.getDateTimeBefore(),
+                    regra.getOffsetBefore(), regra.getOffsetAfter(), regraAnual(regra));
+        }
+        linha(saida, "END", "VTIMEZONE");
+    }
+
+    private static void observancia(Writer saida, boolean verao, LocalDateTime inicio, ZoneOffset de, ZoneOffset para,
+                                    String rrule) throws IOException {
+        String tipo = verao ? "DAYLIGHT" : "STANDARD";
+        linha(saida, "BEGIN", tipo);
+        linha(saida, "DTSTART", DATA_HORA_LOCAL.format(inicio));
+        if (rrule != null) {
+            linha(saida, "RRULE", rrule);
+        }
+        linha(saida, "TZOFFSETFROM", deslocamento(de));
+        linha(saida, "TZOFFSETTO", deslocamento(para));
+        linha(saida, "END", tipo);
+    }
+
+    // "dia da semana no dia N ou depois" vira BYDAY + sete BYMONTHDAY; contado do fim do mês, negativos
+    private static String regraAnual(ZoneOffsetTransitionRule regra) {
+        StringBuilder rrule = new StringBuilder("FREQ=YEARLY;BYMONTH=").append(regra.getMonth().getValue());
+        int dia = regra.getDayOfMonthIndicator();
+        if (regra.getDayOfWeek() == null) {
+            return rrule.append(";BYMONTHDAY=").append(dia).toString();
+        }
+        rrule.append(";BYDAY=").append(regra.getDayOfWeek().name(), 0, 2).append(";BYMONTHDAY=");
+        int primeiro = dia > 0 ? dia : dia - 6;
+        for (int d = primeiro; d < primeiro + 7 && d <= 31; d++) {
+            rrule.append(d == primeiro ? "" : ",").append(d);
+        }
+        return rrule.toString();
+    }
+
+    // TZOFFSETFROM/TO: "+HHMM" (segundos só quando houver)
+    private static String deslocamento(ZoneOffset offset) {
+        return ZoneOffset.UTC.equals(offset) ? "+0000" : offset.getId().replace(":", "");
+    }
+
+    private static int octetosUtf8(int codePoint) {
+        if (codePoint < 0x80) {
+            return 1;
+        }
+        if (codePoint < 0x800) {
+            return 2;
+        }
+        return codePoint < 0x10000 ? 3 : 4;
+    }
+
+    /**
+     * Data/hora de DTSTART/DTEND/EXDATE no relógio do fuso informado: UTC
+     * ("Z"), com TZID ou flutuante (já no horário local). Nulo para datas
+     * sem hora (VALUE=DATE, eventos de dia inteiro).
+     */
+    public static LocalDateTime dataHora(Propriedade propriedade, ZoneId fuso) {
+        String valor = propriedade.valor().trim();
+        if (valor.length() == 8 || "DATE".equalsIgnoreCase(propriedade.parametro("VALUE"))) {
+            return null;
+        }
+        if (valor.endsWith("Z")) {
+            return LocalDateTime.parse(valor, DATA_HORA_UTC).atOffset(ZoneOffset.UTC)
+                    .atZoneSameInstant(fuso).toLocalDateTime();
+        }
+        LocalDateTime local = LocalDateTime.parse(valor, DATA_HORA_LOCAL);
+        String tzid = propriedade.parametro("TZID");
+        if (tzid == null) {
+            return local;
+        }
+        try {
+            return local.atZone(ZoneId.of(tzid)).withZoneSameInstant(fuso).toLocalDateTime();
+        } catch (DateTimeException e) {
+            // TZID fora do banco IANA (ex.: nomes do Windows): assume o fuso da clínica
+            return local;
+        }
+    }
+
+    public static LocalDate data(String valor) {
+        return LocalDate.parse(valor.trim().substring(0, 8), DATA);
+    }
+
+    /**
+     * DURATION do RFC 5545 ("PT1H30M", "P1D", "P2W"); semanas não são aceitas por Duration.parse.
+     */
+    public static Duration duracao(String valor) {
+        String texto = valor.trim();
+        int semanas = texto.indexOf('W');
+        if (semanas > 0) {
+            int inicio = texto.charAt(0) == '-' || texto.charAt(0) == '+' ? 2 : 1;
+            return Duration.ofDays(7L * Long.parseLong(texto.substring(inicio, semanas)));
+        }
+        return Duration.parse(texto);
+    }
+
+    // ============================================================
+    // LEITURA
+    // ============================================================
+
+    public record Propriedade(String nome, Map<String, String> parametros, String valor) {
+
+        public String parametro(String nome) {
+            return parametros.get(nome);
+        }
+
+        /**
+         * "NOME;PARAM=x;PARAM2=\"a:b\":valor" -> nome, parâmetros e valor.
+         * Dois-pontos e ponto e vírgula entre aspas não separam nada.
+         */
+        static Propriedade de(String linha) {
+            Map<String, String> parametros = Map.of();
+            String nome = null;
+            int inicioTrecho = 0;
+            boolean entreAspas = false;
+
+            for (int i = 0; i < linha.length(); i++) {
+                char c = linha.charAt(i);
+                if (c == '"') {
+                    entreAspas = !entreAspas;
+                } else if (!entreAspas && (c == ';' || c == ':')) {
+                    String trecho = linha.substring(inicioTrecho, i);
+                    if (nome == null) {
+                        nome = trecho.toUpperCase();
+                    } else {
+                        int igual = trecho.indexOf('=');
+                        if (igual > 0) {
+                            if (parametros.isEmpty()) {
+                                parametros = new HashMap<>();
+                            }
+                            parametros.put(trecho.substring(0, igual).toUpperCase(),
+                                    trecho.substring(igual + 1).replace("\"", ""));
+                        }
+                    }
+                    inicioTrecho = i + 1;
+                    if (c == ':') {
+                        return new Propriedade(nome, parametros, linha.substring(i + 1));
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Lê as propriedades de um .ics em sequência, juntando as linhas
+     * dobradas (continuação começa com espaço ou tab). Linhas sem ":" são ignoradas.
+     */
+    public static final class Leitor {
+
+        private final BufferedReader entrada;
+        private String pendente;
+
+        public Leitor(BufferedReader entrada) {
+            this.entrada = entrada;
+        }
+
+        /**
+         * Próxima propriedade, ou nulo no fim do arquivo.
+         */
+        public Propriedade proxima() throws IOException {
+            while (true) {
+                String linha = pendente != null ? pendente : entrada.readLine();
+                pendente = null;
+                if (linha == null) {
+                    return null;
+                }
+
+                StringBuilder completa = null;
+                String seguinte;
+                while ((seguinte = entrada.readLine()) != null
+                        && !seguinte.isEmpty() && (seguinte.charAt(0) == ' ' || seguinte.charAt(0) == '\t')) {
+                    if (completa == null) {
+                        completa = new StringBuilder(linha);
+                    }
+                    completa.append(seguinte, 1, seguinte.length());
+                }
+                pendente = seguinte;
+
+                Propriedade propriedade = Propriedade.de(completa != null ? completa.toString() : linha);
+                if (propriedade != null) {
+                    return propriedade;
+                }
+            }
+        }
+    }
+}
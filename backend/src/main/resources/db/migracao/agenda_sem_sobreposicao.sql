@@ -0,0 +1,27 @@
+-- Restrição de exclusão: duas agendas do mesmo dentista não se sobrepõem.
+--
+-- A marcação já é serializada por dentista (AgendamentoLocks) e conferida no
+-- banco antes do INSERT; esta restrição é a última barreira para o que for
+-- gravado por fora desse caminho (SQL manual, versões antigas da aplicação).
+-- Ocorrências de séries recorrentes não são linhas da tabela e não entram aqui.
+--
+-- A faixa é [horario, horario + duração), a mesma de existsConflito: consultas
+-- encostadas (uma termina quando a outra começa) continuam permitidas. Agendas
+-- sem duração viram uma faixa vazia e não participam.
+--
+-- Rodar uma vez. Se já houver sobreposições, o ALTER TABLE falha; para listá-las:
+--
+--   SELECT a.id, b.id, a.dentista_id, a.horario, b.horario
+--   FROM agenda a JOIN agenda b
+--     ON a.dentista_id = b.dentista_id AND a.id < b.id
+--    AND tsrange(a.horario, a.horario + make_interval(mins => COALESCE(a.tempo_consulta_minutos, 0)))
+--     && tsrange(b.horario, b.horario + make_interval(mins => COALESCE(b.tempo_consulta_minutos, 0)));
+
+-- '=' sobre bigint dentro de um índice GiST
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+ALTER TABLE agenda DROP CONSTRAINT IF EXISTS agenda_sem_sobreposicao;
+ALTER TABLE agenda ADD CONSTRAINT agenda_sem_sobreposicao EXCLUDE USING gist (
+    dentista_id WITH =,
+    tsrange(horario, horario + make_interval(mins => COALESCE(tempo_consulta_minutos, 0))) WITH &&
+);
@@ -0,0 +1,41 @@
+-- Migração de IDENTITY para sequences com pooled-lo (allocationSize = 50).
+--
+-- Rodar uma vez, com a aplicação parada, antes de subir a versão que usa
+-- GenerationType.SEQUENCE. O ddl-auto=update cria sequences ausentes começando
+-- em 1, o que colidiria com os IDs já gravados; aqui cada sequence começa logo
+-- após o maior ID da tabela.
+--
+-- pooled-lo: cada nextval devolve o primeiro ID de um bloco de 50
+-- (valor .. valor + 49), por isso INCREMENT BY 50 e setval em max(id) + 1.
+
+DO $$
+DECLARE
+    tabela text;
+    proximo bigint;
+BEGIN
+    FOREACH tabela IN ARRAY ARRAY[
+        -- consultorio.domain.entity
+        'agenda', 'paciente', 'dentista', 'plano_tratamento', 'evolucao_tratamento',
+        -- com.consultorio.domain
+        'agendamentos', 'dentistas', 'pacientes', 'usuarios', 'profissional',
+        'prontuario_odontologico', 'anamneses', 'fichas_medica'
+    ]
+    LOOP
+        IF to_regclass(tabela) IS NULL THEN
+            RAISE NOTICE 'Tabela % não existe, ignorada', tabela;
+            CONTINUE;
+        END IF;
+
+        EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %I INCREMENT BY 50', tabela || '_seq');
+        EXECUTE format('ALTER SEQUENCE %I INCREMENT BY 50', tabela || '_seq');
+
+        EXECUTE format('SELECT COALESCE(MAX(id), 0) + 1 FROM %I', tabela) INTO proximo;
+        EXECUTE format('SELECT setval(%L, %s, false)', tabela || '_seq', proximo);
+
+        -- O ID passa a vir da aplicação; a coluna deixa de ser IDENTITY/serial
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP IDENTITY IF EXISTS', tabela);
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP DEFAULT', tabela);
+
+        RAISE NOTICE 'Tabela %: sequence %_seq a partir de %', tabela, tabela, proximo;
+    END LOOP;
+END $$;
@@ -0,0 +1,15 @@
+-- Listagem de pacientes por cursor (dataCadastro, id).
+--
+-- Linhas sem data_cadastro (gravadas antes do @CreationTimestamp ou por fora
+-- da aplicação) são listadas antes de todas, numa faixa própria do cursor;
+-- recebem a data da última alteração ou a de agora para voltarem à ordem de
+-- cadastro junto com as demais. O índice também é
+-- criado pelo ddl-auto=update, mas com bloqueio de escrita na tabela: em bases
+-- grandes, rodar este script antes, com a aplicação no ar.
+
+UPDATE pacientes
+   SET data_cadastro = COALESCE(data_atualizacao, now())
+ WHERE data_cadastro IS NULL;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_pacientes_data_cadastro_id
+    ON pacientes (data_cadastro, id);
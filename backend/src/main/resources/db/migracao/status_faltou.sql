@@ -0,0 +1,9 @@
+-- Novo status FALTOU em agendamentos.
+--
+-- O Hibernate cria a coluna de enum com um CHECK listando os valores da época;
+-- o ddl-auto=update não refaz essa restrição, então o fechamento do dia falharia
+-- ao gravar FALTOU. Rodar uma vez antes de subir a versão com o novo status.
+
+ALTER TABLE agendamentos DROP CONSTRAINT IF EXISTS agendamentos_status_check;
+ALTER TABLE agendamentos ADD CONSTRAINT agendamentos_status_check
+    CHECK (status IN ('AGENDADO', 'CONFIRMADO', 'CANCELADO', 'REALIZADO', 'FALTOU'));
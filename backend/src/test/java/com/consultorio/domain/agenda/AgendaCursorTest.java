@@ -0,0 +1,35 @@
+package com.consultorio.domain.agenda;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AgendaCursorTest {
+
+    @Test
+    void idaEVoltaPreservaDataHoraEId() {
+        AgendaCursor cursor = new AgendaCursor(LocalDateTime.of(2030, 1, 7, 8, 30, 15, 500_000_000), 42L);
+
+        assertEquals(cursor, AgendaCursor.decodificar(cursor.codificar()));
+    }
+
+    @Test
+    void mesmoDataHoraComIdsDiferentesSaoPosicoesDiferentes() {
+        LocalDateTime empate = LocalDateTime.of(2030, 1, 7, 9, 0);
+        AgendaCursor primeiro = new AgendaCursor(empate, 1L);
+        AgendaCursor segundo = new AgendaCursor(empate, 2L);
+
+        assertNotEquals(primeiro.codificar(), segundo.codificar());
+        assertEquals(2L, AgendaCursor.decodificar(segundo.codificar()).id());
+    }
+
+    @Test
+    void textoAdulteradoEhRecusado() {
+        assertThrows(IllegalArgumentException.class, () -> AgendaCursor.decodificar("%%%"));
+        assertThrows(IllegalArgumentException.class, () -> AgendaCursor.decodificar("c2VtLXNlcGFyYWRvcg"));
+    }
+}
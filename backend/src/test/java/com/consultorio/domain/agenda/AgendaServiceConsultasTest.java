@@ -0,0 +1,182 @@
+package com.consultorio.domain.agenda;
+
+import com.consultorio.domain.agenda.dto.AgendaFiltroDTO;
+import com.consultorio.domain.agenda.dto.AgendaListDTO;
+import com.consultorio.domain.agenda.dto.AgendaPaginaDTO;
+import com.consultorio.domain.agenda.dto.AgendaResponseDTO;
+import com.consultorio.domain.dentista.Dentista;
+import com.consultorio.domain.paciente.Paciente;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A listagem de agendamentos deve custar um único SELECT, qualquer que seja
+ * o número de linhas (antes: 1 + uma consulta por paciente e por dentista).
+ * A pesquisa por cursor percorre todas as páginas sem repetir nem pular
+ * linhas, inclusive quando várias agendas têm o mesmo dataHora.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import(AgendaService.class)
+class AgendaServiceConsultasTest {
+
+    private static final int DENTISTAS = 3;
+    private static final int PACIENTES = 5;
+    private static final int AGENDAS = 20;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    @Autowired
+    private AgendaService service;
+
+    private Statistics estatisticas;
+    private List<Dentista> dentistas;
+    private List<Paciente> pacientes;
+
+    @BeforeEach
+    void popular() {
+        dentistas = new ArrayList<>();
+        for (int i = 0; i < DENTISTAS; i++) {
+            Dentista d = new Dentista();
+            d.setNome("Dentista " + i);
+            d.setCro("CRO-" + i);
+            dentistas.add(em.persist(d));
+        }
+
+        pacientes = new ArrayList<>();
+        for (int i = 0; i < PACIENTES; i++) {
+            pacientes.add(em.persist(Paciente.builder().nome("Paciente " + i).build()));
+        }
+
+        LocalDateTime inicio = LocalDateTime.of(2030, 1, 7, 8, 0);
+        for (int i = 0; i < AGENDAS; i++) {
+            Agenda a = new Agenda();
+            a.setDentista(dentistas.get(i % DENTISTAS));
+            a.setPaciente(pacientes.get(i % PACIENTES));
+            a.setDataHora(inicio.plusMinutes(30L * i));
+            a.setStatus(StatusAgendamento.AGENDADO);
+            em.persist(a);
+        }
+
+        em.flush();
+        em.clear();
+
+        estatisticas = emf.unwrap(SessionFactory.class).getStatistics();
+        estatisticas.clear();
+    }
+
+    @Test
+    void listarBuscaPacienteEDentistaNoMesmoSelect() {
+        List<AgendaResponseDTO> agendas = service.listar();
+
+        assertEquals(AGENDAS, agendas.size());
+        agendas.forEach(a -> {
+            assertNotNull(a.getPacienteNome());
+            assertNotNull(a.getDentistaNome());
+        });
+        assertEquals(1, estatisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void listarResumoUsaUmaUnicaConsulta() {
+        List<AgendaListDTO> agendas = service.listarResumo();
+
+        assertEquals(AGENDAS, agendas.size());
+        agendas.forEach(a -> {
+            assertNotNull(a.getPacienteNome());
+            assertNotNull(a.getDentistaNome());
+        });
+        assertEquals(1, estatisticas.getPrepareStatementCount());
+        assertEquals(0, estatisticas.getEntityLoadCount());
+    }
+
+    @Test
+    void pesquisaPorCursorPercorreTodasAsPaginas() {
+        List<Integer> tamanhos = new ArrayList<>();
+        List<AgendaListDTO> lidas = percorrer(filtro(7), tamanhos);
+
+        assertEquals(List.of(7, 7, 6), tamanhos);
+
+        assertEquals(AGENDAS, lidas.size());
+        assertEquals(AGENDAS, lidas.stream().map(AgendaListDTO::getId).distinct().count());
+        for (int i = 1; i < lidas.size(); i++) {
+            assertTrue(lidas.get(i).getDataHora().isAfter(lidas.get(i - 1).getDataHora()));
+        }
+    }
+
+    @Test
+    void empateNoDataHoraEhDesfeitoPeloId() {
+        // Cinco agendas no mesmo instante, páginas de 2: o cursor cai no meio do empate
+        LocalDateTime empate = LocalDateTime.of(2031, 3, 3, 9, 0);
+        for (int i = 0; i < 5; i++) {
+            Agenda a = new Agenda();
+            a.setDentista(em.find(Dentista.class, dentistas.get(i % DENTISTAS).getId()));
+            a.setPaciente(em.find(Paciente.class, pacientes.get(i % PACIENTES).getId()));
+            a.setDataHora(empate);
+            a.setStatus(StatusAgendamento.AGENDADO);
+            em.persist(a);
+        }
+        em.flush();
+        em.clear();
+
+        AgendaFiltroDTO filtro = filtro(2);
+        filtro.setInicio(empate);
+        List<Integer> tamanhos = new ArrayList<>();
+        List<AgendaListDTO> lidas = percorrer(filtro, tamanhos);
+
+        assertEquals(List.of(2, 2, 1), tamanhos);
+        assertEquals(lidas.stream().map(AgendaListDTO::getId).sorted().toList(),
+                lidas.stream().map(AgendaListDTO::getId).toList());
+        assertEquals(5, lidas.stream().map(AgendaListDTO::getId).distinct().count());
+        lidas.forEach(a -> assertEquals(empate, a.getDataHora()));
+    }
+
+    @Test
+    void ultimaPaginaNaoTemCursor() {
+        AgendaPaginaDTO pagina = service.pesquisar(filtro(AGENDAS));
+
+        assertEquals(AGENDAS, pagina.getItens().size());
+        assertNull(pagina.getProximoCursor());
+    }
+
+    /** Segue o proximoCursor até o fim; anota o tamanho de cada página. */
+    private List<AgendaListDTO> percorrer(AgendaFiltroDTO filtro, List<Integer> tamanhos) {
+        List<AgendaListDTO> lidas = new ArrayList<>();
+        AgendaPaginaDTO pagina;
+        do {
+            pagina = service.pesquisar(filtro);
+            tamanhos.add(pagina.getItens().size());
+            lidas.addAll(pagina.getItens());
+            filtro.setCursor(pagina.getProximoCursor());
+        } while (pagina.getProximoCursor() != null);
+        return lidas;
+    }
+
+    private static AgendaFiltroDTO filtro(int tamanho) {
+        AgendaFiltroDTO filtro = new AgendaFiltroDTO();
+        filtro.setTamanho(tamanho);
+        return filtro;
+    }
+}
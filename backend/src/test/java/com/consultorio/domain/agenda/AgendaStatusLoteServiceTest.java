@@ -0,0 +1,237 @@
+package com.consultorio.domain.agenda;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Fechamento do dia em lotes de 5.000 linhas e transições de status permitidas
+ * no PATCH em massa. O SKIP LOCKED entre nós precisa de um PostgreSQL:
+ *   mvn test -Dtest=AgendaStatusLoteServiceTest -Dintegracao=true
+ */
+class AgendaStatusLoteServiceTest {
+
+    private static final LocalDateTime CORTE = LocalDateTime.of(2025, 3, 10, 23, 30);
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final List<AgendaEvento> publicados = new ArrayList<>();
+    private final AgendaStatusLoteService service = new AgendaStatusLoteService(jdbc,
+            mock(PlatformTransactionManager.class), evento -> publicados.add((AgendaEvento) evento));
+
+    @Test
+    void fechamentoAndaEmLotesDe5000AteNaoSobrarNada() {
+        List<Linha> tabela = new ArrayList<>();
+        for (long id = 1; id <= 12_345; id++) {
+            tabela.add(new Linha(id, CORTE.minusHours(1 + id % 48), StatusAgendamento.AGENDADO));
+        }
+        for (long id = 20_001; id <= 27_000; id++) {
+            tabela.add(new Linha(id, CORTE.minusDays(2), StatusAgendamento.CONFIRMADO));
+        }
+        // Depois do corte: ficam como estão
+        tabela.add(new Linha(30_001L, CORTE.plusMinutes(30), StatusAgendamento.AGENDADO));
+        tabela.add(new Linha(30_002L, CORTE.plusDays(1), StatusAgendamento.CONFIRMADO));
+
+        List<Integer> limites = new ArrayList<>();
+        when(jdbc.query(eq(AgendaStatusLoteService.FECHAR_LOTE), any(RowMapper.class), any(Object[].class)))
+                .thenAnswer(chamada -> {
+                    Object[] parametros = (Object[]) chamada.getRawArguments()[2];
+                    limites.add((Integer) parametros[3]);
+                    return fecharLote(tabela, chamada.getArgument(1), parametros);
+                });
+
+        AgendaStatusLoteService.ResultadoFechamento resultado = service.fecharAte(CORTE);
+
+        assertEquals(12_345, resultado.faltas());
+        assertEquals(7_000, resultado.realizados());
+        // AGENDADO: 5000 + 5000 + 2345; CONFIRMADO: 5000 + 2000
+        assertEquals(List.of(5_000, 5_000, 5_000, 5_000, 5_000), limites);
+        assertEquals(19_345, publicados.size());
+        assertTrue(publicados.stream().allMatch(e -> e.tipo() == AgendaEvento.Tipo.STATUS_ALTERADO));
+        assertEquals(StatusAgendamento.AGENDADO, tabela.get(tabela.size() - 2).status);
+        assertEquals(StatusAgendamento.CONFIRMADO, tabela.get(tabela.size() - 1).status);
+    }
+
+    @Test
+    void loteSoAlteraQuemEstaNumaOrigemPermitida() throws SQLException {
+        when(jdbc.query(any(PreparedStatementCreator.class), any(RowMapper.class))).thenReturn(List.of());
+
+        service.atualizarStatus(List.of(1L, 2L, 2L), StatusAgendamento.CONFIRMADO);
+
+        Connection conexao = mock(Connection.class);
+        when(conexao.prepareStatement(anyString())).thenReturn(mock(PreparedStatement.class));
+        List<Object[]> arrays = new ArrayList<>();
+        when(conexao.createArrayOf(anyString(), any(Object[].class))).thenAnswer(chamada -> {
+            arrays.add(chamada.getArgument(1));
+            return mock(Array.class);
+        });
+        ArgumentCaptor<PreparedStatementCreator> criador = ArgumentCaptor.forClass(PreparedStatementCreator.class);
+        verify(jdbc).query(criador.capture(), any(RowMapper.class));
+        criador.getValue().createPreparedStatement(conexao);
+
+        verify(conexao).prepareStatement(AgendaStatusLoteService.ATUALIZAR_IDS);
+        assertArrayEquals(new Object[]{1L, 2L}, arrays.get(0));
+        // REALIZADO, FALTOU e CANCELADO não voltam a CONFIRMADO
+        assertArrayEquals(new Object[]{"AGENDADO"}, arrays.get(1));
+    }
+
+    @Test
+    void nadaVoltaParaAgendadoNemSaiDeStatusFinal() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service.atualizarStatus(List.of(1L), StatusAgendamento.AGENDADO));
+        verify(jdbc, never()).query(any(PreparedStatementCreator.class), any(RowMapper.class));
+
+        assertFalse(StatusAgendamento.REALIZADO.podeIrPara(StatusAgendamento.AGENDADO));
+        assertFalse(StatusAgendamento.CANCELADO.podeIrPara(StatusAgendamento.CONFIRMADO));
+        assertFalse(StatusAgendamento.FALTOU.podeIrPara(StatusAgendamento.REALIZADO));
+        assertFalse(StatusAgendamento.CONFIRMADO.podeIrPara(StatusAgendamento.AGENDADO));
+        assertTrue(StatusAgendamento.AGENDADO.podeIrPara(StatusAgendamento.FALTOU));
+        assertTrue(StatusAgendamento.CONFIRMADO.podeIrPara(StatusAgendamento.REALIZADO));
+    }
+
+    /**
+     * Dois nós fechando ao mesmo tempo: as linhas travadas por um ficam para ele,
+     * o outro segue com as demais sem esperar. Roda a instrução FECHAR_LOTE do
+     * serviço numa tabela própria do teste.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "integracao", matches = "true")
+    void segundoNoPulaAsLinhasTravadasSemEsperar() throws Exception {
+        String tabela = "agendamentos_fechamento_teste";
+        String sql = AgendaStatusLoteService.FECHAR_LOTE.replace("agendamentos", tabela);
+
+        try (Connection admin = conectar(true); Connection primeiro = conectar(false); Connection segundo = conectar(false)) {
+            try (Statement st = admin.createStatement()) {
+                st.execute("DROP TABLE IF EXISTS " + tabela);
+                st.execute("CREATE TABLE " + tabela + " (id bigint PRIMARY KEY, dentista_id bigint NOT NULL, " +
+                        "data_hora timestamp NOT NULL, status varchar(20) NOT NULL)");
+                st.execute("INSERT INTO " + tabela + " SELECT g, 1, timestamp '2025-03-10 08:00', 'AGENDADO' " +
+                        "FROM generate_series(1, 6000) g");
+            }
+            try {
+                // O primeiro nó pega um lote de 10 e segura a transação aberta
+                assertEquals(10, executarLote(primeiro, sql, 10));
+
+                CompletableFuture<Integer> outro = CompletableFuture.supplyAsync(() -> executarLote(segundo, sql, 5_000));
+                assertEquals(5_000, outro.get(5, TimeUnit.SECONDS));
+                segundo.commit();
+                assertEquals(990, executarLote(segundo, sql, 5_000));
+                segundo.commit();
+                primeiro.commit();
+
+                try (Statement st = admin.createStatement();
+                     ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM " + tabela + " WHERE status = 'FALTOU'")) {
+                    rs.next();
+                    assertEquals(6_000, rs.getInt(1));
+                }
+            } finally {
+                try (Statement st = admin.createStatement()) {
+                    st.execute("DROP TABLE " + tabela);
+                }
+            }
+        }
+    }
+
+    private static int executarLote(Connection conexao, String sql, int limite) {
+        try (PreparedStatement ps = conexao.prepareStatement(sql)) {
+            ps.setString(1, StatusAgendamento.FALTOU.name());
+            ps.setString(2, StatusAgendamento.AGENDADO.name());
+            ps.setTimestamp(3, Timestamp.valueOf(CORTE));
+            ps.setInt(4, limite);
+            int linhas = 0;
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    linhas++;
+                }
+            }
+            return linhas;
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Connection conectar(boolean autoCommit) throws SQLException {
+        Connection conexao = DriverManager.getConnection(
+                System.getProperty("integracao.url", "jdbc:postgresql://localhost:5432/consultorio"),
+                System.getProperty("integracao.usuario", "postgres"),
+                System.getProperty("integracao.senha", "Variado1234"));
+        // Esperar por um lock falha o teste em vez de travá-lo
+        try (Statement st = conexao.createStatement()) {
+            st.execute("SET lock_timeout = '2s'");
+        }
+        conexao.setAutoCommit(autoCommit);
+        return conexao;
+    }
+
+    /** O que o UPDATE ... LIMIT ? RETURNING faz, sobre a lista em memória. */
+    private static List<AgendaEvento> fecharLote(List<Linha> tabela, RowMapper<AgendaEvento> mapper,
+                                                 Object[] parametros) throws SQLException {
+        StatusAgendamento para = StatusAgendamento.valueOf((String) parametros[0]);
+        StatusAgendamento de = StatusAgendamento.valueOf((String) parametros[1]);
+        LocalDateTime corte = ((Timestamp) parametros[2]).toLocalDateTime();
+        int limite = (Integer) parametros[3];
+
+        List<Linha> lote = tabela.stream()
+                .filter(l -> l.status == de && l.dataHora.isBefore(corte))
+                .sorted(Comparator.comparing(l -> l.id))
+                .limit(limite)
+                .toList();
+        // Um só ResultSet simulado, apontando para a linha corrente
+        Linha[] corrente = new Linha[1];
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenAnswer(c -> corrente[0].id);
+        when(rs.getLong("dentista_id")).thenReturn(1L);
+        when(rs.getTimestamp("data_hora")).thenAnswer(c -> Timestamp.valueOf(corrente[0].dataHora));
+
+        List<AgendaEvento> eventos = new ArrayList<>();
+        for (Linha l : lote) {
+            l.status = para;
+            corrente[0] = l;
+            eventos.add(mapper.mapRow(rs, eventos.size()));
+        }
+        return eventos;
+    }
+
+    private static final class Linha {
+        final long id;
+        final LocalDateTime dataHora;
+        StatusAgendamento status;
+
+        Linha(long id, LocalDateTime dataHora, StatusAgendamento status) {
+            this.id = id;
+            this.dataHora = dataHora;
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.consultorio.domain.lembrete;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Envio dos lembretes contra um SMTP embutido (GreenMail), sem rede nem banco:
+ * o registro em lembretes_envio vai para um JdbcTemplate simulado.
+ */
+class LembreteEnviadorTest {
+
+    private static final int LEMBRETES = 500;
+
+    @RegisterExtension
+    static GreenMailExtension smtp = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final List<LembreteEnviador> enviadores = new ArrayList<>();
+
+    @AfterEach
+    void encerrar() {
+        enviadores.forEach(LembreteEnviador::encerrar);
+    }
+
+    @Test
+    void entregaTodosOsLembretesComOModeloRenderizado() throws Exception {
+        LembreteEnviador enviador = enviador(smtp.getSmtp().getPort(), 3);
+        LocalDateTime consulta = LocalDateTime.of(2030, 5, 20, 14, 30);
+
+        for (int i = 0; i < LEMBRETES; i++) {
+            enviador.enfileirar(new Lembrete((long) i, "paciente" + i + "@teste.local", "Paciente " + i, "Dra. Ana", consulta));
+        }
+        assertTrue(enviador.aguardar(Duration.ofSeconds(60)), "envios não terminaram a tempo");
+
+        MimeMessage[] recebidas = smtp.getReceivedMessages();
+        assertEquals(LEMBRETES, recebidas.length);
+        assertEquals(LEMBRETES, enviador.estatisticas().enviados());
+        assertEquals("Lembrete: consulta em 20/05/2030 às 14:30", recebidas[0].getSubject());
+        assertTrue(((String) recebidas[0].getContent()).contains("Dra. Ana"));
+    }
+
+    @Test
+    void desisteDepoisDasTentativasQuandoOSmtpNaoResponde() throws Exception {
+        int portaFechada;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            portaFechada = socket.getLocalPort();
+        }
+        LembreteEnviador enviador = enviador(portaFechada, 2);
+
+        enviador.enfileirar(new Lembrete(1L, "paciente@teste.local", "Paciente", "Dra. Ana", LocalDateTime.now().plusDays(1)));
+        assertTrue(enviador.aguardar(Duration.ofSeconds(30)));
+
+        LembreteEnviador.Estatisticas estatisticas = enviador.estatisticas();
+        assertEquals(0, estatisticas.enviados());
+        assertEquals(1, estatisticas.retentativas());
+        assertEquals(1, estatisticas.falhas());
+    }
+
+    @Test
+    void lembreteRecusadoPeloPoolEncerradoDevolveAVaga() {
+        // Nada chega a ser enviado: o SMTP não importa
+        LembreteEnviador enviador = enviador(25, 1);
+        enviador.encerrar();
+
+        assertThrows(RejectedExecutionException.class, () -> enviador.enfileirar(
+                new Lembrete(1L, "paciente@teste.local", "Paciente", "Dra. Ana", LocalDateTime.now().plusDays(1))));
+        assertEquals(0, enviador.estatisticas().emAndamento());
+    }
+
+    private LembreteEnviador enviador(int porta, int tentativas) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(porta);
+
+        // Espera de 0 s entre tentativas para o teste não depender do relógio
+        LembreteEnviador enviador = new LembreteEnviador(mailSender, jdbc, new LembreteTemplates(),
+                "clinica@teste.local", 8, 100, tentativas, 0);
+        enviadores.add(enviador);
+        return enviador;
+    }
+}
@@ -0,0 +1,64 @@
+package com.consultorio.domain.lembrete;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RodaTemporalTest {
+
+    private static final long INICIO = 1_700_000_123L;
+
+    @Test
+    void cadaPrazoVenceExatamenteNoSeuTick() {
+        RodaTemporal<Long> roda = new RodaTemporal<>(INICIO);
+        Random random = new Random(42);
+        Map<Long, RodaTemporal.Temporizador<Long>> agendados = new HashMap<>();
+
+        // Distâncias de 1 s a ~3 dias, cruzando várias fronteiras entre níveis
+        for (int i = 0; i < 50_000; i++) {
+            long tick = INICIO + 1 + random.nextInt(3 * 24 * 3600);
+            agendados.put((long) i, roda.agendar(tick, (long) i));
+        }
+        // Metade cancelada antes de vencer
+        List<Long> cancelados = new ArrayList<>();
+        for (long i = 0; i < 50_000; i += 2) {
+            assertTrue(agendados.get(i).cancelar());
+            cancelados.add(i);
+        }
+        assertEquals(25_000, roda.tamanho());
+
+        int vencidos = 0;
+        for (long t = INICIO + 1; t <= INICIO + 3 * 24 * 3600 + 1; t++) {
+            for (Long id : roda.avancar(t)) {
+                assertEquals(t, agendados.get(id).tick(), "prazo " + id + " venceu fora de hora");
+                assertEquals(1, id % 2);
+                vencidos++;
+            }
+        }
+        assertEquals(25_000, vencidos);
+        assertEquals(0, roda.tamanho());
+        cancelados.forEach(id -> assertFalse(agendados.get(id).cancelar()));
+    }
+
+    @Test
+    void saltoGrandeEntregaTudoEmOrdem() {
+        RodaTemporal<String> roda = new RodaTemporal<>(INICIO);
+        roda.agendar(INICIO + 90 * 24 * 3600L, "noventa dias");
+        roda.agendar(INICIO + 65, "65 s");
+        roda.agendar(INICIO + 4_100, "4100 s");
+        roda.agendar(INICIO - 10, "já vencido");
+
+        assertEquals(List.of("já vencido"), roda.avancar(INICIO + 1));
+        assertEquals(List.of("65 s", "4100 s"), roda.avancar(INICIO + 5_000));
+        assertTrue(roda.avancar(INICIO + 90 * 24 * 3600L - 1).isEmpty());
+        assertEquals(List.of("noventa dias"), roda.avancar(INICIO + 90 * 24 * 3600L));
+    }
+}
@@ -0,0 +1,63 @@
+package com.consultorio.domain.paciente;
+
+import com.consultorio.domain.paciente.DTOs.PacienteAutocompleteDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PacienteAutocompleteTest {
+
+    private final PacienteAutocomplete autocomplete = new PacienteAutocomplete(null, null);
+
+    private void salvar(long id, String nome) {
+        autocomplete.aoAlterarPaciente(new PacienteEvento(PacienteEvento.Tipo.SALVO, id, nome, null, "P" + id,
+                null, null, LocalDate.of(1990, 1, 1)));
+    }
+
+    private List<Long> ids(String prefixo, int limite) {
+        return autocomplete.sugerir(prefixo, limite).stream().map(PacienteAutocompleteDTO::id).toList();
+    }
+
+    @Test
+    void sugereEmOrdemAlfabeticaSemAcento() {
+        salvar(1, "Mariana Lima");
+        salvar(2, "Maria Souza");
+        salvar(3, "Márcio Alves");
+        salvar(4, "Maria Souza");
+        salvar(5, "João Pereira");
+
+        assertEquals(List.of(3L, 2L, 4L, 1L), ids("mar", 10));
+        assertEquals(List.of(2L, 4L), ids("MARIA S", 10));
+        assertEquals(List.of(3L, 2L), ids("mar", 2));
+        assertEquals(List.of(5L), ids("joão", 10));
+        assertTrue(ids("", 10).isEmpty());
+        assertTrue(ids("marx", 10).isEmpty());
+
+        PacienteAutocompleteDTO sugestao = autocomplete.sugerir("joao", 1).get(0);
+        assertEquals("João Pereira", sugestao.nome());
+        assertEquals("P5", sugestao.prontuario());
+        assertEquals(LocalDate.of(1990, 1, 1), sugestao.dataNascimento());
+    }
+
+    @Test
+    void alteracaoEExclusaoPodamAArvore() {
+        salvar(1, "Ana Paula");
+        int nosIniciais = autocomplete.estatisticas().nos();
+        salvar(2, "Ana Beatriz");
+        salvar(3, "Anabela");
+        salvar(2, "Bruna Costa");
+
+        assertEquals(List.of(1L, 3L), ids("ana", 10));
+        assertEquals(List.of(2L), ids("bru", 10));
+
+        autocomplete.aoAlterarPaciente(PacienteEvento.removido(2L));
+        autocomplete.aoAlterarPaciente(PacienteEvento.removido(3L));
+        assertEquals(List.of(1L), ids("a", 10));
+        assertEquals(nosIniciais, autocomplete.estatisticas().nos());
+        assertEquals(1, autocomplete.estatisticas().pacientes());
+    }
+}
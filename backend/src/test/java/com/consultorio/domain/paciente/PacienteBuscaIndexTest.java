@@ -0,0 +1,117 @@
+package com.consultorio.domain.paciente;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PacienteBuscaIndexTest {
+
+    private final PacienteBuscaIndex index = new PacienteBuscaIndex(null, null);
+
+    private void salvar(long id, String nome, String cpf, String prontuario, String telefone) {
+        index.aoAlterarPaciente(new PacienteEvento(PacienteEvento.Tipo.SALVO, id, nome, cpf, prontuario,
+                telefone, null, null));
+    }
+
+    @Test
+    void ignoraAcentoMaiusculaEPontuacao() {
+        salvar(1, "João da Conceição", "123.456.789-01", "P-0001", "(11) 91234-5678");
+        salvar(2, "Maria Souza", "987.654.321-00", "P-0002", "(11) 99876-5432");
+
+        assertEquals(List.of(1L), index.buscar("joao conceicao", 10));
+        assertEquals(List.of(1L), index.buscar("CONCEIÇÃO", 10));
+        assertEquals(List.of(1L), index.buscar("123.456", 10));
+        assertEquals(List.of(2L), index.buscar("98765-4", 10));
+        assertEquals(List.of(1L), index.buscar("91234", 10));
+        assertTrue(index.buscar("silva", 10).isEmpty());
+    }
+
+    @Test
+    void ordenaPorInicioDoNomeDepoisInicioDePalavraDepoisTrecho() {
+        salvar(1, "Ana Marisa", null, null, null);
+        salvar(2, "Mariana Lima", null, null, null);
+        salvar(3, "Rosemari Alves", null, null, null);
+
+        assertEquals(List.of(2L, 1L, 3L), index.buscar("mari", 10));
+        assertEquals(List.of(2L, 1L), index.buscar("ma", 10));
+        assertEquals(List.of(2L), index.buscar("mari", 1));
+    }
+
+    @Test
+    void buscaNoNomeTrazTodosEmOrdemDeNomeSemOlharOsOutrosCampos() {
+        salvar(1, "Rosemari Alves", null, null, null);
+        salvar(2, "Mariana Lima", null, null, null);
+        salvar(3, "Ana Marisa", null, null, null);
+        salvar(4, "Pedro Costa", null, "MARI-01", null);
+        salvar(5, "Bruno Távora", "111.222.333-44", null, null);
+
+        assertEquals(List.of(3L, 2L, 1L), index.buscarNoNome("mari"));
+        assertEquals(List.of(5L), index.buscarNoNome("tavor"));
+        assertTrue(index.buscarNoNome("111222").isEmpty());
+        assertTrue(index.buscarNoNome(" ").isEmpty());
+    }
+
+    @Test
+    void alteracaoEExclusaoRefletemNaBusca() {
+        salvar(1, "Carlos Pereira", null, null, null);
+        salvar(1, "Carlos Oliveira", null, null, null);
+        assertTrue(index.buscar("pereira", 10).isEmpty());
+        assertEquals(List.of(1L), index.buscar("oliveira", 10));
+
+        index.aoAlterarPaciente(PacienteEvento.removido(1L));
+        assertTrue(index.buscar("carlos", 10).isEmpty());
+    }
+
+    @Test
+    void recompactaForaDoEventoEReaplicaOQueMudouNaMontagem() {
+        // A recompactação fica na fila até o teste rodá-la
+        List<Runnable> fila = new ArrayList<>();
+        PacienteBuscaIndex index = new PacienteBuscaIndex(null, null, fila::add);
+        salvar(index, 5_000, "Zuleica Prado");
+        for (long id = 1; id <= 2_000; id++) {
+            salvar(index, id, "Paciente " + id);
+        }
+        // 1.500 lápides: passam de 1.024 e de um quarto dos ordinais
+        for (long id = 1; id <= 1_500; id++) {
+            salvar(index, id, "Paciente " + id);
+        }
+        assertEquals(1, fila.size());
+
+        // Chegam enquanto o novo índice é montado: a busca já as enxerga e a troca não as perde
+        salvar(index, 5_000, "Abigail Prado");
+        salvar(index, 6_000, "Abigail Nunes");
+        index.aoAlterarPaciente(PacienteEvento.removido(2_000L));
+        for (long id = 1; id <= 1_500; id++) {
+            salvar(index, id, "Paciente " + id);
+        }
+        assertEquals(1, fila.size());
+        assertEquals(Set.of(5_000L, 6_000L), Set.copyOf(index.buscar("abigail", 10)));
+
+        fila.remove(0).run();
+
+        assertEquals(Set.of(5_000L, 6_000L), Set.copyOf(index.buscar("abigail", 10)));
+        assertEquals(List.of(5_000L), index.buscar("prado", 10));
+        assertTrue(index.buscar("zuleica", 10).isEmpty());
+        assertTrue(index.buscar("paciente 2000", 10).isEmpty());
+        assertEquals(List.of(1_999L), index.buscar("paciente 1999", 10));
+        // Os que não mudaram na montagem voltam à ordem de nome
+        assertEquals(List.of(1_501L, 1_502L, 1_503L), index.buscar("paciente 150", 3));
+        assertFalse(index.buscar("paciente", 2_000).contains(2_000L));
+
+        // Terminada a troca, novas lápides podem agendar outra recompactação
+        for (long id = 1; id <= 1_500; id++) {
+            salvar(index, id, "Paciente " + id);
+        }
+        assertEquals(1, fila.size());
+    }
+
+    private static void salvar(PacienteBuscaIndex index, long id, String nome) {
+        index.aoAlterarPaciente(new PacienteEvento(PacienteEvento.Tipo.SALVO, id, nome, null, null, null, null, null));
+    }
+}
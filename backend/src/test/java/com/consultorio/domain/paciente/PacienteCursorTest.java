@@ -0,0 +1,41 @@
+package com.consultorio.domain.paciente;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PacienteCursorTest {
+
+    @Test
+    void idaEVoltaPreservaDataEId() {
+        PacienteCursor cursor = new PacienteCursor(LocalDateTime.of(2025, 3, 10, 14, 5, 7, 123_456_000), 42L);
+
+        String texto = cursor.codificar();
+
+        assertFalse(texto.contains("|"));
+        assertEquals(cursor, PacienteCursor.decodificar(texto));
+    }
+
+    @Test
+    void pacienteSemDataDeCadastroTambemVira() {
+        PacienteCursor cursor = new PacienteCursor(null, 7L);
+
+        PacienteCursor lido = PacienteCursor.decodificar(cursor.codificar());
+
+        assertNull(lido.dataCadastro());
+        assertEquals(7L, lido.id());
+    }
+
+    @Test
+    void textoAdulteradoEhRecusado() {
+        assertThrows(IllegalArgumentException.class, () -> PacienteCursor.decodificar("%%%"));
+        assertThrows(IllegalArgumentException.class, () -> PacienteCursor.decodificar("c2VtLXNlcGFyYWRvcg"));
+        assertThrows(IllegalArgumentException.class, () -> PacienteCursor.decodificar(
+                new PacienteCursor(LocalDateTime.of(2025, 1, 1, 0, 0), 1L).codificar().substring(3)));
+    }
+}
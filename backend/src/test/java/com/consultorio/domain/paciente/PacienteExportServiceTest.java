@@ -0,0 +1,123 @@
+package com.consultorio.domain.paciente;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Saída dos dois formatos sobre linhas simuladas do banco: nulos, datas em
+ * ISO-8601, aspas e quebras de linha no CSV e células que uma planilha
+ * executaria como fórmula.
+ */
+class PacienteExportServiceTest {
+
+    private static final List<PacienteExportService.Coluna> COLUNAS = List.of(PacienteExportService.Coluna.ID,
+            PacienteExportService.Coluna.NOME, PacienteExportService.Coluna.TELEFONE,
+            PacienteExportService.Coluna.DATA_NASCIMENTO, PacienteExportService.Coluna.DATA_CADASTRO);
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final PacienteExportService service = new PacienteExportService(jdbc, mock(PlatformTransactionManager.class));
+
+    @Test
+    void ndjsonTemUmObjetoPorLinhaComNulos() throws Exception {
+        linhas(new Object[]{1L, "Ana \"Bia\" Souza", "(11) 91234-5678", LocalDate.of(1990, 5, 2),
+                        LocalDateTime.of(2025, 3, 10, 14, 30)},
+                new Object[]{2L, "João\nda Silva", null, null, null});
+
+        assertEquals("""
+                {"id":1,"nome":"Ana \\"Bia\\" Souza","telefone":"(11) 91234-5678","dataNascimento":"1990-05-02","dataCadastro":"2025-03-10T14:30"}
+                {"id":2,"nome":"João\\nda Silva","telefone":null,"dataNascimento":null,"dataCadastro":null}
+                """, exportar(PacienteExportService.Formato.NDJSON));
+    }
+
+    @Test
+    void ndjsonVazioNaoEscreveNada() throws Exception {
+        linhas();
+
+        assertEquals("", exportar(PacienteExportService.Formato.NDJSON));
+    }
+
+    @Test
+    void csvSegueARfc4180() throws Exception {
+        linhas(new Object[]{1L, "Souza, Ana \"Bia\"", "(11) 91234-5678", LocalDate.of(1990, 5, 2),
+                        LocalDateTime.of(2025, 3, 10, 14, 30)},
+                new Object[]{2L, "João\r\nda Silva", null, null, null});
+
+        assertEquals("id,nome,telefone,dataNascimento,dataCadastro\r\n"
+                + "1,\"Souza, Ana \"\"Bia\"\"\",(11) 91234-5678,1990-05-02,2025-03-10T14:30\r\n"
+                + "2,\"João\r\nda Silva\",,,\r\n", exportar(PacienteExportService.Formato.CSV));
+    }
+
+    @Test
+    void csvNeutralizaCelulasQueViramFormula() throws Exception {
+        linhas(new Object[]{1L, "=HYPERLINK(\"http://x\")", "+55 11 91234-5678", null, null},
+                new Object[]{2L, "-2+3", "@SUM(A1)", null, null},
+                new Object[]{3L, "\tTab", "\rRetorno", null, null},
+                new Object[]{4L, "-10", "+5511=1+1", null, null});
+
+        // Telefone e número começam com + ou -, mas saem como estão
+        assertEquals("id,nome,telefone,dataNascimento,dataCadastro\r\n"
+                + "1,\"'=HYPERLINK(\"\"http://x\"\")\",+55 11 91234-5678,,\r\n"
+                + "2,'-2+3,'@SUM(A1),,\r\n"
+                + "3,'\tTab,\"'\rRetorno\",,\r\n"
+                + "4,-10,'+5511=1+1,,\r\n", exportar(PacienteExportService.Formato.CSV));
+    }
+
+    private String exportar(PacienteExportService.Formato formato) {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        service.exportar(formato, COLUNAS, saida);
+        return saida.toString(StandardCharsets.UTF_8);
+    }
+
+    /** Entrega as linhas ao RowCallbackHandler, na ordem de COLUNAS; um ResultSet só, apontando para a linha corrente. */
+    private void linhas(Object[]... linhas) throws Exception {
+        Object[][] corrente = new Object[1][];
+        ResultSet rs = mock(ResultSet.class);
+        boolean[] ultimoNulo = new boolean[1];
+        when(rs.getLong(anyInt())).thenAnswer(c -> {
+            Object valor = corrente[0][(int) c.getArgument(0) - 1];
+            ultimoNulo[0] = valor == null;
+            return valor == null ? 0L : valor;
+        });
+        when(rs.wasNull()).thenAnswer(c -> ultimoNulo[0]);
+        when(rs.getString(anyInt())).thenAnswer(c -> {
+            Object valor = corrente[0][(int) c.getArgument(0) - 1];
+            return valor == null ? null : valor.toString();
+        });
+        when(rs.getDate(anyInt())).thenAnswer(c -> {
+            LocalDate valor = (LocalDate) corrente[0][(int) c.getArgument(0) - 1];
+            return valor == null ? null : Date.valueOf(valor);
+        });
+        when(rs.getTimestamp(anyInt())).thenAnswer(c -> {
+            LocalDateTime valor = (LocalDateTime) corrente[0][(int) c.getArgument(0) - 1];
+            return valor == null ? null : Timestamp.valueOf(valor);
+        });
+
+        doAnswer(chamada -> {
+            RowCallbackHandler handler = chamada.getArgument(1);
+            for (Object[] linha : linhas) {
+                corrente[0] = linha;
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbc).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+}
@@ -0,0 +1,301 @@
+package com.consultorio.domain.paciente;
+
+import com.consultorio.domain.paciente.PacienteExportService.Coluna;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Importação com banco simulado: leitura de CSV e JSON, validação,
+ * duplicados (no banco e no próprio arquivo), lote recusado gravado linha a
+ * linha e um evento por bloco gravado.
+ */
+class PacienteImportacaoServiceTest {
+
+    // Mesma ordem das colunas do INSERT: id, data_cadastro, data_atualizacao e as importáveis
+    private static final List<Coluna> IMPORTAVEIS = Arrays.stream(Coluna.values())
+            .filter(c -> c != Coluna.ID && c != Coluna.DATA_CADASTRO && c != Coluna.DATA_ATUALIZACAO)
+            .toList();
+
+    private final PacienteRepository repository = mock(PacienteRepository.class);
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final List<Object> publicados = new ArrayList<>();
+    private final PacienteImportacaoService service = new PacienteImportacaoService(repository, jdbc,
+            mock(PlatformTransactionManager.class), publicados::add);
+
+    // Cada linha gravada, como parâmetro do INSERT -> valor
+    private final List<Map<Coluna, Object>> gravadas = new ArrayList<>();
+    private final List<Integer> blocosReservados = new ArrayList<>();
+
+    PacienteImportacaoServiceTest() {
+        long[] proximoBloco = {1};
+        when(repository.reservarBlocosDeIds(anyInt())).thenAnswer(chamada -> {
+            int blocos = chamada.getArgument(0);
+            blocosReservados.add(blocos);
+            return LongStream.range(0, blocos).mapToObj(i -> (proximoBloco[0]++ - 1) * 50 + 1).toList();
+        });
+        cadastrados();
+        bancoRecusa(linha -> false);
+    }
+
+    @Test
+    void csvComAspasQuebraDeLinhaECpfInvalido() {
+        PacienteImportacaoService.Resultado resultado = importar(PacienteImportacaoService.Formato.CSV,
+                "nome,cpf,complemento,desconhecida\r\n"
+                        + "\"Souza, Ana \"\"Bia\"\"\",529.982.247-25,\"Bloco 2\r\nfundos\",x\r\n"
+                        + "João Lima,111.444.777-36,,\r\n"
+                        + "\r\n"
+                        + "Maria Reis,,,\r\n"
+                        + "Carlos Dias,000.000.000-00,,\r\n");
+
+        assertNull(resultado.falha());
+        assertEquals(4, resultado.lidos());
+        assertEquals(2, resultado.importados());
+        assertEquals(2, resultado.invalidos());
+        assertEquals(List.of(
+                new PacienteImportacaoService.ErroLinha(4, "João Lima", "CPF inválido: 111.444.777-36"),
+                new PacienteImportacaoService.ErroLinha(7, "Carlos Dias", "CPF inválido: 000.000.000-00")),
+                resultado.erros());
+
+        assertEquals("Souza, Ana \"Bia\"", gravadas.get(0).get(Coluna.NOME));
+        assertEquals("529.982.247-25", gravadas.get(0).get(Coluna.CPF));
+        assertEquals("Bloco 2\r\nfundos", gravadas.get(0).get(Coluna.COMPLEMENTO));
+        assertEquals("Maria Reis", gravadas.get(1).get(Coluna.NOME));
+        assertNull(gravadas.get(1).get(Coluna.CPF));
+    }
+
+    @Test
+    void csvDePlanilhaComPontoEVirgulaEBom() {
+        PacienteImportacaoService.Resultado resultado = importar(PacienteImportacaoService.Formato.CSV,
+                "\uFEFFnome;cpf;dataNascimento\r\nAna Souza;52998224725;02/05/1990\r\nBia Lima;;1990-13-01\r\n");
+
+        assertEquals(1, resultado.importados());
+        assertEquals(1, resultado.invalidos());
+        assertEquals("529.982.247-25", gravadas.get(0).get(Coluna.CPF));
+        assertEquals(Date.valueOf("1990-05-02"), gravadas.get(0).get(Coluna.DATA_NASCIMENTO));
+        assertTrue(resultado.erros().get(0).motivo().startsWith("data de nascimento inválida"));
+    }
+
+    @Test
+    void digitosVerificadoresDoCpf() {
+        assertTrue(PacienteImportacaoService.cpfValido("52998224725"));
+        assertTrue(PacienteImportacaoService.cpfValido("11144477735"));
+        assertFalse(PacienteImportacaoService.cpfValido("11144477736"));
+        assertFalse(PacienteImportacaoService.cpfValido("11111111111"));
+        assertFalse(PacienteImportacaoService.cpfValido("5299822472"));
+    }
+
+    @Test
+    void duplicadosNoBancoENoProprioArquivo() {
+        cadastrados(new String[]{"529.982.247-25", "P-0001", "ana@exemplo.com"});
+
+        PacienteImportacaoService.Resultado resultado = importar(PacienteImportacaoService.Formato.CSV, """
+                nome,cpf,prontuario,email
+                Ana Souza,52998224725,,
+                Bia Lima,,p-0001,
+                Carla Reis,111.444.777-35,P-0002,carla@exemplo.com
+                Carla Reis,11144477735,,
+                Duda Alves,,p-0002,
+                Eva Nunes,,,ANA@EXEMPLO.COM
+                Fabi Costa,,P-0003,fabi@exemplo.com
+                """);
+
+        assertEquals(7, resultado.lidos());
+        assertEquals(2, resultado.importados());
+        assertEquals(5, resultado.duplicados());
+        assertEquals(List.of(
+                        "CPF já cadastrado: 529.982.247-25",
+                        "prontuário já cadastrado: p-0001",
+                        "CPF já cadastrado: 111.444.777-35",
+                        "prontuário já cadastrado: p-0002",
+                        "e-mail já cadastrado: ana@exemplo.com"),
+                resultado.erros().stream().map(PacienteImportacaoService.ErroLinha::motivo).toList());
+        assertEquals(List.of("Carla Reis", "Fabi Costa"), nomesGravados());
+    }
+
+    @Test
+    void loteRecusadoPeloBancoEGravadoLinhaALinha() {
+        // Alguém cadastrou a Bia com o mesmo CPF depois da carga dos cadastrados
+        bancoRecusa(linha -> "111.444.777-35".equals(linha.get(Coluna.CPF)));
+
+        PacienteImportacaoService.Resultado resultado = importar(PacienteImportacaoService.Formato.CSV, """
+                nome,cpf
+                Ana Souza,529.982.247-25
+                Bia Lima,111.444.777-35
+                Carla Reis,
+                """);
+
+        assertEquals(2, resultado.importados());
+        assertEquals(1, resultado.invalidos());
+        assertEquals(new PacienteImportacaoService.ErroLinha(3, "Bia Lima", "recusado pelo banco: CPF duplicado"),
+                resultado.erros().get(0));
+        assertEquals(List.of("Ana Souza", "Carla Reis"), nomesGravados());
+        // Os gravados um a um também saem num evento só
+        assertEquals(1, publicados.size());
+        assertEquals(List.of("Ana Souza", "Carla Reis"), nomesPublicados(0));
+    }
+
+    @Test
+    void jsonEmArrayENdjsonIgnorandoAninhados() {
+        PacienteImportacaoService.Resultado array = importar(PacienteImportacaoService.Formato.JSON, """
+                [
+                  {"nome": "Ana Souza", "cpf": "529.982.247-25", "endereco": {"cidade": "Campinas"}, "tags": [1, 2]},
+                  {"nome": "Bia Lima", "email": null, "telefone": 11912345678, "prontuario": "  "},
+                  {"cpf": "111.444.777-35"}
+                ]
+                """);
+
+        assertNull(array.falha());
+        assertEquals(2, array.importados());
+        assertEquals(List.of(new PacienteImportacaoService.ErroLinha(4, "111.444.777-35", "nome é obrigatório")),
+                array.erros());
+        assertEquals("11912345678", gravadas.get(1).get(Coluna.TELEFONE));
+        assertNull(gravadas.get(1).get(Coluna.PRONTUARIO));
+        assertNull(gravadas.get(0).get(Coluna.CIDADE));
+
+        PacienteImportacaoService.Resultado ndjson = importar(PacienteImportacaoService.Formato.JSON,
+                "{\"nome\": \"Carla Reis\"}\n{\"nome\": \"Duda Alves\"}\n{\"nome\": }\n{\"nome\": \"Eva Nunes\"}\n");
+
+        // O que veio antes do erro de sintaxe é importado; o resto, não
+        assertEquals(2, ndjson.importados());
+        assertTrue(ndjson.falha().startsWith("JSON inválido na linha 3"), ndjson.falha());
+        assertEquals(List.of("Ana Souza", "Bia Lima", "Carla Reis", "Duda Alves"), nomesGravados());
+    }
+
+    @Test
+    void csvExportadoVoltaIgualMesmoComCelulasProtegidas() {
+        List<Coluna> colunas = List.of(Coluna.NOME, Coluna.TELEFONE, Coluna.COMPLEMENTO, Coluna.PROFISSAO);
+        List<String[]> pacientes = List.of(
+                new String[]{"Ana Souza", "+55 11 91234-5678", "-fundos", "=1+1"},
+                new String[]{"@Bia Lima", "-2+3", "'sem fórmula", null});
+
+        JdbcTemplate origem = mock(JdbcTemplate.class);
+        doAnswer(chamada -> {
+            RowCallbackHandler handler = chamada.getArgument(1);
+            for (String[] paciente : pacientes) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getString(anyInt())).thenAnswer(c -> paciente[(int) c.getArgument(0) - 1]);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(origem).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        new PacienteExportService(origem, mock(PlatformTransactionManager.class))
+                .exportar(PacienteExportService.Formato.CSV, colunas, csv);
+
+        PacienteImportacaoService.Resultado resultado = importar(PacienteImportacaoService.Formato.CSV,
+                csv.toString(StandardCharsets.UTF_8));
+
+        assertEquals(2, resultado.importados());
+        for (int i = 0; i < pacientes.size(); i++) {
+            for (int c = 0; c < colunas.size(); c++) {
+                assertEquals(pacientes.get(i)[c], gravadas.get(i).get(colunas.get(c)), colunas.get(c).campo);
+            }
+        }
+    }
+
+    @Test
+    void umEventoEUmaReservaDeIdsPorBloco() {
+        String csv = IntStream.rangeClosed(1, 1_500)
+                .mapToObj(i -> "Paciente " + i)
+                .collect(Collectors.joining("\n", "nome\n", "\n"));
+
+        PacienteImportacaoService.Resultado resultado = importar(PacienteImportacaoService.Formato.CSV, csv);
+
+        assertEquals(1_500, resultado.importados());
+        assertEquals(List.of(20, 10), blocosReservados);
+        assertEquals(2, publicados.size());
+        assertEquals(1_000, ((PacientesImportados) publicados.get(0)).pacientes().size());
+        assertEquals(500, ((PacientesImportados) publicados.get(1)).pacientes().size());
+        assertEquals(501L, ((PacientesImportados) publicados.get(0)).pacientes().get(500).id());
+        assertTrue(publicados.stream().noneMatch(PacienteEvento.class::isInstance));
+    }
+
+    private PacienteImportacaoService.Resultado importar(PacienteImportacaoService.Formato formato, String conteudo) {
+        return service.importar(new ByteArrayInputStream(conteudo.getBytes(StandardCharsets.UTF_8)), formato);
+    }
+
+    private List<String> nomesGravados() {
+        return gravadas.stream().map(linha -> (String) linha.get(Coluna.NOME)).toList();
+    }
+
+    private List<String> nomesPublicados(int evento) {
+        return ((PacientesImportados) publicados.get(evento)).pacientes().stream().map(PacienteEvento::nome).toList();
+    }
+
+    /** CPF, prontuário e e-mail já no banco. */
+    private void cadastrados(String[]... linhas) {
+        doAnswer(chamada -> {
+            RowCallbackHandler handler = chamada.getArgument(1);
+            for (String[] linha : linhas) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getString(1)).thenReturn(linha[0]);
+                when(rs.getString(2)).thenReturn(linha[1]);
+                when(rs.getString(3)).thenReturn(linha[2]);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbc).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    /** batchUpdate que preenche cada linha num PreparedStatement simulado e recusa o lote inteiro se uma delas falhar. */
+    @SuppressWarnings("unchecked")
+    private void bancoRecusa(Predicate<Map<Coluna, Object>> recusada) {
+        doAnswer(chamada -> {
+            Collection<Object> itens = chamada.getArgument(1);
+            ParameterizedPreparedStatementSetter<Object> setter = chamada.getArgument(3);
+            List<Map<Coluna, Object>> lote = new ArrayList<>();
+            for (Object item : itens) {
+                Map<Integer, Object> parametros = new HashMap<>();
+                PreparedStatement ps = mock(PreparedStatement.class);
+                doAnswer(c -> parametros.put(c.getArgument(0), c.getArgument(1))).when(ps).setString(anyInt(), anyString());
+                doAnswer(c -> parametros.put(c.getArgument(0), c.getArgument(1))).when(ps).setDate(anyInt(), any());
+                setter.setValues(ps, item);
+
+                Map<Coluna, Object> linha = new HashMap<>();
+                for (int i = 0; i < IMPORTAVEIS.size(); i++) {
+                    linha.put(IMPORTAVEIS.get(i), parametros.get(i + 4));
+                }
+                lote.add(linha);
+            }
+            if (lote.stream().anyMatch(recusada)) {
+                throw new DuplicateKeyException("CPF duplicado");
+            }
+            gravadas.addAll(lote);
+            return new int[][]{new int[lote.size()]};
+        }).when(jdbc).batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+    }
+}
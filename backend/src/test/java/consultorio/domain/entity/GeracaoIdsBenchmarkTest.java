@@ -0,0 +1,139 @@
+package consultorio.consultorio.domain.entity;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Vazão de INSERTs na agenda com as duas estratégias de ID, no formato de SQL
+ * que o Hibernate gera para cada uma:
+ *
+ * - IDENTITY: um INSERT ... RETURNING id por linha (o Hibernate precisa da
+ *   chave na hora e desliga o batch);
+ * - SEQUENCE pooled-lo (allocationSize = 50): um nextval a cada 50 linhas e
+ *   INSERTs em batch de 20 (hibernate.jdbc.batch_size).
+ *
+ * Roda contra o PostgreSQL local, em tabelas temporárias:
+ *   mvn test -Dtest=GeracaoIdsBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class GeracaoIdsBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(GeracaoIdsBenchmarkTest.class);
+
+    private static final String URL = System.getProperty("benchmark.url",
+            "jdbc:postgresql://localhost:5432/consultorio?reWriteBatchedInserts=true");
+    private static final String USUARIO = System.getProperty("benchmark.usuario", "postgres");
+    private static final String SENHA = System.getProperty("benchmark.senha", "Variado1234");
+
+    private static final int LINHAS = 20_000;
+    private static final int ALOCACAO = 50;
+    private static final int BATCH = 20;
+
+    private static final String COLUNAS = "descricao text, horario timestamp, tempo_consulta_minutos int, dentista_id bigint";
+
+    @Test
+    void comparaIdentityComSequencePooledLo() throws SQLException {
+        try (Connection conexao = DriverManager.getConnection(URL, USUARIO, SENHA)) {
+            conexao.setAutoCommit(false);
+            try (Statement st = conexao.createStatement()) {
+                st.execute("CREATE TEMP TABLE bench_identity (id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " + COLUNAS + ")");
+                st.execute("CREATE TEMP TABLE bench_sequence (id bigint PRIMARY KEY, " + COLUNAS + ")");
+                st.execute("CREATE TEMP SEQUENCE bench_sequence_seq INCREMENT BY " + ALOCACAO);
+            }
+
+            // Aquecimento do driver e do plano das duas formas
+            inserirComIdentity(conexao, 1_000);
+            inserirComSequence(conexao, 1_000);
+            conexao.commit();
+
+            long identity = medir(() -> inserirComIdentity(conexao, LINHAS));
+            conexao.commit();
+            long sequence = medir(() -> inserirComSequence(conexao, LINHAS));
+            conexao.commit();
+
+            log.info("{} INSERTs | IDENTITY: {} ms ({} linhas/s) | SEQUENCE pooled-lo: {} ms ({} linhas/s)",
+                    LINHAS, identity, LINHAS * 1000 / Math.max(1, identity),
+                    sequence, LINHAS * 1000 / Math.max(1, sequence));
+
+            assertEquals(LINHAS + 1_000, contar(conexao, "bench_sequence"));
+        }
+    }
+
+    private static void inserirComIdentity(Connection conexao, int linhas) throws SQLException {
+        try (PreparedStatement ps = conexao.prepareStatement(
+                "INSERT INTO bench_identity (descricao, horario, tempo_consulta_minutos, dentista_id) VALUES (?, ?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < linhas; i++) {
+                preencher(ps, 1, i);
+                ps.executeUpdate();
+                try (ResultSet chave = ps.getGeneratedKeys()) {
+                    chave.next();
+                }
+            }
+        }
+    }
+
+    private static void inserirComSequence(Connection conexao, int linhas) throws SQLException {
+        try (PreparedStatement proximoBloco = conexao.prepareStatement("SELECT nextval('bench_sequence_seq')");
+             PreparedStatement ps = conexao.prepareStatement(
+                     "INSERT INTO bench_sequence (id, descricao, horario, tempo_consulta_minutos, dentista_id) VALUES (?, ?, ?, ?, ?)")) {
+            long id = 0;
+            long fimBloco = 0;
+            for (int i = 0; i < linhas; i++) {
+                if (id == fimBloco) {
+                    try (ResultSet rs = proximoBloco.executeQuery()) {
+                        rs.next();
+                        id = rs.getLong(1);
+                        fimBloco = id + ALOCACAO;
+                    }
+                }
+                ps.setLong(1, id++);
+                preencher(ps, 2, i);
+                ps.addBatch();
+                if ((i + 1) % BATCH == 0) {
+                    ps.executeBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private static void preencher(PreparedStatement ps, int primeiro, int i) throws SQLException {
+        ps.setString(primeiro, "Benchmark");
+        ps.setTimestamp(primeiro + 1, Timestamp.valueOf(LocalDateTime.of(2030, 1, 1, 8, 0).plusMinutes(30L * i)));
+        ps.setInt(primeiro + 2, 30);
+        ps.setLong(primeiro + 3, 1L + i % 10);
+    }
+
+    private static long contar(Connection conexao, String tabela) throws SQLException {
+        try (Statement st = conexao.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM " + tabela)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static long medir(Operacao operacao) throws SQLException {
+        long inicio = System.nanoTime();
+        operacao.executar();
+        return (System.nanoTime() - inicio) / 1_000_000;
+    }
+
+    @FunctionalInterface
+    private interface Operacao {
+        void executar() throws SQLException;
+    }
+}
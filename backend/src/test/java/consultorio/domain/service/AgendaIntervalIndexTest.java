@@ -0,0 +1,107 @@
+package consultorio.consultorio.domain.service;
+
+import consultorio.consultorio.domain.entity.Agenda;
+import consultorio.consultorio.domain.entity.Dentista;
+import consultorio.consultorio.domain.repository.AgendaHorarioView;
+import consultorio.consultorio.domain.repository.AgendaRepository;
+import consultorio.consultorio.domain.repository.RecorrenciaAgendaRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Carga sob demanda do índice: agendas que começaram antes da janela mas
+ * ainda a ocupam, e registros que chegam enquanto o dentista é carregado.
+ */
+class AgendaIntervalIndexTest {
+
+    private static final long DENTISTA_ID = 1L;
+
+    private final AgendaRepository repository = mock(AgendaRepository.class);
+    private final RecorrenciaAgendaRepository recorrenciaRepository = mock(RecorrenciaAgendaRepository.class);
+    private final AgendaIntervalIndex index = new AgendaIntervalIndex(repository, recorrenciaRepository);
+
+    // Início da janela carregada (ontem); truncado para os horários caírem em minutos cheios
+    private final LocalDateTime ontem = LocalDateTime.now().minusDays(1).truncatedTo(ChronoUnit.MINUTES);
+
+    @Test
+    void agendaIniciadaAntesDaJanelaAindaOcupaOInicioDela() {
+        // Começou 1h antes da janela e dura 3h: ocupa as 2 primeiras horas dela
+        List<AgendaHorarioView> gravadas = List.of(view(10L, ontem.minusHours(1), 180), view(11L, ontem.minusHours(5), 60));
+        when(repository.findByDentistaIdAndHorarioGreaterThanEqual(eq(DENTISTA_ID), any())).thenAnswer(chamada -> {
+            LocalDateTime desde = chamada.getArgument(1);
+            return gravadas.stream().filter(a -> !a.getHorario().isBefore(desde)).toList();
+        });
+
+        LocalDateTime inicio = ontem.plusHours(1);
+        assertTrue(index.cobre(DENTISTA_ID, inicio));
+        List<AgendaIntervalIndex.Intervalo> conflitos = index.conflitos(DENTISTA_ID, inicio, inicio.plusMinutes(30), null);
+
+        assertEquals(1, conflitos.size());
+        assertEquals(10L, conflitos.get(0).agendaId());
+        assertFalse(index.temConflito(DENTISTA_ID, ontem.plusHours(3), ontem.plusHours(4)));
+    }
+
+    @Test
+    void registroDuranteACargaNaoSePerde() throws Exception {
+        CountDownLatch carregando = new CountDownLatch(1);
+        CountDownLatch liberarCarga = new CountDownLatch(1);
+        // A leitura do banco aconteceu antes do commit da agenda nova: não a traz
+        when(repository.findByDentistaIdAndHorarioGreaterThanEqual(eq(DENTISTA_ID), any())).thenAnswer(chamada -> {
+            carregando.countDown();
+            assertTrue(liberarCarga.await(5, TimeUnit.SECONDS));
+            return List.of();
+        });
+
+        CompletableFuture<Boolean> carga = CompletableFuture.supplyAsync(
+                () -> index.cobre(DENTISTA_ID, ontem.plusDays(1)));
+        assertTrue(carregando.await(5, TimeUnit.SECONDS));
+
+        LocalDateTime amanha = ontem.plusDays(2);
+        Agenda nova = Agenda.builder()
+                .id(20L)
+                .dentista(Dentista.builder().id(DENTISTA_ID).build())
+                .horario(amanha)
+                .tempoConsultaMinutos(30)
+                .build();
+        CompletableFuture<Void> registro = CompletableFuture.runAsync(() -> index.registrar(nova));
+        Thread.sleep(100);
+        liberarCarga.countDown();
+
+        assertTrue(carga.get(5, TimeUnit.SECONDS));
+        registro.get(5, TimeUnit.SECONDS);
+        assertTrue(index.temConflito(DENTISTA_ID, amanha.plusMinutes(15), amanha.plusMinutes(45)));
+    }
+
+    private static AgendaHorarioView view(Long id, LocalDateTime horario, Integer minutos) {
+        return new AgendaHorarioView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public LocalDateTime getHorario() {
+                return horario;
+            }
+
+            @Override
+            public Integer getTempoConsultaMinutos() {
+                return minutos;
+            }
+        };
+    }
+}
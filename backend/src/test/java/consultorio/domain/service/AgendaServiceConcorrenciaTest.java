@@ -0,0 +1,213 @@
+package consultorio.consultorio.domain.service;
+
+import consultorio.consultorio.domain.entity.Agenda;
+import consultorio.consultorio.domain.entity.Dentista;
+import consultorio.consultorio.domain.entity.ReservaHorario;
+import consultorio.consultorio.domain.exception.BusinessException;
+import consultorio.consultorio.domain.repository.AgendaRepository;
+import consultorio.consultorio.domain.repository.RecorrenciaAgendaRepository;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Dispara 1.000 marcações simultâneas disputando poucos horários e garante
+ * que nenhuma agenda gravada se sobrepõe a outra do mesmo dentista.
+ *
+ * Cobre só a parte em processo: o repositório é simulado, então o advisory
+ * lock do PostgreSQL não é exercitado e o banco nunca acusa conflito; quem
+ * impede a sobreposição aqui são as listras de AgendamentoLocks e o índice em
+ * memória. O lock no banco é testado em AgendamentoLocksPostgresTest.
+ */
+class AgendaServiceConcorrenciaTest {
+
+    private static final Logger log = LoggerFactory.getLogger(AgendaServiceConcorrenciaTest.class);
+
+    private static final int MARCACOES = 1_000;
+    private static final int THREADS = 32;
+    private static final long[] DENTISTAS = {1L, 2L, 3L};
+    private static final int[] DURACOES = {20, 30, 60};
+
+    private final AgendaRepository repository = mock(AgendaRepository.class);
+    private final Queue<Agenda> gravadas = new ConcurrentLinkedQueue<>();
+    private final AtomicLong sequencia = new AtomicLong();
+
+    private final RecorrenciaAgendaRepository recorrenciaRepository = mock(RecorrenciaAgendaRepository.class);
+    private final AgendaIntervalIndex intervalIndex = new AgendaIntervalIndex(repository, recorrenciaRepository);
+    private final AgendamentoLocks locks = new AgendamentoLocks(repository);
+    private final CalendarioService calendarioService = mock(CalendarioService.class);
+    private final ReservaHorarioService reservas = mock(ReservaHorarioService.class);
+    private final AgendaService service = new AgendaService(repository, intervalIndex, locks,
+            new RecorrenciaService(recorrenciaRepository, repository, intervalIndex, locks, mock(AgendaVersoes.class),
+                    calendarioService, reservas),
+            reservas, mock(RecursoService.class), calendarioService, evento -> { });
+
+    @Test
+    void marcacoesConcorrentesNaoGeramSobreposicao() throws InterruptedException {
+        when(repository.save(any(Agenda.class))).thenAnswer(inv -> {
+            Agenda agenda = inv.getArgument(0);
+            agenda.setId(sequencia.incrementAndGet());
+            gravadas.add(agenda);
+            return agenda;
+        });
+
+        LocalDateTime segundaAsOito = LocalDate.now()
+                .with(TemporalAdjusters.next(DayOfWeek.MONDAY))
+                .atTime(8, 0);
+
+        AtomicInteger recusadas = new AtomicInteger();
+        CountDownLatch largada = new CountDownLatch(1);
+        CountDownLatch fim = new CountDownLatch(MARCACOES);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+
+        for (int i = 0; i < MARCACOES; i++) {
+            pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                Agenda agenda = Agenda.builder()
+                        .descricao("Consulta")
+                        .dentista(Dentista.builder().id(DENTISTAS[random.nextInt(DENTISTAS.length)]).build())
+                        .horario(segundaAsOito.plusMinutes(5L * random.nextInt(40)))
+                        .tempoConsultaMinutos(DURACOES[random.nextInt(DURACOES.length)])
+                        .build();
+                try {
+                    largada.await();
+                    emTransacao(() -> service.salvar(agenda));
+                } catch (BusinessException e) {
+                    recusadas.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    fim.countDown();
+                }
+            });
+        }
+
+        long inicio = System.nanoTime();
+        largada.countDown();
+        assertTrue(fim.await(60, TimeUnit.SECONDS), "marcações não terminaram a tempo");
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        pool.shutdown();
+
+        log.info("{} marcações em {} threads: {} ms ({} marcações/s) | {} gravadas, {} recusadas",
+                MARCACOES, THREADS, Math.round(segundos * 1000), Math.round(MARCACOES / segundos),
+                gravadas.size(), recusadas.get());
+
+        assertEquals(MARCACOES, gravadas.size() + recusadas.get());
+        assertFalse(gravadas.isEmpty());
+
+        Map<Long, List<Agenda>> porDentista = gravadas.stream()
+                .collect(Collectors.groupingBy(a -> a.getDentista().getId()));
+        porDentista.values().forEach(this::assertSemSobreposicao);
+    }
+
+    @Test
+    void reservaSoValeParaOProprioDentistaEHorario() {
+        when(repository.save(any(Agenda.class))).thenAnswer(inv -> inv.getArgument(0));
+        LocalDateTime oito = LocalDate.now().plusDays(7).atTime(8, 0);
+        when(reservas.buscarValidaOuFalhar("r1")).thenReturn(ReservaHorario.builder()
+                .id("r1").dentistaId(1L).inicio(oito).fim(oito.plusMinutes(30)).build());
+
+        // Outro dentista, ou um horário que passa do fim da reserva: recusado sem liberar nada
+        assertThrows(BusinessException.class, () -> emTransacao(() -> service.salvar(consulta(2L, oito), "r1")));
+        assertThrows(BusinessException.class,
+                () -> emTransacao(() -> service.salvar(consulta(1L, oito.plusMinutes(15)), "r1")));
+        verify(reservas, never()).liberar(any());
+
+        emTransacao(() -> service.salvar(consulta(1L, oito), "r1"));
+        verify(reservas).temConflitoNoBanco(1L, oito, oito.plusMinutes(30), "r1");
+        verify(reservas).liberar("r1");
+    }
+
+    @Test
+    void disponibilidadeRespondePelaMemoriaEAMarcacaoConfirmaNoBanco() {
+        when(repository.save(any(Agenda.class))).thenAnswer(inv -> {
+            Agenda agenda = inv.getArgument(0);
+            agenda.setId(sequencia.incrementAndGet());
+            return agenda;
+        });
+        when(calendarioService.atende(any(), any(), anyInt())).thenReturn(true);
+        LocalDateTime oito = LocalDate.now().plusDays(7).atTime(8, 0);
+        emTransacao(() -> service.salvar(consulta(1L, oito)));
+        clearInvocations(repository, recorrenciaRepository, reservas);
+
+        // Ocupado pelo índice, livre pela memória: nenhum dos dois vai ao banco
+        assertFalse(service.verificarDisponibilidade(1L, oito.plusMinutes(15), 30));
+        service.verificarDisponibilidade(1L, oito.plusMinutes(30), 30);
+        verify(repository, never()).existsConflito(any(), any(), any(), any());
+        verify(recorrenciaRepository, never()).findAtivasDoDentista(any(), any());
+        verify(reservas, never()).temConflitoNoBanco(any(), any(), any(), any());
+
+        emTransacao(() -> service.salvar(consulta(1L, oito.plusMinutes(30))));
+        verify(repository).existsConflito(eq(1L), eq(oito.plusMinutes(30)), eq(oito.plusMinutes(60)), any());
+        verify(reservas).temConflitoNoBanco(1L, oito.plusMinutes(30), oito.plusMinutes(60), null);
+    }
+
+    private static Agenda consulta(Long dentistaId, LocalDateTime horario) {
+        return Agenda.builder()
+                .descricao("Consulta")
+                .dentista(Dentista.builder().id(dentistaId).build())
+                .horario(horario)
+                .tempoConsultaMinutos(30)
+                .build();
+    }
+
+    private void assertSemSobreposicao(List<Agenda> agendas) {
+        List<Agenda> ordenadas = new ArrayList<>(agendas);
+        ordenadas.sort(Comparator.comparing(Agenda::getHorario));
+        for (int i = 1; i < ordenadas.size(); i++) {
+            Agenda anterior = ordenadas.get(i - 1);
+            Agenda atual = ordenadas.get(i);
+            assertFalse(anterior.getHorarioFim().isAfter(atual.getHorario()),
+                    "sobreposição entre agendas " + anterior.getId() + " e " + atual.getId());
+        }
+    }
+
+    // Reproduz o ciclo que o TransactionInterceptor executa em volta do serviço
+    private static void emTransacao(Runnable acao) {
+        TransactionSynchronizationManager.initSynchronization();
+        int status = TransactionSynchronization.STATUS_ROLLED_BACK;
+        try {
+            acao.run();
+            TransactionSynchronizationUtils.triggerAfterCommit();
+            status = TransactionSynchronization.STATUS_COMMITTED;
+        } finally {
+            TransactionSynchronizationUtils.triggerAfterCompletion(status);
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
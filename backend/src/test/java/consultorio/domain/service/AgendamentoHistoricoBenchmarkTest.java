@@ -0,0 +1,199 @@
+package consultorio.consultorio.domain.service;
+
+import consultorio.consultorio.domain.repository.AgendaRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.jpa.repository.Query;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compara a latência de marcar um horário conforme o histórico do dentista cresce
+ * (1 mil → 100 mil agendas): o caminho antigo lia todas as agendas do dentista,
+ * o novo faz a checagem de AgendaRepository.existsConflito (o SQL é lido da
+ * anotação @Query, não copiado) e um INSERT.
+ *
+ * Roda contra o PostgreSQL local numa tabela temporária com a mesma estrutura da agenda
+ * (sem as chaves estrangeiras, para não depender de dentistas cadastrados):
+ *   mvn test -Dtest=AgendamentoHistoricoBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class AgendamentoHistoricoBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(AgendamentoHistoricoBenchmarkTest.class);
+
+    private static final String URL = System.getProperty("benchmark.url", "jdbc:postgresql://localhost:5432/consultorio");
+    private static final String USUARIO = System.getProperty("benchmark.usuario", "postgres");
+    private static final String SENHA = System.getProperty("benchmark.senha", "Variado1234");
+
+    private static final int[] HISTORICOS = {1_000, 10_000, 100_000};
+    private static final int MARCACOES_MEDIDAS = 200;
+    private static final long DENTISTA_ID = 1L;
+
+    // Os IDs vêm da aplicação (sequence pooled-lo): a tabela não tem default para a coluna
+    private static final String INSERT = "INSERT INTO agenda_bench " +
+            "(id, descricao, horario, data_criacao, tempo_consulta_minutos, dentista_id, status) " +
+            "VALUES (?, ?, ?, now(), 30, ?, 'AGENDADO')";
+
+    // O que o caminho antigo fazia ao inicializar Dentista.agendas
+    private static final String HISTORICO_COMPLETO = "SELECT * FROM agenda_bench WHERE dentista_id = ?";
+
+    private static final Pattern PARAMETRO = Pattern.compile(":(\\w+)");
+
+    private long proximoId = 1;
+
+    @Test
+    void latenciaDaMarcacaoNaoCresceComHistorico() throws Exception {
+        ConsultaNomeada conflito = ConsultaNomeada.de(AgendaRepository.class.getMethod("existsConflito",
+                Long.class, LocalDateTime.class, LocalDateTime.class, LocalDateTime.class), "agenda_bench");
+
+        try (Connection conexao = DriverManager.getConnection(URL, USUARIO, SENHA)) {
+            try (Statement st = conexao.createStatement()) {
+                st.execute("CREATE TEMP TABLE agenda_bench (LIKE agenda INCLUDING ALL)");
+                st.execute("ALTER TABLE agenda_bench ALTER COLUMN id DROP DEFAULT");
+            }
+
+            List<Double> novos = new ArrayList<>();
+            int gravadas = 0;
+            LocalDateTime base = LocalDateTime.now().minusYears(20).withNano(0);
+
+            for (int rodada = 0; rodada < HISTORICOS.length; rodada++) {
+                int historico = HISTORICOS[rodada];
+                gravadas = popular(conexao, base, gravadas, historico);
+                // Depois de todo o histórico (100 mil meias horas ≈ 6 anos), um mês por rodada
+                LocalDateTime futuro = base.plusYears(10).plusMonths(rodada);
+
+                double antigo = medir(() -> lerHistorico(conexao));
+                int[] marcadas = {0};
+                double novo = medir(() -> {
+                    LocalDateTime horario = futuro.plusMinutes(30L * marcadas[0]++);
+                    assertTrue(marcar(conexao, conflito, horario), "horário livre recusado: " + horario);
+                });
+                novos.add(novo);
+
+                // A checagem real também recusa o que acabou de ser marcado
+                assertFalse(marcar(conexao, conflito, futuro.plusMinutes(15)));
+
+                log.info("histórico={} | caminho antigo: {} ms | caminho novo: {} ms",
+                        historico, String.format("%.3f", antigo), String.format("%.3f", novo));
+            }
+
+            // Com índice a latência deve ficar na mesma ordem de grandeza
+            assertTrue(novos.get(novos.size() - 1) < novos.get(0) * 5 + 1.0,
+                    "latência da marcação cresceu com o histórico: " + novos);
+        }
+    }
+
+    private int popular(Connection conexao, LocalDateTime base, int gravadas, int total) throws SQLException {
+        try (PreparedStatement ps = conexao.prepareStatement(
+                "INSERT INTO agenda_bench (id, descricao, horario, data_criacao, tempo_consulta_minutos, dentista_id, status) " +
+                        "SELECT ? + g, 'Histórico', ?::timestamp + (g * interval '30 minutes'), now(), 30, ?, 'CONCLUIDO' " +
+                        "FROM generate_series(?, ?) g")) {
+            ps.setLong(1, proximoId);
+            ps.setTimestamp(2, Timestamp.valueOf(base));
+            ps.setLong(3, DENTISTA_ID);
+            ps.setInt(4, gravadas);
+            ps.setInt(5, total - 1);
+            ps.executeUpdate();
+        }
+        proximoId += total;
+        try (Statement st = conexao.createStatement()) {
+            st.execute("ANALYZE agenda_bench");
+        }
+        return total;
+    }
+
+    private static void lerHistorico(Connection conexao) throws SQLException {
+        try (PreparedStatement ps = conexao.prepareStatement(HISTORICO_COMPLETO)) {
+            ps.setLong(1, DENTISTA_ID);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rs.getTimestamp("horario");
+                }
+            }
+        }
+    }
+
+    /** Mesmo caminho do serviço: checagem de conflito e, se livre, INSERT. */
+    private boolean marcar(Connection conexao, ConsultaNomeada conflito, LocalDateTime horario) throws SQLException {
+        Timestamp inicio = Timestamp.valueOf(horario);
+        Map<String, Object> parametros = Map.of(
+                "dentistaId", DENTISTA_ID,
+                "inicio", inicio,
+                "fim", Timestamp.valueOf(horario.plusMinutes(30)),
+                "limiteInferior", Timestamp.valueOf(horario.minusHours(24)));
+        try (PreparedStatement ps = conflito.preparar(conexao, parametros); ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            if (rs.getBoolean(1)) {
+                return false;
+            }
+        }
+        try (PreparedStatement ps = conexao.prepareStatement(INSERT)) {
+            ps.setLong(1, proximoId++);
+            ps.setString(2, "Benchmark");
+            ps.setTimestamp(3, inicio);
+            ps.setLong(4, DENTISTA_ID);
+            ps.executeUpdate();
+        }
+        return true;
+    }
+
+    /** Média em milissegundos, depois de um aquecimento. */
+    private static double medir(Operacao operacao) throws SQLException {
+        for (int i = 0; i < 20; i++) {
+            operacao.executar();
+        }
+        long inicio = System.nanoTime();
+        for (int i = 0; i < MARCACOES_MEDIDAS; i++) {
+            operacao.executar();
+        }
+        return (System.nanoTime() - inicio) / 1e6 / MARCACOES_MEDIDAS;
+    }
+
+    @FunctionalInterface
+    private interface Operacao {
+        void executar() throws SQLException;
+    }
+
+    /** SQL nativo de um método do repositório, com os parâmetros nomeados trocados por '?'. */
+    private record ConsultaNomeada(String sql, List<String> parametros) {
+
+        static ConsultaNomeada de(java.lang.reflect.Method metodo, String tabela) {
+            String original = metodo.getAnnotation(Query.class).value().replace("FROM agenda a", "FROM " + tabela + " a");
+            List<String> nomes = new ArrayList<>();
+            Matcher m = PARAMETRO.matcher(original);
+            StringBuilder sql = new StringBuilder();
+            while (m.find()) {
+                nomes.add(m.group(1));
+                m.appendReplacement(sql, "?");
+            }
+            m.appendTail(sql);
+            return new ConsultaNomeada(sql.toString(), nomes);
+        }
+
+        PreparedStatement preparar(Connection conexao, Map<String, Object> valores) throws SQLException {
+            PreparedStatement ps = conexao.prepareStatement(sql);
+            for (int i = 0; i < parametros.size(); i++) {
+                ps.setObject(i + 1, valores.get(parametros.get(i)));
+            }
+            return ps;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package consultorio.consultorio.domain.service;
+
+import consultorio.consultorio.domain.repository.AgendaRepository;
+import consultorio.consultorio.domain.repository.RecursoRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.jpa.repository.Query;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Os locks por dentista e por recurso no PostgreSQL, com o SQL exato de
+ * AgendaRepository.bloquearAgendaDoDentista e RecursoRepository.bloquearRecurso:
+ * uma segunda transação para o mesmo ID espera o commit da primeira; outro ID
+ * não espera. IDs acima de 2^31 entram de propósito.
+ *
+ * Precisa de um PostgreSQL acessível:
+ *   mvn test -Dtest=AgendamentoLocksPostgresTest -Dintegracao=true
+ */
+@EnabledIfSystemProperty(named = "integracao", matches = "true")
+class AgendamentoLocksPostgresTest {
+
+    private static final String URL = System.getProperty("integracao.url", "jdbc:postgresql://localhost:5432/consultorio");
+    private static final String USUARIO = System.getProperty("integracao.usuario", "postgres");
+    private static final String SENHA = System.getProperty("integracao.senha", "Variado1234");
+
+    private static final long ID = 3_000_000_000L;
+
+    @Test
+    void segundaTransacaoDoMesmoDentistaEsperaOCommit() throws Exception {
+        String sql = AgendaRepository.class.getMethod("bloquearAgendaDoDentista", Long.class)
+                .getAnnotation(Query.class).value()
+                .replace(":dentistaId", "?");
+        segundaTransacaoEsperaOCommit(sql);
+    }
+
+    // Mesmo esquema para os recursos; antes o ID era convertido para integer e estourava acima de 2^31
+    @Test
+    void segundaTransacaoDoMesmoRecursoEsperaOCommit() throws Exception {
+        String sql = RecursoRepository.class.getMethod("bloquearRecurso", Long.class)
+                .getAnnotation(Query.class).value()
+                .replace(":recursoId", "?");
+        segundaTransacaoEsperaOCommit(sql);
+    }
+
+    private static void segundaTransacaoEsperaOCommit(String sql) throws Exception {
+        try (Connection primeira = conectar(); Connection segunda = conectar(); Connection outra = conectar()) {
+            bloquear(primeira, sql, ID);
+
+            CompletableFuture<Void> espera = CompletableFuture.runAsync(() -> bloquear(segunda, sql, ID));
+            // Outro ID, com os mesmos 32 bits baixos, segue direto
+            bloquear(outra, sql, ID + (1L << 32));
+            outra.commit();
+
+            Thread.sleep(300);
+            assertFalse(espera.isDone(), "a segunda transação não esperou pelo lock da primeira");
+
+            primeira.commit();
+            espera.get(5, TimeUnit.SECONDS);
+            segunda.commit();
+        }
+    }
+
+    private static Connection conectar() throws SQLException {
+        Connection conexao = DriverManager.getConnection(URL, USUARIO, SENHA);
+        // Um lock que nunca sai falha o teste em vez de travá-lo
+        try (Statement st = conexao.createStatement()) {
+            st.execute("SET lock_timeout = '5s'");
+        }
+        conexao.setAutoCommit(false);
+        return conexao;
+    }
+
+    private static void bloquear(Connection conexao, String sql, long id) {
+        try (PreparedStatement ps = conexao.prepareStatement(sql)) {
+            ps.setLong(1, id);
+            ps.executeQuery().close();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package consultorio.consultorio.domain.service;
+
+import consultorio.consultorio.domain.entity.Dentista;
+import consultorio.consultorio.domain.entity.ReservaHorario;
+import consultorio.consultorio.domain.repository.DentistaRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Grade de horários livres a partir do expediente, do índice de agendas e
+ * das reservas: agendas que atravessam a meia-noite e a intercalação de
+ * vários dentistas.
+ */
+class HorarioLivreServiceTest {
+
+    private static final LocalDate DIA = LocalDate.now().plusDays(10);
+
+    private final AgendaIntervalIndex intervalIndex = mock(AgendaIntervalIndex.class);
+    private final CalendarioService calendarioService = mock(CalendarioService.class);
+    private final DentistaRepository dentistaRepository = mock(DentistaRepository.class);
+    private final ReservaHorarioService reservaService = mock(ReservaHorarioService.class);
+    private final HorarioLivreService service = new HorarioLivreService(intervalIndex, calendarioService,
+            dentistaRepository, mock(RecursoService.class), reservaService);
+
+    HorarioLivreServiceTest() {
+        // Cada chamada recebe uma grade nova, como a cópia do CalendarioService
+        when(calendarioService.expediente(any(), any()))
+                .thenAnswer(chamada -> OcupacaoDiaria.fechado().liberar(8 * 60, 12 * 60));
+    }
+
+    @Test
+    void agendaQueAtravessaAMeiaNoiteOcupaOsDoisDias() {
+        when(calendarioService.expediente(eq(1L), any())).thenAnswer(chamada -> OcupacaoDiaria.livre());
+        LocalDateTime onzeEMeia = DIA.atTime(23, 30);
+        when(intervalIndex.conflitos(eq(1L), any(), any(), any())).thenReturn(List.of(
+                new AgendaIntervalIndex.Intervalo(10L, onzeEMeia, onzeEMeia.plusMinutes(60))));
+
+        OcupacaoDiaria noDia = service.disponibilidade(1L, DIA);
+        OcupacaoDiaria noSeguinte = service.disponibilidade(1L, DIA.plusDays(1));
+
+        assertEquals(OcupacaoDiaria.SLOTS_POR_DIA - 6, noDia.fatiasLivres());
+        assertEquals(-1, noDia.proximoLivre(OcupacaoDiaria.slot(onzeEMeia.toLocalTime())));
+        assertEquals(OcupacaoDiaria.SLOTS_POR_DIA - 6, noSeguinte.fatiasLivres());
+        assertEquals(6, noSeguinte.proximoLivre(0));
+    }
+
+    @Test
+    void reservaValidaSaiDaGrade() {
+        when(reservaService.reservasNaFaixa(eq(1L), any(), any())).thenReturn(List.of(ReservaHorario.builder()
+                .id("r1").dentistaId(1L).inicio(DIA.atTime(8, 0)).fim(DIA.atTime(8, 30)).build()));
+
+        OcupacaoDiaria grade = service.disponibilidade(1L, DIA);
+
+        assertEquals(OcupacaoDiaria.slot(DIA.atTime(8, 30).toLocalTime()), grade.proximoLivre(0));
+    }
+
+    @Test
+    void variosDentistasSaemIntercaladosEmOrdemCronologica() {
+        when(dentistaRepository.findAllById(anyList())).thenReturn(List.of(
+                Dentista.builder().id(2L).nome("Bruno").build(),
+                Dentista.builder().id(1L).nome("Ana").build()));
+        // Dentista 1 ocupado das 8h às 9h; dentista 2 livre a manhã toda
+        when(intervalIndex.conflitos(eq(1L), any(), any(), any())).thenReturn(List.of(
+                new AgendaIntervalIndex.Intervalo(10L, DIA.atTime(8, 0), DIA.atTime(9, 0))));
+
+        List<HorarioLivreService.HorarioLivre> livres =
+                service.buscarProximosHorarios(List.of(1L, 2L), DIA.atStartOfDay(), 60, 5);
+
+        assertEquals(List.of(
+                        livre(2L, "Bruno", 8), livre(1L, "Ana", 9), livre(2L, "Bruno", 9),
+                        livre(1L, "Ana", 10), livre(2L, "Bruno", 10)),
+                livres);
+    }
+
+    @Test
+    void buscaPulaParaODiaSeguinteQuandoOPrimeiroAcaba() {
+        when(dentistaRepository.findAllById(anyList())).thenReturn(List.of(
+                Dentista.builder().id(1L).nome("Ana").build()));
+
+        // A partir das 11h07: cabe só o início das 11h10 naquele dia
+        List<HorarioLivreService.HorarioLivre> livres =
+                service.buscarProximosHorarios(List.of(1L), DIA.atTime(11, 7), 50, 2);
+
+        assertEquals(DIA.atTime(11, 10), livres.get(0).inicio());
+        assertEquals(DIA.plusDays(1).atTime(8, 0), livres.get(1).inicio());
+    }
+
+    private static HorarioLivreService.HorarioLivre livre(Long dentistaId, String nome, int hora) {
+        LocalDateTime inicio = DIA.atTime(hora, 0);
+        return new HorarioLivreService.HorarioLivre(dentistaId, nome, inicio, inicio.plusMinutes(60));
+    }
+}
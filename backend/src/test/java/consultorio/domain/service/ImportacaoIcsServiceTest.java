@@ -0,0 +1,156 @@
+package consultorio.consultorio.domain.service;
+
+import consultorio.consultorio.domain.entity.Agenda;
+import consultorio.consultorio.domain.entity.Dentista;
+import consultorio.consultorio.domain.entity.ReservaHorario;
+import consultorio.consultorio.domain.exception.BusinessException;
+import consultorio.consultorio.domain.repository.DentistaRepository;
+import consultorio.consultorio.domain.repository.RecorrenciaAgendaRepository;
+import consultorio.consultorio.utils.Calendario;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Importação de .ics com repositórios e lote simulados: a agenda do dentista
+ * é lida só na faixa do arquivo, conflitos (no arquivo, no banco e com
+ * reservas temporárias) viram recusas e um lote recusado é gravado item a item.
+ */
+class ImportacaoIcsServiceTest {
+
+    private static final LocalDateTime NOVE = LocalDateTime.of(2030, 1, 7, 9, 0);
+
+    private final DentistaRepository dentistaRepository = mock(DentistaRepository.class);
+    private final RecorrenciaAgendaRepository recorrenciaRepository = mock(RecorrenciaAgendaRepository.class);
+    private final AgendaLoteService loteService = mock(AgendaLoteService.class);
+    private final CalendarioService calendarioService = mock(CalendarioService.class);
+    private final ReservaHorarioService reservaService = mock(ReservaHorarioService.class);
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+
+    private final ImportacaoIcsService service = new ImportacaoIcsService(dentistaRepository, recorrenciaRepository,
+            loteService, calendarioService, reservaService, jdbc, "America/Sao_Paulo");
+
+    private final List<List<LocalDateTime>> gravados = new ArrayList<>();
+
+    ImportacaoIcsServiceTest() {
+        when(dentistaRepository.findById(1L)).thenReturn(Optional.of(Dentista.builder().id(1L).nome("Ana").build()));
+        when(calendarioService.atende(eq(1L), any(), anyInt())).thenReturn(true);
+        when(loteService.salvarLote(anyList())).thenAnswer(chamada -> {
+            List<Agenda> lote = chamada.getArgument(0);
+            gravados.add(lote.stream().map(Agenda::getHorario).toList());
+            return lote.stream().map(a -> 1L).toList();
+        });
+    }
+
+    @AfterEach
+    void encerrar() {
+        service.encerrar();
+    }
+
+    @Test
+    void carregaSoAFaixaDoArquivoERecusaConflitos() throws Exception {
+        List<Object[]> consultas = new ArrayList<>();
+        doAnswer(chamada -> {
+            consultas.add((Object[]) chamada.getRawArguments()[2]);
+            // Já gravada: 09:50 às 10:20
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getTimestamp("horario")).thenReturn(Timestamp.valueOf(NOVE.plusMinutes(50)));
+            when(rs.getInt("tempo_consulta_minutos")).thenReturn(30);
+            ((RowCallbackHandler) chamada.getArgument(1)).processRow(rs);
+            return null;
+        }).when(jdbc).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+        when(reservaService.validasNaFaixa(eq(1L), any(), any())).thenReturn(List.of(ReservaHorario.builder()
+                .id("r1").dentistaId(1L)
+                .inicio(NOVE.plusDays(1).minusMinutes(45)).fim(NOVE.plusDays(1).minusMinutes(15))
+                .build()));
+
+        ImportacaoIcsService.Andamento andamento = importar(
+                evento("a", "DTSTART:20300107T090000\r\nDTEND:20300107T093000"),
+                // Sobrepõe o anterior, do próprio arquivo
+                evento("b", "DTSTART:20300107T091500\r\nDTEND:20300107T094500"),
+                // Sobrepõe a agenda gravada
+                evento("c", "DTSTART:20300107T100000\r\nDTEND:20300107T103000"),
+                // Sobrepõe a reserva temporária das 08:15
+                evento("d", "DTSTART:20300108T080000\r\nDTEND:20300108T083000"),
+                evento("e", "DTSTART:20300107T120000\r\nDTEND:20300107T123000\r\nRRULE:FREQ=WEEKLY"),
+                evento("f", "DTSTART;VALUE=DATE:20300109"),
+                evento("g", "DTSTART:20300110T140000\r\nDURATION:PT1H"));
+
+        assertEquals(ImportacaoIcsService.Situacao.CONCLUIDA, andamento.getSituacao(), andamento.getErro());
+        assertEquals(7, andamento.getLidos());
+        assertEquals(2, andamento.getImportados());
+        assertEquals(3, andamento.getConflitos());
+        assertEquals(2, andamento.getIgnorados());
+        assertEquals(List.of(List.of(NOVE, LocalDateTime.of(2030, 1, 10, 14, 0))), gravados);
+        assertTrue(andamento.getRecusas().stream().anyMatch(r -> r.contains("reservado temporariamente")));
+
+        // Uma consulta só, do início mais cedo (menos a maior duração possível) ao fim mais tarde do arquivo
+        LocalDateTime desde = NOVE.minusMinutes(Calendario.DURACAO_MAXIMA_MINUTOS);
+        assertEquals(1, consultas.size());
+        assertArrayEquals(new Object[]{1L, Timestamp.valueOf(desde), Timestamp.valueOf(LocalDateTime.of(2030, 1, 10, 15, 0))},
+                consultas.get(0));
+        verify(recorrenciaRepository).findAtivasDoDentista(1L, desde.toLocalDate());
+    }
+
+    @Test
+    void loteRecusadoEGravadoItemAItem() throws Exception {
+        LocalDateTime dez = NOVE.plusHours(1);
+        doAnswer(chamada -> {
+            List<Agenda> lote = chamada.getArgument(0);
+            // Alguém marcou às 10:00 depois da carga inicial
+            if (lote.stream().anyMatch(a -> a.getHorario().equals(dez))) {
+                throw new BusinessException("Já existe um agendamento que conflita com " + dez);
+            }
+            gravados.add(lote.stream().map(Agenda::getHorario).toList());
+            return List.of(1L);
+        }).when(loteService).salvarLote(anyList());
+
+        ImportacaoIcsService.Andamento andamento = importar(
+                evento("a", "DTSTART:20300107T090000\r\nDTEND:20300107T093000"),
+                evento("b", "DTSTART:20300107T100000\r\nDTEND:20300107T103000"));
+
+        assertEquals(ImportacaoIcsService.Situacao.CONCLUIDA, andamento.getSituacao(), andamento.getErro());
+        assertEquals(1, andamento.getImportados());
+        assertEquals(1, andamento.getConflitos());
+        assertEquals(List.of(List.of(NOVE)), gravados);
+    }
+
+    private ImportacaoIcsService.Andamento importar(String... eventos) throws IOException, InterruptedException {
+        Path arquivo = Files.createTempFile("importacao-teste-", ".ics");
+        Files.writeString(arquivo, "BEGIN:VCALENDAR\r\nVERSION:2.0\r\n" + String.join("", eventos) + "END:VCALENDAR\r\n");
+
+        ImportacaoIcsService.Andamento andamento = service.importar(1L, arquivo);
+        for (int i = 0; i < 500 && andamento.getSituacao() == ImportacaoIcsService.Situacao.PROCESSANDO; i++) {
+            Thread.sleep(10);
+        }
+        return andamento;
+    }
+
+    private static String evento(String uid, String propriedades) {
+        return "BEGIN:VEVENT\r\nUID:" + uid + "\r\n" + propriedades + "\r\nSUMMARY:Consulta " + uid + "\r\nEND:VEVENT\r\n";
+    }
+}
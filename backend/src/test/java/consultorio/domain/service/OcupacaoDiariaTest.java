@@ -0,0 +1,97 @@
+package consultorio.consultorio.domain.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Operações de bits da grade do dia, sobretudo onde a fatia cruza a fronteira
+ * entre duas palavras de 64 bits (05:20 é a fatia 64).
+ */
+class OcupacaoDiariaTest {
+
+    @Test
+    void iniciosPossiveisConferemComAVerificacaoFatiaAFatia() {
+        Random random = new Random(42);
+        for (int rodada = 0; rodada < 50; rodada++) {
+            OcupacaoDiaria grade = OcupacaoDiaria.fechado();
+            for (int trecho = 0; trecho < 8; trecho++) {
+                int de = random.nextInt(24 * 60);
+                grade.liberar(de, de + random.nextInt(240));
+            }
+
+            for (int slots : new int[]{1, 2, 3, 7, 12, 63, 64, 65, 130}) {
+                OcupacaoDiaria inicios = grade.iniciosPossiveis(slots);
+                for (int i = 0; i < OcupacaoDiaria.SLOTS_POR_DIA; i++) {
+                    assertEquals(grade.livre(i, i + slots), inicios.livre(i, i + 1),
+                            "rodada " + rodada + ", " + slots + " fatias, início " + i);
+                }
+            }
+        }
+    }
+
+    @Test
+    void iniciosAtravessamAFronteiraDaPalavra() {
+        // 05:00 a 06:00 = fatias 60 a 71; 35 minutos = 7 fatias
+        OcupacaoDiaria inicios = OcupacaoDiaria.fechado().liberar(5 * 60, 6 * 60).iniciosPossiveis(7);
+
+        assertEquals(60, inicios.proximoLivre(0));
+        assertEquals(64, inicios.proximoLivre(64));
+        assertEquals(65, inicios.proximoLivre(65));
+        assertEquals(-1, inicios.proximoLivre(66));
+        assertEquals(6, inicios.fatiasLivres());
+    }
+
+    @Test
+    void diaLivreInteiroSoTemIniciosQueCabemAteMeiaNoite() {
+        OcupacaoDiaria inicios = OcupacaoDiaria.livre().iniciosPossiveis(100);
+
+        assertEquals(OcupacaoDiaria.SLOTS_POR_DIA - 100 + 1, inicios.fatiasLivres());
+        assertTrue(inicios.livre(OcupacaoDiaria.SLOTS_POR_DIA - 100, OcupacaoDiaria.SLOTS_POR_DIA - 99));
+        assertFalse(inicios.livre(OcupacaoDiaria.SLOTS_POR_DIA - 99, OcupacaoDiaria.SLOTS_POR_DIA - 98));
+    }
+
+    @Test
+    void proximoLivreNasBordas() {
+        OcupacaoDiaria grade = OcupacaoDiaria.fechado().liberar(0, 5).liberar(23 * 60 + 55, 24 * 60);
+
+        assertEquals(0, grade.proximoLivre(-3));
+        assertEquals(OcupacaoDiaria.SLOTS_POR_DIA - 1, grade.proximoLivre(1));
+        assertEquals(OcupacaoDiaria.SLOTS_POR_DIA - 1, grade.proximoLivre(OcupacaoDiaria.SLOTS_POR_DIA - 1));
+        assertEquals(-1, grade.proximoLivre(OcupacaoDiaria.SLOTS_POR_DIA));
+        assertEquals(-1, OcupacaoDiaria.fechado().proximoLivre(0));
+    }
+
+    @Test
+    void slotTetoArredondaParaCima() {
+        assertEquals(96, OcupacaoDiaria.slotTeto(LocalTime.of(8, 0)));
+        assertEquals(97, OcupacaoDiaria.slotTeto(LocalTime.of(8, 0, 1)));
+        assertEquals(97, OcupacaoDiaria.slotTeto(LocalTime.of(8, 0, 0, 1)));
+        assertEquals(97, OcupacaoDiaria.slotTeto(LocalTime.of(8, 3)));
+        assertEquals(97, OcupacaoDiaria.slotTeto(LocalTime.of(8, 5)));
+        assertEquals(96, OcupacaoDiaria.slot(LocalTime.of(8, 3)));
+        // Depois da última fatia que começa no dia: nenhum início possível
+        assertEquals(OcupacaoDiaria.SLOTS_POR_DIA, OcupacaoDiaria.slotTeto(LocalTime.of(23, 58)));
+    }
+
+    @Test
+    void ocuparApagaTodaFatiaTocada() {
+        OcupacaoDiaria grade = OcupacaoDiaria.fechado().liberar(8 * 60, 9 * 60);
+
+        // 08:31 a 08:34 apaga a fatia das 08:30 inteira, e só ela
+        grade.ocupar(8 * 60 + 31, 8 * 60 + 34);
+        assertFalse(grade.livre(102, 103));
+        assertTrue(grade.livre(96, 102));
+        assertTrue(grade.livre(103, 108));
+
+        // Agenda sem duração ocupa a fatia do seu início
+        grade.ocupar(8 * 60 + 45, 8 * 60 + 45);
+        assertFalse(grade.livre(105, 106));
+        assertEquals(10, grade.fatiasLivres());
+    }
+}
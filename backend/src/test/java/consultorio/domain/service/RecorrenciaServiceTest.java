@@ -0,0 +1,88 @@
+package consultorio.consultorio.domain.service;
+
+import consultorio.consultorio.domain.entity.Dentista;
+import consultorio.consultorio.domain.entity.RecorrenciaAgenda;
+import consultorio.consultorio.domain.exception.BusinessException;
+import consultorio.consultorio.domain.repository.AgendaRepository;
+import consultorio.consultorio.domain.repository.RecorrenciaAgendaRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Criação de séries: toda ocorrência dentro do horizonte é conferida no
+ * expediente, não só a primeira.
+ */
+class RecorrenciaServiceTest {
+
+    private final RecorrenciaAgendaRepository repository = mock(RecorrenciaAgendaRepository.class);
+    private final CalendarioService calendarioService = mock(CalendarioService.class);
+    private final RecorrenciaService service = new RecorrenciaService(repository, mock(AgendaRepository.class),
+            mock(AgendaIntervalIndex.class), mock(AgendamentoLocks.class), mock(AgendaVersoes.class),
+            calendarioService, mock(ReservaHorarioService.class));
+
+    private final LocalDateTime primeira = LocalDate.now()
+            .with(TemporalAdjusters.next(DayOfWeek.MONDAY)).plusWeeks(1).atTime(9, 0);
+
+    @Test
+    void serieComOcorrenciasForaDoExpedienteEhRecusadaComAsDatas() {
+        // A 2ª e a 4ª segundas caem num feriado e numa ausência do dentista
+        Set<LocalDate> fechados = Set.of(primeira.plusWeeks(1).toLocalDate(), primeira.plusWeeks(3).toLocalDate());
+        when(calendarioService.atende(eq(1L), any(), anyInt()))
+                .thenAnswer(chamada -> !fechados.contains(((LocalDateTime) chamada.getArgument(1)).toLocalDate()));
+
+        BusinessException erro = assertThrows(BusinessException.class, () -> service.criar(semanal(5)));
+
+        assertEquals("A série tem ocorrências fora do expediente do dentista ou em período bloqueado: "
+                        + primeira.plusWeeks(1).toLocalDate() + ", " + primeira.plusWeeks(3).toLocalDate() + ".",
+                erro.getMessage());
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void mensagemResumeQuandoHaMuitasDatas() {
+        when(calendarioService.atende(eq(1L), any(), anyInt()))
+                .thenAnswer(chamada -> chamada.getArgument(1).equals(primeira));
+
+        BusinessException erro = assertThrows(BusinessException.class, () -> service.criar(semanal(15)));
+
+        assertTrue(erro.getMessage().endsWith(" e mais 4."), erro.getMessage());
+    }
+
+    @Test
+    void serieInteiraNoExpedienteEhGravada() {
+        when(calendarioService.atende(eq(1L), any(), anyInt())).thenReturn(true);
+        when(repository.save(any(RecorrenciaAgenda.class))).thenAnswer(chamada -> chamada.getArgument(0));
+
+        service.criar(semanal(5));
+
+        verify(calendarioService).atende(1L, primeira.plusWeeks(4), 30);
+        verify(repository).save(any(RecorrenciaAgenda.class));
+    }
+
+    private RecorrenciaAgenda semanal(int ocorrencias) {
+        return RecorrenciaAgenda.builder()
+                .descricao("Manutenção")
+                .dentista(Dentista.builder().id(1L).build())
+                .inicio(primeira)
+                .tempoConsultaMinutos(30)
+                .frequencia(RecorrenciaAgenda.Frequencia.SEMANAL)
+                .ocorrencias(ocorrencias)
+                .build();
+    }
+}
@@ -0,0 +1,198 @@
+package consultorio.consultorio.domain.service;
+
+import consultorio.consultorio.domain.entity.Agenda;
+import consultorio.consultorio.domain.entity.AlocacaoRecurso;
+import consultorio.consultorio.domain.entity.Procedimento;
+import consultorio.consultorio.domain.entity.Recurso;
+import consultorio.consultorio.domain.exception.BusinessException;
+import consultorio.consultorio.domain.repository.AlocacaoRecursoRepository;
+import consultorio.consultorio.domain.repository.AlocacaoRecursoView;
+import consultorio.consultorio.domain.repository.ProcedimentoRepository;
+import consultorio.consultorio.domain.repository.RecursoRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Grade de inícios dos recursos: "ou" entre recursos do mesmo tipo,
+ * "e" entre os tipos exigidos. E a alocação de um lote, decidida em memória.
+ */
+class RecursoServiceTest {
+
+    private static final LocalDate DIA = LocalDate.of(2030, 1, 7);
+    private static final int MEIA_HORA = OcupacaoDiaria.slotsPara(30);
+
+    private final RecursoRepository recursoRepository = mock(RecursoRepository.class);
+    private final AlocacaoRecursoRepository alocacaoRepository = mock(AlocacaoRecursoRepository.class);
+    private final ProcedimentoRepository procedimentoRepository = mock(ProcedimentoRepository.class);
+    private final RecursoService service =
+            new RecursoService(recursoRepository, procedimentoRepository, alocacaoRepository);
+
+    @Test
+    void bastaUmRecursoLivreDeCadaTipo() {
+        when(recursoRepository.findByTipoInAndAtivoTrueOrderByIdAsc(any())).thenReturn(List.of(
+                recurso(1L, Recurso.Tipo.CADEIRA), recurso(2L, Recurso.Tipo.CADEIRA)));
+        when(alocacaoRepository.findNaFaixa(any(), any(), any())).thenReturn(List.of(
+                alocacao(1L, "09:00", "10:00"),
+                alocacao(2L, "09:30", "10:30")));
+
+        OcupacaoDiaria inicios = service.iniciosLivres(EnumSet.of(Recurso.Tipo.CADEIRA), DIA, MEIA_HORA);
+
+        assertTrue(comeca(inicios, "09:00"));   // cadeira 2 ainda livre até 9h30
+        assertFalse(comeca(inicios, "09:30"));  // as duas ocupadas
+        assertFalse(comeca(inicios, "09:45"));
+        assertTrue(comeca(inicios, "10:00"));   // cadeira 1 liberada
+    }
+
+    @Test
+    void tipoSemRecursoCadastradoFechaODia() {
+        when(recursoRepository.findByTipoInAndAtivoTrueOrderByIdAsc(any())).thenReturn(List.of(
+                recurso(1L, Recurso.Tipo.CADEIRA)));
+        when(alocacaoRepository.findNaFaixa(any(), any(), any())).thenReturn(List.of());
+
+        OcupacaoDiaria inicios = service.iniciosLivres(
+                EnumSet.of(Recurso.Tipo.CADEIRA, Recurso.Tipo.SALA_CIRURGICA), DIA, MEIA_HORA);
+
+        assertFalse(comeca(inicios, "09:00"));
+        assertFalse(comeca(inicios, "14:00"));
+    }
+
+    @Test
+    void loteLeAsAlocacoesUmaVezEConsideraOQueOProprioLoteOcupou() {
+        cadeirasParaCanal();
+
+        List<AlocacaoRecurso> alocacoes = service.alocarTodos(List.of(consulta("09:00"), consulta("09:30")));
+
+        // 09:00: a cadeira 1 está ocupada no banco; 09:30: a 1 já liberou
+        assertEquals(List.of(2L, 1L), alocacoes.stream().map(a -> a.getRecurso().getId()).toList());
+        verify(alocacaoRepository).findNaFaixa(Set.of(1L, 2L), DIA.atTime(9, 0), DIA.atTime(10, 0));
+        verify(alocacaoRepository, times(1)).findNaFaixa(any(), any(), any());
+    }
+
+    @Test
+    void loteSemRecursoLivreEhRecusado() {
+        cadeirasParaCanal();
+
+        // 09:15: a cadeira 1 ocupada no banco, a 2 pelo item das 09:00
+        assertThrows(BusinessException.class,
+                () -> service.alocarTodos(List.of(consulta("09:00"), consulta("09:15"))));
+    }
+
+    @Test
+    void disponibilidadeLeAsAlocacoesDeTodosOsCandidatosDeUmaVez() {
+        when(procedimentoRepository.findByNomeIgnoreCase("Cirurgia")).thenReturn(Optional.of(Procedimento.builder()
+                .nome("Cirurgia").recursos(EnumSet.of(Recurso.Tipo.CADEIRA, Recurso.Tipo.SALA_CIRURGICA)).build()));
+        when(recursoRepository.findByTipoInAndAtivoTrueOrderByIdAsc(any())).thenReturn(List.of(
+                recurso(1L, Recurso.Tipo.CADEIRA), recurso(2L, Recurso.Tipo.CADEIRA),
+                recurso(3L, Recurso.Tipo.SALA_CIRURGICA)));
+        // A cadeira 1 e a sala ocupadas das 9h às 9h30
+        when(alocacaoRepository.findNaFaixa(any(), any(), any())).thenAnswer(chamada -> {
+            LocalDateTime de = chamada.getArgument(1);
+            return de.isBefore(DIA.atTime(9, 30))
+                    ? List.of(alocacao(1L, "09:00", "09:30"), alocacao(3L, "09:00", "09:30"))
+                    : List.of();
+        });
+
+        // Sobra cadeira (a 2), mas não sala
+        assertFalse(service.recursosLivres("Cirurgia", DIA.atTime(9, 0), DIA.atTime(9, 30)));
+        assertTrue(service.recursosLivres("Cirurgia", DIA.atTime(9, 30), DIA.atTime(10, 0)));
+        verify(alocacaoRepository, times(2)).findNaFaixa(any(), any(), any());
+    }
+
+    @Test
+    void faixaDeVariosDiasSeparaAsAlocacoesPorDia() {
+        when(recursoRepository.findByTipoInAndAtivoTrueOrderByIdAsc(any())).thenReturn(List.of(
+                recurso(1L, Recurso.Tipo.CADEIRA)));
+        // 23h30 às 0h30: ocupa o fim de um dia e o começo do seguinte
+        when(alocacaoRepository.findNaFaixa(any(), any(), any())).thenReturn(List.of(new AlocacaoRecursoView() {
+            @Override
+            public Long getRecursoId() {
+                return 1L;
+            }
+
+            @Override
+            public LocalDateTime getInicio() {
+                return DIA.atTime(23, 30);
+            }
+
+            @Override
+            public LocalDateTime getFim() {
+                return DIA.plusDays(1).atTime(0, 30);
+            }
+        }));
+        Set<Recurso.Tipo> cadeira = EnumSet.of(Recurso.Tipo.CADEIRA);
+
+        RecursoService.AlocacoesNaFaixa faixa = service.alocacoesNaFaixa(cadeira, DIA, DIA.plusDays(3));
+
+        assertFalse(comeca(faixa.iniciosLivres(cadeira, DIA, MEIA_HORA), "23:30"));
+        assertTrue(comeca(faixa.iniciosLivres(cadeira, DIA, MEIA_HORA), "23:00"));
+        assertFalse(comeca(faixa.iniciosLivres(cadeira, DIA.plusDays(1), MEIA_HORA), "00:00"));
+        assertTrue(comeca(faixa.iniciosLivres(cadeira, DIA.plusDays(1), MEIA_HORA), "00:30"));
+        assertTrue(comeca(faixa.iniciosLivres(cadeira, DIA.plusDays(2), MEIA_HORA), "00:00"));
+        assertFalse(faixa.cobre(DIA.plusDays(3)));
+        verify(alocacaoRepository, times(1)).findNaFaixa(any(), any(), any());
+    }
+
+    private void cadeirasParaCanal() {
+        when(procedimentoRepository.findByNomeIgnoreCase("Canal")).thenReturn(Optional.of(Procedimento.builder()
+                .nome("Canal").recursos(EnumSet.of(Recurso.Tipo.CADEIRA)).build()));
+        when(recursoRepository.findByTipoInAndAtivoTrueOrderByIdAsc(any())).thenReturn(List.of(
+                recurso(1L, Recurso.Tipo.CADEIRA), recurso(2L, Recurso.Tipo.CADEIRA)));
+        when(alocacaoRepository.findNaFaixa(any(), any(), any())).thenReturn(List.of(
+                alocacao(1L, "09:00", "09:30")));
+    }
+
+    private static Agenda consulta(String horario) {
+        return Agenda.builder()
+                .horario(DIA.atTime(LocalTime.parse(horario)))
+                .tempoConsultaMinutos(30)
+                .procedimento("Canal")
+                .build();
+    }
+
+    private static boolean comeca(OcupacaoDiaria inicios, String horario) {
+        int slot = OcupacaoDiaria.slot(LocalTime.parse(horario));
+        return inicios.livre(slot, slot + 1);
+    }
+
+    private static Recurso recurso(Long id, Recurso.Tipo tipo) {
+        return Recurso.builder().id(id).nome(tipo + " " + id).tipo(tipo).build();
+    }
+
+    private static AlocacaoRecursoView alocacao(Long recursoId, String inicio, String fim) {
+        LocalDateTime de = DIA.atTime(LocalTime.parse(inicio));
+        LocalDateTime ate = DIA.atTime(LocalTime.parse(fim));
+        return new AlocacaoRecursoView() {
+            @Override
+            public Long getRecursoId() {
+                return recursoId;
+            }
+
+            @Override
+            public LocalDateTime getInicio() {
+                return de;
+            }
+
+            @Override
+            public LocalDateTime getFim() {
+                return ate;
+            }
+        };
+    }
+}
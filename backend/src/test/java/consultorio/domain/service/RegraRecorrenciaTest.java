@@ -0,0 +1,69 @@
+package consultorio.consultorio.domain.service;
+
+import consultorio.consultorio.domain.entity.RecorrenciaAgenda.Frequencia;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegraRecorrenciaTest {
+
+    private static final LocalDateTime PRIMEIRA = LocalDateTime.of(2030, 1, 7, 9, 0);
+
+    @Test
+    void expandeSoAsOcorrenciasDaFaixa() {
+        RegraRecorrencia semanal = regra(Frequencia.SEMANAL, 1, null, null, Set.of());
+
+        // Dez anos depois: salta direto para a faixa em vez de percorrer desde o início
+        LocalDateTime de = LocalDateTime.of(2040, 3, 1, 0, 0);
+        List<LocalDateTime> inicios = semanal.inicios(de, de.plusDays(14));
+
+        assertEquals(2, inicios.size());
+        inicios.forEach(inicio -> assertEquals(PRIMEIRA.getDayOfWeek(), inicio.getDayOfWeek()));
+        inicios.forEach(inicio -> assertEquals(PRIMEIRA.toLocalTime(), inicio.toLocalTime()));
+    }
+
+    @Test
+    void incluiOcorrenciaQueComecaAntesEAindaOcupaAFaixa() {
+        RegraRecorrencia diaria = regra(Frequencia.DIARIA, 1, null, null, Set.of());
+
+        List<LocalDateTime> inicios = diaria.inicios(PRIMEIRA.plusDays(3).plusMinutes(30), PRIMEIRA.plusDays(3).plusMinutes(40));
+
+        assertEquals(List.of(PRIMEIRA.plusDays(3)), inicios);
+    }
+
+    @Test
+    void respeitaQuantidadeDataFinalEExcecoes() {
+        RegraRecorrencia limitada = regra(Frequencia.SEMANAL, 2, null, 3, Set.of(PRIMEIRA.plusWeeks(2).toLocalDate()));
+        assertEquals(List.of(PRIMEIRA, PRIMEIRA.plusWeeks(4)), limitada.inicios(PRIMEIRA, PRIMEIRA.plusYears(1)));
+
+        RegraRecorrencia ateData = regra(Frequencia.DIARIA, 1, PRIMEIRA.toLocalDate().plusDays(2), null, Set.of());
+        assertEquals(3, ateData.inicios(PRIMEIRA.minusDays(10), PRIMEIRA.plusYears(1)).size());
+    }
+
+    @Test
+    void mensalVoltaAoDiaOriginalDepoisDeMesCurto() {
+        LocalDateTime dia31 = LocalDateTime.of(2030, 1, 31, 14, 0);
+        RegraRecorrencia mensal = new RegraRecorrencia(1L, 1L, dia31, 60, Frequencia.MENSAL, 1, null, null, Set.of());
+
+        List<LocalDateTime> inicios = mensal.inicios(dia31, dia31.plusMonths(2).plusDays(1));
+
+        assertEquals(List.of(dia31, LocalDateTime.of(2030, 2, 28, 14, 0), LocalDateTime.of(2030, 3, 31, 14, 0)), inicios);
+    }
+
+    @Test
+    void faixaAntesDaPrimeiraOcorrenciaFicaVazia() {
+        RegraRecorrencia semanal = regra(Frequencia.SEMANAL, 1, null, null, Set.of());
+        assertTrue(semanal.inicios(PRIMEIRA.minusDays(7), PRIMEIRA).isEmpty());
+    }
+
+    private static RegraRecorrencia regra(Frequencia frequencia, int intervalo, LocalDate ate,
+                                          Integer ocorrencias, Set<LocalDate> excecoes) {
+        return new RegraRecorrencia(1L, 1L, PRIMEIRA, 60, frequencia, intervalo, ate, ocorrencias, excecoes);
+    }
+}
@@ -0,0 +1,86 @@
+package consultorio.consultorio.domain.service;
+
+import consultorio.consultorio.domain.entity.ReservaHorario;
+import consultorio.consultorio.domain.repository.ReservaHorarioRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Parte em memória das reservas: sem transação ativa, o registro acontece
+ * na hora; o repositório simulado só devolve o que cada teste pede.
+ */
+class ReservaHorarioServiceTest {
+
+    private static final LocalDateTime NOVE = LocalDateTime.of(2030, 1, 7, 9, 0);
+
+    private final ReservaHorarioRepository repository = mock(ReservaHorarioRepository.class);
+
+    ReservaHorarioServiceTest() {
+        when(repository.save(any(ReservaHorario.class))).thenAnswer(chamada -> chamada.getArgument(0));
+    }
+
+    @Test
+    void reservaDesteNoBloqueiaSemConsultarOBanco() {
+        ReservaHorarioService service = new ReservaHorarioService(repository, 180, 15);
+        ReservaHorario reserva = service.reservar(1L, NOVE, NOVE.plusMinutes(30));
+
+        assertTrue(service.temConflito(1L, NOVE.plusMinutes(15), NOVE.plusMinutes(45), null));
+        verify(repository, never()).existsConflito(any(), any(), any(), any(), any());
+
+        // Quem tem o token passa; outro dentista e horário vizinho não são afetados
+        assertFalse(service.temConflito(1L, NOVE, NOVE.plusMinutes(30), reserva.getId()));
+        assertFalse(service.temConflito(2L, NOVE, NOVE.plusMinutes(30), null));
+        assertFalse(service.temConflito(1L, NOVE.plusMinutes(30), NOVE.plusMinutes(60), null));
+
+        service.liberar(reserva.getId());
+        assertFalse(service.temConflito(1L, NOVE, NOVE.plusMinutes(30), null));
+    }
+
+    @Test
+    void reservaVencidaDeixaDeBloquear() {
+        ReservaHorarioService service = new ReservaHorarioService(repository, 0, 15);
+        service.reservar(1L, NOVE, NOVE.plusMinutes(30));
+
+        assertFalse(service.temConflito(1L, NOVE, NOVE.plusMinutes(30), null));
+    }
+
+    @Test
+    void reservaDeOutroNoVemNaLeituraENaoHaConsultaPorHorario() {
+        when(repository.findValidasDoDentista(eq(1L), any())).thenReturn(List.of(ReservaHorario.builder()
+                .id("outro-no").dentistaId(1L).inicio(NOVE).fim(NOVE.plusMinutes(30))
+                .expiraEm(LocalDateTime.now().plusMinutes(3)).build()));
+        ReservaHorarioService service = new ReservaHorarioService(repository, 180, 15);
+
+        assertTrue(service.temConflito(1L, NOVE, NOVE.plusMinutes(15), null));
+        assertFalse(service.temConflito(1L, NOVE.plusMinutes(30), NOVE.plusMinutes(60), null));
+        assertEquals(1, service.reservasNaFaixa(1L, NOVE.toLocalDate().atStartOfDay(),
+                NOVE.toLocalDate().plusDays(1).atStartOfDay()).size());
+
+        // Uma leitura por dentista dentro da validade; o "livre" não pergunta ao banco
+        verify(repository, times(1)).findValidasDoDentista(eq(1L), any());
+        verify(repository, never()).existsConflito(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void quemGravaConfirmaOLivreNoBanco() {
+        when(repository.existsConflito(eq(1L), any(), any(), any(), any())).thenReturn(true);
+        ReservaHorarioService service = new ReservaHorarioService(repository, 180, 15);
+
+        // A cópia em memória não sabe da reserva; o banco sabe
+        assertFalse(service.temConflito(1L, NOVE, NOVE.plusMinutes(30), null));
+        assertTrue(service.temConflitoNoBanco(1L, NOVE, NOVE.plusMinutes(30), null));
+    }
+}
@@ -0,0 +1,119 @@
+package consultorio.consultorio.domain.service;
+
+import consultorio.consultorio.domain.entity.Dentista;
+import consultorio.consultorio.domain.entity.PlanoTratamento;
+import consultorio.consultorio.domain.entity.Procedimento;
+import consultorio.consultorio.domain.entity.Recurso;
+import consultorio.consultorio.domain.repository.AlocacaoRecursoRepository;
+import consultorio.consultorio.domain.repository.PlanoTratamentoRepository;
+import consultorio.consultorio.domain.repository.ProcedimentoRepository;
+import consultorio.consultorio.domain.repository.RecursoRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Dentista com expediente 8h-18h em dias úteis e agenda vazia; procedimentos
+ * sem cadastro (30 minutos, sem recursos).
+ */
+class SugestaoAgendaServiceTest {
+
+    // Segunda-feira
+    private static final LocalDateTime INICIO = LocalDateTime.of(2030, 1, 7, 8, 0);
+
+    private final PlanoTratamentoRepository planoRepository = mock(PlanoTratamentoRepository.class);
+    private final HorarioLivreService horarioLivreService = mock(HorarioLivreService.class);
+    private final SugestaoAgendaService service = new SugestaoAgendaService(planoRepository,
+            mock(ProcedimentoRepository.class), horarioLivreService, mock(RecursoService.class), 150);
+
+    SugestaoAgendaServiceTest() {
+        when(horarioLivreService.disponibilidade(anyLong(), any(LocalDate.class))).thenAnswer(chamada -> {
+            LocalDate dia = chamada.getArgument(1);
+            boolean util = dia.getDayOfWeek().getValue() <= 5;
+            return util ? OcupacaoDiaria.fechado().liberar(8 * 60, 18 * 60) : OcupacaoDiaria.fechado();
+        });
+        Dentista dentista = Dentista.builder().id(1L).build();
+        when(planoRepository.findByPacienteId(10L)).thenReturn(List.of(
+                PlanoTratamento.builder().id(1L).dente("11").procedimento("Canal").dentista(dentista).build(),
+                PlanoTratamento.builder().id(2L).dente("11").procedimento("Coroa").dentista(dentista).build()));
+    }
+
+    @Test
+    void esperaAlgunsDiasPeloHorarioPreferidoERespeitaOIntervalo() {
+        SugestaoAgendaService.Sugestao sugestao = service.sugerir(10L, pedido(
+                new SugestaoAgendaService.Preferencia(DayOfWeek.THURSDAY, LocalTime.of(14, 0), LocalTime.of(16, 0))));
+
+        assertEquals(2, sugestao.sessoes().size());
+        assertEquals(LocalDateTime.of(2030, 1, 10, 14, 0), sugestao.sessoes().get(0).inicio());
+        assertEquals(LocalDateTime.of(2030, 1, 17, 14, 0), sugestao.sessoes().get(1).inicio());
+        assertTrue(sugestao.sessoes().stream().allMatch(SugestaoAgendaService.Sessao::dentroDaPreferencia));
+        assertTrue(sugestao.pendentes().isEmpty());
+    }
+
+    @Test
+    void preferenciaImpossivelNaoAtrasaOTratamento() {
+        // Domingo: o dentista não atende, então vale o primeiro horário qualquer
+        SugestaoAgendaService.Sugestao sugestao = service.sugerir(10L, pedido(
+                new SugestaoAgendaService.Preferencia(DayOfWeek.SUNDAY, LocalTime.of(9, 0), LocalTime.of(12, 0))));
+
+        assertEquals(INICIO, sugestao.sessoes().get(0).inicio());
+        assertEquals(INICIO.plusDays(7), sugestao.sessoes().get(1).inicio());
+        assertFalse(sugestao.sessoes().get(0).dentroDaPreferencia());
+    }
+
+    @Test
+    void orcamentoEsgotadoNoGulosoDevolveSugestaoParcial() {
+        SugestaoAgendaService semTempo = new SugestaoAgendaService(planoRepository,
+                mock(ProcedimentoRepository.class), horarioLivreService, mock(RecursoService.class), 0);
+
+        SugestaoAgendaService.Sugestao sugestao = semTempo.sugerir(10L, pedido(
+                new SugestaoAgendaService.Preferencia(DayOfWeek.THURSDAY, LocalTime.of(14, 0), LocalTime.of(16, 0))));
+
+        assertFalse(sugestao.convergiu());
+        assertEquals(List.of(1L, 2L), sugestao.pendentes());
+        assertTrue(sugestao.sessoes().isEmpty());
+    }
+
+    @Test
+    void alocacoesDosRecursosSaoLidasUmaVezParaOHorizonteInteiro() {
+        ProcedimentoRepository procedimentoRepository = mock(ProcedimentoRepository.class);
+        when(procedimentoRepository.findByNomeIgnoreCase(any())).thenAnswer(chamada -> Optional.of(Procedimento.builder()
+                .nome(chamada.getArgument(0)).recursos(EnumSet.of(Recurso.Tipo.CADEIRA)).build()));
+        RecursoRepository recursoRepository = mock(RecursoRepository.class);
+        when(recursoRepository.findByTipoInAndAtivoTrueOrderByIdAsc(any())).thenReturn(List.of(
+                Recurso.builder().id(1L).nome("Cadeira 1").tipo(Recurso.Tipo.CADEIRA).build()));
+        AlocacaoRecursoRepository alocacaoRepository = mock(AlocacaoRecursoRepository.class);
+        SugestaoAgendaService comRecursos = new SugestaoAgendaService(planoRepository, procedimentoRepository,
+                horarioLivreService, new RecursoService(recursoRepository, procedimentoRepository, alocacaoRepository),
+                150);
+
+        SugestaoAgendaService.Sugestao sugestao = comRecursos.sugerir(10L, pedido(
+                new SugestaoAgendaService.Preferencia(DayOfWeek.THURSDAY, LocalTime.of(14, 0), LocalTime.of(16, 0))));
+
+        assertEquals(2, sugestao.sessoes().size());
+        verify(alocacaoRepository, times(1)).findNaFaixa(any(), eq(INICIO.toLocalDate().atStartOfDay()),
+                eq(INICIO.toLocalDate().plusDays(120).atStartOfDay()));
+        verify(alocacaoRepository, times(1)).findNaFaixa(any(), any(), any());
+    }
+
+    private static SugestaoAgendaService.Pedido pedido(SugestaoAgendaService.Preferencia preferencia) {
+        return new SugestaoAgendaService.Pedido(List.of(), null, INICIO, 7, List.of(preferencia));
+    }
+}
@@ -0,0 +1,92 @@
+package consultorio.consultorio.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ICalendarTest {
+
+    @Test
+    void dobraEm75OctetosSemPartirCaracteres() throws IOException {
+        StringWriter saida = new StringWriter();
+        String valor = "Manutenção ortodôntica - João da Conceição ".repeat(5);
+
+        ICalendar.linha(saida, "SUMMARY", ICalendar.texto(valor));
+
+        String[] linhas = saida.toString().split("\r\n");
+        for (int i = 0; i < linhas.length; i++) {
+            assertTrue(linhas[i].getBytes(StandardCharsets.UTF_8).length <= 75, "linha " + i + " passou de 75 octetos");
+            if (i > 0) {
+                assertTrue(linhas[i].startsWith(" "));
+            }
+        }
+
+        // Desdobrar (remover CRLF + espaço) devolve o conteúdo original
+        String desdobrado = saida.toString().replace("\r\n ", "");
+        assertEquals("SUMMARY:" + valor + "\r\n", desdobrado);
+    }
+
+    @Test
+    void escapaCaracteresReservados() {
+        assertEquals("Retorno\\, limpeza\\; canal\\nobs: \\\\", ICalendar.texto("Retorno, limpeza; canal\r\nobs: \\"));
+    }
+
+    @Test
+    void leitorDesdobraLinhasESeparaParametros() throws IOException {
+        String ics = "BEGIN:VEVENT\r\n" +
+                "DTSTART;TZID=\"America/New_York\":20300107T090000\r\n" +
+                "DTEND:20300107T143000Z\r\n" +
+                "SUMMARY:Limpeza\\, profilaxia e \r\n" +
+                " avaliação\r\n" +
+                "DTSTAMP;VALUE=DATE:20300101\r\n";
+        ICalendar.Leitor leitor = new ICalendar.Leitor(new BufferedReader(new StringReader(ics)));
+        ZoneId saoPaulo = ZoneId.of("America/Sao_Paulo");
+
+        assertEquals("VEVENT", leitor.proxima().valor());
+
+        ICalendar.Propriedade inicio = leitor.proxima();
+        assertEquals("DTSTART", inicio.nome());
+        assertEquals("America/New_York", inicio.parametro("TZID"));
+        assertEquals(LocalDateTime.of(2030, 1, 7, 11, 0), ICalendar.dataHora(inicio, saoPaulo));
+
+        assertEquals(LocalDateTime.of(2030, 1, 7, 11, 30), ICalendar.dataHora(leitor.proxima(), saoPaulo));
+        assertEquals("Limpeza, profilaxia e avaliação", ICalendar.textoOriginal(leitor.proxima().valor()));
+        assertNull(ICalendar.dataHora(leitor.proxima(), saoPaulo));
+        assertNull(leitor.proxima());
+    }
+
+    @Test
+    void vtimezoneTrazAsTransicoesEAsRegrasDeHorarioDeVerao() throws IOException {
+        StringWriter saoPaulo = new StringWriter();
+        ICalendar.fuso(saoPaulo, ZoneId.of("America/Sao_Paulo"), LocalDate.of(2018, 6, 1));
+
+        // Último horário de verão (nov/2018 a fev/2019), depois só o padrão, sem RRULE
+        assertEquals("BEGIN:VTIMEZONE\r\nTZID:America/Sao_Paulo\r\n" +
+                "BEGIN:STANDARD\r\nDTSTART:19700101T000000\r\nTZOFFSETFROM:-0300\r\nTZOFFSETTO:-0300\r\nEND:STANDARD\r\n" +
+                "BEGIN:DAYLIGHT\r\nDTSTART:20181104T000000\r\nTZOFFSETFROM:-0300\r\nTZOFFSETTO:-0200\r\nEND:DAYLIGHT\r\n" +
+                "BEGIN:STANDARD\r\nDTSTART:20190217T000000\r\nTZOFFSETFROM:-0200\r\nTZOFFSETTO:-0300\r\nEND:STANDARD\r\n" +
+                "END:VTIMEZONE\r\n", saoPaulo.toString());
+
+        StringWriter novaYork = new StringWriter();
+        ICalendar.fuso(novaYork, ZoneId.of("America/New_York"), LocalDate.of(2030, 1, 1));
+        String texto = novaYork.toString();
+
+        // Segundo domingo de março e primeiro de novembro
+        assertTrue(texto.contains("BEGIN:DAYLIGHT\r\nDTSTART:"), texto);
+        assertTrue(texto.contains("RRULE:FREQ=YEARLY;BYMONTH=3;BYDAY=SU;BYMONTHDAY=8,9,10,11,12,13,14\r\n" +
+                "TZOFFSETFROM:-0500\r\nTZOFFSETTO:-0400\r\n"), texto);
+        assertTrue(texto.contains("RRULE:FREQ=YEARLY;BYMONTH=11;BYDAY=SU;BYMONTHDAY=1,2,3,4,5,6,7\r\n" +
+                "TZOFFSETFROM:-0400\r\nTZOFFSETTO:-0500\r\n"), texto);
+    }
+}
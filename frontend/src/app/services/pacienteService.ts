@@ -87,11 +87,25 @@ export type Paciente = {
 
 export type CreatePacienteData = Omit<Paciente, "id" | "dataCadastro">
 
+export type PacientePagina = {
+    itens: Paciente[]
+    // Nulo na última página
+    proximoCursor: string | null
+    totalAproximado: number | null
+}
+
 const BASE_URL = `${process.env.NEXT_PUBLIC_API_BASE_URL}/paciente`
 
 export const PacienteService = {
+    // Lista completa de uma vez; para listagens grandes, use getPaginaPacientes
     async getPacientes(): Promise<Paciente[]> {
-        const { data } = await api.get(BASE_URL)
+        const { data } = await api.get(`${BASE_URL}/todos`)
+        return data
+    },
+
+    // Listagem padrão do backend: uma página por vez, seguindo proximoCursor
+    async getPaginaPacientes(cursor?: string, tamanho?: number): Promise<PacientePagina> {
+        const { data } = await api.get(BASE_URL, { params: { cursor, tamanho } })
         return data
     },
 
@@ -88,10 +88,24 @@ export type Paciente = {
 
 export type CreatePacienteData = Omit<Paciente, "id" | "dataCadastro">
 
+export type PacientePagina = {
+    itens: Paciente[]
+    // Nulo na última página
+    proximoCursor: string | null
+    totalAproximado: number | null
+}
+
 const BASE_URL = "/paciente"
 
+// Lista completa de uma vez; para listagens grandes, use getPaginaPacientes
 export async function getPacientes(): Promise<Paciente[]> {
-    const { data } = await api.get(BASE_URL)
+    const { data } = await api.get(`${BASE_URL}/todos`)
+    return data
+}
+
+// Listagem padrão do backend: uma página por vez, seguindo proximoCursor
+export async function getPaginaPacientes(cursor?: string, tamanho?: number): Promise<PacientePagina> {
+    const { data } = await api.get(BASE_URL, { params: { cursor, tamanho } })
     return data
 }
 